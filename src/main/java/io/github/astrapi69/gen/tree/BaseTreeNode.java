@@ -24,16 +24,36 @@
  */
 package io.github.astrapi69.gen.tree;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.LinkedHashSet;
+import java.util.Deque;
+import java.util.List;
 import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import io.github.astrapi69.gen.tree.api.IBaseTreeNode;
+import io.github.astrapi69.gen.tree.api.IBaseTreeNodeListener;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import io.github.astrapi69.gen.tree.frozen.FrozenTree;
+import io.github.astrapi69.gen.tree.handler.ITreeNodeHandlerExtensions;
+import io.github.astrapi69.gen.tree.handler.TreeNodeVisitorHandlerExtensions;
+import io.github.astrapi69.gen.tree.intern.TreeValueInterner;
+import io.github.astrapi69.gen.tree.layout.TreeLayout;
+import io.github.astrapi69.gen.tree.layout.TreeLayoutOrder;
 import lombok.AccessLevel;
+import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
@@ -43,6 +63,21 @@ import lombok.experimental.SuperBuilder;
 /**
  * The generic class {@link BaseTreeNode} have a generic id and value object
  *
+ * <p>
+ * The Java serialization of a {@link BaseTreeNode} object writes the whole tree of its root once
+ * per stream as flat pre-order stream of the nodes without a recursion over the parent and the
+ * children, so also degenerated deep trees can be serialized. The deserialized node is restored
+ * at its position in the restored tree, and all nodes of one tree that are written to the same
+ * stream are restored as the nodes of one restored tree. The ids, the values and the child
+ * comparators have to be serializable, the listeners and the interner are not serialized
+ *
+ * <p>
+ * The generated {@link #equals(Object)} and {@link #hashCode()} methods include the id, the value
+ * and the display value, so a child collection that compares the children with these methods has
+ * to hash the values on every operation and loses a child whose value changed. A node in the
+ * identity membership mode compares its children by identity, see
+ * {@link #setIdentityMembership(boolean)}
+ *
  * @param <V>
  *            the generic type of the value
  * @param <K>
@@ -51,13 +86,24 @@ import lombok.experimental.SuperBuilder;
 @Getter
 @Setter
 @NoArgsConstructor
-@EqualsAndHashCode(exclude = { "children", "parent" })
-@ToString(exclude = { "children", "parent" })
+@EqualsAndHashCode(exclude = { "children", "parent", "listeners", "identityMembership",
+		"treeValueInterner", "observedRoot" })
+@ToString(exclude = { "children", "parent", "listeners", "identityMembership",
+		"treeValueInterner", "observedRoot" })
 @SuperBuilder(toBuilder = true)
 @FieldDefaults(level = AccessLevel.PRIVATE)
-public class BaseTreeNode<V, K> implements IBaseTreeNode<V, K, BaseTreeNode<V, K>>
+public class BaseTreeNode<V, K> implements IBaseTreeNode<V, K, BaseTreeNode<V, K>>, Serializable
 {
 
+	/** The serialVersionUID */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * No field is written with the default serialization, the tree is written with
+	 * {@link #writeObject(ObjectOutputStream)}
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {};
+
 	/** The id from this node */
 	K id;
 
@@ -79,6 +125,117 @@ public class BaseTreeNode<V, K> implements IBaseTreeNode<V, K, BaseTreeNode<V, K
 	/** The flag that indicates if this tree node is a leaf or a node */
 	boolean leaf;
 
+	/**
+	 * The flag that indicates if the children of this node are compared by identity instead of
+	 * {@link #equals(Object)} and {@link #hashCode()}
+	 */
+	@Setter(AccessLevel.NONE)
+	boolean identityMembership;
+
+	/**
+	 * The listeners that are notified about the changes of the tree with this node as root, the
+	 * listeners are not copied with {@link #toBuilder()}
+	 */
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@Builder.ObtainVia(method = "noListeners")
+	List<IBaseTreeNodeListener<V, K, BaseTreeNode<V, K>>> listeners;
+
+	/**
+	 * The interner that canonicalizes the values and the display values of the tree with this
+	 * node as root, the interner is not copied with {@link #toBuilder()} and not serialized
+	 */
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@Builder.ObtainVia(method = "noTreeValueInterner")
+	TreeValueInterner<V> treeValueInterner;
+
+	/**
+	 * The root of the tree of this node if listeners or an interner are registered on it,
+	 * otherwise null. The reference is shared by all nodes of an observed tree, so a change of a
+	 * node finds the listeners and the interner without a walk up to the root and a change in a
+	 * tree without listeners and interner costs nothing. It is updated with
+	 * {@link #setParent(BaseTreeNode)} only for the subtree that changes from one observed tree to
+	 * another
+	 */
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@Builder.ObtainVia(method = "noObservedRoot")
+	BaseTreeNode<V, K> observedRoot;
+
+	/**
+	 * The builder class for the class {@link BaseTreeNode}. The listeners, the interner, the
+	 * observed root and the identity membership mode are managed by the tree, so their builder
+	 * methods are private and are only used by {@link #toBuilder()}. They are set on the built node
+	 * with {@link #addTreeNodeListener(IBaseTreeNodeListener)},
+	 * {@link #setTreeValueInterner(TreeValueInterner)} and {@link #setIdentityMembership(boolean)}
+	 *
+	 * @param <V>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id from the node
+	 * @param <C>
+	 *            the generic type of the built node
+	 * @param <B>
+	 *            the generic type of the builder
+	 */
+	public static abstract class BaseTreeNodeBuilder<V, K, C extends BaseTreeNode<V, K>,
+		B extends BaseTreeNodeBuilder<V, K, C, B>>
+	{
+
+		/**
+		 * Sets the identity membership mode of the copied node
+		 *
+		 * @param identityMembership
+		 *            the flag that indicates if the children are compared by identity
+		 * @return this builder
+		 */
+		private B identityMembership(final boolean identityMembership)
+		{
+			this.identityMembership = identityMembership;
+			return self();
+		}
+
+		/**
+		 * Sets the listeners, that are always null for a copied node
+		 *
+		 * @param listeners
+		 *            the listeners
+		 * @return this builder
+		 */
+		private B listeners(final List<IBaseTreeNodeListener<V, K, BaseTreeNode<V, K>>> listeners)
+		{
+			this.listeners = listeners;
+			return self();
+		}
+
+		/**
+		 * Sets the interner, that is always null for a copied node
+		 *
+		 * @param treeValueInterner
+		 *            the interner
+		 * @return this builder
+		 */
+		private B treeValueInterner(final TreeValueInterner<V> treeValueInterner)
+		{
+			this.treeValueInterner = treeValueInterner;
+			return self();
+		}
+
+		/**
+		 * Sets the observed root, that is always null for a copied node
+		 *
+		 * @param observedRoot
+		 *            the observed root
+		 * @return this builder
+		 */
+		private B observedRoot(final BaseTreeNode<V, K> observedRoot)
+		{
+			this.observedRoot = observedRoot;
+			return self();
+		}
+	}
+
 	/**
 	 * Instantiates a new {@link BaseTreeNode} object
 	 *
@@ -91,7 +248,9 @@ public class BaseTreeNode<V, K> implements IBaseTreeNode<V, K, BaseTreeNode<V, K
 	}
 
 	/**
-	 * Gets the children of this node
+	 * Gets the children of this node. Without a child comparator the children are kept in an
+	 * {@link AdaptiveLinkedSet}, that stores the few children of most nodes in a small array and
+	 * compares the children by identity in the identity membership mode
 	 *
 	 * @return the children
 	 */
@@ -101,7 +260,7 @@ public class BaseTreeNode<V, K> implements IBaseTreeNode<V, K, BaseTreeNode<V, K
 		{
 			if (this.childComparator == null)
 			{
-				this.children = new LinkedHashSet<>();
+				this.children = new AdaptiveLinkedSet<>(0, this.identityMembership);
 			}
 			else
 			{
@@ -111,6 +270,124 @@ public class BaseTreeNode<V, K> implements IBaseTreeNode<V, K, BaseTreeNode<V, K
 		return this.children;
 	}
 
+	/**
+	 * Gets the number of the children without the creation of the children collection
+	 *
+	 * @return the number of the children
+	 */
+	@Override
+	public int getChildCount()
+	{
+		return this.children == null ? 0 : this.children.size();
+	}
+
+	/**
+	 * Checks if this node has children without the creation of the children collection
+	 *
+	 * @return true, if this node has children otherwise false
+	 */
+	@Override
+	public boolean hasChildren()
+	{
+		return this.children != null && !this.children.isEmpty();
+	}
+
+	/**
+	 * Sets the identity membership mode of this node and all its descendants. In this mode the
+	 * children collections compare the children by identity, so adding, removing and finding a
+	 * child never calls {@link #equals(Object)} or {@link #hashCode()} and does not depend on the
+	 * size of the values. A changed value does not corrupt the children collection of the parent,
+	 * and {@link #traverse()} collects the nodes by identity as well. A child that is added to a
+	 * node in this mode gets the mode of its new parent. The children collections of nodes with a
+	 * child comparator are sorted and not affected. The mode can not be switched off as long as a
+	 * node of the subtree has children that are equal to each other, because an equals based
+	 * children collection would lose them
+	 *
+	 * @param identityMembership
+	 *            the flag that indicates if the children are compared by identity
+	 * @throws IllegalStateException
+	 *             if the mode is switched off and a node of the subtree has equal children, in this
+	 *             case no node is changed
+	 */
+	public void setIdentityMembership(final boolean identityMembership)
+	{
+		final List<BaseTreeNode<V, K>> nodes = new ArrayList<>();
+		final List<Collection<BaseTreeNode<V, K>>> newChildren = new ArrayList<>();
+		final Deque<BaseTreeNode<V, K>> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<V, K> node = stack.pop();
+			Collection<BaseTreeNode<V, K>> children = node.children;
+			if (children != null && node.childComparator == null
+				&& node.identityMembership != identityMembership)
+			{
+				// an empty collection is created again lazily in the new mode
+				children = children.isEmpty()
+					? null
+					: new AdaptiveLinkedSet<>(node.children.size(), identityMembership);
+				if (children != null && children.addAll(node.children)
+					&& children.size() != node.children.size())
+				{
+					throw new IllegalStateException("The node with the id " + node.id
+						+ " has children that are equal to each other, the identity membership"
+						+ " mode can not be switched off");
+				}
+			}
+			nodes.add(node);
+			newChildren.add(children);
+			if (children != null)
+			{
+				for (final BaseTreeNode<V, K> child : children)
+				{
+					stack.push(child);
+				}
+			}
+		}
+		for (int index = 0; index < nodes.size(); index++)
+		{
+			final BaseTreeNode<V, K> node = nodes.get(index);
+			node.identityMembership = identityMembership;
+			node.children = newChildren.get(index);
+		}
+	}
+
+	/**
+	 * Gives the given child the identity membership mode of this node if the modes differ. This
+	 * method is called before any other change of an add or a move, because it can throw an
+	 * exception and then changes nothing
+	 *
+	 * @param child
+	 *            the child
+	 * @throws IllegalStateException
+	 *             if the mode is switched off and a node of the subtree of the child has equal
+	 *             children
+	 */
+	private void inheritIdentityMembership(final BaseTreeNode<V, K> child)
+	{
+		if (child.identityMembership != this.identityMembership)
+		{
+			child.setIdentityMembership(this.identityMembership);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * In the identity membership mode the nodes are collected by identity, so distinct nodes that
+	 * are equal are all contained and no value is hashed
+	 */
+	@Override
+	public Collection<BaseTreeNode<V, K>> traverse()
+	{
+		if (this.identityMembership)
+		{
+			return TreeNodeVisitorHandlerExtensions.traverseByIdentity(this);
+		}
+		return TreeNodeVisitorHandlerExtensions.traverse(this);
+	}
+
 	/**
 	 * Sorts the children collection if the comparator is not null
 	 */
@@ -122,4 +399,694 @@ public class BaseTreeNode<V, K> implements IBaseTreeNode<V, K, BaseTreeNode<V, K
 				.collect(Collectors.toCollection(TreeSet::new));
 		}
 	}
+
+	/**
+	 * Freezes the subtree of this node into an immutable array based {@link FrozenTree} object,
+	 * that can be read from many threads without synchronization. The values are shared with this
+	 * subtree, later changes of this subtree are not visible in the frozen tree.
+	 *
+	 * @return the new {@link FrozenTree} object
+	 */
+	public FrozenTree<V, K> freeze()
+	{
+		return FrozenTree.of(this);
+	}
+
+	/**
+	 * Creates a deep copy of the subtree of this node. The values are shared with this subtree
+	 *
+	 * @return the root of the copied subtree
+	 * @see #copy(UnaryOperator)
+	 */
+	public BaseTreeNode<V, K> copy()
+	{
+		return copy(UnaryOperator.identity());
+	}
+
+	/**
+	 * Creates a deep copy of the subtree of this node. The copy is created iteratively, so also
+	 * degenerated deep trees can be copied. The ids, the display values, the leaf flags, the child
+	 * comparators and the order of the children are preserved, the values that are not null are
+	 * copied with the given value copier. The copied root has no parent and the listeners are not
+	 * copied. Every copied node is created with {@link #newCopyInstance()} of its source node, so
+	 * a subclass keeps its type in the copy
+	 *
+	 * @param valueCopier
+	 *            the function that copies a value that is not null
+	 * @return the root of the copied subtree
+	 */
+	public BaseTreeNode<V, K> copy(final @NonNull UnaryOperator<V> valueCopier)
+	{
+		final BaseTreeNode<V, K> rootCopy = copyNode(this, null, valueCopier);
+		final Deque<BaseTreeNode<V, K>> sources = new ArrayDeque<>();
+		final Deque<BaseTreeNode<V, K>> copies = new ArrayDeque<>();
+		sources.push(this);
+		copies.push(rootCopy);
+		while (!sources.isEmpty())
+		{
+			final BaseTreeNode<V, K> source = sources.pop();
+			final BaseTreeNode<V, K> copy = copies.pop();
+			if (source.children == null || source.children.isEmpty())
+			{
+				continue;
+			}
+			copy.children = source.childComparator == null
+				? new AdaptiveLinkedSet<>(source.children.size(), source.identityMembership)
+				: new TreeSet<>(source.childComparator);
+			for (final BaseTreeNode<V, K> child : source.children)
+			{
+				final BaseTreeNode<V, K> childCopy = copyNode(child, copy, valueCopier);
+				copy.children.add(childCopy);
+				sources.push(child);
+				copies.push(childCopy);
+			}
+		}
+		return rootCopy;
+	}
+
+	/**
+	 * Rebuilds the subtree of this node with new nodes that are allocated in the given
+	 * {@link TreeLayoutOrder}, so a traversal in this order visits the nodes mostly in the order
+	 * of their addresses. Every children collection is allocated together with its node. The ids,
+	 * the values, the display values, the leaf flags, the child comparators, the identity
+	 * membership mode and the order of the children are preserved, the new root has no parent and
+	 * the listeners are not copied. Every new node is created with {@link #newCopyInstance()} of
+	 * its source node, so a subclass keeps its type
+	 *
+	 * @param order
+	 *            the layout order
+	 * @return the root of the rebuilt subtree
+	 */
+	public BaseTreeNode<V, K> relayout(final @NonNull TreeLayoutOrder order)
+	{
+		final TreeLayout<BaseTreeNode<V, K>> layout = TreeLayout.of(this, node -> node.children,
+			order);
+		final List<BaseTreeNode<V, K>> copies = new ArrayList<>(layout.size());
+		for (int position = 0; position < layout.size(); position++)
+		{
+			final int parentPosition = layout.getParentPosition(position);
+			final BaseTreeNode<V, K> parentCopy = parentPosition == TreeLayout.NO_NODE
+				? null
+				: copies.get(parentPosition);
+			final BaseTreeNode<V, K> source = layout.getNode(position);
+			final BaseTreeNode<V, K> copy = copyNode(source, parentCopy, UnaryOperator.identity());
+			final int childCount = layout.getChildCount(position);
+			if (childCount != 0)
+			{
+				copy.children = source.childComparator == null
+					? new AdaptiveLinkedSet<>(childCount, source.identityMembership)
+					: new TreeSet<>(source.childComparator);
+			}
+			if (parentCopy != null)
+			{
+				parentCopy.children.add(copy);
+			}
+			copies.add(copy);
+		}
+		return copies.get(0);
+	}
+
+	/**
+	 * Factory method that creates the new empty node for a copy or a relayout of this node, the
+	 * fields of this class are set on the returned node by the caller. Subclasses override this
+	 * method to create an instance of their own type and to copy their own fields
+	 *
+	 * @return the new node for the copy of this node
+	 */
+	protected BaseTreeNode<V, K> newCopyInstance()
+	{
+		return new BaseTreeNode<>();
+	}
+
+	/**
+	 * Creates a copy of the given node without children and without notifying any listener
+	 *
+	 * @param source
+	 *            the node to copy
+	 * @param parent
+	 *            the parent of the copy
+	 * @param valueCopier
+	 *            the function that copies a value that is not null
+	 * @return the copy
+	 */
+	private static <V, K> BaseTreeNode<V, K> copyNode(final BaseTreeNode<V, K> source,
+		final BaseTreeNode<V, K> parent, final UnaryOperator<V> valueCopier)
+	{
+		final BaseTreeNode<V, K> copy = source.newCopyInstance();
+		copy.id = source.id;
+		copy.value = source.value == null ? null : valueCopier.apply(source.value);
+		copy.displayValue = source.displayValue;
+		copy.leaf = source.leaf;
+		copy.childComparator = source.childComparator;
+		copy.identityMembership = source.identityMembership;
+		copy.parent = parent;
+		return copy;
+	}
+
+	/**
+	 * Writes this node and, if this node is the first written node of its tree, the structure of
+	 * the whole tree as described in {@link TreeNodeSerialization}
+	 *
+	 * @param out
+	 *            the object output stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		TreeNodeSerialization.write(this, getRootNode(this), out, node -> node.children,
+			(node, output, flags) -> node.writeNodeFields(output, flags));
+	}
+
+	/**
+	 * Writes the record with the fields of this node
+	 *
+	 * @param out
+	 *            the object output stream
+	 * @param flags
+	 *            the additional flags of the record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeNodeFields(final ObjectOutputStream out, int flags) throws IOException
+	{
+		if (this.leaf)
+		{
+			flags |= TreeNodeSerialization.FLAG_LEAF;
+		}
+		if (this.identityMembership)
+		{
+			flags |= TreeNodeSerialization.FLAG_IDENTITY;
+		}
+		out.writeByte(flags);
+		out.writeObject(this.id);
+		out.writeObject(this.value);
+		out.writeObject(this.displayValue);
+		out.writeObject(this.childComparator);
+	}
+
+	/**
+	 * Reads this node and, if this node was the first written node of its tree, the structure of
+	 * the whole tree as described in {@link TreeNodeSerialization}
+	 *
+	 * @param in
+	 *            the object input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the stream contains an invalid
+	 *             tree
+	 * @throws ClassNotFoundException
+	 *             if the class of an id, a value or a child comparator can not be found
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		final int flags = in.readByte();
+		this.leaf = (flags & TreeNodeSerialization.FLAG_LEAF) != 0;
+		this.identityMembership = (flags & TreeNodeSerialization.FLAG_IDENTITY) != 0;
+		this.id = (K)in.readObject();
+		this.value = (V)in.readObject();
+		this.displayValue = (String)in.readObject();
+		this.childComparator = (Comparator<BaseTreeNode<V, K>>)in.readObject();
+		if ((flags & TreeNodeSerialization.FLAG_TREE) != 0)
+		{
+			TreeNodeSerialization.<BaseTreeNode<V, K>> readTree(this, in, BaseTreeNode.class,
+				(parent, node) -> {
+					node.parent = parent;
+					if (parent != null)
+					{
+						parent.getChildren().add(node);
+					}
+				});
+		}
+	}
+
+	/**
+	 * Adds the given listener that will be notified about all changes of the tree with this node
+	 * as root
+	 *
+	 * @param listener
+	 *            the listener to add
+	 * @throws IllegalStateException
+	 *             if this node is not a root
+	 */
+	public void addTreeNodeListener(final IBaseTreeNodeListener<V, K, BaseTreeNode<V, K>> listener)
+	{
+		if (listener != null)
+		{
+			if (this.parent != null)
+			{
+				throw new IllegalStateException("A listener can only be registered on a root");
+			}
+			if (this.listeners == null)
+			{
+				this.listeners = new ArrayList<>();
+			}
+			this.listeners.add(listener);
+			updateObservedRoot();
+		}
+	}
+
+	/**
+	 * Removes the given listener
+	 *
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public void removeTreeNodeListener(
+		final IBaseTreeNodeListener<V, K, BaseTreeNode<V, K>> listener)
+	{
+		if (this.listeners != null)
+		{
+			this.listeners.remove(listener);
+			if (this.listeners.isEmpty())
+			{
+				this.listeners = null;
+				updateObservedRoot();
+			}
+		}
+	}
+
+	/**
+	 * Provides the listeners for {@link #toBuilder()}, a copy never shares the listeners of this
+	 * node
+	 *
+	 * @return always null
+	 */
+	private List<IBaseTreeNodeListener<V, K, BaseTreeNode<V, K>>> noListeners()
+	{
+		return null;
+	}
+
+	/**
+	 * Provides the observed root for {@link #toBuilder()}, a copy is never observed
+	 *
+	 * @return always null
+	 */
+	private BaseTreeNode<V, K> noObservedRoot()
+	{
+		return null;
+	}
+
+	/**
+	 * Sets the parent of this node. If this node changes from one observed tree to another or
+	 * from or to a tree without listeners, the reference to the observed root is updated for the
+	 * whole subtree of this node, otherwise this method costs nothing more than the assignment
+	 *
+	 * @param parent
+	 *            the parent or null if this node is a root
+	 */
+	@Override
+	public void setParent(final BaseTreeNode<V, K> parent)
+	{
+		this.parent = parent;
+		updateObservedRoot();
+	}
+
+	/**
+	 * Updates the reference to the observed root of the subtree of this node from its parent or
+	 * from the listeners and the interner of this node if it is a root
+	 */
+	private void updateObservedRoot()
+	{
+		final BaseTreeNode<V, K> newObservedRoot;
+		if (this.parent != null)
+		{
+			newObservedRoot = this.parent.observedRoot;
+		}
+		else
+		{
+			newObservedRoot = this.listeners != null || this.treeValueInterner != null
+				? this
+				: null;
+		}
+		if (this.observedRoot == newObservedRoot)
+		{
+			return;
+		}
+		final Deque<BaseTreeNode<V, K>> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<V, K> node = stack.pop();
+			node.observedRoot = newObservedRoot;
+			if (node.children != null)
+			{
+				for (final BaseTreeNode<V, K> child : node.children)
+				{
+					stack.push(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Notifies the listeners of the observed tree of this node with the given notification. The
+	 * listeners are copied first, so a listener can remove itself
+	 *
+	 * @param notification
+	 *            the notification that is called for every listener
+	 */
+	private void notifyObservedListeners(
+		final Consumer<IBaseTreeNodeListener<V, K, BaseTreeNode<V, K>>> notification)
+	{
+		if (this.observedRoot != null && this.observedRoot.listeners != null)
+		{
+			new ArrayList<>(this.observedRoot.listeners).forEach(notification);
+		}
+	}
+
+	/**
+	 * Notifies the listeners that are registered on the given former root, that the former root
+	 * was attached to a parent of another tree. The listeners are not notified about later
+	 * changes until the node is a root again
+	 *
+	 * @param formerRoot
+	 *            the former root
+	 * @param newParent
+	 *            the new parent
+	 */
+	private static <V, K> void notifyAttachedRoot(final BaseTreeNode<V, K> formerRoot,
+		final BaseTreeNode<V, K> newParent)
+	{
+		if (formerRoot.listeners != null)
+		{
+			new ArrayList<>(formerRoot.listeners)
+				.forEach(l -> l.onMoved(formerRoot, null, newParent));
+		}
+	}
+
+	/**
+	 * Provides the interner for {@link #toBuilder()}, a copy never shares the interner of this
+	 * node
+	 *
+	 * @return always null
+	 */
+	private TreeValueInterner<V> noTreeValueInterner()
+	{
+		return null;
+	}
+
+	/**
+	 * Sets the interner that canonicalizes the values and the display values of the tree with
+	 * this node as root. The values and the display values of all nodes of this subtree are
+	 * interned immediately without notifying any listener, and later calls of
+	 * {@link #setValue(Object)} and {@link #setDisplayValue(String)} on a node of the tree intern
+	 * the new value. Nodes that are added later keep their values until they are set
+	 *
+	 * @param treeValueInterner
+	 *            the interner or null to stop the interning
+	 */
+	public void setTreeValueInterner(final TreeValueInterner<V> treeValueInterner)
+	{
+		this.treeValueInterner = treeValueInterner;
+		updateObservedRoot();
+		if (treeValueInterner == null)
+		{
+			return;
+		}
+		final Deque<BaseTreeNode<V, K>> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<V, K> node = stack.pop();
+			node.value = treeValueInterner.internValue(node.value);
+			node.displayValue = treeValueInterner.internDisplayValue(node.displayValue);
+			if (node.children != null)
+			{
+				for (final BaseTreeNode<V, K> child : node.children)
+				{
+					stack.push(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the interner of the tree of this node, that is set on the root
+	 *
+	 * @return the interner or null if the values of the tree are not interned
+	 */
+	public TreeValueInterner<V> getTreeValueInterner()
+	{
+		return this.observedRoot == null ? null : this.observedRoot.treeValueInterner;
+	}
+
+	/**
+	 * Gets the root of the given node without the creation of any collection
+	 *
+	 * @param treeNode
+	 *            the node
+	 * @return the root
+	 */
+	private static <V, K> BaseTreeNode<V, K> getRootNode(BaseTreeNode<V, K> treeNode)
+	{
+		while (treeNode.parent != null)
+		{
+			treeNode = treeNode.parent;
+		}
+		return treeNode;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The added child gets the identity membership mode of this node, see
+	 * {@link #setIdentityMembership(boolean)}
+	 *
+	 * @throws IllegalStateException
+	 *             if the child can not get the identity membership mode of this node, in this case
+	 *             no node is changed
+	 */
+	@Override
+	public void addChild(final BaseTreeNode<V, K> child)
+	{
+		if (child != null && isNode())
+		{
+			final boolean attachedRoot = child.parent == null;
+			inheritIdentityMembership(child);
+			ITreeNodeHandlerExtensions.addChild(this, child);
+			notifyObservedListeners(l -> l.onChildAdded(this, child));
+			if (attachedRoot)
+			{
+				notifyAttachedRoot(child, this);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The added child gets the identity membership mode of this node, see
+	 * {@link #setIdentityMembership(boolean)}
+	 *
+	 * @throws IllegalStateException
+	 *             if the child can not get the identity membership mode of this node, in this case
+	 *             no node is changed
+	 */
+	@Override
+	public void addChild(final BaseTreeNode<V, K> child, final int index)
+	{
+		if (child != null && isNode())
+		{
+			final boolean attachedRoot = child.parent == null;
+			inheritIdentityMembership(child);
+			ITreeNodeHandlerExtensions.addChild(this, child, index);
+			notifyObservedListeners(l -> l.onChildAdded(this, child));
+			if (attachedRoot)
+			{
+				notifyAttachedRoot(child, this);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addChildren(final @NonNull Collection<BaseTreeNode<V, K>> children)
+	{
+		if (isNode())
+		{
+			children.forEach(this::addChild);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeChild(final BaseTreeNode<V, K> child)
+	{
+		if (child != null && ITreeNodeHandlerExtensions.isChildOf(this, child))
+		{
+			ITreeNodeHandlerExtensions.removeChild(this, child);
+			notifyObservedListeners(l -> l.onChildRemoved(this, child));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeChildren(final @NonNull Collection<BaseTreeNode<V, K>> children)
+	{
+		children.forEach(this::removeChild);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeChildren()
+	{
+		removeChildren(new ArrayList<>(getChildren()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearChildren()
+	{
+		removeChildren(new ArrayList<>(getChildren()));
+	}
+
+	/**
+	 * Moves this node to the given new parent. If the new parent belongs to the same tree the
+	 * listeners of the root are notified with
+	 * {@link IBaseTreeNodeListener#onMoved(BaseTreeNode, BaseTreeNode, BaseTreeNode)}. A move
+	 * into another tree notifies the listeners of both trees: the listeners of the old tree with
+	 * {@link IBaseTreeNodeListener#onChildRemoved(BaseTreeNode, BaseTreeNode)} and the listeners
+	 * of the new tree with {@link IBaseTreeNodeListener#onChildAdded(BaseTreeNode, BaseTreeNode)}.
+	 * If this node is a root with own listeners and is moved into another tree, its listeners are
+	 * notified with {@link IBaseTreeNodeListener#onMoved(BaseTreeNode, BaseTreeNode, BaseTreeNode)}
+	 * with a null old parent, because they receive no further changes until this node is a root
+	 * again
+	 *
+	 * @param newParent
+	 *            the new parent or null if this node will be a root
+	 * @return true, if this node was moved otherwise false
+	 * @throws IllegalStateException
+	 *             if this node can not get the identity membership mode of the new parent, in this
+	 *             case no node is changed
+	 */
+	@Override
+	public boolean move(final BaseTreeNode<V, K> newParent)
+	{
+		final BaseTreeNode<V, K> oldParent = getParent();
+		final BaseTreeNode<V, K> oldObservedRoot = this.observedRoot;
+		if (newParent != null && newParent.isLeaf())
+		{
+			return false;
+		}
+		if (ITreeNodeHandlerExtensions.isDescendant(this, newParent))
+		{
+			return false;
+		}
+		// the mode is inherited first, because it can throw and then nothing is changed
+		if (newParent != null)
+		{
+			newParent.inheritIdentityMembership(this);
+		}
+		// the parent is set once, so a move inside one observed tree updates no subtree
+		if (oldParent != null)
+		{
+			oldParent.getChildren().remove(this);
+		}
+		if (newParent != null)
+		{
+			newParent.getChildren().add(this);
+		}
+		setParent(newParent);
+		final BaseTreeNode<V, K> newObservedRoot = this.observedRoot;
+		if (newParent == null || (oldObservedRoot == newObservedRoot && oldParent != null))
+		{
+			if (oldObservedRoot != null && oldObservedRoot.listeners != null)
+			{
+				new ArrayList<>(oldObservedRoot.listeners)
+					.forEach(l -> l.onMoved(this, oldParent, newParent));
+			}
+			return true;
+		}
+		if (oldParent != null && oldObservedRoot != null && oldObservedRoot.listeners != null)
+		{
+			new ArrayList<>(oldObservedRoot.listeners)
+				.forEach(l -> l.onChildRemoved(oldParent, this));
+		}
+		if (newObservedRoot != null && newObservedRoot.listeners != null)
+		{
+			new ArrayList<>(newObservedRoot.listeners)
+				.forEach(l -> l.onChildAdded(newParent, this));
+		}
+		if (oldParent == null)
+		{
+			notifyAttachedRoot(this, newParent);
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the value, interns it with the interner of the root and notifies the listeners of the
+	 * root
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void setValue(final V value)
+	{
+		final V oldValue = this.value;
+		final TreeValueInterner<V> interner = getTreeValueInterner();
+		this.value = interner == null ? value : interner.internValue(value);
+		notifyObservedListeners(l -> l.onValueChanged(this, oldValue));
+	}
+
+	/**
+	 * Sets the id and notifies the listeners of the root
+	 *
+	 * @param id
+	 *            the id
+	 */
+	public void setId(final K id)
+	{
+		final K oldId = this.id;
+		this.id = id;
+		notifyObservedListeners(l -> l.onIdChanged(this, oldId));
+	}
+
+	/**
+	 * Sets the display value, interns it with the interner of the root and notifies the listeners
+	 * of the root
+	 *
+	 * @param displayValue
+	 *            the display value
+	 */
+	public void setDisplayValue(final String displayValue)
+	{
+		final String oldDisplayValue = this.displayValue;
+		final TreeValueInterner<V> interner = getTreeValueInterner();
+		this.displayValue = interner == null
+			? displayValue
+			: interner.internDisplayValue(displayValue);
+		notifyObservedListeners(l -> l.onDisplayValueChanged(this, oldDisplayValue));
+	}
+
+	/**
+	 * Sets the leaf flag and notifies the listeners of the root if the flag changed
+	 *
+	 * @param leaf
+	 *            the flag that indicates if this tree node is a leaf
+	 */
+	public void setLeaf(final boolean leaf)
+	{
+		final boolean changed = this.leaf != leaf;
+		this.leaf = leaf;
+		if (changed)
+		{
+			notifyObservedListeners(l -> l.onLeafChanged(this));
+		}
+	}
 }
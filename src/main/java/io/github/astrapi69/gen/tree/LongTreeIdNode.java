@@ -0,0 +1,379 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The generic class {@link LongTreeIdNode} is the primitive long specialization of the class
+ * {@link TreeIdNode}. It keeps no references to the parent or the children, only the primitive
+ * ids are kept and the ids of the children are hold in a <code>long</code> array. The value
+ * {@link LongTreeIdNode#NO_ID} marks a missing parent id and can not be used as id
+ *
+ * @param <T>
+ *            the generic type of the value
+ */
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LongTreeIdNode<T>
+{
+
+	/** The constant for a missing id. If the parentId is this value the node is the root */
+	public static final long NO_ID = Long.MIN_VALUE;
+
+	/** The shared empty array for nodes without children */
+	private static final long[] EMPTY_IDS = new long[0];
+
+	/** The id from this node */
+	@Getter
+	@Setter
+	long id;
+
+	/** The parent id from this node. If parentId is {@link #NO_ID} this tree node is the root */
+	@Getter
+	@Setter
+	long parentId = NO_ID;
+
+	/** The ids from the children, only the first <code>childCount</code> slots are used */
+	long[] childrenIds = EMPTY_IDS;
+
+	/** The number of children */
+	int childCount;
+
+	/** The optional display value */
+	@Getter
+	@Setter
+	String displayValue;
+
+	/** The value */
+	@Getter
+	@Setter
+	T value;
+
+	/** The flag that indicates if this tree node is a leaf or a node */
+	@Getter
+	@Setter
+	boolean leaf;
+
+	/**
+	 * Instantiates a new {@link LongTreeIdNode} object
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public LongTreeIdNode(final T value)
+	{
+		setValue(value);
+	}
+
+	/**
+	 * Instantiates a new {@link LongTreeIdNode} object
+	 *
+	 * @param id
+	 *            the id
+	 * @param parentId
+	 *            the parent id or {@link #NO_ID} if the node is the root
+	 * @param childrenIds
+	 *            the ids of the children, can be null
+	 * @param displayValue
+	 *            the optional display value
+	 * @param value
+	 *            the value
+	 * @param leaf
+	 *            the flag that indicates if this tree node is a leaf
+	 */
+	@Builder(toBuilder = true)
+	LongTreeIdNode(final long id, final long parentId,
+		final @Builder.ObtainVia(method = "getChildrenIds") long[] childrenIds,
+		final String displayValue, final T value, final boolean leaf)
+	{
+		this.id = id;
+		this.parentId = parentId;
+		setChildrenIds(childrenIds);
+		this.displayValue = displayValue;
+		this.value = value;
+		this.leaf = leaf;
+	}
+
+	/**
+	 * The builder class for the class {@link LongTreeIdNode}. The parent id is initialized with
+	 * {@link LongTreeIdNode#NO_ID}
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 */
+	public static class LongTreeIdNodeBuilder<T>
+	{
+		/** The parent id, initialized as root */
+		private long parentId = NO_ID;
+	}
+
+	/**
+	 * Gets a copy of the ids from the children
+	 *
+	 * @return a new array with the ids from the children
+	 */
+	public long[] getChildrenIds()
+	{
+		return childCount == 0 ? EMPTY_IDS : Arrays.copyOf(childrenIds, childCount);
+	}
+
+	/**
+	 * Sets the ids from the children. The given array is copied
+	 *
+	 * @param childrenIds
+	 *            the ids from the children, can be null
+	 */
+	public void setChildrenIds(final long[] childrenIds)
+	{
+		if (childrenIds == null || childrenIds.length == 0)
+		{
+			this.childrenIds = EMPTY_IDS;
+			this.childCount = 0;
+		}
+		else
+		{
+			this.childrenIds = childrenIds.clone();
+			this.childCount = childrenIds.length;
+		}
+	}
+
+	/**
+	 * Gets the id of the child at the given index
+	 *
+	 * @param index
+	 *            the index of the child
+	 * @return the id of the child
+	 */
+	public long getChildId(final int index)
+	{
+		Objects.checkIndex(index, childCount);
+		return childrenIds[index];
+	}
+
+	/**
+	 * Adds the given child id if it is not already a child id
+	 *
+	 * @param childId
+	 *            the child id
+	 */
+	public void addChildId(final long childId)
+	{
+		if (containsChildId(childId))
+		{
+			return;
+		}
+		if (childCount == childrenIds.length)
+		{
+			childrenIds = Arrays.copyOf(childrenIds, Math.max(4, childCount + (childCount >> 1)));
+		}
+		childrenIds[childCount++] = childId;
+	}
+
+	/**
+	 * Checks if the given id is a child id
+	 *
+	 * @param childId
+	 *            the child id
+	 * @return true, if the given id is a child id otherwise false
+	 */
+	public boolean containsChildId(final long childId)
+	{
+		return indexOfChildId(childId) != -1;
+	}
+
+	/**
+	 * Gets the index of the given child id
+	 *
+	 * @param childId
+	 *            the child id
+	 * @return the index or -1 if the given id is not a child id
+	 */
+	public int indexOfChildId(final long childId)
+	{
+		for (int i = 0; i < childCount; i++)
+		{
+			if (childrenIds[i] == childId)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Removes the given child id
+	 *
+	 * @param childId
+	 *            the child id
+	 * @return true, if the given id was removed otherwise false
+	 */
+	public boolean removeChildId(final long childId)
+	{
+		int index = indexOfChildId(childId);
+		if (index == -1)
+		{
+			return false;
+		}
+		System.arraycopy(childrenIds, index + 1, childrenIds, index, childCount - index - 1);
+		childCount--;
+		return true;
+	}
+
+	/**
+	 * Adds the child.
+	 *
+	 * @param child
+	 *            the child
+	 */
+	public void addChild(final LongTreeIdNode<T> child)
+	{
+		if (child != null && this.isNode())
+		{
+			child.setParentId(this.id);
+			addChildId(child.getId());
+		}
+	}
+
+	/**
+	 * Removes the child.
+	 *
+	 * @param child
+	 *            the child
+	 */
+	public void removeChild(final LongTreeIdNode<T> child)
+	{
+		removeChildId(child.getId());
+		child.setParentId(NO_ID);
+	}
+
+	/**
+	 * Gets the child count.
+	 *
+	 * @return the child count
+	 */
+	public int getChildCount()
+	{
+		return childCount;
+	}
+
+	/**
+	 * Checks for children.
+	 *
+	 * @return true, if successful
+	 */
+	public boolean hasChildren()
+	{
+		return childCount != 0;
+	}
+
+	/**
+	 * Checks for parent
+	 *
+	 * @return true, if successful
+	 */
+	public boolean hasParent()
+	{
+		return parentId != NO_ID;
+	}
+
+	/**
+	 * Checks if this {@link LongTreeIdNode} object is a node
+	 *
+	 * @return true, if this {@link LongTreeIdNode} object is a node otherwise false
+	 */
+	public boolean isNode()
+	{
+		return !isLeaf();
+	}
+
+	/**
+	 * Checks if this {@link LongTreeIdNode} is the root {@link LongTreeIdNode} object
+	 *
+	 * @return true, if this {@link LongTreeIdNode} is the root {@link LongTreeIdNode} object
+	 */
+	public boolean isRoot()
+	{
+		return !hasParent();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (!(object instanceof LongTreeIdNode))
+		{
+			return false;
+		}
+		final LongTreeIdNode<?> other = (LongTreeIdNode<?>)object;
+		return id == other.id && parentId == other.parentId && leaf == other.leaf
+			&& Arrays.equals(childrenIds, 0, childCount, other.childrenIds, 0, other.childCount)
+			&& Objects.equals(displayValue, other.displayValue)
+			&& Objects.equals(value, other.value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode()
+	{
+		int result = Long.hashCode(id);
+		result = 31 * result + Long.hashCode(parentId);
+		for (int i = 0; i < childCount; i++)
+		{
+			result = 31 * result + Long.hashCode(childrenIds[i]);
+		}
+		result = 31 * result + Objects.hashCode(displayValue);
+		result = 31 * result + Objects.hashCode(value);
+		return 31 * result + (leaf ? 1 : 0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "LongTreeIdNode(id=" + id + ", parentId=" + (hasParent() ? parentId : "null")
+			+ ", childrenIds=" + Arrays.toString(getChildrenIds()) + ", displayValue="
+			+ displayValue + ", value=" + value + ", leaf=" + leaf + ")";
+	}
+
+}
@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree;
+
+import java.util.List;
+
+import io.github.astrapi69.gen.tree.api.LongTreeReducer;
+import io.github.astrapi69.gen.tree.api.LongTreeVisitor;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The class {@link LongTreeNode} is a tree node with a primitive <code>long</code> value, so the
+ * values are never boxed. The traversals with a {@link LongTreeVisitor}, the reductions with a
+ * {@link LongTreeReducer}, the sums and the searches run iteratively over the subtree of a node in
+ * pre-order without the creation of wrapper objects. The structure is held by the
+ * {@link PrimitiveTreeNode}
+ */
+@NoArgsConstructor
+@ToString(callSuper = true)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LongTreeNode extends PrimitiveTreeNode<LongTreeNode>
+{
+
+	/** The value */
+	@Getter
+	@Setter
+	long value;
+
+	/**
+	 * Instantiates a new {@link LongTreeNode} object
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public LongTreeNode(final long value)
+	{
+		this.value = value;
+	}
+
+	/**
+	 * Visits the values of the subtree of this node in pre-order until the given visitor returns
+	 * false
+	 *
+	 * @param visitor
+	 *            the visitor
+	 * @return true, if all values were visited or false if the visitor stopped the traversal
+	 */
+	public boolean accept(final @NonNull LongTreeVisitor visitor)
+	{
+		return traverse(node -> visitor.visit(node.value));
+	}
+
+	/**
+	 * Reduces the values of the subtree of this node in pre-order with the given reducer
+	 *
+	 * @param identity
+	 *            the initial result
+	 * @param reducer
+	 *            the reducer
+	 * @return the result of the reduction
+	 */
+	public long reduce(final long identity, final @NonNull LongTreeReducer reducer)
+	{
+		final long[] result = { identity };
+		traverse(node -> {
+			result[0] = reducer.reduce(result[0], node.value);
+			return true;
+		});
+		return result[0];
+	}
+
+	/**
+	 * Gets the sum of the values of the subtree of this node
+	 *
+	 * @return the sum of the values
+	 */
+	public long sum()
+	{
+		final long[] sum = { 0 };
+		traverse(node -> {
+			sum[0] += node.value;
+			return true;
+		});
+		return sum[0];
+	}
+
+	/**
+	 * Gets the minimum of the values of the subtree of this node
+	 *
+	 * @return the minimum of the values
+	 */
+	public long min()
+	{
+		return reduce(value, Math::min);
+	}
+
+	/**
+	 * Gets the maximum of the values of the subtree of this node
+	 *
+	 * @return the maximum of the values
+	 */
+	public long max()
+	{
+		return reduce(value, Math::max);
+	}
+
+	/**
+	 * Finds the first node of the subtree of this node in pre-order with the given value
+	 *
+	 * @param value
+	 *            the value to search
+	 * @return the found node or null if no node has the given value
+	 */
+	public LongTreeNode findByValue(final long value)
+	{
+		return findFirst(node -> node.value == value);
+	}
+
+	/**
+	 * Checks if a node of the subtree of this node has the given value
+	 *
+	 * @param value
+	 *            the value to search
+	 * @return true, if a node has the given value otherwise false
+	 */
+	public boolean contains(final long value)
+	{
+		return findByValue(value) != null;
+	}
+
+	/**
+	 * Gets the values of the subtree of this node in pre-order
+	 *
+	 * @return a new array with the values
+	 */
+	public long[] toArray()
+	{
+		final List<LongTreeNode> nodes = toNodeList();
+		final long[] values = new long[nodes.size()];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = nodes.get(i).value;
+		}
+		return values;
+	}
+}
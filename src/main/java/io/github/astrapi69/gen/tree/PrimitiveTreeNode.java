@@ -0,0 +1,267 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The abstract class {@link PrimitiveTreeNode} holds the structure of the tree nodes with a
+ * primitive value like {@link IntTreeNode}, {@link LongTreeNode} and {@link DoubleTreeNode}. It
+ * keeps the parent and the children and provides the iterative pre-order traversal that the
+ * concrete tree nodes use for their primitive visits, reductions and searches. The children are
+ * kept in a list that is only created if a child is added
+ *
+ * @param <N>
+ *            the generic type of the concrete tree node
+ */
+@ToString(exclude = { "children", "parent" })
+@FieldDefaults(level = AccessLevel.PRIVATE)
+abstract class PrimitiveTreeNode<N extends PrimitiveTreeNode<N>>
+{
+
+	/** The optional display value */
+	@Getter
+	@Setter
+	String displayValue;
+
+	/** The flag that indicates if this tree node is a leaf or a node */
+	@Getter
+	@Setter
+	boolean leaf;
+
+	/** The parent from this node. If this is null it is the root */
+	@Getter
+	N parent;
+
+	/** The children or null if no child was added */
+	List<N> children;
+
+	/**
+	 * Gets the children of this node
+	 *
+	 * @return an unmodifiable {@link List} object with the children
+	 */
+	public List<N> getChildren()
+	{
+		return children == null ? Collections.emptyList() : Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * Gets the number of children
+	 *
+	 * @return the number of children
+	 */
+	public int getChildCount()
+	{
+		return children == null ? 0 : children.size();
+	}
+
+	/**
+	 * Checks if this node has children
+	 *
+	 * @return true, if this node has children otherwise false
+	 */
+	public boolean hasChildren()
+	{
+		return children != null && !children.isEmpty();
+	}
+
+	/**
+	 * Checks if this node is the root
+	 *
+	 * @return true, if this node has no parent otherwise false
+	 */
+	public boolean isRoot()
+	{
+		return parent == null;
+	}
+
+	/**
+	 * Gets the root of the tree of this node
+	 *
+	 * @return the root
+	 */
+	public N getRoot()
+	{
+		N root = getThis();
+		while (root.getParent() != null)
+		{
+			root = root.getParent();
+		}
+		return root;
+	}
+
+	/**
+	 * Gets the level of this node, the root has the level 0
+	 *
+	 * @return the level
+	 */
+	public int getLevel()
+	{
+		int level = 0;
+		for (N ancestor = parent; ancestor != null; ancestor = ancestor.getParent())
+		{
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * Adds the given child as last child of this node. A child of another parent is removed from
+	 * its old parent. Nothing is added if this node is a leaf or if the given child is this node or
+	 * an ancestor of this node
+	 *
+	 * @param child
+	 *            the child to add
+	 */
+	public void addChild(final N child)
+	{
+		if (child == null || leaf)
+		{
+			return;
+		}
+		for (N ancestor = getThis(); ancestor != null; ancestor = ancestor.getParent())
+		{
+			if (ancestor == child)
+			{
+				return;
+			}
+		}
+		if (child.getParent() != null)
+		{
+			child.getParent().removeChild(child);
+		}
+		if (children == null)
+		{
+			children = new ArrayList<>(2);
+		}
+		children.add(child);
+		((PrimitiveTreeNode<N>)child).parent = getThis();
+	}
+
+	/**
+	 * Removes the given child from this node
+	 *
+	 * @param child
+	 *            the child to remove
+	 * @return true, if the given child was removed otherwise false
+	 */
+	public boolean removeChild(final N child)
+	{
+		if (child == null || child.getParent() != this)
+		{
+			return false;
+		}
+		for (int i = 0; i < children.size(); i++)
+		{
+			if (children.get(i) == child)
+			{
+				children.remove(i);
+				((PrimitiveTreeNode<N>)child).parent = null;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the first node of the subtree of this node in pre-order that matches the given
+	 * predicate. The subtree is traversed iteratively, so also degenerated deep trees can be
+	 * traversed
+	 *
+	 * @param predicate
+	 *            the predicate
+	 * @return the found node or null if no node matches
+	 */
+	final N findFirst(final Predicate<N> predicate)
+	{
+		final Deque<N> stack = new ArrayDeque<>();
+		stack.push(getThis());
+		while (!stack.isEmpty())
+		{
+			final N current = stack.pop();
+			if (predicate.test(current))
+			{
+				return current;
+			}
+			final List<N> currentChildren = ((PrimitiveTreeNode<N>)current).children;
+			if (currentChildren != null)
+			{
+				for (int i = currentChildren.size() - 1; 0 <= i; i--)
+				{
+					stack.push(currentChildren.get(i));
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Visits the nodes of the subtree of this node in pre-order until the given action returns
+	 * false
+	 *
+	 * @param action
+	 *            the action
+	 * @return true, if all nodes were visited or false if the action stopped the traversal
+	 */
+	final boolean traverse(final Predicate<N> action)
+	{
+		return findFirst(node -> !action.test(node)) == null;
+	}
+
+	/**
+	 * Gets the nodes of the subtree of this node in pre-order
+	 *
+	 * @return a new {@link List} object with the nodes
+	 */
+	final List<N> toNodeList()
+	{
+		final List<N> nodes = new ArrayList<>();
+		traverse(nodes::add);
+		return nodes;
+	}
+
+	/**
+	 * Gets this node as the concrete tree node
+	 *
+	 * @return this node
+	 */
+	@SuppressWarnings("unchecked")
+	private N getThis()
+	{
+		return (N)this;
+	}
+}
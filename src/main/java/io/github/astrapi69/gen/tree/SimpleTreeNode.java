@@ -24,8 +24,11 @@
  */
 package io.github.astrapi69.gen.tree;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import io.github.astrapi69.design.pattern.visitor.Acceptable;
 import io.github.astrapi69.design.pattern.visitor.Visitor;
@@ -33,6 +36,7 @@ import io.github.astrapi69.gen.tree.handler.SimpleTreeNodeHandlerExtensions;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.experimental.FieldDefaults;
@@ -205,6 +209,82 @@ public class SimpleTreeNode<V, K> implements Acceptable<Visitor<SimpleTreeNode<V
 		return SimpleTreeNodeHandlerExtensions.getChildren(this);
 	}
 
+	/**
+	 * Creates a deep copy of the subtree of this node. The values are shared with this subtree
+	 *
+	 * @return the root of the copied subtree
+	 * @see #copy(UnaryOperator)
+	 */
+	public SimpleTreeNode<V, K> copy()
+	{
+		return copy(UnaryOperator.identity());
+	}
+
+	/**
+	 * Creates a deep copy of the subtree of this node. The copy is created iteratively, so also
+	 * degenerated deep trees can be copied. The ids, the leaf flags and the order of the children
+	 * are preserved, the values that are not null are copied with the given value copier. The
+	 * copied root has no parent and no right sibling
+	 *
+	 * @param valueCopier
+	 *            the function that copies a value that is not null
+	 * @return the root of the copied subtree
+	 */
+	public SimpleTreeNode<V, K> copy(final @NonNull UnaryOperator<V> valueCopier)
+	{
+		final SimpleTreeNode<V, K> rootCopy = copyNode(this, null, valueCopier);
+		final Deque<SimpleTreeNode<V, K>> sources = new ArrayDeque<>();
+		final Deque<SimpleTreeNode<V, K>> copies = new ArrayDeque<>();
+		sources.push(this);
+		copies.push(rootCopy);
+		while (!sources.isEmpty())
+		{
+			final SimpleTreeNode<V, K> source = sources.pop();
+			final SimpleTreeNode<V, K> copy = copies.pop();
+			SimpleTreeNode<V, K> previousCopy = null;
+			SimpleTreeNode<V, K> child = source.leftMostChild;
+			while (child != null)
+			{
+				final SimpleTreeNode<V, K> childCopy = copyNode(child, copy, valueCopier);
+				if (previousCopy == null)
+				{
+					copy.leftMostChild = childCopy;
+				}
+				else
+				{
+					previousCopy.rightSibling = childCopy;
+				}
+				previousCopy = childCopy;
+				sources.push(child);
+				copies.push(childCopy);
+				child = child.rightSibling;
+			}
+		}
+		return rootCopy;
+	}
+
+	/**
+	 * Creates a copy of the given node without children and siblings
+	 *
+	 * @param source
+	 *            the node to copy
+	 * @param parent
+	 *            the parent of the copy
+	 * @param valueCopier
+	 *            the function that copies a value that is not null
+	 * @return the copy
+	 */
+	private static <V, K> SimpleTreeNode<V, K> copyNode(final SimpleTreeNode<V, K> source,
+		final SimpleTreeNode<V, K> parent, final UnaryOperator<V> valueCopier)
+	{
+		final SimpleTreeNode<V, K> copy = new SimpleTreeNode<>();
+		copy.id = source.id;
+		copy.value = source.value == null ? null : valueCopier.apply(source.value);
+		copy.leaf = source.leaf;
+		copy.parent = parent;
+		return copy;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -24,15 +24,31 @@
  */
 package io.github.astrapi69.gen.tree;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.UnaryOperator;
 
 import io.github.astrapi69.gen.tree.api.ITreeNode;
+import io.github.astrapi69.gen.tree.collection.IdentityArrayList;
+import io.github.astrapi69.gen.tree.frozen.FrozenTree;
+import io.github.astrapi69.gen.tree.handler.ITreeNodeHandlerExtensions;
+import io.github.astrapi69.gen.tree.handler.TreeNodeVisitorHandlerExtensions;
+import io.github.astrapi69.gen.tree.layout.TreeLayout;
+import io.github.astrapi69.gen.tree.layout.TreeLayoutOrder;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.experimental.FieldDefaults;
@@ -41,15 +57,27 @@ import lombok.experimental.SuperBuilder;
 /**
  * The generic class TreeNode.
  *
+ * <p>
+ * The Java serialization of a {@link TreeNode} object writes the whole tree of its root once per
+ * stream as flat pre-order stream of the nodes without a recursion over the parent and the
+ * children, so also degenerated deep trees can be serialized. The deserialized node is restored at
+ * its position in the restored tree, and all nodes of one tree that are written to the same stream
+ * are restored as the nodes of one restored tree. The values have to be serializable
+ *
+ * <p>
+ * The generated {@link #equals(Object)} and {@link #hashCode()} methods include the parent, so
+ * they hash the whole chain of the ancestors. A node in the identity membership mode finds and
+ * removes its children by identity, see {@link #setIdentityMembership(boolean)}
+ *
  * @param <T>
  *            the generic type of the value
  */
 @NoArgsConstructor
-@EqualsAndHashCode(exclude = { "children" })
-@ToString(exclude = { "children" })
+@EqualsAndHashCode(exclude = { "children", "identityMembership" })
+@ToString(exclude = { "children", "identityMembership" })
 @SuperBuilder(toBuilder = true)
 @FieldDefaults(level = AccessLevel.PRIVATE)
-public class TreeNode<T> implements ITreeNode<T, TreeNode<T>>
+public class TreeNode<T> implements ITreeNode<T, TreeNode<T>>, Serializable
 {
 
 	/**
@@ -57,6 +85,12 @@ public class TreeNode<T> implements ITreeNode<T, TreeNode<T>>
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * No field is written with the default serialization, the tree is written with
+	 * {@link #writeObject(ObjectOutputStream)}
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {};
+
 	/** The children. */
 	@Setter
 	@Builder.Default
@@ -82,6 +116,13 @@ public class TreeNode<T> implements ITreeNode<T, TreeNode<T>>
 	@Setter
 	boolean leaf;
 
+	/**
+	 * The flag that indicates if the children of this node are found and removed by identity
+	 * instead of {@link #equals(Object)}
+	 */
+	@Getter
+	boolean identityMembership;
+
 	/**
 	 * Instantiates a new tree node.
 	 *
@@ -101,9 +142,325 @@ public class TreeNode<T> implements ITreeNode<T, TreeNode<T>>
 	{
 		if (this.children == null)
 		{
-			this.children = new ArrayList<>();
+			this.children = newChildren(0);
 		}
 		return this.children;
 	}
 
+	/**
+	 * Creates a new empty children list for the identity membership mode of this node
+	 *
+	 * @param initialCapacity
+	 *            the initial capacity
+	 * @return the new children list
+	 */
+	private List<TreeNode<T>> newChildren(final int initialCapacity)
+	{
+		return this.identityMembership
+			? new IdentityArrayList<>(initialCapacity)
+			: new ArrayList<>(initialCapacity);
+	}
+
+	/**
+	 * Sets the identity membership mode of this node and all its descendants. In this mode the
+	 * children lists find and remove the children by identity, so adding, removing and finding a
+	 * child never calls {@link #equals(Object)}, that hashes the whole chain of the ancestors, and
+	 * {@link #traverse()} collects the nodes by identity as well. A child that is added to a node
+	 * in this mode gets the mode of its new parent. The order of the children is preserved
+	 *
+	 * @param identityMembership
+	 *            the flag that indicates if the children are compared by identity
+	 */
+	public void setIdentityMembership(final boolean identityMembership)
+	{
+		final Deque<TreeNode<T>> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty())
+		{
+			final TreeNode<T> node = stack.pop();
+			node.identityMembership = identityMembership;
+			if (node.children == null)
+			{
+				continue;
+			}
+			final List<TreeNode<T>> children = node.newChildren(node.children.size());
+			children.addAll(node.children);
+			node.children = children;
+			for (final TreeNode<T> child : children)
+			{
+				stack.push(child);
+			}
+		}
+	}
+
+	/**
+	 * Gives the given child the identity membership mode of this node if the modes differ
+	 *
+	 * @param child
+	 *            the child
+	 */
+	private void inheritIdentityMembership(final TreeNode<T> child)
+	{
+		if (child.identityMembership != this.identityMembership)
+		{
+			child.setIdentityMembership(this.identityMembership);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addChild(final TreeNode<T> child)
+	{
+		if (child != null && isNode())
+		{
+			inheritIdentityMembership(child);
+			ITreeNodeHandlerExtensions.addChild(this, child);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addChild(final TreeNode<T> child, final int index)
+	{
+		if (child != null && isNode())
+		{
+			inheritIdentityMembership(child);
+			ITreeNodeHandlerExtensions.addChild(this, child, index);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * In the identity membership mode the nodes are collected by identity, so distinct nodes that
+	 * are equal are all contained and no ancestor chain is hashed
+	 */
+	@Override
+	public Collection<TreeNode<T>> traverse()
+	{
+		if (this.identityMembership)
+		{
+			return TreeNodeVisitorHandlerExtensions.traverseByIdentity(this);
+		}
+		return TreeNodeVisitorHandlerExtensions.traverse(this);
+	}
+
+	/**
+	 * Freezes the subtree of this node into an immutable array based {@link FrozenTree} object,
+	 * that can be read from many threads without synchronization. The values are shared with this
+	 * subtree, later changes of this subtree are not visible in the frozen tree. A
+	 * {@link TreeNode} has no id, so the position of a node in pre-order is its id in the frozen
+	 * tree
+	 *
+	 * @return the new {@link FrozenTree} object
+	 */
+	public FrozenTree<T, Integer> freeze()
+	{
+		return FrozenTree.of(this);
+	}
+
+	/**
+	 * Creates a deep copy of the subtree of this node. The values are shared with this subtree
+	 *
+	 * @return the root of the copied subtree
+	 * @see #copy(UnaryOperator)
+	 */
+	public TreeNode<T> copy()
+	{
+		return copy(UnaryOperator.identity());
+	}
+
+	/**
+	 * Creates a deep copy of the subtree of this node. The copy is created iteratively, so also
+	 * degenerated deep trees can be copied. The display values, the leaf flags and the order of the
+	 * children are preserved, the values that are not null are copied with the given value copier.
+	 * The copied root has no parent. Every copied node is created with {@link #newCopyInstance()}
+	 * of its source node, so a subclass keeps its type in the copy
+	 *
+	 * @param valueCopier
+	 *            the function that copies a value that is not null
+	 * @return the root of the copied subtree
+	 */
+	public TreeNode<T> copy(final @NonNull UnaryOperator<T> valueCopier)
+	{
+		final TreeNode<T> rootCopy = copyNode(this, null, valueCopier);
+		final Deque<TreeNode<T>> sources = new ArrayDeque<>();
+		final Deque<TreeNode<T>> copies = new ArrayDeque<>();
+		sources.push(this);
+		copies.push(rootCopy);
+		while (!sources.isEmpty())
+		{
+			final TreeNode<T> source = sources.pop();
+			final TreeNode<T> copy = copies.pop();
+			if (source.children == null || source.children.isEmpty())
+			{
+				continue;
+			}
+			copy.children = copy.newChildren(source.children.size());
+			for (final TreeNode<T> child : source.children)
+			{
+				final TreeNode<T> childCopy = copyNode(child, copy, valueCopier);
+				copy.children.add(childCopy);
+				sources.push(child);
+				copies.push(childCopy);
+			}
+		}
+		return rootCopy;
+	}
+
+	/**
+	 * Rebuilds the subtree of this node with new nodes that are allocated in the given
+	 * {@link TreeLayoutOrder}, so a traversal in this order visits the nodes mostly in the order
+	 * of their addresses. Every children list is allocated together with its node. The values are
+	 * shared with this subtree, the display values, the leaf flags and the order of the children
+	 * are preserved and the new root has no parent. Every new node is created with
+	 * {@link #newCopyInstance()} of its source node, so a subclass keeps its type
+	 *
+	 * @param order
+	 *            the layout order
+	 * @return the root of the rebuilt subtree
+	 */
+	public TreeNode<T> relayout(final @NonNull TreeLayoutOrder order)
+	{
+		final TreeLayout<TreeNode<T>> layout = TreeLayout.of(this, node -> node.children, order);
+		final List<TreeNode<T>> copies = new ArrayList<>(layout.size());
+		for (int position = 0; position < layout.size(); position++)
+		{
+			final int parentPosition = layout.getParentPosition(position);
+			final TreeNode<T> parentCopy = parentPosition == TreeLayout.NO_NODE
+				? null
+				: copies.get(parentPosition);
+			final TreeNode<T> copy = copyNode(layout.getNode(position), parentCopy,
+				UnaryOperator.identity());
+			copy.children = copy.newChildren(layout.getChildCount(position));
+			if (parentCopy != null)
+			{
+				parentCopy.children.add(copy);
+			}
+			copies.add(copy);
+		}
+		return copies.get(0);
+	}
+
+	/**
+	 * Factory method that creates the new empty node for a copy or a relayout of this node, the
+	 * fields of this class are set on the returned node by the caller. Subclasses override this
+	 * method to create an instance of their own type and to copy their own fields
+	 *
+	 * @return the new node for the copy of this node
+	 */
+	protected TreeNode<T> newCopyInstance()
+	{
+		return new TreeNode<>();
+	}
+
+	/**
+	 * Creates a copy of the given node without children
+	 *
+	 * @param source
+	 *            the node to copy
+	 * @param parent
+	 *            the parent of the copy
+	 * @param valueCopier
+	 *            the function that copies a value that is not null
+	 * @return the copy
+	 */
+	private static <T> TreeNode<T> copyNode(final TreeNode<T> source, final TreeNode<T> parent,
+		final UnaryOperator<T> valueCopier)
+	{
+		final TreeNode<T> copy = source.newCopyInstance();
+		copy.value = source.value == null ? null : valueCopier.apply(source.value);
+		copy.displayValue = source.displayValue;
+		copy.leaf = source.leaf;
+		copy.identityMembership = source.identityMembership;
+		copy.parent = parent;
+		return copy;
+	}
+
+	/**
+	 * Writes this node and, if this node is the first written node of its tree, the structure of
+	 * the whole tree as described in {@link TreeNodeSerialization}
+	 *
+	 * @param out
+	 *            the object output stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		TreeNode<T> root = this;
+		while (root.parent != null)
+		{
+			root = root.parent;
+		}
+		TreeNodeSerialization.write(this, root, out, node -> node.children,
+			(node, output, flags) -> node.writeNodeFields(output, flags));
+	}
+
+	/**
+	 * Writes the record with the fields of this node
+	 *
+	 * @param out
+	 *            the object output stream
+	 * @param flags
+	 *            the additional flags of the record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeNodeFields(final ObjectOutputStream out, int flags) throws IOException
+	{
+		if (this.leaf)
+		{
+			flags |= TreeNodeSerialization.FLAG_LEAF;
+		}
+		if (this.identityMembership)
+		{
+			flags |= TreeNodeSerialization.FLAG_IDENTITY;
+		}
+		out.writeByte(flags);
+		out.writeObject(this.value);
+		out.writeObject(this.displayValue);
+	}
+
+	/**
+	 * Reads this node and, if this node was the first written node of its tree, the structure of
+	 * the whole tree as described in {@link TreeNodeSerialization}
+	 *
+	 * @param in
+	 *            the object input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the stream contains an invalid
+	 *             tree
+	 * @throws ClassNotFoundException
+	 *             if the class of a value can not be found
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		final int flags = in.readByte();
+		this.leaf = (flags & TreeNodeSerialization.FLAG_LEAF) != 0;
+		this.identityMembership = (flags & TreeNodeSerialization.FLAG_IDENTITY) != 0;
+		this.value = (T)in.readObject();
+		this.displayValue = (String)in.readObject();
+		this.children = newChildren(0);
+		if ((flags & TreeNodeSerialization.FLAG_TREE) != 0)
+		{
+			TreeNodeSerialization.<TreeNode<T>> readTree(this, in, TreeNode.class,
+				(parent, node) -> {
+					node.parent = parent;
+					if (parent != null)
+					{
+						parent.getChildren().add(node);
+					}
+				});
+		}
+	}
+
 }
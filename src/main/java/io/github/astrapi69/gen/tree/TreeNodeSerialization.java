@@ -0,0 +1,257 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The class {@link TreeNodeSerialization} writes and reads the structure of the trees of
+ * {@link BaseTreeNode} and {@link TreeNode} objects with the java serialization. The first node of
+ * a tree that is written to a stream writes its own fields and the structure of the whole tree of
+ * its root iteratively in pre-order, as pairs of the node object and its number of children. The
+ * other nodes of the tree are written as plain node records while the structure is written and are
+ * written as back references to the stream handles afterwards, so the tree is written only once
+ * per stream, the identity of the nodes is preserved and deep trees do not overflow the stack
+ */
+final class TreeNodeSerialization
+{
+
+	/** The flag of a serialized node record that indicates that the node is a leaf */
+	static final int FLAG_LEAF = 1;
+
+	/**
+	 * The flag of a serialized node record that indicates that the structure of the tree follows
+	 */
+	static final int FLAG_TREE = 1 << 1;
+
+	/** The flag of a serialized node record that indicates the identity membership mode */
+	static final int FLAG_IDENTITY = 1 << 2;
+
+	/**
+	 * The nodes of the trees that are currently written by the current thread with the stream
+	 * that writes the structure of their tree
+	 */
+	private static final ThreadLocal<Map<Object, ObjectOutputStream>> PENDING_NODES = ThreadLocal
+		.withInitial(IdentityHashMap::new);
+
+	private TreeNodeSerialization()
+	{
+	}
+
+	/**
+	 * Writes the given node. A node that is pending in the structure of its tree writes only its
+	 * record, otherwise the record with the {@link #FLAG_TREE} flag and the structure of the tree
+	 * of the given root are written
+	 *
+	 * @param <N>
+	 *            the generic type of the node
+	 * @param node
+	 *            the node to write
+	 * @param root
+	 *            the root of the tree of the node
+	 * @param out
+	 *            the object output stream
+	 * @param childrenOf
+	 *            the function that gets the children of a node or null
+	 * @param recordWriter
+	 *            the writer of the record with the fields of a node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	static <N> void write(final N node, final N root, final ObjectOutputStream out,
+		final Function<N, Collection<N>> childrenOf, final RecordWriter<N> recordWriter)
+		throws IOException
+	{
+		final Map<Object, ObjectOutputStream> pendingNodes = PENDING_NODES.get();
+		if (pendingNodes.get(node) == out)
+		{
+			pendingNodes.remove(node);
+			recordWriter.write(node, out, 0);
+			return;
+		}
+		final List<N> nodes = new ArrayList<>();
+		final Deque<Iterator<N>> stack = new ArrayDeque<>();
+		stack.push(Collections.singletonList(root).iterator());
+		while (!stack.isEmpty())
+		{
+			final Iterator<N> iterator = stack.peek();
+			if (!iterator.hasNext())
+			{
+				stack.pop();
+				continue;
+			}
+			final N current = iterator.next();
+			nodes.add(current);
+			if (current != node)
+			{
+				pendingNodes.put(current, out);
+			}
+			final Collection<N> children = childrenOf.apply(current);
+			if (children != null && !children.isEmpty())
+			{
+				stack.push(children.iterator());
+			}
+		}
+		try
+		{
+			recordWriter.write(node, out, FLAG_TREE);
+			out.writeInt(nodes.size());
+			for (final N current : nodes)
+			{
+				final Collection<N> children = childrenOf.apply(current);
+				out.writeObject(current);
+				out.writeInt(children == null ? 0 : children.size());
+			}
+		}
+		finally
+		{
+			for (final N current : nodes)
+			{
+				pendingNodes.remove(current);
+			}
+			if (pendingNodes.isEmpty())
+			{
+				PENDING_NODES.remove();
+			}
+		}
+	}
+
+	/**
+	 * Reads the structure of the tree that follows the record of the given node with the
+	 * {@link #FLAG_TREE} flag. The children collections grow with the read children, so the
+	 * numbers of the children from the stream are not used to allocate memory
+	 *
+	 * @param <N>
+	 *            the generic type of the node
+	 * @param node
+	 *            the node whose record was read
+	 * @param in
+	 *            the object input stream
+	 * @param nodeType
+	 *            the type of the nodes of the tree
+	 * @param attach
+	 *            the consumer that sets the parent, that is null for the root, and adds the node
+	 *            to the children of the parent
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the stream contains an invalid
+	 *             tree
+	 * @throws ClassNotFoundException
+	 *             if the class of a serialized object can not be found
+	 */
+	@SuppressWarnings("unchecked")
+	static <N> void readTree(final N node, final ObjectInputStream in, final Class<?> nodeType,
+		final BiConsumer<N, N> attach) throws IOException, ClassNotFoundException
+	{
+		final int nodeCount = in.readInt();
+		if (nodeCount < 1)
+		{
+			throw new InvalidObjectException("Invalid number of nodes " + nodeCount);
+		}
+		final Set<N> readNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Deque<N> parents = new ArrayDeque<>();
+		final Deque<Integer> remainingChildren = new ArrayDeque<>();
+		for (int index = 0; index < nodeCount; index++)
+		{
+			final Object object = in.readObject();
+			if (!nodeType.isInstance(object) || !readNodes.add((N)object))
+			{
+				throw new InvalidObjectException("Invalid node in the serialized tree");
+			}
+			final N current = (N)object;
+			final int childCount = in.readInt();
+			if (childCount < 0)
+			{
+				throw new InvalidObjectException("Invalid number of children " + childCount);
+			}
+			if (index != 0 && parents.isEmpty())
+			{
+				throw new InvalidObjectException("The serialized tree has more than one root");
+			}
+			final N parent = parents.peek();
+			attach.accept(parent, current);
+			if (parent != null)
+			{
+				final int remaining = remainingChildren.pop() - 1;
+				if (remaining == 0)
+				{
+					parents.pop();
+				}
+				else
+				{
+					remainingChildren.push(remaining);
+				}
+			}
+			if (0 < childCount)
+			{
+				parents.push(current);
+				remainingChildren.push(childCount);
+			}
+		}
+		if (!parents.isEmpty() || !readNodes.contains(node))
+		{
+			throw new InvalidObjectException("The serialized tree is incomplete");
+		}
+	}
+
+	/**
+	 * The interface {@link RecordWriter} writes the record with the fields of a node
+	 *
+	 * @param <N>
+	 *            the generic type of the node
+	 */
+	@FunctionalInterface
+	interface RecordWriter<N>
+	{
+
+		/**
+		 * Writes the record with the fields of the given node
+		 *
+		 * @param node
+		 *            the node
+		 * @param out
+		 *            the object output stream
+		 * @param flags
+		 *            the additional flags of the record
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void write(N node, ObjectOutputStream out, int flags) throws IOException;
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.api;
+
+/**
+ * The interface {@link IBaseTreeNodeListener} is notified about all structural changes and all
+ * changes of the fields of the {@link IBaseTreeNode} objects in a tree. A listener can only be
+ * registered on the root of a tree and receives the changes of all nodes that are attached to
+ * this root. All methods are called after the change was applied
+ *
+ * <p>
+ * A node that is moved from one tree into another tree is reported to the listeners of both
+ * trees, as removed child to the listeners of the old tree and as added child to the listeners
+ * of the new tree. If a root with listeners is attached to a parent of another tree, its
+ * listeners are notified with {@link #onMoved(IBaseTreeNode, IBaseTreeNode, IBaseTreeNode)} with a
+ * null old parent and receive no further changes until the node is a root again
+ *
+ * @param <V>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ * @param <T>
+ *            the generic type of the concrete tree node
+ */
+public interface IBaseTreeNodeListener<V, K, T extends IBaseTreeNode<V, K, T>>
+{
+
+	/**
+	 * Called after the given child was added to the given parent. The child can have descendants
+	 *
+	 * @param parent
+	 *            the parent
+	 * @param child
+	 *            the added child
+	 */
+	default void onChildAdded(final T parent, final T child)
+	{
+	}
+
+	/**
+	 * Called after the given child was removed from the given parent. Note that the descendants
+	 * of the removed child are already cleared
+	 *
+	 * @param parent
+	 *            the parent
+	 * @param child
+	 *            the removed child
+	 */
+	default void onChildRemoved(final T parent, final T child)
+	{
+	}
+
+	/**
+	 * Called after the given node was moved from the old parent to the new parent
+	 *
+	 * @param treeNode
+	 *            the moved node
+	 * @param oldParent
+	 *            the old parent or null if the moved node was a root
+	 * @param newParent
+	 *            the new parent or null if the moved node is now a root
+	 */
+	default void onMoved(final T treeNode, final T oldParent, final T newParent)
+	{
+	}
+
+	/**
+	 * Called after the value of the given node was changed
+	 *
+	 * @param treeNode
+	 *            the changed node
+	 * @param oldValue
+	 *            the old value
+	 */
+	default void onValueChanged(final T treeNode, final V oldValue)
+	{
+	}
+
+	/**
+	 * Called after the id of the given node was changed
+	 *
+	 * @param treeNode
+	 *            the changed node
+	 * @param oldId
+	 *            the old id
+	 */
+	default void onIdChanged(final T treeNode, final K oldId)
+	{
+	}
+
+	/**
+	 * Called after the display value of the given node was changed
+	 *
+	 * @param treeNode
+	 *            the changed node
+	 * @param oldDisplayValue
+	 *            the old display value
+	 */
+	default void onDisplayValueChanged(final T treeNode, final String oldDisplayValue)
+	{
+	}
+
+	/**
+	 * Called after the leaf flag of the given node was changed
+	 *
+	 * @param treeNode
+	 *            the changed node
+	 */
+	default void onLeafChanged(final T treeNode)
+	{
+	}
+}
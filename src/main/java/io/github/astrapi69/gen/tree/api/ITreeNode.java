@@ -298,6 +298,17 @@ public interface ITreeNode<V, T extends ITreeNode<V, T>> extends ITree<V, T>, Ac
 		return TreeNodeVisitorHandlerExtensions.traverse(getThis());
 	}
 
+	/**
+	 * Traverse this node and add all descendants with this node included in to a {@link Collection}
+	 * object that compares the nodes by identity, so no node is hashed
+	 *
+	 * @return a {@link Collection} object with this node and all descendants
+	 */
+	default Collection<T> traverseByIdentity()
+	{
+		return TreeNodeVisitorHandlerExtensions.traverseByIdentity(getThis());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
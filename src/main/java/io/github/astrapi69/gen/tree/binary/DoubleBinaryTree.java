@@ -0,0 +1,230 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.binary;
+
+import java.util.Arrays;
+import java.util.OptionalDouble;
+
+import io.github.astrapi69.gen.tree.api.DoubleTreeReducer;
+import io.github.astrapi69.gen.tree.api.DoubleTreeVisitor;
+import lombok.NonNull;
+
+/**
+ * The class {@link DoubleBinaryTree} is a binary search tree for primitive <code>double</code>
+ * values. Unlike a {@link GenericBinaryTree} it creates no {@link LinkedNode} objects and boxes no
+ * values, the values and the indexes of the smaller and the greater child are held in parallel
+ * arrays. A value that is already contained is not added again. All operations run iteratively, the
+ * traversals visit the values in ascending order. The values are ordered with {@link
+ * Double#compare(double, double)}
+ */
+public class DoubleBinaryTree extends PrimitiveBinaryTree
+{
+
+	/** The values */
+	private double[] values;
+
+	/**
+	 * Instantiates a new empty {@link DoubleBinaryTree} object
+	 */
+	public DoubleBinaryTree()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new empty {@link DoubleBinaryTree} object with the given initial capacity
+	 *
+	 * @param initialCapacity
+	 *            the number of values that can be added without growing the arrays
+	 */
+	public DoubleBinaryTree(final int initialCapacity)
+	{
+		super(initialCapacity);
+		values = new double[smaller.length];
+	}
+
+	/**
+	 * Adds the given value to the binary tree at the right position
+	 *
+	 * @param value
+	 *            the value
+	 * @return this binary tree object so you can chain
+	 */
+	public DoubleBinaryTree add(final double value)
+	{
+		if (size == 0)
+		{
+			append(value);
+			return this;
+		}
+		int current = 0;
+		while (true)
+		{
+			final int comparison = Double.compare(value, values[current]);
+			if (comparison == 0)
+			{
+				return this;
+			}
+			final int[] links = comparison < 0 ? smaller : greater;
+			if (links[current] == NO_NODE)
+			{
+				final int index = append(value);
+				// the arrays could be grown by the append
+				(comparison < 0 ? smaller : greater)[current] = index;
+				return this;
+			}
+			current = links[current];
+		}
+	}
+
+	/**
+	 * Checks if the given value exists in this binary tree object
+	 *
+	 * @param value
+	 *            the value
+	 * @return true if the given value exists in this binary tree object otherwise false
+	 */
+	public boolean contains(final double value)
+	{
+		int current = size == 0 ? NO_NODE : 0;
+		while (current != NO_NODE)
+		{
+			final int comparison = Double.compare(value, values[current]);
+			if (comparison == 0)
+			{
+				return true;
+			}
+			current = comparison < 0 ? smaller[current] : greater[current];
+		}
+		return false;
+	}
+
+	/**
+	 * Visits the values in ascending order until the given visitor returns false
+	 *
+	 * @param visitor
+	 *            the visitor
+	 * @return true, if all values were visited or false if the visitor stopped the traversal
+	 */
+	public boolean accept(final @NonNull DoubleTreeVisitor visitor)
+	{
+		return acceptIndexes(index -> visitor.visit(values[index]));
+	}
+
+	/**
+	 * Reduces the values in ascending order with the given reducer
+	 *
+	 * @param identity
+	 *            the initial result
+	 * @param reducer
+	 *            the reducer
+	 * @return the result of the reduction
+	 */
+	public double reduce(final double identity, final @NonNull DoubleTreeReducer reducer)
+	{
+		final double[] result = { identity };
+		accept(value -> {
+			result[0] = reducer.reduce(result[0], value);
+			return true;
+		});
+		return result[0];
+	}
+
+	/**
+	 * Gets the sum of all values
+	 *
+	 * @return the sum of all values
+	 */
+	public double sum()
+	{
+		double sum = 0;
+		for (int i = 0; i < size; i++)
+		{
+			sum += values[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Gets the smallest value
+	 *
+	 * @return the smallest value or an empty optional if this binary tree is empty
+	 */
+	public OptionalDouble min()
+	{
+		final int index = minIndex();
+		return index == NO_NODE ? OptionalDouble.empty() : OptionalDouble.of(values[index]);
+	}
+
+	/**
+	 * Gets the greatest value
+	 *
+	 * @return the greatest value or an empty optional if this binary tree is empty
+	 */
+	public OptionalDouble max()
+	{
+		final int index = maxIndex();
+		return index == NO_NODE ? OptionalDouble.empty() : OptionalDouble.of(values[index]);
+	}
+
+	/**
+	 * Gets all values in ascending order
+	 *
+	 * @return a new array with all values in ascending order
+	 */
+	public double[] toArray()
+	{
+		final double[] result = new double[size];
+		final int[] position = { 0 };
+		acceptIndexes(index -> {
+			result[position[0]++] = values[index];
+			return true;
+		});
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void growValues(final int capacity)
+	{
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	/**
+	 * Appends the given value as new node without children
+	 *
+	 * @param value
+	 *            the value
+	 * @return the index of the new node
+	 */
+	private int append(final double value)
+	{
+		final int index = appendNode();
+		values[index] = value;
+		return index;
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.binary;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * The abstract class {@link PrimitiveBinaryTree} holds the structure of the binary search trees
+ * for primitive values like {@link IntBinaryTree}, {@link LongBinaryTree} and
+ * {@link DoubleBinaryTree}. The nodes are referenced by their index, the indexes of the smaller and
+ * the greater child are held in parallel arrays and the concrete binary trees keep the values in a
+ * primitive array with the same index. This class grows the arrays and provides the iterative
+ * traversals over the indexes
+ */
+abstract class PrimitiveBinaryTree
+{
+
+	/** The index that indicates no node */
+	static final int NO_NODE = -1;
+
+	/** The default initial capacity */
+	static final int DEFAULT_CAPACITY = 16;
+
+	/** The indexes of the children with the smaller values */
+	int[] smaller;
+
+	/** The indexes of the children with the greater values */
+	int[] greater;
+
+	/** The number of values */
+	int size;
+
+	/**
+	 * Instantiates a new empty {@link PrimitiveBinaryTree} object with the given initial capacity
+	 *
+	 * @param initialCapacity
+	 *            the number of values that can be added without growing the arrays
+	 */
+	PrimitiveBinaryTree(final int initialCapacity)
+	{
+		if (initialCapacity < 0)
+		{
+			throw new IllegalArgumentException("initialCapacity must not be negative");
+		}
+		final int capacity = Math.max(1, initialCapacity);
+		smaller = new int[capacity];
+		greater = new int[capacity];
+	}
+
+	/**
+	 * Gets the number of values
+	 *
+	 * @return the number of values
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Checks if this binary tree has no values
+	 *
+	 * @return true, if this binary tree has no values otherwise false
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Grows the array of the values to the given capacity
+	 *
+	 * @param capacity
+	 *            the new capacity
+	 */
+	abstract void growValues(int capacity);
+
+	/**
+	 * Appends a new node without children, the value has to be set by the caller
+	 *
+	 * @return the index of the new node
+	 */
+	final int appendNode()
+	{
+		if (size == smaller.length)
+		{
+			final int capacity = size + Math.max(DEFAULT_CAPACITY, size >>> 1);
+			smaller = Arrays.copyOf(smaller, capacity);
+			greater = Arrays.copyOf(greater, capacity);
+			growValues(capacity);
+		}
+		smaller[size] = NO_NODE;
+		greater[size] = NO_NODE;
+		return size++;
+	}
+
+	/**
+	 * Visits the indexes of the nodes in the ascending order of their values until the given
+	 * action returns false
+	 *
+	 * @param action
+	 *            the action
+	 * @return true, if all nodes were visited or false if the action stopped the traversal
+	 */
+	final boolean acceptIndexes(final IntPredicate action)
+	{
+		int[] stack = new int[16];
+		int stackSize = 0;
+		int current = size == 0 ? NO_NODE : 0;
+		while (current != NO_NODE || 0 < stackSize)
+		{
+			while (current != NO_NODE)
+			{
+				if (stackSize == stack.length)
+				{
+					stack = Arrays.copyOf(stack, stackSize << 1);
+				}
+				stack[stackSize++] = current;
+				current = smaller[current];
+			}
+			current = stack[--stackSize];
+			if (!action.test(current))
+			{
+				return false;
+			}
+			current = greater[current];
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the index of the node with the smallest value
+	 *
+	 * @return the index or {@link #NO_NODE} if this binary tree is empty
+	 */
+	final int minIndex()
+	{
+		int current = size == 0 ? NO_NODE : 0;
+		while (current != NO_NODE && smaller[current] != NO_NODE)
+		{
+			current = smaller[current];
+		}
+		return current;
+	}
+
+	/**
+	 * Gets the index of the node with the greatest value
+	 *
+	 * @return the index or {@link #NO_NODE} if this binary tree is empty
+	 */
+	final int maxIndex()
+	{
+		int current = size == 0 ? NO_NODE : 0;
+		while (current != NO_NODE && greater[current] != NO_NODE)
+		{
+			current = greater[current];
+		}
+		return current;
+	}
+}
@@ -0,0 +1,475 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link BaseTreeNodeBinaryCodec} writes and reads {@link BaseTreeNode} trees in a
+ * compact binary format. After a header with a magic number and the version, the nodes follow in
+ * pre-order. Every node record starts with a flag byte and the number of its children as variable
+ * length integer, followed by the id, the value and the display value if they are present. The ids
+ * and values are encoded with the given {@link ValueCodec} objects, the display values and the
+ * leaf flags can be omitted. Writing and reading are iterative, so also degenerated deep trees can
+ * be processed
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+@Getter
+public class BaseTreeNodeBinaryCodec<T, K>
+{
+
+	/** The magic number at the start of the binary format */
+	public static final int MAGIC = 0x47545242;
+
+	/** The version of the binary format */
+	public static final int VERSION = 1;
+
+	/** The flag that indicates that the node has an id */
+	static final int FLAG_ID = 1;
+
+	/** The flag that indicates that the node has a value */
+	static final int FLAG_VALUE = 1 << 1;
+
+	/** The flag that indicates that the node has a display value */
+	static final int FLAG_DISPLAY_VALUE = 1 << 2;
+
+	/** The flag that indicates that the node is a leaf */
+	static final int FLAG_LEAF = 1 << 3;
+
+	/** The maximum number of children for the presizing of the children from a child count */
+	static final int MAX_PRESIZED_CHILDREN = 1024;
+
+	/** The codec for the values */
+	private final ValueCodec<T> valueCodec;
+
+	/** The codec for the ids */
+	private final ValueCodec<K> idCodec;
+
+	/** The flag that indicates if the display values are written */
+	private final boolean writeDisplayValues;
+
+	/** The flag that indicates if the leaf flags are written */
+	private final boolean writeLeafFlags;
+
+	/**
+	 * Instantiates a new {@link BaseTreeNodeBinaryCodec} object that writes the display values and
+	 * the leaf flags
+	 *
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 */
+	public BaseTreeNodeBinaryCodec(final @NonNull ValueCodec<T> valueCodec,
+		final @NonNull ValueCodec<K> idCodec)
+	{
+		this(valueCodec, idCodec, true, true);
+	}
+
+	/**
+	 * Instantiates a new {@link BaseTreeNodeBinaryCodec} object
+	 *
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 * @param writeDisplayValues
+	 *            the flag that indicates if the display values are written
+	 * @param writeLeafFlags
+	 *            the flag that indicates if the leaf flags are written
+	 */
+	public BaseTreeNodeBinaryCodec(final @NonNull ValueCodec<T> valueCodec,
+		final @NonNull ValueCodec<K> idCodec, final boolean writeDisplayValues,
+		final boolean writeLeafFlags)
+	{
+		this.valueCodec = valueCodec;
+		this.idCodec = idCodec;
+		this.writeDisplayValues = writeDisplayValues;
+		this.writeLeafFlags = writeLeafFlags;
+	}
+
+	/**
+	 * Writes the tree of the given root to the given channel
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param channel
+	 *            the channel to write to
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void write(final @NonNull BaseTreeNode<T, K> root,
+		final @NonNull WritableByteChannel channel) throws IOException
+	{
+		final BinaryTreeOutput output = new BinaryTreeOutput(channel);
+		write(root, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes the tree of the given root to a new byte array
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @return the byte array with the binary tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public byte[] toBytes(final @NonNull BaseTreeNode<T, K> root) throws IOException
+	{
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		write(root, Channels.newChannel(outputStream));
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Writes the tree of the given root to the file of the given path
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param path
+	 *            the path of the file, an existing file is truncated
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void write(final @NonNull BaseTreeNode<T, K> root, final @NonNull Path path)
+		throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			write(root, channel);
+		}
+	}
+
+	/**
+	 * Writes the header and the tree of the given root to the given {@link BinaryTreeOutput}
+	 * object. The output is not flushed
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void write(final @NonNull BaseTreeNode<T, K> root,
+		final @NonNull BinaryTreeOutput output) throws IOException
+	{
+		output.writeInt(MAGIC);
+		output.writeByte(VERSION);
+		writeTree(root, output);
+	}
+
+	/**
+	 * Writes the records of the tree of the given root in pre-order without a header
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeTree(final @NonNull BaseTreeNode<T, K> root,
+		final @NonNull BinaryTreeOutput output) throws IOException
+	{
+		final Deque<Iterator<BaseTreeNode<T, K>>> stack = new ArrayDeque<>();
+		writeNode(root, output, stack);
+		while (!stack.isEmpty())
+		{
+			final Iterator<BaseTreeNode<T, K>> children = stack.peek();
+			if (children.hasNext())
+			{
+				writeNode(children.next(), output, stack);
+			}
+			else
+			{
+				stack.pop();
+			}
+		}
+	}
+
+	/**
+	 * Writes the record of the given node and pushes the iterator over its children
+	 *
+	 * @param node
+	 *            the node to write
+	 * @param output
+	 *            the output to write to
+	 * @param stack
+	 *            the stack with the iterators over the children
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeNode(final BaseTreeNode<T, K> node, final BinaryTreeOutput output,
+		final Deque<Iterator<BaseTreeNode<T, K>>> stack) throws IOException
+	{
+		final K id = node.getId();
+		final T value = node.getValue();
+		final String displayValue = writeDisplayValues ? node.getDisplayValue() : null;
+		int flags = 0;
+		if (id != null)
+		{
+			flags |= FLAG_ID;
+		}
+		if (value != null)
+		{
+			flags |= FLAG_VALUE;
+		}
+		if (displayValue != null)
+		{
+			flags |= FLAG_DISPLAY_VALUE;
+		}
+		if (writeLeafFlags && node.isLeaf())
+		{
+			flags |= FLAG_LEAF;
+		}
+		final int childCount = node.hasChildren() ? node.getChildren().size() : 0;
+		output.writeByte(flags);
+		if (id != null)
+		{
+			idCodec.encode(id, output);
+		}
+		if (value != null)
+		{
+			valueCodec.encode(value, output);
+		}
+		if (displayValue != null)
+		{
+			output.writeString(displayValue);
+		}
+		output.writeVarInt(childCount);
+		if (0 < childCount)
+		{
+			stack.push(node.getChildren().iterator());
+		}
+	}
+
+	/**
+	 * Reads a tree from the given channel
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the channel contains no valid
+	 *             binary tree
+	 */
+	public BaseTreeNode<T, K> read(final @NonNull ReadableByteChannel channel) throws IOException
+	{
+		return read(new BinaryTreeInput(channel));
+	}
+
+	/**
+	 * Reads a tree from the given byte array
+	 *
+	 * @param bytes
+	 *            the byte array with the binary tree
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the byte array contains no valid
+	 *             binary tree
+	 */
+	public BaseTreeNode<T, K> fromBytes(final @NonNull byte[] bytes) throws IOException
+	{
+		return read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+	}
+
+	/**
+	 * Reads a tree from the file of the given path
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file contains no valid binary
+	 *             tree
+	 */
+	public BaseTreeNode<T, K> read(final @NonNull Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			return read(channel);
+		}
+	}
+
+	/**
+	 * Reads the header and a tree from the given {@link BinaryTreeInput} object
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the input contains no valid binary
+	 *             tree
+	 */
+	public BaseTreeNode<T, K> read(final @NonNull BinaryTreeInput input) throws IOException
+	{
+		if (input.readInt() != MAGIC)
+		{
+			throw new IOException("The input contains no binary tree");
+		}
+		final int version = input.readByte();
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported version " + version + " of the binary tree");
+		}
+		return readTree(input);
+	}
+
+	/**
+	 * Reads the records of a tree in pre-order without a header
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public BaseTreeNode<T, K> readTree(final @NonNull BinaryTreeInput input) throws IOException
+	{
+		final Deque<BaseTreeNode<T, K>> parents = new ArrayDeque<>();
+		int[] remainingChildren = new int[16];
+		final BaseTreeNode<T, K> root = readNode(input, null);
+		int childCount = readChildCount(input);
+		presizeChildren(root, childCount);
+		if (0 < childCount)
+		{
+			parents.push(root);
+			remainingChildren[0] = childCount;
+		}
+		while (!parents.isEmpty())
+		{
+			final int top = parents.size() - 1;
+			final BaseTreeNode<T, K> parent = parents.peek();
+			final BaseTreeNode<T, K> child = readNode(input, parent);
+			childCount = readChildCount(input);
+			parent.getChildren().add(child);
+			if (--remainingChildren[top] == 0)
+			{
+				parents.pop();
+			}
+			if (0 < childCount)
+			{
+				presizeChildren(child, childCount);
+				if (parents.size() == remainingChildren.length)
+				{
+					remainingChildren = Arrays.copyOf(remainingChildren,
+						remainingChildren.length << 1);
+				}
+				remainingChildren[parents.size()] = childCount;
+				parents.push(child);
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Reads the number of children of a node record
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @return the number of children
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the number is negative
+	 */
+	private static int readChildCount(final BinaryTreeInput input) throws IOException
+	{
+		final int childCount = input.readVarInt();
+		if (childCount < 0)
+		{
+			throw new IOException("Invalid number of children " + childCount);
+		}
+		return childCount;
+	}
+
+	/**
+	 * Presizes the children of the given node for the given number of children. The number is
+	 * read from the stream and can be corrupt, so the presizing is capped at
+	 * {@link #MAX_PRESIZED_CHILDREN} and the set grows beyond on demand
+	 *
+	 * @param node
+	 *            the node
+	 * @param childCount
+	 *            the number of children
+	 */
+	private void presizeChildren(final BaseTreeNode<T, K> node, final int childCount)
+	{
+		if (0 < childCount)
+		{
+			node.setChildren(
+				new AdaptiveLinkedSet<>(Math.min(childCount, MAX_PRESIZED_CHILDREN)));
+		}
+	}
+
+	/**
+	 * Reads the flags, the id, the value and the display value of a node record. The following
+	 * number of children is read by the caller
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @param parent
+	 *            the parent of the node or null for the root
+	 * @return the new node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private BaseTreeNode<T, K> readNode(final BinaryTreeInput input, final BaseTreeNode<T, K> parent)
+		throws IOException
+	{
+		final int flags = input.readByte();
+		if ((flags & ~(FLAG_ID | FLAG_VALUE | FLAG_DISPLAY_VALUE | FLAG_LEAF)) != 0)
+		{
+			throw new IOException("Invalid node flags " + flags);
+		}
+		final K id = (flags & FLAG_ID) != 0 ? idCodec.decode(input) : null;
+		final T value = (flags & FLAG_VALUE) != 0 ? valueCodec.decode(input) : null;
+		final String displayValue = (flags & FLAG_DISPLAY_VALUE) != 0 ? input.readString() : null;
+		return BaseTreeNode.<T, K> builder().id(id).value(value).displayValue(displayValue)
+			.leaf((flags & FLAG_LEAF) != 0).parent(parent).build();
+	}
+}
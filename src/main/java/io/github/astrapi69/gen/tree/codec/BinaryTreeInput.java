@@ -0,0 +1,322 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import lombok.NonNull;
+
+/**
+ * The class {@link BinaryTreeInput} reads primitive values in the binary tree format from a
+ * {@link ReadableByteChannel} object. The channel is read in chunks into a {@link ByteBuffer}
+ * object, so the values are decoded from memory. An input can also read directly from a given
+ * {@link ByteBuffer} object, for instance a memory mapped region
+ */
+public class BinaryTreeInput
+{
+
+	/** The channel to read from */
+	private final ReadableByteChannel channel;
+
+	/** The buffer */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Instantiates a new {@link BinaryTreeInput} object with the default buffer size
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 */
+	public BinaryTreeInput(final @NonNull ReadableByteChannel channel)
+	{
+		this(channel, BinaryTreeOutput.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Instantiates a new {@link BinaryTreeInput} object
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 * @param bufferSize
+	 *            the size of the buffer, at least 16 bytes
+	 */
+	public BinaryTreeInput(final @NonNull ReadableByteChannel channel, final int bufferSize)
+	{
+		if (bufferSize < 16)
+		{
+			throw new IllegalArgumentException("bufferSize must be at least 16");
+		}
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(bufferSize);
+		this.buffer.flip();
+	}
+
+	/**
+	 * Instantiates a new {@link BinaryTreeInput} object that reads the remaining bytes of the given
+	 * {@link ByteBuffer} object without copying. The position of the given buffer is not changed
+	 *
+	 * @param buffer
+	 *            the buffer to read from
+	 */
+	public BinaryTreeInput(final @NonNull ByteBuffer buffer)
+	{
+		this.channel = null;
+		this.buffer = buffer.slice();
+	}
+
+	/**
+	 * Ensures that the given number of bytes is available in the buffer
+	 *
+	 * @param length
+	 *            the number of bytes, at most the capacity of the buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the end of the channel is reached
+	 */
+	private void ensure(final int length) throws IOException
+	{
+		if (buffer.remaining() < length)
+		{
+			if (channel == null)
+			{
+				throw new EOFException("Unexpected end of the buffer");
+			}
+			buffer.compact();
+			while (buffer.position() < length)
+			{
+				if (channel.read(buffer) < 0)
+				{
+					buffer.flip();
+					throw new EOFException("Unexpected end of the channel");
+				}
+			}
+			buffer.flip();
+		}
+	}
+
+	/**
+	 * Checks if the end of the channel is reached
+	 *
+	 * @return true, if no more bytes are available otherwise false
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public boolean isAtEnd() throws IOException
+	{
+		if (buffer.hasRemaining())
+		{
+			return false;
+		}
+		if (channel == null)
+		{
+			return true;
+		}
+		buffer.clear();
+		int read;
+		while ((read = channel.read(buffer)) == 0)
+		{
+			// a non blocking channel has no bytes yet
+			Thread.onSpinWait();
+		}
+		buffer.flip();
+		return read < 0;
+	}
+
+	/**
+	 * Reads one byte
+	 *
+	 * @return the byte as unsigned int
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public int readByte() throws IOException
+	{
+		ensure(1);
+		return buffer.get() & 0xFF;
+	}
+
+	/**
+	 * Reads one byte as boolean
+	 *
+	 * @return the boolean
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public boolean readBoolean() throws IOException
+	{
+		return readByte() != 0;
+	}
+
+	/**
+	 * Reads an int with four bytes
+	 *
+	 * @return the int
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public int readInt() throws IOException
+	{
+		ensure(Integer.BYTES);
+		return buffer.getInt();
+	}
+
+	/**
+	 * Reads a long with eight bytes
+	 *
+	 * @return the long
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public long readLong() throws IOException
+	{
+		ensure(Long.BYTES);
+		return buffer.getLong();
+	}
+
+	/**
+	 * Reads a double with eight bytes
+	 *
+	 * @return the double
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public double readDouble() throws IOException
+	{
+		ensure(Double.BYTES);
+		return buffer.getDouble();
+	}
+
+	/**
+	 * Reads an unsigned variable length long
+	 *
+	 * @return the long
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the variable length long is
+	 *             malformed
+	 */
+	public long readVarLong() throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			final int current = readByte();
+			value |= (long)(current & 0x7F) << shift;
+			if ((current & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length long");
+	}
+
+	/**
+	 * Reads an unsigned variable length int
+	 *
+	 * @return the int
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the variable length int is
+	 *             malformed
+	 */
+	public int readVarInt() throws IOException
+	{
+		final long value = readVarLong();
+		if ((value & ~0xFFFFFFFFL) != 0)
+		{
+			throw new IOException("Malformed variable length int");
+		}
+		return (int)value;
+	}
+
+	/**
+	 * Reads a zigzag encoded variable length long
+	 *
+	 * @return the long
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public long readZigZagLong() throws IOException
+	{
+		final long value = readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads bytes with a leading variable length size
+	 *
+	 * @return the bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public byte[] readBytes() throws IOException
+	{
+		final int length = readVarInt();
+		final byte[] bytes = new byte[length];
+		readRawBytes(bytes, 0, length);
+		return bytes;
+	}
+
+	/**
+	 * Reads the given number of bytes without a size into the given array
+	 *
+	 * @param bytes
+	 *            the array to fill
+	 * @param offset
+	 *            the offset in the array
+	 * @param length
+	 *            the number of bytes to read
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void readRawBytes(final @NonNull byte[] bytes, int offset, int length)
+		throws IOException
+	{
+		while (0 < length)
+		{
+			if (!buffer.hasRemaining())
+			{
+				ensure(1);
+			}
+			final int chunk = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, chunk);
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	/**
+	 * Reads an UTF-8 string with a leading variable length size
+	 *
+	 * @return the string
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public String readString() throws IOException
+	{
+		return new String(readBytes(), StandardCharsets.UTF_8);
+	}
+}
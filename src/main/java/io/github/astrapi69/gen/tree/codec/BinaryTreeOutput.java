@@ -0,0 +1,308 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import lombok.NonNull;
+
+/**
+ * The class {@link BinaryTreeOutput} writes primitive values in the binary tree format to a
+ * {@link WritableByteChannel} object. All values are collected in a {@link ByteBuffer} object and
+ * the buffer is written to the channel only if it is full or on {@link #flush()}. Integral values
+ * can be written as variable length integers, so small ids need only one or two bytes
+ */
+public class BinaryTreeOutput implements Flushable
+{
+
+	/** The default size of the buffer */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/** The channel to write to */
+	private final WritableByteChannel channel;
+
+	/** The buffer */
+	private final ByteBuffer buffer;
+
+	/** The number of bytes that are already written to the channel */
+	private long flushedBytes;
+
+	/**
+	 * Instantiates a new {@link BinaryTreeOutput} object with the default buffer size
+	 *
+	 * @param channel
+	 *            the channel to write to
+	 */
+	public BinaryTreeOutput(final @NonNull WritableByteChannel channel)
+	{
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Instantiates a new {@link BinaryTreeOutput} object
+	 *
+	 * @param channel
+	 *            the channel to write to
+	 * @param bufferSize
+	 *            the size of the buffer, at least 16 bytes
+	 */
+	public BinaryTreeOutput(final @NonNull WritableByteChannel channel, final int bufferSize)
+	{
+		if (bufferSize < 16)
+		{
+			throw new IllegalArgumentException("bufferSize must be at least 16");
+		}
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Gets the number of written bytes including the bytes in the buffer
+	 *
+	 * @return the number of written bytes
+	 */
+	public long getWrittenBytes()
+	{
+		return flushedBytes + buffer.position();
+	}
+
+	/**
+	 * Ensures that the given number of bytes fits in the buffer
+	 *
+	 * @param length
+	 *            the number of bytes, at most the capacity of the buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void ensure(final int length) throws IOException
+	{
+		if (buffer.remaining() < length)
+		{
+			drain();
+		}
+	}
+
+	/**
+	 * Writes the content of the buffer to the channel
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void drain() throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			flushedBytes += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the given byte
+	 *
+	 * @param value
+	 *            the byte to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeByte(final int value) throws IOException
+	{
+		ensure(1);
+		buffer.put((byte)value);
+	}
+
+	/**
+	 * Writes the given boolean as one byte
+	 *
+	 * @param value
+	 *            the boolean to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeBoolean(final boolean value) throws IOException
+	{
+		writeByte(value ? 1 : 0);
+	}
+
+	/**
+	 * Writes the given int with four bytes
+	 *
+	 * @param value
+	 *            the int to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeInt(final int value) throws IOException
+	{
+		ensure(Integer.BYTES);
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Writes the given long with eight bytes
+	 *
+	 * @param value
+	 *            the long to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeLong(final long value) throws IOException
+	{
+		ensure(Long.BYTES);
+		buffer.putLong(value);
+	}
+
+	/**
+	 * Writes the given double with eight bytes
+	 *
+	 * @param value
+	 *            the double to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeDouble(final double value) throws IOException
+	{
+		ensure(Double.BYTES);
+		buffer.putDouble(value);
+	}
+
+	/**
+	 * Writes the given long as unsigned variable length integer with seven bits per byte
+	 *
+	 * @param value
+	 *            the long to write, negative values need ten bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeVarLong(long value) throws IOException
+	{
+		ensure(10);
+		while ((value & ~0x7FL) != 0)
+		{
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	/**
+	 * Writes the given int as unsigned variable length integer with seven bits per byte
+	 *
+	 * @param value
+	 *            the int to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeVarInt(final int value) throws IOException
+	{
+		writeVarLong(value & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Writes the given long zigzag encoded as variable length integer, so also small negative
+	 * values need only a few bytes
+	 *
+	 * @param value
+	 *            the long to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeZigZagLong(final long value) throws IOException
+	{
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Writes the given bytes with a leading variable length size
+	 *
+	 * @param bytes
+	 *            the bytes to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeBytes(final @NonNull byte[] bytes) throws IOException
+	{
+		writeVarInt(bytes.length);
+		writeRawBytes(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Writes the given range of the given bytes without a size
+	 *
+	 * @param bytes
+	 *            the bytes to write
+	 * @param offset
+	 *            the offset of the first byte
+	 * @param length
+	 *            the number of bytes to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeRawBytes(final @NonNull byte[] bytes, int offset, int length)
+		throws IOException
+	{
+		while (0 < length)
+		{
+			if (!buffer.hasRemaining())
+			{
+				drain();
+			}
+			final int chunk = Math.min(length, buffer.remaining());
+			buffer.put(bytes, offset, chunk);
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	/**
+	 * Writes the given string as UTF-8 bytes with a leading variable length size
+	 *
+	 * @param value
+	 *            the string to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeString(final @NonNull String value) throws IOException
+	{
+		writeBytes(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes all buffered bytes to the channel
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		drain();
+	}
+}
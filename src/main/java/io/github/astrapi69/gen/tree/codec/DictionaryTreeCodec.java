@@ -0,0 +1,564 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+import java.util.zip.Deflater;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link DictionaryTreeCodec} writes compact snapshots of {@link BaseTreeNode} trees for
+ * backups and transfers of trees with many repeated values and display values. All distinct values
+ * and display values are written once in a dictionary and the nodes reference them by their index.
+ * The nodes are written in pre-order with their number of children and grouped in blocks of a
+ * fixed number of nodes. Inside a block the ids are delta encoded against the id of the previous
+ * node, so the ids have to be mappable to long values. Every block starts with the ids and the
+ * number of remaining children of the open ancestors, so a block can be decoded with the parent
+ * ids without the previous blocks. The dictionary and the blocks are optionally compressed with a
+ * {@link Deflater}. A snapshot that is opened with {@link #open(Path)} reads single blocks
+ *
+ * <p>
+ * The values are compared with {@link Object#equals(Object)} for the dictionary, so they need a
+ * consistent {@link Object#hashCode()}. The ids must not be null
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class DictionaryTreeCodec<T, K>
+{
+
+	/** The magic number at the start of the snapshot */
+	public static final int MAGIC = 0x47545244;
+
+	/** The version of the snapshot format */
+	public static final int VERSION = 1;
+
+	/** The default number of nodes per block */
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	/** The size of the header */
+	static final int HEADER_SIZE = 32;
+
+	/** The size of an entry of the block index */
+	static final int INDEX_ENTRY_SIZE = Long.BYTES + 2 * Integer.BYTES;
+
+	/** The header flag that indicates that the sections are compressed */
+	static final int HEADER_FLAG_COMPRESSED = 1;
+
+	/** The node flag that indicates that the node is a leaf */
+	static final int FLAG_LEAF = 1;
+
+	/** The codec for the values */
+	private final ValueCodec<T> valueCodec;
+
+	/** The function that maps an id to a long value */
+	private final ToLongFunction<K> idToLong;
+
+	/** The function that maps a long value back to an id */
+	private final LongFunction<K> longToId;
+
+	/** The flag that indicates if the sections are compressed */
+	private final boolean compressed;
+
+	/** The number of nodes per block */
+	private final int blockSize;
+
+	/**
+	 * Instantiates a new {@link DictionaryTreeCodec} object
+	 *
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idToLong
+	 *            the function that maps an id to a long value
+	 * @param longToId
+	 *            the function that maps a long value back to an id
+	 * @param compressed
+	 *            the flag that indicates if the dictionary and the blocks are compressed
+	 * @param blockSize
+	 *            the number of nodes per block
+	 */
+	public DictionaryTreeCodec(final @NonNull ValueCodec<T> valueCodec,
+		final @NonNull ToLongFunction<K> idToLong, final @NonNull LongFunction<K> longToId,
+		final boolean compressed, final int blockSize)
+	{
+		if (blockSize < 1)
+		{
+			throw new IllegalArgumentException("blockSize must be positive");
+		}
+		this.valueCodec = valueCodec;
+		this.idToLong = idToLong;
+		this.longToId = longToId;
+		this.compressed = compressed;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Factory method for creating a new {@link DictionaryTreeCodec} object for trees with
+	 * {@link Long} ids and the default block size
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param compressed
+	 *            the flag that indicates if the dictionary and the blocks are compressed
+	 * @return the new {@link DictionaryTreeCodec} object
+	 */
+	public static <T> DictionaryTreeCodec<T, Long> withLongIds(
+		final @NonNull ValueCodec<T> valueCodec, final boolean compressed)
+	{
+		return new DictionaryTreeCodec<>(valueCodec, Long::longValue, Long::valueOf, compressed,
+			DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Writes the snapshot of the tree of the given root to the given file
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param path
+	 *            the path of the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void write(final @NonNull BaseTreeNode<T, K> root, final @NonNull Path path)
+		throws IOException
+	{
+		final Map<T, Integer> valueIndexes = new HashMap<>();
+		final Map<String, Integer> displayValueIndexes = new HashMap<>();
+		final List<T> values = new ArrayList<>();
+		final List<String> displayValues = new ArrayList<>();
+		final int[] nodeCount = new int[1];
+		visitPreOrder(root, node -> {
+			if (node.getValue() != null && !valueIndexes.containsKey(node.getValue()))
+			{
+				valueIndexes.put(node.getValue(), values.size());
+				values.add(node.getValue());
+			}
+			if (node.getDisplayValue() != null
+				&& !displayValueIndexes.containsKey(node.getDisplayValue()))
+			{
+				displayValueIndexes.put(node.getDisplayValue(), displayValues.size());
+				displayValues.add(node.getDisplayValue());
+			}
+			if (nodeCount[0] == Integer.MAX_VALUE)
+			{
+				throw new IllegalArgumentException(
+					"The tree has more than " + Integer.MAX_VALUE + " nodes");
+			}
+			nodeCount[0]++;
+		});
+		final Deflater deflater = compressed ? new Deflater() : null;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final BinaryTreeOutput output = new BinaryTreeOutput(Channels.newChannel(bytes));
+			output.writeVarInt(values.size());
+			for (final T value : values)
+			{
+				valueCodec.encode(value, output);
+			}
+			output.writeVarInt(displayValues.size());
+			for (final String displayValue : displayValues)
+			{
+				output.writeString(displayValue);
+			}
+			output.flush();
+			channel.position(HEADER_SIZE);
+			writeSection(channel, bytes.toByteArray(), deflater);
+
+			final int blockCount = (int)(((long)nodeCount[0] + blockSize - 1) / blockSize);
+			final ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+			bytes.reset();
+			final BlockEncoder encoder = new BlockEncoder(channel, bytes, output, deflater, index,
+				valueIndexes, displayValueIndexes);
+			visitPreOrder(root, encoder::encode);
+			encoder.finish();
+			final long indexOffset = channel.position();
+			index.flip();
+			writeFully(channel, index);
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(compressed ? HEADER_FLAG_COMPRESSED : 0);
+			header.putInt(blockSize);
+			header.putInt(nodeCount[0]);
+			header.putInt(blockCount);
+			header.putLong(indexOffset);
+			header.flip();
+			channel.position(0);
+			writeFully(channel, header);
+		}
+		finally
+		{
+			if (deflater != null)
+			{
+				deflater.end();
+			}
+		}
+	}
+
+	/**
+	 * Reads the whole tree from the snapshot in the given file
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file contains no valid
+	 *             snapshot
+	 */
+	public BaseTreeNode<T, K> read(final @NonNull Path path) throws IOException
+	{
+		try (DictionaryTreeSnapshot<T, K> snapshot = open(path))
+		{
+			return snapshot.readTree();
+		}
+	}
+
+	/**
+	 * Opens the snapshot in the given file for the access to single blocks. The header, the
+	 * dictionary and the block index are read immediately
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @return the opened {@link DictionaryTreeSnapshot} object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file contains no valid
+	 *             snapshot
+	 */
+	public DictionaryTreeSnapshot<T, K> open(final @NonNull Path path) throws IOException
+	{
+		return new DictionaryTreeSnapshot<>(path, valueCodec, longToId);
+	}
+
+	/**
+	 * Maps the given id to a long value
+	 *
+	 * @param id
+	 *            the id
+	 * @return the long value
+	 */
+	private long toLong(final K id)
+	{
+		if (id == null)
+		{
+			throw new IllegalArgumentException("The ids of the nodes must not be null");
+		}
+		return idToLong.applyAsLong(id);
+	}
+
+	/**
+	 * Writes the given raw bytes as section with the stored length and the raw length in front
+	 *
+	 * @param channel
+	 *            the channel to write to
+	 * @param raw
+	 *            the raw bytes
+	 * @param deflater
+	 *            the deflater or null if the section is not compressed
+	 * @return the number of written bytes including the lengths
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private static int writeSection(final FileChannel channel, final byte[] raw,
+		final Deflater deflater) throws IOException
+	{
+		final byte[] stored = deflater == null ? raw : deflate(raw, deflater);
+		final ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + stored.length);
+		buffer.putInt(stored.length);
+		buffer.putInt(raw.length);
+		buffer.put(stored);
+		buffer.flip();
+		writeFully(channel, buffer);
+		return buffer.capacity();
+	}
+
+	/**
+	 * Compresses the given bytes with the given deflater
+	 *
+	 * @param raw
+	 *            the bytes to compress
+	 * @param deflater
+	 *            the deflater, it is reset before the compression
+	 * @return the compressed bytes
+	 */
+	private static byte[] deflate(final byte[] raw, final Deflater deflater)
+	{
+		deflater.reset();
+		deflater.setInput(raw);
+		deflater.finish();
+		final ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream(
+			Math.max(64, raw.length / 4));
+		final byte[] chunk = new byte[8192];
+		while (!deflater.finished())
+		{
+			final int length = deflater.deflate(chunk);
+			compressedBytes.write(chunk, 0, length);
+		}
+		return compressedBytes.toByteArray();
+	}
+
+	/**
+	 * Writes the remaining bytes of the given buffer to the given channel
+	 */
+	private static void writeFully(final FileChannel channel, final ByteBuffer buffer)
+		throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Visits the nodes of the tree of the given root in pre-order with an iterative traversal
+	 *
+	 * @param root
+	 *            the root of the tree
+	 * @param visitor
+	 *            the visitor of the nodes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred in the visitor
+	 */
+	private void visitPreOrder(final BaseTreeNode<T, K> root, final NodeVisitor<T, K> visitor)
+		throws IOException
+	{
+		final Deque<Iterator<BaseTreeNode<T, K>>> stack = new ArrayDeque<>();
+		visitor.visit(root);
+		if (root.hasChildren())
+		{
+			stack.push(root.getChildren().iterator());
+		}
+		while (!stack.isEmpty())
+		{
+			final Iterator<BaseTreeNode<T, K>> children = stack.peek();
+			if (!children.hasNext())
+			{
+				stack.pop();
+				continue;
+			}
+			final BaseTreeNode<T, K> child = children.next();
+			visitor.visit(child);
+			if (child.hasChildren())
+			{
+				stack.push(child.getChildren().iterator());
+			}
+		}
+	}
+
+	/**
+	 * The interface {@link NodeVisitor} visits a node and can throw an {@link IOException}
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 */
+	@FunctionalInterface
+	private interface NodeVisitor<T, K>
+	{
+
+		/**
+		 * Visits the given node
+		 *
+		 * @param node
+		 *            the node
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void visit(BaseTreeNode<T, K> node) throws IOException;
+	}
+
+	/**
+	 * The class {@link BlockEncoder} encodes the nodes in pre-order into blocks and writes every
+	 * full block as section
+	 */
+	private final class BlockEncoder
+	{
+
+		/** The channel to write to */
+		private final FileChannel channel;
+
+		/** The bytes of the current block */
+		private final ByteArrayOutputStream bytes;
+
+		/** The output over the bytes of the current block */
+		private final BinaryTreeOutput output;
+
+		/** The deflater or null if the blocks are not compressed */
+		private final Deflater deflater;
+
+		/** The block index */
+		private final ByteBuffer index;
+
+		/** The dictionary indexes of the values */
+		private final Map<T, Integer> valueIndexes;
+
+		/** The dictionary indexes of the display values */
+		private final Map<String, Integer> displayValueIndexes;
+
+		/** The ids of the open ancestors from the root downwards */
+		private long[] ancestorIds = new long[16];
+
+		/** The numbers of the remaining children of the open ancestors */
+		private int[] remainingChildren = new int[16];
+
+		/** The number of open ancestors */
+		private int depth;
+
+		/** The id of the previous node in the current block */
+		private long previousId;
+
+		/** The number of nodes in the current block */
+		private int nodesInBlock;
+
+		/**
+		 * Instantiates a new {@link BlockEncoder} object
+		 */
+		BlockEncoder(final FileChannel channel, final ByteArrayOutputStream bytes,
+			final BinaryTreeOutput output, final Deflater deflater, final ByteBuffer index,
+			final Map<T, Integer> valueIndexes, final Map<String, Integer> displayValueIndexes)
+		{
+			this.channel = channel;
+			this.bytes = bytes;
+			this.output = output;
+			this.deflater = deflater;
+			this.index = index;
+			this.valueIndexes = valueIndexes;
+			this.displayValueIndexes = displayValueIndexes;
+		}
+
+		/**
+		 * Encodes the given node, the nodes have to be given in pre-order
+		 *
+		 * @param node
+		 *            the node
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void encode(final BaseTreeNode<T, K> node) throws IOException
+		{
+			if (nodesInBlock == 0)
+			{
+				output.writeVarInt(depth);
+				long previousAncestorId = 0;
+				for (int i = 0; i < depth; i++)
+				{
+					output.writeZigZagLong(ancestorIds[i] - previousAncestorId);
+					output.writeVarInt(remainingChildren[i]);
+					previousAncestorId = ancestorIds[i];
+				}
+			}
+			final long id = toLong(node.getId());
+			final int childCount = node.hasChildren() ? node.getChildren().size() : 0;
+			output.writeByte(node.isLeaf() ? FLAG_LEAF : 0);
+			output.writeZigZagLong(id - previousId);
+			output.writeVarInt(node.getValue() == null ? 0 : valueIndexes.get(node.getValue()) + 1);
+			output.writeVarInt(node.getDisplayValue() == null
+				? 0
+				: displayValueIndexes.get(node.getDisplayValue()) + 1);
+			output.writeVarInt(childCount);
+			previousId = id;
+			if (0 < depth)
+			{
+				remainingChildren[depth - 1]--;
+			}
+			if (0 < childCount)
+			{
+				if (depth == ancestorIds.length)
+				{
+					ancestorIds = Arrays.copyOf(ancestorIds, depth << 1);
+					remainingChildren = Arrays.copyOf(remainingChildren, depth << 1);
+				}
+				ancestorIds[depth] = id;
+				remainingChildren[depth++] = childCount;
+			}
+			while (0 < depth && remainingChildren[depth - 1] == 0)
+			{
+				depth--;
+			}
+			if (++nodesInBlock == blockSize)
+			{
+				writeBlock();
+			}
+		}
+
+		/**
+		 * Writes the last block if it is not empty
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void finish() throws IOException
+		{
+			if (0 < nodesInBlock)
+			{
+				writeBlock();
+			}
+		}
+
+		/**
+		 * Writes the current block as section and adds its entry to the block index
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		private void writeBlock() throws IOException
+		{
+			output.flush();
+			final long offset = channel.position();
+			final byte[] raw = bytes.toByteArray();
+			final int storedLength = writeSection(channel, raw, deflater);
+			index.putLong(offset);
+			index.putInt(storedLength);
+			index.putInt(raw.length);
+			bytes.reset();
+			previousId = 0;
+			nodesInBlock = 0;
+		}
+	}
+}
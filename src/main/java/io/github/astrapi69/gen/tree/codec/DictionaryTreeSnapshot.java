@@ -0,0 +1,509 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import lombok.NonNull;
+
+/**
+ * The class {@link DictionaryTreeSnapshot} reads a snapshot that is written with the
+ * {@link DictionaryTreeCodec}. The header, the dictionary and the block index are read when the
+ * snapshot is opened, the blocks are read and decompressed on demand. The last read block is
+ * cached, so a sequential access over {@link #readNode(int)} reads every block once
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class DictionaryTreeSnapshot<T, K> implements Closeable
+{
+
+	/** The channel of the file */
+	private final FileChannel channel;
+
+	/** The function that maps a long value back to an id */
+	private final LongFunction<K> longToId;
+
+	/** The inflater or null if the snapshot is not compressed */
+	private final Inflater inflater;
+
+	/** The number of nodes per block */
+	private final int blockSize;
+
+	/** The number of nodes */
+	private final int nodeCount;
+
+	/** The offsets of the blocks */
+	private final long[] blockOffsets;
+
+	/** The stored lengths of the blocks */
+	private final int[] storedLengths;
+
+	/** The raw lengths of the blocks */
+	private final int[] rawLengths;
+
+	/** The dictionary of the values */
+	private final List<T> values;
+
+	/** The dictionary of the display values */
+	private final List<String> displayValues;
+
+	/** The index of the cached block or -1 */
+	private int cachedBlockIndex = -1;
+
+	/** The records of the cached block */
+	private List<TreeIdNode<T, K>> cachedBlock;
+
+	/**
+	 * Instantiates a new {@link DictionaryTreeSnapshot} object and reads the header, the dictionary
+	 * and the block index
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param longToId
+	 *            the function that maps a long value back to an id
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file contains no valid
+	 *             snapshot
+	 */
+	DictionaryTreeSnapshot(final @NonNull Path path, final @NonNull ValueCodec<T> valueCodec,
+		final @NonNull LongFunction<K> longToId) throws IOException
+	{
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.longToId = longToId;
+		try
+		{
+			final ByteBuffer header = readFully(0L, DictionaryTreeCodec.HEADER_SIZE);
+			if (header.getInt() != DictionaryTreeCodec.MAGIC)
+			{
+				throw new IOException("The file contains no dictionary tree snapshot");
+			}
+			final int version = header.getInt();
+			if (version != DictionaryTreeCodec.VERSION)
+			{
+				throw new IOException("Unsupported version " + version + " of the snapshot");
+			}
+			final boolean compressed = (header.getInt()
+				& DictionaryTreeCodec.HEADER_FLAG_COMPRESSED) != 0;
+			this.inflater = compressed ? new Inflater() : null;
+			this.blockSize = header.getInt();
+			this.nodeCount = header.getInt();
+			final int blockCount = header.getInt();
+			final long indexOffset = header.getLong();
+			if (blockSize < 1 || nodeCount < 0
+				|| blockCount != ((long)nodeCount + blockSize - 1) / blockSize
+				|| Integer.MAX_VALUE / DictionaryTreeCodec.INDEX_ENTRY_SIZE < blockCount)
+			{
+				throw new IOException("Invalid node count " + nodeCount + " for " + blockCount
+					+ " blocks of " + blockSize + " nodes");
+			}
+
+			final ByteBuffer index = readFully(indexOffset,
+				blockCount * DictionaryTreeCodec.INDEX_ENTRY_SIZE);
+			this.blockOffsets = new long[blockCount];
+			this.storedLengths = new int[blockCount];
+			this.rawLengths = new int[blockCount];
+			for (int i = 0; i < blockCount; i++)
+			{
+				blockOffsets[i] = index.getLong();
+				storedLengths[i] = index.getInt();
+				rawLengths[i] = index.getInt();
+			}
+
+			final ByteBuffer lengths = readFully(DictionaryTreeCodec.HEADER_SIZE,
+				2 * Integer.BYTES);
+			final int storedLength = 2 * Integer.BYTES + lengths.getInt();
+			final BinaryTreeInput input = new BinaryTreeInput(ByteBuffer.wrap(
+				readSection(DictionaryTreeCodec.HEADER_SIZE, storedLength, lengths.getInt())));
+			final int valueCount = input.readVarInt();
+			this.values = new ArrayList<>(valueCount);
+			for (int i = 0; i < valueCount; i++)
+			{
+				values.add(valueCodec.decode(input));
+			}
+			final int displayValueCount = input.readVarInt();
+			this.displayValues = new ArrayList<>(displayValueCount);
+			for (int i = 0; i < displayValueCount; i++)
+			{
+				displayValues.add(input.readString());
+			}
+		}
+		catch (IOException | RuntimeException exception)
+		{
+			channel.close();
+			throw exception;
+		}
+	}
+
+	/**
+	 * Gets the number of nodes
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Gets the number of blocks
+	 *
+	 * @return the number of blocks
+	 */
+	public int getBlockCount()
+	{
+		return blockOffsets.length;
+	}
+
+	/**
+	 * Gets the number of nodes per block
+	 *
+	 * @return the number of nodes per block
+	 */
+	public int getBlockSize()
+	{
+		return blockSize;
+	}
+
+	/**
+	 * Gets the number of distinct values in the dictionary
+	 *
+	 * @return the number of distinct values
+	 */
+	public int getDistinctValueCount()
+	{
+		return values.size();
+	}
+
+	/**
+	 * Gets the number of distinct display values in the dictionary
+	 *
+	 * @return the number of distinct display values
+	 */
+	public int getDistinctDisplayValueCount()
+	{
+		return displayValues.size();
+	}
+
+	/**
+	 * Reads the node with the given pre-order index. The returned record holds the id, the parent
+	 * id, the value, the display value and the leaf flag, the children ids are not part of the
+	 * snapshot blocks and stay empty
+	 *
+	 * @param index
+	 *            the pre-order index of the node
+	 * @return the {@link TreeIdNode} object of the node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public TreeIdNode<T, K> readNode(final int index) throws IOException
+	{
+		if (index < 0 || nodeCount <= index)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for "
+				+ nodeCount + " nodes");
+		}
+		final int blockIndex = index / blockSize;
+		if (blockIndex != cachedBlockIndex)
+		{
+			cachedBlock = readBlock(blockIndex);
+			cachedBlockIndex = blockIndex;
+		}
+		return cachedBlock.get(index % blockSize);
+	}
+
+	/**
+	 * Reads the nodes of the block with the given index. The returned records hold the id, the
+	 * parent id, the value, the display value and the leaf flag, the children ids stay empty
+	 *
+	 * @param blockIndex
+	 *            the index of the block
+	 * @return a new {@link List} object with the {@link TreeIdNode} objects of the block in
+	 *         pre-order
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public List<TreeIdNode<T, K>> readBlock(final int blockIndex) throws IOException
+	{
+		final List<TreeIdNode<T, K>> records = new ArrayList<>(blockSize);
+		decodeBlock(blockIndex, (id, parentId, value, displayValue, leaf, childCount) -> records
+			.add(TreeIdNode.<T, K> builder().id(longToId.apply(id))
+				.parentId(parentId == null ? null : longToId.apply(parentId)).value(value)
+				.displayValue(displayValue).leaf(leaf).build()));
+		return records;
+	}
+
+	/**
+	 * Reads the whole tree block by block
+	 *
+	 * @return the root of the read tree or null if the snapshot is empty
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public BaseTreeNode<T, K> readTree() throws IOException
+	{
+		final Deque<BaseTreeNode<T, K>> parents = new ArrayDeque<>();
+		final List<BaseTreeNode<T, K>> root = new ArrayList<>(1);
+		final int[][] remainingChildren = { new int[16] };
+		for (int blockIndex = 0; blockIndex < getBlockCount(); blockIndex++)
+		{
+			decodeBlock(blockIndex, (id, parentId, value, displayValue, leaf, childCount) -> {
+				final BaseTreeNode<T, K> parent = parents.peek();
+				final BaseTreeNode<T, K> node = BaseTreeNode.<T, K> builder()
+					.id(longToId.apply(id)).value(value).displayValue(displayValue).leaf(leaf)
+					.parent(parent).build();
+				if (parent == null)
+				{
+					if (!root.isEmpty())
+					{
+						throw new IOException("The snapshot contains more than one root");
+					}
+					root.add(node);
+				}
+				else
+				{
+					parent.getChildren().add(node);
+					if (--remainingChildren[0][parents.size() - 1] == 0)
+					{
+						parents.pop();
+					}
+				}
+				if (0 < childCount)
+				{
+					node.setChildren(new AdaptiveLinkedSet<>(
+						Math.min(childCount, BaseTreeNodeBinaryCodec.MAX_PRESIZED_CHILDREN)));
+					if (parents.size() == remainingChildren[0].length)
+					{
+						remainingChildren[0] = Arrays.copyOf(remainingChildren[0],
+							remainingChildren[0].length << 1);
+					}
+					remainingChildren[0][parents.size()] = childCount;
+					parents.push(node);
+				}
+			});
+		}
+		return root.isEmpty() ? null : root.get(0);
+	}
+
+	/**
+	 * Closes the file
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (inflater != null)
+		{
+			inflater.end();
+		}
+		channel.close();
+	}
+
+	/**
+	 * Reads, decompresses and decodes the block with the given index
+	 *
+	 * @param blockIndex
+	 *            the index of the block
+	 * @param consumer
+	 *            the consumer of the decoded records
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void decodeBlock(final int blockIndex, final RecordConsumer<T> consumer)
+		throws IOException
+	{
+		if (blockIndex < 0 || getBlockCount() <= blockIndex)
+		{
+			throw new IndexOutOfBoundsException("Block index " + blockIndex + " out of bounds for "
+				+ getBlockCount() + " blocks");
+		}
+		final BinaryTreeInput input = new BinaryTreeInput(ByteBuffer.wrap(readSection(
+			blockOffsets[blockIndex], storedLengths[blockIndex], rawLengths[blockIndex])));
+		final int count = (int)Math.min(blockSize, nodeCount - (long)blockIndex * blockSize);
+		int depth = input.readVarInt();
+		long[] ancestorIds = new long[Math.max(16, depth)];
+		int[] remainingChildren = new int[ancestorIds.length];
+		long previousAncestorId = 0;
+		for (int i = 0; i < depth; i++)
+		{
+			ancestorIds[i] = previousAncestorId + input.readZigZagLong();
+			remainingChildren[i] = input.readVarInt();
+			previousAncestorId = ancestorIds[i];
+		}
+		long previousId = 0;
+		for (int i = 0; i < count; i++)
+		{
+			final int flags = input.readByte();
+			final long id = previousId + input.readZigZagLong();
+			final int valueIndex = input.readVarInt();
+			final int displayValueIndex = input.readVarInt();
+			final int childCount = input.readVarInt();
+			if (childCount < 0)
+			{
+				throw new IOException("Invalid number of children " + childCount);
+			}
+			final Long parentId = 0 < depth ? ancestorIds[depth - 1] : null;
+			consumer.accept(id, parentId, valueIndex == 0 ? null : values.get(valueIndex - 1),
+				displayValueIndex == 0 ? null : displayValues.get(displayValueIndex - 1),
+				(flags & DictionaryTreeCodec.FLAG_LEAF) != 0, childCount);
+			previousId = id;
+			if (0 < depth)
+			{
+				remainingChildren[depth - 1]--;
+			}
+			if (0 < childCount)
+			{
+				if (depth == ancestorIds.length)
+				{
+					ancestorIds = Arrays.copyOf(ancestorIds, depth << 1);
+					remainingChildren = Arrays.copyOf(remainingChildren, depth << 1);
+				}
+				ancestorIds[depth] = id;
+				remainingChildren[depth++] = childCount;
+			}
+			while (0 < depth && remainingChildren[depth - 1] == 0)
+			{
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Reads the section at the given offset and decompresses it if the snapshot is compressed
+	 *
+	 * @param offset
+	 *            the offset of the section
+	 * @param storedLength
+	 *            the stored length of the section including the lengths in front
+	 * @param rawLength
+	 *            the raw length of the section content
+	 * @return the raw section content
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the section is corrupt
+	 */
+	private byte[] readSection(final long offset, final int storedLength, final int rawLength)
+		throws IOException
+	{
+		final ByteBuffer section = readFully(offset + 2 * Integer.BYTES,
+			storedLength - 2 * Integer.BYTES);
+		if (inflater == null)
+		{
+			return section.array();
+		}
+		inflater.reset();
+		inflater.setInput(section.array());
+		final byte[] raw = new byte[rawLength];
+		try
+		{
+			int position = 0;
+			while (position < rawLength)
+			{
+				final int inflated = inflater.inflate(raw, position, rawLength - position);
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput()))
+				{
+					throw new IOException("The compressed section is truncated");
+				}
+				position += inflated;
+			}
+		}
+		catch (DataFormatException exception)
+		{
+			throw new IOException("The compressed section is corrupt", exception);
+		}
+		return raw;
+	}
+
+	/**
+	 * Reads the given number of bytes at the given offset
+	 */
+	private ByteBuffer readFully(final long offset, final int length) throws IOException
+	{
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer, offset + buffer.position()) < 0)
+			{
+				throw new EOFException("Unexpected end of the snapshot");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * The interface {@link RecordConsumer} receives the decoded node records of a block
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 */
+	@FunctionalInterface
+	private interface RecordConsumer<T>
+	{
+
+		/**
+		 * Receives a decoded node record
+		 *
+		 * @param id
+		 *            the id as long value
+		 * @param parentId
+		 *            the parent id as long value or null for the root
+		 * @param value
+		 *            the value or null
+		 * @param displayValue
+		 *            the display value or null
+		 * @param leaf
+		 *            the leaf flag
+		 * @param childCount
+		 *            the number of children
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void accept(long id, Long parentId, T value, String displayValue, boolean leaf,
+			int childCount) throws IOException;
+	}
+}
@@ -0,0 +1,880 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import lombok.NonNull;
+
+/**
+ * The class {@link ParallelTreeCodec} writes and reads {@link BaseTreeNode} trees in chunks that
+ * are encoded and decoded in parallel with a given {@link Executor}. The tree is split in one pass
+ * into a skeleton of the nodes with more than the target chunk size of nodes in their subtree and
+ * chunks of consecutive sibling subtrees below the skeleton with at most the target chunk size of
+ * nodes. The chunks are encoded with the records of the given {@link BaseTreeNodeBinaryCodec}
+ *
+ * <p>
+ * The format starts with a fixed size header with the magic number, the version, the number of
+ * chunks, the length of the skeleton and the offset table with the offset and the length of every
+ * chunk, so every chunk can be decoded independently. The skeleton follows in pre-order, every
+ * skeleton node lists its children in order either as skeleton node or as reference to a chunk.
+ * After all chunks are decoded the chunk roots are stitched into the skeleton in the original order
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class ParallelTreeCodec<T, K>
+{
+
+	/** The magic number at the start of the chunked format */
+	public static final int MAGIC = 0x47545043;
+
+	/** The version of the chunked format */
+	public static final int VERSION = 1;
+
+	/** The default target number of nodes of a chunk */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+	/** The size of the fixed header without the offset table */
+	private static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES + Integer.BYTES;
+
+	/** The size of an entry of the offset table */
+	private static final int OFFSET_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+	/** The maximum length of a byte array */
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	/** The codec for the records of the nodes */
+	private final BaseTreeNodeBinaryCodec<T, K> codec;
+
+	/** The executor for the encoding and decoding of the chunks */
+	private final Executor executor;
+
+	/** The target number of nodes of a chunk */
+	private final int chunkSize;
+
+	/**
+	 * Instantiates a new {@link ParallelTreeCodec} object with the default chunk size
+	 *
+	 * @param codec
+	 *            the codec for the records of the nodes
+	 * @param executor
+	 *            the executor for the encoding and decoding of the chunks
+	 */
+	public ParallelTreeCodec(final @NonNull BaseTreeNodeBinaryCodec<T, K> codec,
+		final @NonNull Executor executor)
+	{
+		this(codec, executor, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Instantiates a new {@link ParallelTreeCodec} object
+	 *
+	 * @param codec
+	 *            the codec for the records of the nodes
+	 * @param executor
+	 *            the executor for the encoding and decoding of the chunks
+	 * @param chunkSize
+	 *            the target number of nodes of a chunk
+	 */
+	public ParallelTreeCodec(final @NonNull BaseTreeNodeBinaryCodec<T, K> codec,
+		final @NonNull Executor executor, final int chunkSize)
+	{
+		if (chunkSize < 1)
+		{
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		this.codec = codec;
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Writes the tree of the given root to the file of the given path
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param path
+	 *            the path of the file, an existing file is truncated
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void write(final @NonNull BaseTreeNode<T, K> root, final @NonNull Path path)
+		throws IOException
+	{
+		final ByteBuffer[] buffers = encode(root);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			long remaining = 0;
+			for (final ByteBuffer buffer : buffers)
+			{
+				remaining += buffer.remaining();
+			}
+			while (0 < remaining)
+			{
+				remaining -= channel.write(buffers);
+			}
+		}
+	}
+
+	/**
+	 * Writes the tree of the given root to a new byte array
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @return the byte array with the chunked tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws IllegalArgumentException
+	 *             if the encoded tree is too large for a byte array, such a tree can be written
+	 *             with {@link #write(BaseTreeNode, Path)}
+	 */
+	public byte[] toBytes(final @NonNull BaseTreeNode<T, K> root) throws IOException
+	{
+		final ByteBuffer[] buffers = encode(root);
+		long length = 0;
+		for (final ByteBuffer buffer : buffers)
+		{
+			length += buffer.remaining();
+		}
+		if (MAX_ARRAY_LENGTH < length)
+		{
+			throw new IllegalArgumentException(
+				"The encoded tree with " + length + " bytes does not fit in a byte array");
+		}
+		final ByteBuffer bytes = ByteBuffer.allocate((int)length);
+		for (final ByteBuffer buffer : buffers)
+		{
+			bytes.put(buffer);
+		}
+		return bytes.array();
+	}
+
+	/**
+	 * Reads a tree from the file of the given path. The file is mapped into memory in segments of
+	 * one gigabyte, so files of more than two gigabytes can be read, and the chunks are decoded in
+	 * place
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file contains no valid chunked
+	 *             tree
+	 */
+	public BaseTreeNode<T, K> read(final @NonNull Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			return read(new MappedFile(channel)::region, channel.size());
+		}
+	}
+
+	/**
+	 * Reads a tree from the given byte array
+	 *
+	 * @param bytes
+	 *            the byte array with the chunked tree
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the byte array contains no valid
+	 *             chunked tree
+	 */
+	public BaseTreeNode<T, K> fromBytes(final @NonNull byte[] bytes) throws IOException
+	{
+		return read(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Reads a tree from the given buffer, the position of the buffer is not changed
+	 *
+	 * @param buffer
+	 *            the buffer with the chunked tree
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the buffer contains no valid
+	 *             chunked tree
+	 */
+	public BaseTreeNode<T, K> read(final @NonNull ByteBuffer buffer) throws IOException
+	{
+		final ByteBuffer source = buffer.slice();
+		return read((offset, length) -> source.slice((int)offset, length), source.remaining());
+	}
+
+	/**
+	 * Reads a tree from the regions of the given source
+	 *
+	 * @param source
+	 *            the source of the regions
+	 * @param size
+	 *            the size of the source
+	 * @return the root of the read tree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the source contains no valid
+	 *             chunked tree
+	 */
+	private BaseTreeNode<T, K> read(final RegionSource source, final long size) throws IOException
+	{
+		if (size < HEADER_SIZE)
+		{
+			throw new IOException("The input contains no chunked binary tree");
+		}
+		final ByteBuffer fixedHeader = source.region(0, HEADER_SIZE);
+		if (fixedHeader.getInt() != MAGIC)
+		{
+			throw new IOException("The input contains no chunked binary tree");
+		}
+		final int version = fixedHeader.get();
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported version " + version + " of the chunked binary tree");
+		}
+		final int chunkCount = fixedHeader.getInt();
+		final int skeletonLength = fixedHeader.getInt();
+		final long tableLength = (long)chunkCount * OFFSET_ENTRY_SIZE;
+		final long tableEnd = HEADER_SIZE + tableLength;
+		if (chunkCount < 0 || skeletonLength < 0 || Integer.MAX_VALUE < tableLength
+			|| size < tableEnd + skeletonLength)
+		{
+			throw new IOException("Invalid header of the chunked binary tree");
+		}
+		final ByteBuffer header = source.region(HEADER_SIZE, (int)tableLength);
+		final List<CompletableFuture<List<BaseTreeNode<T, K>>>> chunks = new ArrayList<>(
+			chunkCount);
+		for (int i = 0; i < chunkCount; i++)
+		{
+			final long offset = header.getLong();
+			final int length = header.getInt();
+			if (offset < tableEnd + skeletonLength || length < 0 || size - length < offset)
+			{
+				throw new IOException("Invalid offset of chunk " + i);
+			}
+			final ByteBuffer chunk = source.region(offset, length);
+			chunks.add(CompletableFuture.supplyAsync(() -> decodeChunk(chunk), executor));
+		}
+		// the skeleton is decoded in the calling thread while the chunks are decoded
+		final List<SkeletonNode<T, K>> skeleton = decodeSkeleton(
+			new BinaryTreeInput(source.region(tableEnd, skeletonLength)), chunkCount,
+			skeletonLength);
+		final List<List<BaseTreeNode<T, K>>> chunkRoots = new ArrayList<>(chunkCount);
+		for (final CompletableFuture<List<BaseTreeNode<T, K>>> chunk : chunks)
+		{
+			chunkRoots.add(join(chunk));
+		}
+		for (final SkeletonNode<T, K> skeletonNode : skeleton)
+		{
+			skeletonNode.stitch(chunkRoots);
+		}
+		return skeleton.get(0).node;
+	}
+
+	/**
+	 * Encodes the tree of the given root into the buffers of the header, the skeleton and the
+	 * chunks
+	 *
+	 * @param root
+	 *            the root of the tree to encode
+	 * @return the buffers in the order of the format
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private ByteBuffer[] encode(final BaseTreeNode<T, K> root) throws IOException
+	{
+		final List<List<BaseTreeNode<T, K>>> chunks = new ArrayList<>();
+		final Map<BaseTreeNode<T, K>, List<Object>> skeleton = partition(root, chunks);
+		final List<CompletableFuture<byte[]>> encodedChunks = new ArrayList<>(chunks.size());
+		for (final List<BaseTreeNode<T, K>> chunk : chunks)
+		{
+			encodedChunks.add(CompletableFuture.supplyAsync(() -> encodeChunk(chunk), executor));
+		}
+		// the skeleton is encoded in the calling thread while the chunks are encoded
+		final byte[] encodedSkeleton = encodeSkeleton(root, skeleton);
+		final ByteBuffer[] buffers = new ByteBuffer[chunks.size() + 2];
+		final ByteBuffer header = ByteBuffer
+			.allocate(HEADER_SIZE + chunks.size() * OFFSET_ENTRY_SIZE);
+		header.putInt(MAGIC).put((byte)VERSION).putInt(chunks.size())
+			.putInt(encodedSkeleton.length);
+		long offset = header.capacity() + encodedSkeleton.length;
+		for (int i = 0; i < encodedChunks.size(); i++)
+		{
+			final byte[] encodedChunk = join(encodedChunks.get(i));
+			header.putLong(offset).putInt(encodedChunk.length);
+			offset += encodedChunk.length;
+			buffers[i + 2] = ByteBuffer.wrap(encodedChunk);
+		}
+		buffers[0] = header.flip();
+		buffers[1] = ByteBuffer.wrap(encodedSkeleton);
+		return buffers;
+	}
+
+	/**
+	 * Splits the tree of the given root in one iterative post-order pass into the skeleton and the
+	 * chunks. A node belongs to the skeleton if its subtree has more nodes than the chunk size, the
+	 * root belongs always to the skeleton. The consecutive children of a skeleton node that are not
+	 * in the skeleton are grouped into chunks of at most the chunk size of nodes, a single larger
+	 * subtree is not possible, because its root would belong to the skeleton
+	 *
+	 * @param root
+	 *            the root of the tree
+	 * @param chunks
+	 *            the list that receives the chunks with the roots of their subtrees
+	 * @return the skeleton nodes with the ordered list of their children that are either skeleton
+	 *         nodes or the {@link Integer} index of a chunk
+	 */
+	private Map<BaseTreeNode<T, K>, List<Object>> partition(final BaseTreeNode<T, K> root,
+		final List<List<BaseTreeNode<T, K>>> chunks)
+	{
+		final Map<BaseTreeNode<T, K>, List<Object>> skeleton = new IdentityHashMap<>();
+		final Deque<PartitionFrame<T, K>> stack = new ArrayDeque<>();
+		stack.push(new PartitionFrame<>(root));
+		while (!stack.isEmpty())
+		{
+			final PartitionFrame<T, K> frame = stack.peek();
+			if (frame.children != null && frame.children.hasNext())
+			{
+				stack.push(new PartitionFrame<>(frame.children.next()));
+				continue;
+			}
+			stack.pop();
+			final PartitionFrame<T, K> parentFrame = stack.peek();
+			if (frame.size <= chunkSize && parentFrame != null)
+			{
+				parentFrame.addPart(frame.node, frame.size);
+				continue;
+			}
+			skeleton.put(frame.node, groupChunks(frame, chunks));
+			if (parentFrame != null)
+			{
+				parentFrame.addPart(frame.node, -1);
+			}
+		}
+		return skeleton;
+	}
+
+	/**
+	 * Groups the consecutive children of the given skeleton frame that are not in the skeleton
+	 * into chunks
+	 *
+	 * @param frame
+	 *            the frame of the skeleton node
+	 * @param chunks
+	 *            the list that receives the new chunks
+	 * @return the ordered list of the children that are either skeleton nodes or the
+	 *         {@link Integer} index of a chunk
+	 */
+	private List<Object> groupChunks(final PartitionFrame<T, K> frame,
+		final List<List<BaseTreeNode<T, K>>> chunks)
+	{
+		final List<Object> entries = new ArrayList<>();
+		if (frame.parts == null)
+		{
+			return entries;
+		}
+		List<BaseTreeNode<T, K>> chunk = null;
+		int size = 0;
+		for (int i = 0; i < frame.parts.size(); i++)
+		{
+			final int partSize = frame.partSizes[i];
+			if (partSize < 0 || (chunk != null && chunkSize < size + partSize))
+			{
+				chunk = null;
+			}
+			if (partSize < 0)
+			{
+				entries.add(frame.parts.get(i));
+				continue;
+			}
+			if (chunk == null)
+			{
+				chunk = new ArrayList<>();
+				size = 0;
+				entries.add(chunks.size());
+				chunks.add(chunk);
+			}
+			chunk.add(frame.parts.get(i));
+			size += partSize;
+		}
+		return entries;
+	}
+
+	/**
+	 * Encodes the skeleton in pre-order. Every skeleton node is written as node record followed by
+	 * the number of its entries, every entry is either <code>0</code> for a skeleton child whose
+	 * record follows or the index of a chunk plus one
+	 *
+	 * @param root
+	 *            the root of the tree
+	 * @param skeleton
+	 *            the skeleton nodes with their entries
+	 * @return the encoded skeleton
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private byte[] encodeSkeleton(final BaseTreeNode<T, K> root,
+		final Map<BaseTreeNode<T, K>, List<Object>> skeleton) throws IOException
+	{
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		final BinaryTreeOutput output = new BinaryTreeOutput(Channels.newChannel(outputStream));
+		final Deque<Iterator<Object>> stack = new ArrayDeque<>();
+		writeSkeletonNode(root, skeleton.get(root), output);
+		stack.push(skeleton.get(root).iterator());
+		while (!stack.isEmpty())
+		{
+			final Iterator<Object> entries = stack.peek();
+			if (!entries.hasNext())
+			{
+				stack.pop();
+				continue;
+			}
+			final Object entry = entries.next();
+			if (entry instanceof Integer)
+			{
+				output.writeVarInt((Integer)entry + 1);
+				continue;
+			}
+			@SuppressWarnings("unchecked")
+			final BaseTreeNode<T, K> child = (BaseTreeNode<T, K>)entry;
+			output.writeVarInt(0);
+			writeSkeletonNode(child, skeleton.get(child), output);
+			stack.push(skeleton.get(child).iterator());
+		}
+		output.flush();
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Writes the record of the given skeleton node with the same fields as a record of the
+	 * {@link BaseTreeNodeBinaryCodec} followed by the number of its entries
+	 *
+	 * @param node
+	 *            the skeleton node
+	 * @param entries
+	 *            the entries of the skeleton node
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeSkeletonNode(final BaseTreeNode<T, K> node, final List<Object> entries,
+		final BinaryTreeOutput output) throws IOException
+	{
+		final K id = node.getId();
+		final T value = node.getValue();
+		final String displayValue = codec.isWriteDisplayValues() ? node.getDisplayValue() : null;
+		int flags = 0;
+		if (id != null)
+		{
+			flags |= BaseTreeNodeBinaryCodec.FLAG_ID;
+		}
+		if (value != null)
+		{
+			flags |= BaseTreeNodeBinaryCodec.FLAG_VALUE;
+		}
+		if (displayValue != null)
+		{
+			flags |= BaseTreeNodeBinaryCodec.FLAG_DISPLAY_VALUE;
+		}
+		if (codec.isWriteLeafFlags() && node.isLeaf())
+		{
+			flags |= BaseTreeNodeBinaryCodec.FLAG_LEAF;
+		}
+		output.writeByte(flags);
+		if (id != null)
+		{
+			codec.getIdCodec().encode(id, output);
+		}
+		if (value != null)
+		{
+			codec.getValueCodec().encode(value, output);
+		}
+		if (displayValue != null)
+		{
+			output.writeString(displayValue);
+		}
+		output.writeVarInt(entries.size());
+	}
+
+	/**
+	 * Decodes the skeleton in pre-order
+	 *
+	 * @param input
+	 *            the input with the skeleton
+	 * @param chunkCount
+	 *            the number of chunks
+	 * @param skeletonLength
+	 *            the length of the skeleton in bytes
+	 * @return the skeleton nodes in pre-order with the root as first element
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, a chunk reference or a number of
+	 *             entries is invalid
+	 */
+	private List<SkeletonNode<T, K>> decodeSkeleton(final BinaryTreeInput input,
+		final int chunkCount, final int skeletonLength) throws IOException
+	{
+		final List<SkeletonNode<T, K>> skeleton = new ArrayList<>();
+		final Deque<SkeletonNode<T, K>> stack = new ArrayDeque<>();
+		// every entry takes at least one byte, so the entries of all skeleton nodes are bounded
+		// by the length of the skeleton before their arrays are allocated
+		final int[] remainingEntries = { skeletonLength };
+		final SkeletonNode<T, K> root = readSkeletonNode(input, null, remainingEntries);
+		skeleton.add(root);
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final SkeletonNode<T, K> current = stack.peek();
+			if (current.entries.length == current.readEntries)
+			{
+				stack.pop();
+				continue;
+			}
+			final int entry = input.readVarInt();
+			if (entry == 0)
+			{
+				final SkeletonNode<T, K> child = readSkeletonNode(input, current.node,
+					remainingEntries);
+				current.entries[current.readEntries++] = child.node;
+				skeleton.add(child);
+				stack.push(child);
+				continue;
+			}
+			if (chunkCount < entry)
+			{
+				throw new IOException("Invalid chunk reference " + entry);
+			}
+			current.entries[current.readEntries++] = entry - 1;
+		}
+		return skeleton;
+	}
+
+	/**
+	 * Reads the record of a skeleton node
+	 *
+	 * @param input
+	 *            the input with the skeleton
+	 * @param parent
+	 *            the parent or null for the root
+	 * @param remainingEntries
+	 *            the remaining number of entries that the skeleton can contain
+	 * @return the new skeleton node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the number of entries is invalid
+	 */
+	private SkeletonNode<T, K> readSkeletonNode(final BinaryTreeInput input,
+		final BaseTreeNode<T, K> parent, final int[] remainingEntries) throws IOException
+	{
+		final int flags = input.readByte();
+		final K id = (flags & BaseTreeNodeBinaryCodec.FLAG_ID) != 0
+			? codec.getIdCodec().decode(input)
+			: null;
+		final T value = (flags & BaseTreeNodeBinaryCodec.FLAG_VALUE) != 0
+			? codec.getValueCodec().decode(input)
+			: null;
+		final String displayValue = (flags & BaseTreeNodeBinaryCodec.FLAG_DISPLAY_VALUE) != 0
+			? input.readString()
+			: null;
+		final BaseTreeNode<T, K> node = BaseTreeNode.<T, K> builder().id(id).value(value)
+			.displayValue(displayValue).leaf((flags & BaseTreeNodeBinaryCodec.FLAG_LEAF) != 0)
+			.parent(parent).build();
+		final int entryCount = input.readVarInt();
+		if (entryCount < 0 || remainingEntries[0] < entryCount)
+		{
+			throw new IOException("Invalid number of skeleton entries " + entryCount);
+		}
+		remainingEntries[0] -= entryCount;
+		return new SkeletonNode<>(node, entryCount);
+	}
+
+	/**
+	 * Encodes the given chunk as the number of its subtrees followed by the records of the
+	 * subtrees
+	 *
+	 * @param chunk
+	 *            the roots of the subtrees of the chunk
+	 * @return the encoded chunk
+	 */
+	private byte[] encodeChunk(final List<BaseTreeNode<T, K>> chunk)
+	{
+		try
+		{
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			final BinaryTreeOutput output = new BinaryTreeOutput(
+				Channels.newChannel(outputStream));
+			output.writeVarInt(chunk.size());
+			for (final BaseTreeNode<T, K> subtreeRoot : chunk)
+			{
+				codec.writeTree(subtreeRoot, output);
+			}
+			output.flush();
+			return outputStream.toByteArray();
+		}
+		catch (IOException exception)
+		{
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	/**
+	 * Decodes the subtrees of a chunk
+	 *
+	 * @param chunk
+	 *            the buffer with the encoded chunk
+	 * @return the roots of the subtrees of the chunk
+	 */
+	private List<BaseTreeNode<T, K>> decodeChunk(final ByteBuffer chunk)
+	{
+		try
+		{
+			final BinaryTreeInput input = new BinaryTreeInput(chunk);
+			final int count = input.readVarInt();
+			final List<BaseTreeNode<T, K>> roots = new ArrayList<>(count);
+			for (int i = 0; i < count; i++)
+			{
+				roots.add(codec.readTree(input));
+			}
+			return roots;
+		}
+		catch (IOException exception)
+		{
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	/**
+	 * Waits for the result of the given future and unwraps an {@link UncheckedIOException}
+	 *
+	 * @param future
+	 *            the future
+	 * @return the result of the future
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred in the task of the future
+	 */
+	private static <R> R join(final CompletableFuture<R> future) throws IOException
+	{
+		try
+		{
+			return future.join();
+		}
+		catch (CompletionException exception)
+		{
+			if (exception.getCause() instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException)exception.getCause()).getCause();
+			}
+			throw exception;
+		}
+	}
+
+	/**
+	 * The source of the regions of a chunked tree
+	 */
+	@FunctionalInterface
+	private interface RegionSource
+	{
+
+		/**
+		 * Gets a buffer with the given region
+		 *
+		 * @param offset
+		 *            the offset of the region
+		 * @param length
+		 *            the length of the region
+		 * @return the buffer with the region
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		ByteBuffer region(long offset, int length) throws IOException;
+	}
+
+	/**
+	 * A file that is mapped in segments, because a single {@link MappedByteBuffer} object can not
+	 * address more than two gigabytes. A region that crosses a segment boundary is mapped on its
+	 * own
+	 */
+	private static final class MappedFile
+	{
+
+		/** The number of bits of the segment size */
+		static final int SEGMENT_BITS = 30;
+
+		/** The size of a segment */
+		static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+		/** The channel of the file */
+		final FileChannel channel;
+
+		/** The mapped segments */
+		final MappedByteBuffer[] segments;
+
+		MappedFile(final FileChannel channel) throws IOException
+		{
+			final long size = channel.size();
+			final int count = (int)((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+			this.channel = channel;
+			this.segments = new MappedByteBuffer[count];
+			for (int i = 0; i < count; i++)
+			{
+				final long start = (long)i << SEGMENT_BITS;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+					Math.min(SEGMENT_SIZE, size - start));
+			}
+		}
+
+		ByteBuffer region(final long offset, final int length) throws IOException
+		{
+			if (length == 0)
+			{
+				return ByteBuffer.allocate(0);
+			}
+			final long inSegment = offset & (SEGMENT_SIZE - 1);
+			if (inSegment + length <= SEGMENT_SIZE)
+			{
+				return segments[(int)(offset >>> SEGMENT_BITS)].slice((int)inSegment, length);
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+		}
+	}
+
+	/**
+	 * The frame of a node in the post-order pass of the partition
+	 */
+	private static final class PartitionFrame<T, K>
+	{
+
+		/** The node */
+		final BaseTreeNode<T, K> node;
+
+		/** The iterator over the children or null if the node has no children */
+		final Iterator<BaseTreeNode<T, K>> children;
+
+		/** The number of nodes of the subtree that are already visited */
+		int size = 1;
+
+		/** The visited children or null if no child is visited yet */
+		List<BaseTreeNode<T, K>> parts;
+
+		/** The sizes of the subtrees of the visited children, -1 for a skeleton node */
+		int[] partSizes;
+
+		PartitionFrame(final BaseTreeNode<T, K> node)
+		{
+			this.node = node;
+			this.children = node.hasChildren() ? node.getChildren().iterator() : null;
+		}
+
+		void addPart(final BaseTreeNode<T, K> child, final int childSize)
+		{
+			if (parts == null)
+			{
+				final int childCount = node.getChildren().size();
+				parts = new ArrayList<>(childCount);
+				partSizes = new int[childCount];
+			}
+			partSizes[parts.size()] = childSize;
+			parts.add(child);
+			// a skeleton child has more nodes than the chunk size
+			size = childSize < 0
+				? Integer.MAX_VALUE
+				: (int)Math.min(Integer.MAX_VALUE, (long)size + childSize);
+		}
+	}
+
+	/**
+	 * A decoded skeleton node with its entries that are either skeleton children or the
+	 * {@link Integer} index of a chunk
+	 */
+	private static final class SkeletonNode<T, K>
+	{
+
+		/** The node */
+		final BaseTreeNode<T, K> node;
+
+		/** The entries in the order of the children */
+		final Object[] entries;
+
+		/** The number of read entries */
+		int readEntries;
+
+		SkeletonNode(final BaseTreeNode<T, K> node, final int entryCount)
+		{
+			this.node = node;
+			this.entries = new Object[entryCount];
+		}
+
+		/**
+		 * Sets the children of the node in the order of the entries
+		 *
+		 * @param chunkRoots
+		 *            the decoded roots of the chunks
+		 */
+		@SuppressWarnings("unchecked")
+		void stitch(final List<List<BaseTreeNode<T, K>>> chunkRoots)
+		{
+			if (entries.length == 0)
+			{
+				return;
+			}
+			final AdaptiveLinkedSet<BaseTreeNode<T, K>> children = new AdaptiveLinkedSet<>();
+			for (final Object entry : entries)
+			{
+				if (entry instanceof Integer)
+				{
+					for (final BaseTreeNode<T, K> chunkRoot : chunkRoots.get((Integer)entry))
+					{
+						chunkRoot.setParent(node);
+						children.add(chunkRoot);
+					}
+				}
+				else
+				{
+					children.add((BaseTreeNode<T, K>)entry);
+				}
+			}
+			node.setChildren(children);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.IOException;
+
+/**
+ * The interface {@link ValueCodec} is the service provider interface for encoding and decoding of
+ * the values and the ids of the tree nodes in the binary tree format. A codec never gets a null
+ * value, null values are marked by the codec of the tree
+ *
+ * @param <T>
+ *            the generic type of the value
+ */
+public interface ValueCodec<T>
+{
+
+	/**
+	 * Encodes the given value to the given {@link BinaryTreeOutput} object
+	 *
+	 * @param value
+	 *            the value to encode, never null
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	void encode(T value, BinaryTreeOutput output) throws IOException;
+
+	/**
+	 * Decodes a value from the given {@link BinaryTreeInput} object
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @return the decoded value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	T decode(BinaryTreeInput input) throws IOException;
+}
@@ -0,0 +1,153 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * The class {@link ValueCodecs} provides the {@link ValueCodec} objects for the common value and id
+ * types
+ */
+public final class ValueCodecs
+{
+
+	/** The codec for {@link String} objects as UTF-8 bytes */
+	public static final ValueCodec<String> STRING = new ValueCodec<>()
+	{
+		@Override
+		public void encode(final String value, final BinaryTreeOutput output) throws IOException
+		{
+			output.writeString(value);
+		}
+
+		@Override
+		public String decode(final BinaryTreeInput input) throws IOException
+		{
+			return input.readString();
+		}
+	};
+
+	/** The codec for {@link Long} objects as zigzag encoded variable length integer */
+	public static final ValueCodec<Long> LONG = new ValueCodec<>()
+	{
+		@Override
+		public void encode(final Long value, final BinaryTreeOutput output) throws IOException
+		{
+			output.writeZigZagLong(value);
+		}
+
+		@Override
+		public Long decode(final BinaryTreeInput input) throws IOException
+		{
+			return input.readZigZagLong();
+		}
+	};
+
+	/** The codec for {@link Integer} objects as zigzag encoded variable length integer */
+	public static final ValueCodec<Integer> INTEGER = new ValueCodec<>()
+	{
+		@Override
+		public void encode(final Integer value, final BinaryTreeOutput output) throws IOException
+		{
+			output.writeZigZagLong(value);
+		}
+
+		@Override
+		public Integer decode(final BinaryTreeInput input) throws IOException
+		{
+			return (int)input.readZigZagLong();
+		}
+	};
+
+	/** The codec for {@link Double} objects with eight bytes */
+	public static final ValueCodec<Double> DOUBLE = new ValueCodec<>()
+	{
+		@Override
+		public void encode(final Double value, final BinaryTreeOutput output) throws IOException
+		{
+			output.writeDouble(value);
+		}
+
+		@Override
+		public Double decode(final BinaryTreeInput input) throws IOException
+		{
+			return input.readDouble();
+		}
+	};
+
+	/** The codec for {@link Boolean} objects with one byte */
+	public static final ValueCodec<Boolean> BOOLEAN = new ValueCodec<>()
+	{
+		@Override
+		public void encode(final Boolean value, final BinaryTreeOutput output) throws IOException
+		{
+			output.writeBoolean(value);
+		}
+
+		@Override
+		public Boolean decode(final BinaryTreeInput input) throws IOException
+		{
+			return input.readBoolean();
+		}
+	};
+
+	/** The codec for {@link UUID} objects with sixteen bytes */
+	public static final ValueCodec<UUID> UUID_CODEC = new ValueCodec<>()
+	{
+		@Override
+		public void encode(final UUID value, final BinaryTreeOutput output) throws IOException
+		{
+			output.writeLong(value.getMostSignificantBits());
+			output.writeLong(value.getLeastSignificantBits());
+		}
+
+		@Override
+		public UUID decode(final BinaryTreeInput input) throws IOException
+		{
+			return new UUID(input.readLong(), input.readLong());
+		}
+	};
+
+	/** The codec for byte arrays with a leading variable length size */
+	public static final ValueCodec<byte[]> BYTES = new ValueCodec<>()
+	{
+		@Override
+		public void encode(final byte[] value, final BinaryTreeOutput output) throws IOException
+		{
+			output.writeBytes(value);
+		}
+
+		@Override
+		public byte[] decode(final BinaryTreeInput input) throws IOException
+		{
+			return input.readBytes();
+		}
+	};
+
+	private ValueCodecs()
+	{
+	}
+}
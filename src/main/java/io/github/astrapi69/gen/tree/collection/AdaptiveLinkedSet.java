@@ -0,0 +1,456 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.collection;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The class {@link AdaptiveLinkedSet} is a {@link java.util.Set} with the iteration order of the
+ * insertion like a {@link LinkedHashSet}, that is optimized for a small number of elements. An
+ * empty set shares one empty array, up to {@link #INLINE_CAPACITY} elements are kept in a small
+ * array, and only when the set grows beyond this capacity the elements are moved to a
+ * {@link LinkedHashSet}. A set that was upgraded keeps the {@link LinkedHashSet}. Null elements
+ * are permitted
+ *
+ * <p>
+ * The inline array keeps the hash code of every element from the time of its insertion and is
+ * searched linear with the same rule as the {@link LinkedHashSet}, first the stored hash code and
+ * then {@link Object#equals(Object)}. So the membership of an element does not depend on the size
+ * of the set: an element whose hash code changed while it is in this set is not found anymore in
+ * both modes
+ *
+ * <p>
+ * In the identity mode the elements are compared with <code>==</code> and a set that grows beyond
+ * the inline capacity is moved to an {@link IdentityLinkedSet}, so the membership of an element
+ * never depends on its {@link Object#equals(Object)} and {@link Object#hashCode()} methods and
+ * stays valid when the element is changed while it is in this set
+ *
+ * <p>
+ * Note: this class is a {@link java.util.Set} and not a {@link java.util.List}, so it has no
+ * positional access. The index based operations of a node on its children like the insertion of
+ * a child at a position iterate the children and stay O(n). Only the membership operations are
+ * O(1) in the hashed mode
+ *
+ * @param <E>
+ *            the generic type of the elements
+ */
+public class AdaptiveLinkedSet<E> extends AbstractSet<E> implements Serializable
+{
+
+	/** The maximum number of elements that are kept in the inline array */
+	public static final int INLINE_CAPACITY = 8;
+
+	/** The serialVersionUID */
+	private static final long serialVersionUID = 1L;
+
+	/** The shared empty array of all empty sets */
+	private static final Object[] EMPTY = {};
+
+	/** The shared empty array of the hash codes of all empty sets */
+	private static final int[] EMPTY_HASHES = {};
+
+	/** The inline elements or null if the elements are kept in the hashed set */
+	private Object[] elements;
+
+	/**
+	 * The hash codes of the inline elements from the time of their insertion or null in the
+	 * identity mode and if the elements are kept in the hashed set
+	 */
+	private transient int[] hashes;
+
+	/** The number of the inline elements */
+	private int inlineSize;
+
+	/** The hashed set or null if the elements are kept inline */
+	private Set<E> hashed;
+
+	/** The flag that indicates if the elements are compared by identity */
+	private final boolean identity;
+
+	/** The number of the structural modifications of the inline elements */
+	private transient int modCount;
+
+	/**
+	 * Instantiates a new empty {@link AdaptiveLinkedSet} object
+	 */
+	public AdaptiveLinkedSet()
+	{
+		this(0, false);
+	}
+
+	/**
+	 * Instantiates a new empty {@link AdaptiveLinkedSet} object that can hold the given number of
+	 * elements without growing
+	 *
+	 * @param expectedSize
+	 *            the expected number of elements
+	 */
+	public AdaptiveLinkedSet(final int expectedSize)
+	{
+		this(expectedSize, false);
+	}
+
+	/**
+	 * Instantiates a new empty {@link AdaptiveLinkedSet} object that can hold the given number of
+	 * elements without growing and that compares the elements by identity if the given flag is
+	 * true
+	 *
+	 * @param expectedSize
+	 *            the expected number of elements
+	 * @param identity
+	 *            the flag that indicates if the elements are compared by identity
+	 */
+	public AdaptiveLinkedSet(final int expectedSize, final boolean identity)
+	{
+		this.identity = identity;
+		if (expectedSize < 0)
+		{
+			throw new IllegalArgumentException("expectedSize must not be negative");
+		}
+		if (INLINE_CAPACITY < expectedSize)
+		{
+			this.hashed = newHashedSet(expectedSize);
+		}
+		else
+		{
+			this.elements = expectedSize == 0 ? EMPTY : new Object[expectedSize];
+			if (!identity)
+			{
+				this.hashes = expectedSize == 0 ? EMPTY_HASHES : new int[expectedSize];
+			}
+		}
+	}
+
+	/**
+	 * Creates the hashed set for the given number of elements
+	 *
+	 * @param expectedSize
+	 *            the expected number of elements
+	 * @return the new hashed set
+	 */
+	private Set<E> newHashedSet(final int expectedSize)
+	{
+		if (identity)
+		{
+			return new IdentityLinkedSet<>(expectedSize);
+		}
+		return new LinkedHashSet<>((int)(expectedSize / 0.75f) + 1);
+	}
+
+	/**
+	 * Checks if the elements of this set are compared by identity
+	 *
+	 * @return true, if the elements are compared by identity otherwise false
+	 */
+	public boolean isIdentity()
+	{
+		return identity;
+	}
+
+	/**
+	 * Checks if the elements of this set are kept in the inline array
+	 *
+	 * @return true, if the elements are kept inline otherwise false
+	 */
+	public boolean isInline()
+	{
+		return hashed == null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size()
+	{
+		return hashed == null ? inlineSize : hashed.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	/**
+	 * Gets the position of the given element in the inline array
+	 *
+	 * @param element
+	 *            the element
+	 * @return the position or -1 if the given element is not in the inline array
+	 */
+	private int indexOf(final Object element)
+	{
+		if (identity)
+		{
+			for (int i = 0; i < inlineSize; i++)
+			{
+				if (elements[i] == element)
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+		final int hash = Objects.hashCode(element);
+		for (int i = 0; i < inlineSize; i++)
+		{
+			if (hashes[i] == hash
+				&& (elements[i] == element || Objects.equals(elements[i], element)))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean contains(final Object element)
+	{
+		return hashed == null ? 0 <= indexOf(element) : hashed.contains(element);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean add(final E element)
+	{
+		if (hashed != null)
+		{
+			return hashed.add(element);
+		}
+		if (0 <= indexOf(element))
+		{
+			return false;
+		}
+		if (inlineSize == INLINE_CAPACITY)
+		{
+			hashed = newHashedSet(INLINE_CAPACITY * 2);
+			for (int i = 0; i < inlineSize; i++)
+			{
+				hashed.add((E)elements[i]);
+			}
+			hashed.add(element);
+			elements = null;
+			hashes = null;
+			inlineSize = 0;
+			modCount++;
+			return true;
+		}
+		if (inlineSize == elements.length)
+		{
+			final int capacity = Math.min(INLINE_CAPACITY, Math.max(2, inlineSize << 1));
+			elements = Arrays.copyOf(elements, capacity);
+			if (!identity)
+			{
+				hashes = Arrays.copyOf(hashes, capacity);
+			}
+		}
+		if (!identity)
+		{
+			hashes[inlineSize] = Objects.hashCode(element);
+		}
+		elements[inlineSize++] = element;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean remove(final Object element)
+	{
+		if (hashed != null)
+		{
+			return hashed.remove(element);
+		}
+		final int index = indexOf(element);
+		if (index < 0)
+		{
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Removes the inline element at the given position and keeps the order of the other elements
+	 *
+	 * @param index
+	 *            the position
+	 */
+	private void removeAt(final int index)
+	{
+		final int moved = inlineSize - index - 1;
+		if (0 < moved)
+		{
+			System.arraycopy(elements, index + 1, elements, index, moved);
+			if (!identity)
+			{
+				System.arraycopy(hashes, index + 1, hashes, index, moved);
+			}
+		}
+		elements[--inlineSize] = null;
+		modCount++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear()
+	{
+		if (hashed != null)
+		{
+			hashed.clear();
+			return;
+		}
+		Arrays.fill(elements, 0, inlineSize, null);
+		inlineSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Reads this set and computes the hash codes of the inline elements again, because the hash
+	 * codes of the elements can differ from the hash codes of the serialized elements
+	 *
+	 * @param in
+	 *            the object input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws ClassNotFoundException
+	 *             if the class of an element can not be found
+	 */
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		if (elements != null && !identity)
+		{
+			hashes = new int[elements.length];
+			for (int i = 0; i < inlineSize; i++)
+			{
+				hashes[i] = Objects.hashCode(elements[i]);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<E> iterator()
+	{
+		return hashed == null ? new InlineIterator() : hashed.iterator();
+	}
+
+	/**
+	 * The class {@link InlineIterator} iterates over the inline elements and supports the removal
+	 * of the current element
+	 */
+	private final class InlineIterator implements Iterator<E>
+	{
+
+		/** The position of the next element */
+		private int cursor;
+
+		/** The position of the last returned element or -1 */
+		private int lastReturned = -1;
+
+		/** The expected number of the modifications */
+		private int expectedModCount = modCount;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return cursor < inlineSize;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next()
+		{
+			checkForModification();
+			if (inlineSize <= cursor)
+			{
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor++;
+			return (E)elements[lastReturned];
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void remove()
+		{
+			if (lastReturned < 0)
+			{
+				throw new IllegalStateException();
+			}
+			checkForModification();
+			removeAt(lastReturned);
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		/**
+		 * Checks that the set was not modified outside of this iterator
+		 */
+		private void checkForModification()
+		{
+			if (modCount != expectedModCount)
+			{
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+}
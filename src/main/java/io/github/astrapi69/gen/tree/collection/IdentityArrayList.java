@@ -0,0 +1,130 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.collection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The class {@link IdentityArrayList} is an {@link ArrayList} that finds and removes the elements
+ * by identity with <code>==</code>, so the methods indexOf, lastIndexOf, contains and remove never
+ * call {@link Object#equals(Object)} of an element. The equals and hashCode methods of the list
+ * itself are inherited from {@link ArrayList}
+ *
+ * @param <E>
+ *            the generic type of the elements
+ */
+public class IdentityArrayList<E> extends ArrayList<E>
+{
+
+	/** The serialVersionUID */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Instantiates a new empty {@link IdentityArrayList} object
+	 */
+	public IdentityArrayList()
+	{
+	}
+
+	/**
+	 * Instantiates a new empty {@link IdentityArrayList} object with the given initial capacity
+	 *
+	 * @param initialCapacity
+	 *            the initial capacity
+	 */
+	public IdentityArrayList(final int initialCapacity)
+	{
+		super(initialCapacity);
+	}
+
+	/**
+	 * Instantiates a new {@link IdentityArrayList} object with the elements of the given
+	 * collection in its iteration order
+	 *
+	 * @param collection
+	 *            the collection with the elements
+	 */
+	public IdentityArrayList(final Collection<? extends E> collection)
+	{
+		super(collection);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int indexOf(final Object element)
+	{
+		for (int index = 0; index < size(); index++)
+		{
+			if (get(index) == element)
+			{
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int lastIndexOf(final Object element)
+	{
+		for (int index = size() - 1; 0 <= index; index--)
+		{
+			if (get(index) == element)
+			{
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean contains(final Object element)
+	{
+		return indexOf(element) != -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean remove(final Object element)
+	{
+		final int index = indexOf(element);
+		if (index == -1)
+		{
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+}
@@ -0,0 +1,553 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.collection;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The class {@link IdentityLinkedSet} is a {@link java.util.Set} that compares the elements with
+ * <code>==</code> and keeps the iteration order of the insertion. The elements are kept in an open
+ * addressing table with linear probing over their identity hash codes and are linked in the order
+ * of the insertion with two int arrays, so the methods add, contains and remove never call
+ * {@link Object#equals(Object)} or {@link Object#hashCode()} of an element and run in constant
+ * time no matter how expensive these methods are. Null elements are permitted
+ *
+ * @param <E>
+ *            the generic type of the elements
+ */
+public class IdentityLinkedSet<E> extends AbstractSet<E> implements Serializable
+{
+
+	/** The serialVersionUID */
+	private static final long serialVersionUID = 1L;
+
+	/** The default expected size */
+	private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+	/** The maximum load factor of the table */
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/** The marker that represents the null element in the table, null marks a free slot */
+	private static final Object NULL_ELEMENT = new Object();
+
+	/** The elements of the table, null marks a free slot */
+	private transient Object[] table;
+
+	/** The slot of the previous element in the insertion order or -1 */
+	private transient int[] before;
+
+	/** The slot of the next element in the insertion order or -1 */
+	private transient int[] after;
+
+	/** The slot of the first inserted element or -1 */
+	private transient int head;
+
+	/** The slot of the last inserted element or -1 */
+	private transient int tail;
+
+	/** The mask for the index computation */
+	private transient int mask;
+
+	/** The number of elements */
+	private transient int size;
+
+	/** The number of elements that triggers a resize */
+	private transient int resizeThreshold;
+
+	/** The number of the structural modifications */
+	private transient int modCount;
+
+	/**
+	 * Instantiates a new empty {@link IdentityLinkedSet} object
+	 */
+	public IdentityLinkedSet()
+	{
+		this(DEFAULT_EXPECTED_SIZE);
+	}
+
+	/**
+	 * Instantiates a new empty {@link IdentityLinkedSet} object that can hold the given number of
+	 * elements without resizing
+	 *
+	 * @param expectedSize
+	 *            the expected number of elements
+	 */
+	public IdentityLinkedSet(final int expectedSize)
+	{
+		if (expectedSize < 0)
+		{
+			throw new IllegalArgumentException("expectedSize must not be negative");
+		}
+		allocate(tableCapacity(expectedSize));
+	}
+
+	/**
+	 * Computes the table capacity for the given expected size
+	 *
+	 * @param expectedSize
+	 *            the expected number of elements
+	 * @return the table capacity as power of two
+	 */
+	private static int tableCapacity(final int expectedSize)
+	{
+		long needed = Math.max(2L, (long)Math.ceil(expectedSize / (double)LOAD_FACTOR));
+		if (needed > 1 << 30)
+		{
+			return 1 << 30;
+		}
+		return Integer.highestOneBit((int)needed - 1) << 1;
+	}
+
+	/**
+	 * Replaces null with the marker of the null element
+	 *
+	 * @param element
+	 *            the element
+	 * @return the element as it is kept in the table
+	 */
+	private static Object maskNull(final Object element)
+	{
+		return element == null ? NULL_ELEMENT : element;
+	}
+
+	/**
+	 * Replaces the marker of the null element with null
+	 *
+	 * @param element
+	 *            the element as it is kept in the table
+	 * @return the element
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E> E unmaskNull(final Object element)
+	{
+		return element == NULL_ELEMENT ? null : (E)element;
+	}
+
+	/**
+	 * Mixes the identity hash code of the given element and computes the start slot in the table
+	 *
+	 * @param element
+	 *            the element as it is kept in the table
+	 * @return the start slot
+	 */
+	private int slot(final Object element)
+	{
+		final int hash = System.identityHashCode(element) * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/**
+	 * Allocates a new empty table with the given capacity
+	 *
+	 * @param capacity
+	 *            the capacity as power of two
+	 */
+	private void allocate(final int capacity)
+	{
+		table = new Object[capacity];
+		before = new int[capacity];
+		after = new int[capacity];
+		mask = capacity - 1;
+		resizeThreshold = Math.min(capacity - 1, (int)(capacity * LOAD_FACTOR));
+		head = -1;
+		tail = -1;
+		size = 0;
+	}
+
+	/**
+	 * Gets the slot of the given element
+	 *
+	 * @param element
+	 *            the element as it is kept in the table
+	 * @return the slot or -1 if the given element is not in this set
+	 */
+	private int indexOf(final Object element)
+	{
+		int index = slot(element);
+		Object current;
+		while ((current = table[index]) != null)
+		{
+			if (current == element)
+			{
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean contains(final Object element)
+	{
+		return 0 <= indexOf(maskNull(element));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean add(final E element)
+	{
+		final Object key = maskNull(element);
+		int index = slot(key);
+		Object current;
+		while ((current = table[index]) != null)
+		{
+			if (current == key)
+			{
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+		insert(index, key);
+		modCount++;
+		if (resizeThreshold < size)
+		{
+			rehash(table.length << 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Puts the given element in the given free slot and links it as last element
+	 *
+	 * @param index
+	 *            the free slot
+	 * @param key
+	 *            the element as it is kept in the table
+	 */
+	private void insert(final int index, final Object key)
+	{
+		table[index] = key;
+		before[index] = tail;
+		after[index] = -1;
+		if (tail < 0)
+		{
+			head = index;
+		}
+		else
+		{
+			after[tail] = index;
+		}
+		tail = index;
+		size++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean remove(final Object element)
+	{
+		final int index = indexOf(maskNull(element));
+		if (index < 0)
+		{
+			return false;
+		}
+		unlink(index);
+		shiftBack(index);
+		size--;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Removes the element in the given slot from the insertion order
+	 *
+	 * @param index
+	 *            the slot
+	 */
+	private void unlink(final int index)
+	{
+		final int previous = before[index];
+		final int next = after[index];
+		if (previous < 0)
+		{
+			head = next;
+		}
+		else
+		{
+			after[previous] = next;
+		}
+		if (next < 0)
+		{
+			tail = previous;
+		}
+		else
+		{
+			before[next] = previous;
+		}
+	}
+
+	/**
+	 * Closes the gap at the given free slot by moving back the following elements of the same
+	 * probe sequence and relinks the moved elements, so no tombstones are needed
+	 *
+	 * @param freeSlot
+	 *            the slot that gets free
+	 */
+	private void shiftBack(int freeSlot)
+	{
+		int index = freeSlot;
+		while (true)
+		{
+			index = (index + 1) & mask;
+			final Object current = table[index];
+			if (current == null)
+			{
+				break;
+			}
+			final int home = slot(current);
+			// move the element if its home slot is not between the free slot and its current slot
+			boolean movable = freeSlot <= index
+				? home <= freeSlot || index < home
+				: home <= freeSlot && index < home;
+			if (movable)
+			{
+				table[freeSlot] = current;
+				relink(index, freeSlot);
+				freeSlot = index;
+			}
+		}
+		table[freeSlot] = null;
+	}
+
+	/**
+	 * Moves the links of the element from the given old slot to the given new slot
+	 *
+	 * @param oldSlot
+	 *            the old slot
+	 * @param newSlot
+	 *            the new slot
+	 */
+	private void relink(final int oldSlot, final int newSlot)
+	{
+		final int previous = before[oldSlot];
+		final int next = after[oldSlot];
+		before[newSlot] = previous;
+		after[newSlot] = next;
+		if (previous < 0)
+		{
+			head = newSlot;
+		}
+		else
+		{
+			after[previous] = newSlot;
+		}
+		if (next < 0)
+		{
+			tail = newSlot;
+		}
+		else
+		{
+			before[next] = newSlot;
+		}
+	}
+
+	/**
+	 * Rehashes all elements in the insertion order into a new table with the given capacity
+	 *
+	 * @param capacity
+	 *            the new capacity as power of two
+	 */
+	private void rehash(final int capacity)
+	{
+		final Object[] oldTable = table;
+		final int[] oldAfter = after;
+		final int oldHead = head;
+		allocate(capacity);
+		for (int slot = oldHead; 0 <= slot; slot = oldAfter[slot])
+		{
+			final Object key = oldTable[slot];
+			int index = slot(key);
+			while (table[index] != null)
+			{
+				index = (index + 1) & mask;
+			}
+			insert(index, key);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear()
+	{
+		Arrays.fill(table, null);
+		head = -1;
+		tail = -1;
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new LinkedIterator();
+	}
+
+	/**
+	 * Writes the number of elements and the elements in the insertion order
+	 *
+	 * @param out
+	 *            the object output stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int slot = head; 0 <= slot; slot = after[slot])
+		{
+			out.writeObject(unmaskNull(table[slot]));
+		}
+	}
+
+	/**
+	 * Reads the elements and rebuilds the table, because the identity hash codes of the read
+	 * elements differ from the written ones
+	 *
+	 * @param in
+	 *            the object input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the stream contains an invalid
+	 *             number of elements
+	 * @throws ClassNotFoundException
+	 *             if the class of an element can not be found
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		final int elementCount = in.readInt();
+		if (elementCount < 0)
+		{
+			throw new InvalidObjectException("Invalid number of elements " + elementCount);
+		}
+		allocate(tableCapacity(elementCount));
+		for (int i = 0; i < elementCount; i++)
+		{
+			add((E)in.readObject());
+		}
+	}
+
+	/**
+	 * The class {@link LinkedIterator} iterates over the elements in the insertion order and
+	 * supports the removal of the current element
+	 */
+	private final class LinkedIterator implements Iterator<E>
+	{
+
+		/** The slot of the next element or -1 */
+		private int next = head;
+
+		/** The last returned element as it is kept in the table or null */
+		private Object lastReturned;
+
+		/** The expected number of the modifications */
+		private int expectedModCount = modCount;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return 0 <= next;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public E next()
+		{
+			checkForModification();
+			if (next < 0)
+			{
+				throw new NoSuchElementException();
+			}
+			lastReturned = table[next];
+			next = after[next];
+			return unmaskNull(lastReturned);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void remove()
+		{
+			if (lastReturned == null)
+			{
+				throw new IllegalStateException();
+			}
+			checkForModification();
+			final Object nextElement = next < 0 ? null : table[next];
+			IdentityLinkedSet.this.remove(unmaskNull(lastReturned));
+			// the removal can move the next element to another slot
+			next = nextElement == null ? -1 : indexOf(nextElement);
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+
+		/**
+		 * Checks that the set was not modified outside of this iterator
+		 */
+		private void checkForModification()
+		{
+			if (modCount != expectedModCount)
+			{
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+}
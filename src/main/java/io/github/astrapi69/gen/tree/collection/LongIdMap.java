@@ -0,0 +1,503 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import lombok.NonNull;
+
+/**
+ * The class {@link LongIdMap} is a hash map with primitive long keys. The keys are kept in an open
+ * addressing table with linear probing, so no key is boxed and no entry object is created. The key
+ * <code>0</code> is stored outside of the table, because it marks a free slot. Null values are not
+ * permitted
+ *
+ * @param <V>
+ *            the generic type of the value
+ */
+public class LongIdMap<V>
+{
+
+	/** The default expected size */
+	private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+	/** The maximum capacity of the table */
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/** The maximum load factor of the table */
+	private static final float LOAD_FACTOR = 0.6f;
+
+	/** The keys of the table, the key <code>0</code> marks a free slot */
+	private long[] keys;
+
+	/** The values of the table */
+	private Object[] values;
+
+	/** The mask for the index computation */
+	private int mask;
+
+	/** The number of entries in the table */
+	private int tableSize;
+
+	/** The number of entries that triggers a resize */
+	private int resizeThreshold;
+
+	/** The flag that indicates if the key <code>0</code> is mapped */
+	private boolean hasZeroKey;
+
+	/** The value of the key <code>0</code> */
+	private V zeroValue;
+
+	/**
+	 * Instantiates a new {@link LongIdMap} object
+	 */
+	public LongIdMap()
+	{
+		this(DEFAULT_EXPECTED_SIZE);
+	}
+
+	/**
+	 * Instantiates a new {@link LongIdMap} object that can hold the given number of entries
+	 * without resizing
+	 *
+	 * @param expectedSize
+	 *            the expected number of entries
+	 */
+	public LongIdMap(final int expectedSize)
+	{
+		if (expectedSize < 0)
+		{
+			throw new IllegalArgumentException("expectedSize must not be negative");
+		}
+		allocate(tableCapacity(expectedSize));
+	}
+
+	/**
+	 * Computes the table capacity for the given expected size
+	 *
+	 * @param expectedSize
+	 *            the expected number of entries
+	 * @return the table capacity as power of two
+	 */
+	private static int tableCapacity(final int expectedSize)
+	{
+		long needed = Math.max(2L, (long)Math.ceil(expectedSize / (double)LOAD_FACTOR));
+		if (needed > MAXIMUM_CAPACITY)
+		{
+			return MAXIMUM_CAPACITY;
+		}
+		return Integer.highestOneBit((int)needed - 1) << 1;
+	}
+
+	/**
+	 * Mixes the given key and computes the start slot in the table
+	 *
+	 * @param key
+	 *            the key
+	 * @return the start slot
+	 */
+	private int slot(final long key)
+	{
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int)(hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * Allocates a new empty table with the given capacity
+	 *
+	 * @param capacity
+	 *            the capacity as power of two
+	 */
+	private void allocate(final int capacity)
+	{
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeThreshold = Math.min(capacity - 1, (int)(capacity * LOAD_FACTOR));
+	}
+
+	/**
+	 * Gets the number of entries
+	 *
+	 * @return the number of entries
+	 */
+	public int size()
+	{
+		return hasZeroKey ? tableSize + 1 : tableSize;
+	}
+
+	/**
+	 * Checks if this map has no entries
+	 *
+	 * @return true, if this map has no entries otherwise false
+	 */
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	/**
+	 * Gets the value that is mapped to the given key
+	 *
+	 * @param key
+	 *            the key
+	 * @return the value or null if the given key is not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final long key)
+	{
+		if (key == 0)
+		{
+			return zeroValue;
+		}
+		int index = slot(key);
+		long current;
+		while ((current = keys[index]) != 0)
+		{
+			if (current == key)
+			{
+				return (V)values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the given key is mapped
+	 *
+	 * @param key
+	 *            the key
+	 * @return true, if the given key is mapped otherwise false
+	 */
+	public boolean containsKey(final long key)
+	{
+		if (key == 0)
+		{
+			return hasZeroKey;
+		}
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps the given value to the given key
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @return the previous value or null if the given key was not mapped
+	 * @throws IllegalStateException
+	 *             if a new key does not fit in the table of the maximum capacity
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(final long key, final @NonNull V value)
+	{
+		if (key == 0)
+		{
+			V previous = zeroValue;
+			zeroValue = value;
+			hasZeroKey = true;
+			return previous;
+		}
+		int index = slot(key);
+		long current;
+		while ((current = keys[index]) != 0)
+		{
+			if (current == key)
+			{
+				V previous = (V)values[index];
+				values[index] = value;
+				return previous;
+			}
+			index = (index + 1) & mask;
+		}
+		if (tableSize == resizeThreshold && keys.length == MAXIMUM_CAPACITY)
+		{
+			throw new IllegalStateException(
+				"The map has reached its maximum number of " + resizeThreshold + " entries");
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++tableSize > resizeThreshold)
+		{
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Maps the given value to the given key if the given key is not mapped yet
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @return the existing value or null if the given value was mapped
+	 */
+	public V putIfAbsent(final long key, final @NonNull V value)
+	{
+		V existing = get(key);
+		if (existing != null)
+		{
+			return existing;
+		}
+		put(key, value);
+		return null;
+	}
+
+	/**
+	 * Removes the mapping of the given key
+	 *
+	 * @param key
+	 *            the key
+	 * @return the removed value or null if the given key was not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(final long key)
+	{
+		if (key == 0)
+		{
+			V previous = zeroValue;
+			zeroValue = null;
+			hasZeroKey = false;
+			return previous;
+		}
+		int index = slot(key);
+		long current;
+		while ((current = keys[index]) != 0)
+		{
+			if (current == key)
+			{
+				V previous = (V)values[index];
+				shiftBack(index);
+				tableSize--;
+				return previous;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Closes the gap at the given free slot by moving back the following entries of the same
+	 * probe sequence, so no tombstones are needed
+	 *
+	 * @param freeSlot
+	 *            the slot that gets free
+	 */
+	private void shiftBack(int freeSlot)
+	{
+		int index = freeSlot;
+		while (true)
+		{
+			index = (index + 1) & mask;
+			long current = keys[index];
+			if (current == 0)
+			{
+				break;
+			}
+			int home = slot(current);
+			// move the entry if its home slot is not between the free slot and its current slot
+			boolean movable = freeSlot <= index
+				? home <= freeSlot || index < home
+				: home <= freeSlot && index < home;
+			if (movable)
+			{
+				keys[freeSlot] = current;
+				values[freeSlot] = values[index];
+				freeSlot = index;
+			}
+		}
+		keys[freeSlot] = 0;
+		values[freeSlot] = null;
+	}
+
+	/**
+	 * Rehashes all entries into a new table with the given capacity
+	 *
+	 * @param capacity
+	 *            the new capacity as power of two
+	 */
+	private void rehash(final int capacity)
+	{
+		final long[] oldKeys = keys;
+		final Object[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			long key = oldKeys[i];
+			if (key != 0)
+			{
+				int index = slot(key);
+				while (keys[index] != 0)
+				{
+					index = (index + 1) & mask;
+				}
+				keys[index] = key;
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public void clear()
+	{
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		tableSize = 0;
+		hasZeroKey = false;
+		zeroValue = null;
+	}
+
+	/**
+	 * Performs the given action for every entry
+	 *
+	 * @param action
+	 *            the action to perform
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(final @NonNull LongObjectConsumer<? super V> action)
+	{
+		if (hasZeroKey)
+		{
+			action.accept(0, zeroValue);
+		}
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (keys[i] != 0)
+			{
+				action.accept(keys[i], (V)values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Gets all keys of this map
+	 *
+	 * @return a new array with all keys
+	 */
+	public long[] keys()
+	{
+		final long[] result = new long[size()];
+		int position = 0;
+		if (hasZeroKey)
+		{
+			result[position++] = 0;
+		}
+		for (long key : keys)
+		{
+			if (key != 0)
+			{
+				result[position++] = key;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets all values of this map
+	 *
+	 * @return a new {@link List} object with all values
+	 */
+	public List<V> values()
+	{
+		final List<V> result = new ArrayList<>(size());
+		forEach((key, value) -> result.add(value));
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (!(object instanceof LongIdMap))
+		{
+			return false;
+		}
+		final LongIdMap<?> other = (LongIdMap<?>)object;
+		if (size() != other.size())
+		{
+			return false;
+		}
+		if (hasZeroKey && !Objects.equals(zeroValue, other.get(0)))
+		{
+			return false;
+		}
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (keys[i] != 0 && !values[i].equals(other.get(keys[i])))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode()
+	{
+		int hashCode = hasZeroKey ? zeroValue.hashCode() : 0;
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (keys[i] != 0)
+			{
+				hashCode += Long.hashCode(keys[i]) ^ values[i].hashCode();
+			}
+		}
+		return hashCode;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		final StringBuilder sb = new StringBuilder("{");
+		forEach((key, value) -> {
+			if (sb.length() > 1)
+			{
+				sb.append(", ");
+			}
+			sb.append(key).append('=').append(value);
+		});
+		return sb.append('}').toString();
+	}
+}
@@ -0,0 +1,893 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.compact;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import io.github.astrapi69.gen.tree.layout.TreeLayout;
+import io.github.astrapi69.gen.tree.layout.TreeLayoutOrder;
+import lombok.NonNull;
+
+/**
+ * The class {@link CompactTree} stores a tree in parallel arrays that are indexed by the node
+ * index, so a node costs no object header, no children collection and no references to the
+ * parent and the children. The structure is held in the arrays of the parent, the first child,
+ * the next sibling and the previous sibling indexes, the previous sibling of a first child is the
+ * last child of the parent, so a child is appended and unlinked in constant time. The ids and the
+ * values are held in object arrays, the leaf flags in a bitset and the display values in an array
+ * that is only created if a display value is set
+ *
+ * <p>
+ * The indexes of deleted nodes are reused over a free list, so an index must not be used after its
+ * node was deleted. The nodes can be accessed as lightweight {@link CompactTreeNode} handles, that
+ * hold also the generation of the slot, that is incremented when the slot is freed, so a handle
+ * detects the deletion of its node even if the slot was reused. This class is not thread safe
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class CompactTree<T, K>
+{
+
+	/** The index that indicates no node */
+	public static final int NO_NODE = -1;
+
+	/** The parent index of a free slot */
+	private static final int FREE = -2;
+
+	/** The default initial capacity */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The parent indexes */
+	private int[] parent;
+
+	/** The first child indexes */
+	private int[] firstChild;
+
+	/** The next sibling indexes, for a free slot the next free slot */
+	private int[] nextSibling;
+
+	/** The previous sibling indexes, for a first child the last child of the parent */
+	private int[] previousSibling;
+
+	/** The ids */
+	private Object[] ids;
+
+	/** The values */
+	private Object[] values;
+
+	/** The display values or null if no display value was set */
+	private String[] displayValues;
+
+	/** The leaf flags */
+	private long[] leafBits;
+
+	/** The generations of the slots, a generation is incremented when its slot is freed */
+	private int[] generations;
+
+	/** The number of used slots including the free slots */
+	private int highWaterMark;
+
+	/** The head of the free list */
+	private int freeHead = NO_NODE;
+
+	/** The number of nodes */
+	private int size;
+
+	/** The index of the root */
+	private int root = NO_NODE;
+
+	/**
+	 * Instantiates a new empty {@link CompactTree} object
+	 */
+	public CompactTree()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new empty {@link CompactTree} object with the given initial capacity
+	 *
+	 * @param initialCapacity
+	 *            the number of nodes that can be stored without growing the arrays
+	 */
+	public CompactTree(final int initialCapacity)
+	{
+		if (initialCapacity < 0)
+		{
+			throw new IllegalArgumentException("initialCapacity must not be negative");
+		}
+		final int capacity = Math.max(1, initialCapacity);
+		parent = new int[capacity];
+		firstChild = new int[capacity];
+		nextSibling = new int[capacity];
+		previousSibling = new int[capacity];
+		ids = new Object[capacity];
+		values = new Object[capacity];
+		leafBits = new long[(capacity + 63) >>> 6];
+		generations = new int[capacity];
+	}
+
+	/**
+	 * Creates a new {@link CompactTree} object from the tree of the given root. The order of the
+	 * children is preserved and the pre-order of the given tree is the order of the indexes
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the tree
+	 * @return the new {@link CompactTree} object
+	 */
+	public static <T, K> CompactTree<T, K> of(final @NonNull BaseTreeNode<T, K> root)
+	{
+		final CompactTree<T, K> compactTree = new CompactTree<>();
+		final Deque<Iterator<BaseTreeNode<T, K>>> stack = new ArrayDeque<>();
+		int[] indexStack = new int[16];
+		int depth = 0;
+		final int rootIndex = compactTree.addRoot(root.getId(), root.getValue());
+		compactTree.copyFields(rootIndex, root);
+		if (root.hasChildren())
+		{
+			stack.push(root.getChildren().iterator());
+			indexStack[depth++] = rootIndex;
+		}
+		while (!stack.isEmpty())
+		{
+			final Iterator<BaseTreeNode<T, K>> children = stack.peek();
+			if (!children.hasNext())
+			{
+				stack.pop();
+				depth--;
+				continue;
+			}
+			final BaseTreeNode<T, K> child = children.next();
+			final int index = compactTree.allocate(child.getId(), child.getValue());
+			compactTree.link(index, indexStack[depth - 1]);
+			compactTree.copyFields(index, child);
+			if (child.hasChildren())
+			{
+				if (depth == indexStack.length)
+				{
+					indexStack = Arrays.copyOf(indexStack, depth << 1);
+				}
+				stack.push(child.getChildren().iterator());
+				indexStack[depth++] = index;
+			}
+		}
+		return compactTree;
+	}
+
+	/**
+	 * Copies the leaf flag and the display value of the given node
+	 *
+	 * @param index
+	 *            the index of the target node
+	 * @param node
+	 *            the source node
+	 */
+	private void copyFields(final int index, final BaseTreeNode<T, K> node)
+	{
+		setLeaf(index, node.isLeaf());
+		if (node.getDisplayValue() != null)
+		{
+			setDisplayValue(index, node.getDisplayValue());
+		}
+	}
+
+	/**
+	 * Gets the number of nodes
+	 *
+	 * @return the number of nodes
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Checks if this tree has no nodes
+	 *
+	 * @return true, if this tree has no nodes otherwise false
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Gets the index of the root
+	 *
+	 * @return the index of the root or {@link #NO_NODE} if this tree is empty
+	 */
+	public int getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * Gets the handle of the root
+	 *
+	 * @return the handle of the root or null if this tree is empty
+	 */
+	public CompactTreeNode<T, K> getRootNode()
+	{
+		return getNode(root);
+	}
+
+	/**
+	 * Gets the handle of the node with the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the handle of the node or null if the given index is {@link #NO_NODE}
+	 */
+	public CompactTreeNode<T, K> getNode(final int index)
+	{
+		if (index == NO_NODE)
+		{
+			return null;
+		}
+		checkNode(index);
+		return new CompactTreeNode<>(this, index, generations[index]);
+	}
+
+	/**
+	 * Checks if the given index belongs to a node of this tree
+	 *
+	 * @param index
+	 *            the index
+	 * @return true, if the given index belongs to a node otherwise false
+	 */
+	public boolean contains(final int index)
+	{
+		return 0 <= index && index < highWaterMark && parent[index] != FREE;
+	}
+
+	/**
+	 * Checks if the given index belongs to a node of this tree and its slot has the given
+	 * generation
+	 *
+	 * @param index
+	 *            the index
+	 * @param generation
+	 *            the generation of the slot
+	 * @return true, if the node of the given generation was not deleted otherwise false
+	 */
+	boolean isCurrent(final int index, final int generation)
+	{
+		return contains(index) && generations[index] == generation;
+	}
+
+	/**
+	 * Adds the root of this tree
+	 *
+	 * @param id
+	 *            the id of the root
+	 * @param value
+	 *            the value of the root
+	 * @return the index of the root
+	 * @throws IllegalStateException
+	 *             if this tree has already a root
+	 */
+	public int addRoot(final K id, final T value)
+	{
+		if (root != NO_NODE)
+		{
+			throw new IllegalStateException("The tree has already a root");
+		}
+		root = allocate(id, value);
+		parent[root] = NO_NODE;
+		return root;
+	}
+
+	/**
+	 * Appends a new node as last child of the given parent
+	 *
+	 * @param parentIndex
+	 *            the index of the parent
+	 * @param id
+	 *            the id of the new node
+	 * @param value
+	 *            the value of the new node
+	 * @return the index of the new node
+	 * @throws IllegalArgumentException
+	 *             if the given parent is no node of this tree or a leaf
+	 */
+	public int append(final int parentIndex, final K id, final T value)
+	{
+		checkNode(parentIndex);
+		if (isLeaf(parentIndex))
+		{
+			throw new IllegalArgumentException("The parent " + parentIndex + " is a leaf");
+		}
+		final int index = allocate(id, value);
+		link(index, parentIndex);
+		return index;
+	}
+
+	/**
+	 * Moves the node with the given index to the end of the children of the given new parent
+	 *
+	 * @param index
+	 *            the index of the node to move
+	 * @param newParentIndex
+	 *            the index of the new parent
+	 * @return true, if the node was moved or false if the new parent is a leaf, the node itself or
+	 *         a descendant of the node
+	 */
+	public boolean move(final int index, final int newParentIndex)
+	{
+		checkNode(index);
+		checkNode(newParentIndex);
+		if (isLeaf(newParentIndex))
+		{
+			return false;
+		}
+		int ancestor = newParentIndex;
+		while (ancestor != NO_NODE)
+		{
+			if (ancestor == index)
+			{
+				return false;
+			}
+			ancestor = parent[ancestor];
+		}
+		unlink(index);
+		link(index, newParentIndex);
+		return true;
+	}
+
+	/**
+	 * Deletes the node with the given index and all its descendants. The indexes of the deleted
+	 * nodes are reused by the next added nodes
+	 *
+	 * @param index
+	 *            the index of the node to delete
+	 * @return the number of the deleted nodes
+	 */
+	public int delete(final int index)
+	{
+		checkNode(index);
+		if (index == root)
+		{
+			root = NO_NODE;
+		}
+		else
+		{
+			unlink(index);
+		}
+		int deleted = 0;
+		// the subtree is walked over the first child and next sibling indexes, a slot is freed
+		// after its children were pushed
+		int[] stack = new int[16];
+		int stackSize = 0;
+		stack[stackSize++] = index;
+		while (0 < stackSize)
+		{
+			final int current = stack[--stackSize];
+			for (int child = firstChild[current]; child != NO_NODE; child = nextSibling[child])
+			{
+				if (stackSize == stack.length)
+				{
+					stack = Arrays.copyOf(stack, stackSize << 1);
+				}
+				stack[stackSize++] = child;
+			}
+			free(current);
+			deleted++;
+		}
+		size -= deleted;
+		return deleted;
+	}
+
+	/**
+	 * Gets the parent index of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the parent or {@link #NO_NODE} for the root
+	 */
+	public int getParent(final int index)
+	{
+		checkNode(index);
+		return parent[index];
+	}
+
+	/**
+	 * Gets the index of the first child of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the first child or {@link #NO_NODE} if the node has no children
+	 */
+	public int getFirstChild(final int index)
+	{
+		checkNode(index);
+		return firstChild[index];
+	}
+
+	/**
+	 * Gets the index of the last child of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the last child or {@link #NO_NODE} if the node has no children
+	 */
+	public int getLastChild(final int index)
+	{
+		checkNode(index);
+		final int first = firstChild[index];
+		return first == NO_NODE ? NO_NODE : previousSibling[first];
+	}
+
+	/**
+	 * Gets the index of the next sibling of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the next sibling or {@link #NO_NODE} if the node is the last child
+	 */
+	public int getNextSibling(final int index)
+	{
+		checkNode(index);
+		return nextSibling[index];
+	}
+
+	/**
+	 * Gets the index of the previous sibling of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the previous sibling or {@link #NO_NODE} if the node is the first child
+	 */
+	public int getPreviousSibling(final int index)
+	{
+		checkNode(index);
+		final int parentIndex = parent[index];
+		if (parentIndex == NO_NODE || firstChild[parentIndex] == index)
+		{
+			return NO_NODE;
+		}
+		return previousSibling[index];
+	}
+
+	/**
+	 * Gets the number of children of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the number of children
+	 */
+	public int getChildCount(final int index)
+	{
+		checkNode(index);
+		int count = 0;
+		for (int child = firstChild[index]; child != NO_NODE; child = nextSibling[child])
+		{
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the id of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the id
+	 */
+	@SuppressWarnings("unchecked")
+	public K getId(final int index)
+	{
+		checkNode(index);
+		return (K)ids[index];
+	}
+
+	/**
+	 * Sets the id of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param id
+	 *            the id
+	 */
+	public void setId(final int index, final K id)
+	{
+		checkNode(index);
+		ids[index] = id;
+	}
+
+	/**
+	 * Gets the value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	public T getValue(final int index)
+	{
+		checkNode(index);
+		return (T)values[index];
+	}
+
+	/**
+	 * Sets the value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param value
+	 *            the value
+	 */
+	public void setValue(final int index, final T value)
+	{
+		checkNode(index);
+		values[index] = value;
+	}
+
+	/**
+	 * Gets the display value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the display value
+	 */
+	public String getDisplayValue(final int index)
+	{
+		checkNode(index);
+		return displayValues == null ? null : displayValues[index];
+	}
+
+	/**
+	 * Sets the display value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param displayValue
+	 *            the display value
+	 */
+	public void setDisplayValue(final int index, final String displayValue)
+	{
+		checkNode(index);
+		if (displayValues == null)
+		{
+			if (displayValue == null)
+			{
+				return;
+			}
+			displayValues = new String[ids.length];
+		}
+		displayValues[index] = displayValue;
+	}
+
+	/**
+	 * Checks if the given node is a leaf
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return true, if the node is a leaf otherwise false
+	 */
+	public boolean isLeaf(final int index)
+	{
+		checkNode(index);
+		return (leafBits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Sets the leaf flag of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param leaf
+	 *            the flag that indicates if the node is a leaf
+	 */
+	public void setLeaf(final int index, final boolean leaf)
+	{
+		checkNode(index);
+		if (leaf)
+		{
+			leafBits[index >>> 6] |= 1L << index;
+		}
+		else
+		{
+			leafBits[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	/**
+	 * Rebuilds this tree into a new {@link CompactTree} object whose indexes follow the given
+	 * {@link TreeLayoutOrder} without free slots, so a traversal in this order reads the arrays
+	 * sequentially. The order of the children is preserved. The indexes of the new tree differ
+	 * from the indexes of this tree, this tree is not changed
+	 *
+	 * @param order
+	 *            the layout order
+	 * @return the new {@link CompactTree} object
+	 */
+	public CompactTree<T, K> relayout(final @NonNull TreeLayoutOrder order)
+	{
+		final CompactTree<T, K> compactTree = new CompactTree<>(size);
+		if (root == NO_NODE)
+		{
+			return compactTree;
+		}
+		final int[] sequence = TreeLayout.order(root, firstChild, nextSibling, size, order);
+		final int[] newIndexes = new int[highWaterMark];
+		for (final int index : sequence)
+		{
+			final int newIndex = index == root
+				? compactTree.addRoot(getId(index), getValue(index))
+				: compactTree.allocate(getId(index), getValue(index));
+			if (index != root)
+			{
+				compactTree.link(newIndex, newIndexes[parent[index]]);
+			}
+			compactTree.setLeaf(newIndex, isLeaf(index));
+			if (displayValues != null && displayValues[index] != null)
+			{
+				compactTree.setDisplayValue(newIndex, displayValues[index]);
+			}
+			newIndexes[index] = newIndex;
+		}
+		return compactTree;
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} tree of the whole tree
+	 *
+	 * @return the root of the new tree or null if this tree is empty
+	 */
+	public BaseTreeNode<T, K> toBaseTreeNode()
+	{
+		return root == NO_NODE ? null : toBaseTreeNode(root);
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} tree of the subtree of the given node. The order of the
+	 * children is preserved
+	 *
+	 * @param index
+	 *            the index of the root of the subtree
+	 * @return the root of the new tree
+	 */
+	public BaseTreeNode<T, K> toBaseTreeNode(final int index)
+	{
+		checkNode(index);
+		final BaseTreeNode<T, K> subtreeRoot = newBaseTreeNode(index, null);
+		final Deque<BaseTreeNode<T, K>> nodes = new ArrayDeque<>();
+		int[] indexes = new int[16];
+		nodes.push(subtreeRoot);
+		indexes[0] = index;
+		while (!nodes.isEmpty())
+		{
+			final BaseTreeNode<T, K> node = nodes.pop();
+			final int current = indexes[nodes.size()];
+			if (firstChild[current] == NO_NODE)
+			{
+				continue;
+			}
+			final AdaptiveLinkedSet<BaseTreeNode<T, K>> children = new AdaptiveLinkedSet<>();
+			for (int child = firstChild[current]; child != NO_NODE; child = nextSibling[child])
+			{
+				final BaseTreeNode<T, K> childNode = newBaseTreeNode(child, node);
+				children.add(childNode);
+				if (nodes.size() == indexes.length)
+				{
+					indexes = Arrays.copyOf(indexes, nodes.size() << 1);
+				}
+				indexes[nodes.size()] = child;
+				nodes.push(childNode);
+			}
+			node.setChildren(children);
+		}
+		return subtreeRoot;
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} object without children from the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param parentNode
+	 *            the parent of the new node
+	 * @return the new {@link BaseTreeNode} object
+	 */
+	@SuppressWarnings("unchecked")
+	private BaseTreeNode<T, K> newBaseTreeNode(final int index, final BaseTreeNode<T, K> parentNode)
+	{
+		return BaseTreeNode.<T, K> builder().id((K)ids[index]).value((T)values[index])
+			.displayValue(displayValues == null ? null : displayValues[index])
+			.leaf(isLeaf(index)).parent(parentNode).build();
+	}
+
+	/**
+	 * Checks that the given index belongs to a node of this tree
+	 *
+	 * @param index
+	 *            the index
+	 * @throws IllegalArgumentException
+	 *             if the given index belongs to no node
+	 */
+	private void checkNode(final int index)
+	{
+		if (!contains(index))
+		{
+			throw new IllegalArgumentException("The index " + index + " belongs to no node");
+		}
+	}
+
+	/**
+	 * Allocates a slot from the free list or at the end of the arrays
+	 *
+	 * @param id
+	 *            the id of the new node
+	 * @param value
+	 *            the value of the new node
+	 * @return the index of the new node
+	 */
+	private int allocate(final K id, final T value)
+	{
+		final int index;
+		if (freeHead != NO_NODE)
+		{
+			index = freeHead;
+			freeHead = nextSibling[index];
+		}
+		else
+		{
+			if (highWaterMark == ids.length)
+			{
+				grow();
+			}
+			index = highWaterMark++;
+		}
+		parent[index] = NO_NODE;
+		firstChild[index] = NO_NODE;
+		nextSibling[index] = NO_NODE;
+		previousSibling[index] = NO_NODE;
+		ids[index] = id;
+		values[index] = value;
+		leafBits[index >>> 6] &= ~(1L << index);
+		size++;
+		return index;
+	}
+
+	/**
+	 * Frees the slot of the given node and puts it on the free list
+	 *
+	 * @param index
+	 *            the index of the node
+	 */
+	private void free(final int index)
+	{
+		parent[index] = FREE;
+		generations[index]++;
+		firstChild[index] = NO_NODE;
+		previousSibling[index] = NO_NODE;
+		nextSibling[index] = freeHead;
+		ids[index] = null;
+		values[index] = null;
+		if (displayValues != null)
+		{
+			displayValues[index] = null;
+		}
+		freeHead = index;
+	}
+
+	/**
+	 * Grows all arrays by half of their length
+	 */
+	private void grow()
+	{
+		final int capacity = ids.length + Math.max(DEFAULT_CAPACITY, ids.length >>> 1);
+		parent = Arrays.copyOf(parent, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		nextSibling = Arrays.copyOf(nextSibling, capacity);
+		previousSibling = Arrays.copyOf(previousSibling, capacity);
+		ids = Arrays.copyOf(ids, capacity);
+		values = Arrays.copyOf(values, capacity);
+		leafBits = Arrays.copyOf(leafBits, (capacity + 63) >>> 6);
+		generations = Arrays.copyOf(generations, capacity);
+		if (displayValues != null)
+		{
+			displayValues = Arrays.copyOf(displayValues, capacity);
+		}
+	}
+
+	/**
+	 * Links the given detached node as last child of the given parent
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param parentIndex
+	 *            the index of the parent
+	 */
+	private void link(final int index, final int parentIndex)
+	{
+		parent[index] = parentIndex;
+		nextSibling[index] = NO_NODE;
+		final int first = firstChild[parentIndex];
+		if (first == NO_NODE)
+		{
+			firstChild[parentIndex] = index;
+			previousSibling[index] = index;
+			return;
+		}
+		final int last = previousSibling[first];
+		nextSibling[last] = index;
+		previousSibling[index] = last;
+		previousSibling[first] = index;
+	}
+
+	/**
+	 * Unlinks the given node from its parent
+	 *
+	 * @param index
+	 *            the index of the node
+	 */
+	private void unlink(final int index)
+	{
+		final int parentIndex = parent[index];
+		if (parentIndex == NO_NODE)
+		{
+			return;
+		}
+		final int first = firstChild[parentIndex];
+		final int next = nextSibling[index];
+		if (first == index)
+		{
+			firstChild[parentIndex] = next;
+			if (next != NO_NODE)
+			{
+				previousSibling[next] = previousSibling[index];
+			}
+		}
+		else
+		{
+			final int previous = previousSibling[index];
+			nextSibling[previous] = next;
+			if (next == NO_NODE)
+			{
+				previousSibling[first] = previous;
+			}
+			else
+			{
+				previousSibling[next] = previous;
+			}
+		}
+		parent[index] = NO_NODE;
+		nextSibling[index] = NO_NODE;
+		previousSibling[index] = NO_NODE;
+	}
+}
@@ -0,0 +1,556 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.compact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import io.github.astrapi69.gen.tree.api.IBaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link CompactTreeNode} is a lightweight handle of a node in a {@link CompactTree}
+ * that holds only the tree, the index and the generation of the slot. All read methods delegate
+ * to the arrays of the tree, the fields can be changed and the node can be moved and its children
+ * can be removed. Adding children is done with {@link CompactTree#append(int, Object, Object)},
+ * so the methods that add existing nodes throw an {@link UnsupportedOperationException}. The
+ * generation of a slot changes when its node is deleted, so a handle of a deleted node throws an
+ * {@link IllegalStateException} and never reaches a new node that reuses the slot. Two
+ * {@link CompactTreeNode} objects are equal if they belong to the same tree and have the same
+ * index and generation
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class CompactTreeNode<T, K> implements IBaseTreeNode<T, K, CompactTreeNode<T, K>>
+{
+
+	/** The tree of this node */
+	private final CompactTree<T, K> tree;
+
+	/** The index of this node */
+	private final int index;
+
+	/** The generation of the slot of this node */
+	private final int generation;
+
+	/**
+	 * Instantiates a new {@link CompactTreeNode} object
+	 *
+	 * @param tree
+	 *            the tree of this node
+	 * @param index
+	 *            the index of this node
+	 * @param generation
+	 *            the generation of the slot of this node
+	 */
+	CompactTreeNode(final CompactTree<T, K> tree, final int index, final int generation)
+	{
+		this.tree = tree;
+		this.index = index;
+		this.generation = generation;
+	}
+
+	/**
+	 * Gets the tree of this node
+	 *
+	 * @return the tree
+	 */
+	public CompactTree<T, K> getTree()
+	{
+		return tree;
+	}
+
+	/**
+	 * Gets the index of this node in the tree
+	 *
+	 * @return the index
+	 * @throws IllegalStateException
+	 *             if this node was deleted
+	 */
+	public int getIndex()
+	{
+		return index();
+	}
+
+	/**
+	 * Checks if the node of this handle is still a node of the tree
+	 *
+	 * @return true, if the node was not deleted otherwise false
+	 */
+	public boolean isValid()
+	{
+		return tree.isCurrent(index, generation);
+	}
+
+	/**
+	 * Gets the index of this node after the check that the node was not deleted
+	 *
+	 * @return the index
+	 * @throws IllegalStateException
+	 *             if this node was deleted
+	 */
+	private int index()
+	{
+		if (!isValid())
+		{
+			throw new IllegalStateException("The node with the index " + index + " was deleted");
+		}
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public K getId()
+	{
+		return tree.getId(index());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setId(final K id)
+	{
+		tree.setId(index(), id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T getValue()
+	{
+		return tree.getValue(index());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setValue(final T value)
+	{
+		tree.setValue(index(), value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getDisplayValue()
+	{
+		return tree.getDisplayValue(index());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDisplayValue(final String displayValue)
+	{
+		tree.setDisplayValue(index(), displayValue);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaf()
+	{
+		return tree.isLeaf(index());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setLeaf(final boolean leaf)
+	{
+		tree.setLeaf(index(), leaf);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompactTreeNode<T, K> getParent()
+	{
+		return tree.getNode(tree.getParent(index()));
+	}
+
+	/**
+	 * Gets the children over the first child and the next sibling indexes
+	 *
+	 * @return an unmodifiable {@link List} object with the children
+	 */
+	@Override
+	public Collection<CompactTreeNode<T, K>> getChildren()
+	{
+		int child = tree.getFirstChild(index());
+		if (child == CompactTree.NO_NODE)
+		{
+			return Collections.emptyList();
+		}
+		final List<CompactTreeNode<T, K>> children = new ArrayList<>();
+		while (child != CompactTree.NO_NODE)
+		{
+			children.add(tree.getNode(child));
+			child = tree.getNextSibling(child);
+		}
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildCount()
+	{
+		return tree.getChildCount(index());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasChildren()
+	{
+		return tree.getFirstChild(index()) != CompactTree.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasParent()
+	{
+		return tree.getParent(index()) != CompactTree.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRoot()
+	{
+		return !hasParent();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getLevel()
+	{
+		int level = 0;
+		int ancestor = tree.getParent(index());
+		while (ancestor != CompactTree.NO_NODE)
+		{
+			level++;
+			ancestor = tree.getParent(ancestor);
+		}
+		return level;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompactTreeNode<T, K> getNextSibling()
+	{
+		return tree.getNode(tree.getNextSibling(index()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNextSibling()
+	{
+		return tree.getNextSibling(index()) != CompactTree.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompactTreeNode<T, K> getPreviousSibling()
+	{
+		return tree.getNode(tree.getPreviousSibling(index()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasPreviousSibling()
+	{
+		return tree.getPreviousSibling(index()) != CompactTree.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildIndex(final CompactTreeNode<T, K> child)
+	{
+		if (child == null || child.tree != tree)
+		{
+			return -1;
+		}
+		int position = 0;
+		for (int current = tree.getFirstChild(index()); current != CompactTree.NO_NODE;
+			current = tree.getNextSibling(current))
+		{
+			if (current == child.index && child.isValid())
+			{
+				return position;
+			}
+			position++;
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Optional<CompactTreeNode<T, K>> getChildAt(final int position)
+	{
+		int child = tree.getFirstChild(index());
+		for (int i = 0; i < position && child != CompactTree.NO_NODE; i++)
+		{
+			child = tree.getNextSibling(child);
+		}
+		return Optional.ofNullable(position < 0 ? null : tree.getNode(child));
+	}
+
+	/**
+	 * Moves this node to the end of the children of the given new parent
+	 *
+	 * @param newParent
+	 *            the new parent of the same tree
+	 * @return true, if this node was moved otherwise false
+	 */
+	@Override
+	public boolean move(final CompactTreeNode<T, K> newParent)
+	{
+		if (newParent == null || newParent.tree != tree)
+		{
+			return false;
+		}
+		return tree.move(index(), newParent.index());
+	}
+
+	/**
+	 * Deletes the given child with its descendants from the tree
+	 *
+	 * @param child
+	 *            the child
+	 */
+	@Override
+	public void removeChild(final CompactTreeNode<T, K> child)
+	{
+		if (child != null && child.tree == tree && child.isValid()
+			&& tree.getParent(child.index) == index())
+		{
+			tree.delete(child.index);
+		}
+	}
+
+	/**
+	 * Deletes the given children with their descendants from the tree
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void removeChildren(final @NonNull Collection<CompactTreeNode<T, K>> children)
+	{
+		children.forEach(this::removeChild);
+	}
+
+	/**
+	 * Deletes all children with their descendants from the tree
+	 */
+	@Override
+	public void removeChildren()
+	{
+		int child = tree.getFirstChild(index());
+		while (child != CompactTree.NO_NODE)
+		{
+			tree.delete(child);
+			child = tree.getFirstChild(index());
+		}
+	}
+
+	/**
+	 * Deletes all children with their descendants from the tree
+	 */
+	@Override
+	public void clearChildren()
+	{
+		removeChildren();
+	}
+
+	/**
+	 * Deletes all children with their descendants from the tree
+	 */
+	@Override
+	public void clearAll()
+	{
+		removeChildren();
+	}
+
+	/**
+	 * Throws an {@link UnsupportedOperationException}, because the nodes of a compact tree are
+	 * added with {@link CompactTree#append(int, Object, Object)}
+	 *
+	 * @return never
+	 */
+	private static UnsupportedOperationException appendOnly()
+	{
+		return new UnsupportedOperationException(
+			"The nodes of a compact tree are added with CompactTree#append");
+	}
+
+	/**
+	 * Not supported, use {@link #move(CompactTreeNode)}
+	 *
+	 * @param parent
+	 *            the parent
+	 */
+	@Override
+	public void setParent(final CompactTreeNode<T, K> parent)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of a compact tree are added with
+	 * {@link CompactTree#append(int, Object, Object)}
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void setChildren(final Collection<CompactTreeNode<T, K>> children)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of a compact tree are added with
+	 * {@link CompactTree#append(int, Object, Object)}
+	 *
+	 * @param child
+	 *            the child
+	 */
+	@Override
+	public void addChild(final CompactTreeNode<T, K> child)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of a compact tree are added with
+	 * {@link CompactTree#append(int, Object, Object)}
+	 *
+	 * @param child
+	 *            the child
+	 * @param position
+	 *            the position
+	 */
+	@Override
+	public void addChild(final CompactTreeNode<T, K> child, final int position)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of a compact tree are added with
+	 * {@link CompactTree#append(int, Object, Object)}
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void addChildren(final @NonNull Collection<CompactTreeNode<T, K>> children)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because a compact tree has no child comparator
+	 */
+	@Override
+	public void sortChildren()
+	{
+		throw new UnsupportedOperationException("A compact tree has no child comparator");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (!(object instanceof CompactTreeNode))
+		{
+			return false;
+		}
+		final CompactTreeNode<?, ?> other = (CompactTreeNode<?, ?>)object;
+		return tree == other.tree && index == other.index && generation == other.generation;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode()
+	{
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "CompactTreeNode(index=" + index + ", generation=" + generation + ")";
+	}
+}
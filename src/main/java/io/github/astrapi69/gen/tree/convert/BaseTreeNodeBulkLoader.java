@@ -0,0 +1,337 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.convert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.handler.ITreeNodeHandlerExtensions;
+import io.github.astrapi69.gen.tree.intern.TreeValueInterner;
+import lombok.NonNull;
+
+/**
+ * The class {@link BaseTreeNodeBulkLoader} builds {@link BaseTreeNode} trees from a stream of flat
+ * records with an id, a parent id and a value. Every record is wired on arrival, so the whole load
+ * is done in O(n) without an intermediate {@link Map} object of {@link TreeIdNode} objects. The
+ * records can arrive in any order, a record whose parent has not arrived yet is held in a pending
+ * parent buffer until its parent arrives. Records that can not be resolved are reported with
+ * {@link #getUnresolved()}. An optional {@link TreeValueInterner} canonicalizes the values and the
+ * display values of the loaded records
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class BaseTreeNodeBulkLoader<T, K>
+{
+
+	/** The finished nodes with the id as key */
+	private final Map<K, BaseTreeNode<T, K>> nodes = new HashMap<>();
+
+	/** The pending parent buffer with the missing parent id as key */
+	private final Map<K, List<BaseTreeNode<T, K>>> pendingChildren = new HashMap<>();
+
+	/** The nodes without a parent id in the order of arrival */
+	private final List<BaseTreeNode<T, K>> roots = new ArrayList<>();
+
+	/** The records that are rejected, because of a duplicate id, a leaf parent or a cycle */
+	private final List<TreeIdNode<T, K>> rejected = new ArrayList<>();
+
+	/** The number of nodes in the pending parent buffer */
+	private int pendingCount;
+
+	/** The optional interner of the values and the display values */
+	private final TreeValueInterner<T> treeValueInterner;
+
+	/**
+	 * Instantiates a new {@link BaseTreeNodeBulkLoader} object that keeps the values as they are
+	 */
+	public BaseTreeNodeBulkLoader()
+	{
+		this.treeValueInterner = null;
+	}
+
+	/**
+	 * Instantiates a new {@link BaseTreeNodeBulkLoader} object that interns the values and the
+	 * display values with the given interner
+	 *
+	 * @param treeValueInterner
+	 *            the interner of the values and the display values
+	 */
+	public BaseTreeNodeBulkLoader(final @NonNull TreeValueInterner<T> treeValueInterner)
+	{
+		this.treeValueInterner = treeValueInterner;
+	}
+
+	/**
+	 * Adds all records from the given {@link Iterator} object
+	 *
+	 * @param records
+	 *            the records to add
+	 * @return this {@link BaseTreeNodeBulkLoader} object
+	 */
+	public BaseTreeNodeBulkLoader<T, K> addAll(final @NonNull Iterator<TreeIdNode<T, K>> records)
+	{
+		while (records.hasNext())
+		{
+			add(records.next());
+		}
+		return this;
+	}
+
+	/**
+	 * Adds all records from the given {@link Stream} object in the encounter order
+	 *
+	 * @param records
+	 *            the records to add
+	 * @return this {@link BaseTreeNodeBulkLoader} object
+	 */
+	public BaseTreeNodeBulkLoader<T, K> addAll(final @NonNull Stream<TreeIdNode<T, K>> records)
+	{
+		return addAll(records.sequential().iterator());
+	}
+
+	/**
+	 * Adds the given record. The children ids of the given record are ignored, the structure is
+	 * build only from the parent ids
+	 *
+	 * @param record
+	 *            the record to add
+	 * @return this {@link BaseTreeNodeBulkLoader} object
+	 */
+	public BaseTreeNodeBulkLoader<T, K> add(final @NonNull TreeIdNode<T, K> record)
+	{
+		return add(BaseTreeNode.<T, K> builder().id(record.getId()).value(intern(record.getValue()))
+			.displayValue(internDisplayValue(record.getDisplayValue())).leaf(record.isLeaf())
+			.build(), record.getParentId());
+	}
+
+	/**
+	 * Adds a record with the given id, parent id and value
+	 *
+	 * @param id
+	 *            the id
+	 * @param parentId
+	 *            the parent id or null if the record is a root
+	 * @param value
+	 *            the value
+	 * @return this {@link BaseTreeNodeBulkLoader} object
+	 */
+	public BaseTreeNodeBulkLoader<T, K> add(final K id, final K parentId, final T value)
+	{
+		return add(BaseTreeNode.<T, K> builder().id(id).value(intern(value)).build(), parentId);
+	}
+
+	/**
+	 * Interns the given value if this loader has an interner
+	 *
+	 * @param value
+	 *            the value
+	 * @return the canonical value or the given value if this loader has no interner
+	 */
+	private T intern(final T value)
+	{
+		return treeValueInterner == null ? value : treeValueInterner.internValue(value);
+	}
+
+	/**
+	 * Interns the given display value if this loader has an interner
+	 *
+	 * @param displayValue
+	 *            the display value
+	 * @return the canonical display value or the given display value if this loader has no
+	 *         interner
+	 */
+	private String internDisplayValue(final String displayValue)
+	{
+		return treeValueInterner == null
+			? displayValue
+			: treeValueInterner.internDisplayValue(displayValue);
+	}
+
+	/**
+	 * Wires the given new node with the waiting children and with its parent
+	 *
+	 * @param node
+	 *            the new node
+	 * @param parentId
+	 *            the parent id or null if the node is a root
+	 * @return this {@link BaseTreeNodeBulkLoader} object
+	 */
+	private BaseTreeNodeBulkLoader<T, K> add(final BaseTreeNode<T, K> node, final K parentId)
+	{
+		final K id = node.getId();
+		if (nodes.containsKey(id))
+		{
+			rejected.add(toRecord(node, parentId));
+			return this;
+		}
+		nodes.put(id, node);
+		final List<BaseTreeNode<T, K>> waiting = pendingChildren.remove(id);
+		if (waiting != null)
+		{
+			pendingCount -= waiting.size();
+			for (BaseTreeNode<T, K> child : waiting)
+			{
+				if (node.isNode())
+				{
+					ITreeNodeHandlerExtensions.addChild(node, child);
+				}
+				else
+				{
+					rejected.add(toRecord(child, id));
+					roots.add(child);
+				}
+			}
+		}
+		if (parentId == null)
+		{
+			roots.add(node);
+			return this;
+		}
+		final BaseTreeNode<T, K> parent = nodes.get(parentId);
+		if (parent == null)
+		{
+			pendingChildren.computeIfAbsent(parentId, key -> new ArrayList<>()).add(node);
+			pendingCount++;
+		}
+		else if (parent.isLeaf() || (node.hasChildren() && isAncestor(node, parent)))
+		{
+			rejected.add(toRecord(node, parentId));
+			roots.add(node);
+		}
+		else
+		{
+			ITreeNodeHandlerExtensions.addChild(parent, node);
+		}
+		return this;
+	}
+
+	/**
+	 * Checks if the given possible ancestor is an ancestor of the given node or the node itself.
+	 * This is only needed if the new node got children from the pending parent buffer
+	 *
+	 * @param possibleAncestor
+	 *            the possible ancestor
+	 * @param node
+	 *            the node
+	 * @return true, if the given possible ancestor is an ancestor of the given node otherwise false
+	 */
+	private static <T, K> boolean isAncestor(final BaseTreeNode<T, K> possibleAncestor,
+		BaseTreeNode<T, K> node)
+	{
+		while (node != null)
+		{
+			if (node == possibleAncestor)
+			{
+				return true;
+			}
+			node = node.getParent();
+		}
+		return false;
+	}
+
+	/**
+	 * Creates the record for reporting of the given node
+	 *
+	 * @param node
+	 *            the node
+	 * @param parentId
+	 *            the parent id of the record
+	 * @return the record as {@link TreeIdNode} object
+	 */
+	private static <T, K> TreeIdNode<T, K> toRecord(final BaseTreeNode<T, K> node,
+		final K parentId)
+	{
+		final TreeIdNode<T, K> record = BaseTreeNodeTransformer.toTreeIdNode(node);
+		record.setParentId(parentId);
+		return record;
+	}
+
+	/**
+	 * Gets the finished nodes with the id as key
+	 *
+	 * @return an unmodifiable {@link Map} object with the finished nodes
+	 */
+	public Map<K, BaseTreeNode<T, K>> getNodes()
+	{
+		return Collections.unmodifiableMap(nodes);
+	}
+
+	/**
+	 * Gets the nodes without parent id in the order of arrival, also the nodes whose record is
+	 * rejected are contained, so no loaded subtree is lost
+	 *
+	 * @return an unmodifiable {@link List} object with the roots
+	 */
+	public List<BaseTreeNode<T, K>> getRoots()
+	{
+		return Collections.unmodifiableList(roots);
+	}
+
+	/**
+	 * Gets the first root or null if no root has arrived
+	 *
+	 * @return the first root or null
+	 */
+	public BaseTreeNode<T, K> getRoot()
+	{
+		return roots.isEmpty() ? null : roots.get(0);
+	}
+
+	/**
+	 * Gets the number of records that are waiting for their parent
+	 *
+	 * @return the number of records in the pending parent buffer
+	 */
+	public int getPendingCount()
+	{
+		return pendingCount;
+	}
+
+	/**
+	 * Gets the records that can not be resolved. These are the records whose parent has not
+	 * arrived and the rejected records, because of a duplicate id, a leaf parent or a cycle. The
+	 * nodes of the records whose parent has not arrived keep their loaded descendants
+	 *
+	 * @return a new {@link List} object with the unresolved records
+	 */
+	public List<TreeIdNode<T, K>> getUnresolved()
+	{
+		final List<TreeIdNode<T, K>> unresolved = new ArrayList<>(pendingCount + rejected.size());
+		pendingChildren.forEach((parentId, children) -> children
+			.forEach(child -> unresolved.add(toRecord(child, parentId))));
+		unresolved.addAll(rejected);
+		return unresolved;
+	}
+}
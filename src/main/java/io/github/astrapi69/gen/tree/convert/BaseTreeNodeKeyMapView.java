@@ -0,0 +1,293 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.convert;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.api.IBaseTreeNodeListener;
+import lombok.NonNull;
+
+/**
+ * The class {@link BaseTreeNodeKeyMapView} keeps a {@link Map} object with the key and the
+ * corresponding {@link TreeIdNode} objects in sync with a live {@link BaseTreeNode} tree. The map
+ * is created once with {@link BaseTreeNodeTransformer#toKeyMap(BaseTreeNode)} and after that every
+ * add, remove, move and change of a node updates only the affected entries, that are the entry of
+ * the node itself, the entry of its old parent and the entry of its new parent. The keys of all
+ * changed entries are collected and can be drained with {@link #drainChangedKeys()}
+ *
+ * Note: only the changes over the methods of the {@link BaseTreeNode} class are tracked. Changes
+ * over the static methods of the handler classes or over {@link BaseTreeNode#setChildren} bypass
+ * the view. If the observed root is attached to a parent of another tree, the view removes all
+ * entries, marks their keys as changed and closes itself, because a listener of a former root
+ * receives no further changes
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class BaseTreeNodeKeyMapView<T, K>
+	implements
+		IBaseTreeNodeListener<T, K, BaseTreeNode<T, K>>
+{
+
+	/** The root of the observed tree */
+	private final BaseTreeNode<T, K> root;
+
+	/** The key map with the corresponding {@link TreeIdNode} objects */
+	private final Map<K, TreeIdNode<T, K>> keyMap;
+
+	/** The keys of the changed or removed entries since the last drain */
+	private Set<K> changedKeys = new LinkedHashSet<>();
+
+	/**
+	 * Instantiates a new {@link BaseTreeNodeKeyMapView} object and registers it on the given root
+	 *
+	 * @param root
+	 *            the root of the tree to observe
+	 */
+	public BaseTreeNodeKeyMapView(final @NonNull BaseTreeNode<T, K> root)
+	{
+		this.root = root;
+		this.keyMap = BaseTreeNodeTransformer.toKeyMap(root);
+		root.addTreeNodeListener(this);
+	}
+
+	/**
+	 * Gets an unmodifiable view of the key map with the corresponding {@link TreeIdNode} objects
+	 *
+	 * @return the key map
+	 */
+	public Map<K, TreeIdNode<T, K>> getKeyMap()
+	{
+		return Collections.unmodifiableMap(keyMap);
+	}
+
+	/**
+	 * Gets the keys of the entries that are changed, added or removed since the last call of this
+	 * method and resets them
+	 *
+	 * @return a {@link Set} object with the changed keys
+	 */
+	public Set<K> drainChangedKeys()
+	{
+		final Set<K> drained = changedKeys;
+		changedKeys = new LinkedHashSet<>();
+		return drained;
+	}
+
+	/**
+	 * Unregisters this view from the root, after that the key map will not be updated anymore
+	 */
+	public void close()
+	{
+		root.removeTreeNodeListener(this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onChildAdded(final BaseTreeNode<T, K> parent, final BaseTreeNode<T, K> child)
+	{
+		final Deque<BaseTreeNode<T, K>> stack = new ArrayDeque<>();
+		stack.push(child);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<T, K> current = stack.pop();
+			putEntry(BaseTreeNodeTransformer.toTreeIdNode(current));
+			if (current.hasChildren())
+			{
+				current.getChildren().forEach(stack::push);
+			}
+		}
+		updateEntry(parent);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onChildRemoved(final BaseTreeNode<T, K> parent, final BaseTreeNode<T, K> child)
+	{
+		// the descendants of the child are already cleared, so the id graph of the map is used
+		removeSubtree(child.getId());
+		updateEntry(parent);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onMoved(final BaseTreeNode<T, K> treeNode, final BaseTreeNode<T, K> oldParent,
+		final BaseTreeNode<T, K> newParent)
+	{
+		if (treeNode == root)
+		{
+			if (newParent != null)
+			{
+				// the observed root was attached to another tree, the view receives no changes
+				changedKeys.addAll(keyMap.keySet());
+				keyMap.clear();
+				close();
+			}
+			return;
+		}
+		if (oldParent != null)
+		{
+			updateEntry(oldParent);
+		}
+		if (newParent == null || !isAttached(newParent))
+		{
+			// the node left the observed tree
+			removeSubtree(treeNode.getId());
+			return;
+		}
+		if (oldParent != null && keyMap.containsKey(treeNode.getId()))
+		{
+			// moved inside the observed tree, the descendants are unchanged
+			updateEntry(treeNode);
+			updateEntry(newParent);
+			return;
+		}
+		onChildAdded(newParent, treeNode);
+	}
+
+	/**
+	 * Checks if the given node belongs to the observed tree
+	 *
+	 * @param treeNode
+	 *            the node
+	 * @return true, if the root of the given node is the observed root otherwise false
+	 */
+	private boolean isAttached(BaseTreeNode<T, K> treeNode)
+	{
+		while (treeNode.getParent() != null)
+		{
+			treeNode = treeNode.getParent();
+		}
+		return treeNode == root;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onValueChanged(final BaseTreeNode<T, K> treeNode, final T oldValue)
+	{
+		updateEntry(treeNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onDisplayValueChanged(final BaseTreeNode<T, K> treeNode,
+		final String oldDisplayValue)
+	{
+		updateEntry(treeNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onLeafChanged(final BaseTreeNode<T, K> treeNode)
+	{
+		updateEntry(treeNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onIdChanged(final BaseTreeNode<T, K> treeNode, final K oldId)
+	{
+		keyMap.remove(oldId);
+		changedKeys.add(oldId);
+		updateEntry(treeNode);
+		if (treeNode.hasParent())
+		{
+			updateEntry(treeNode.getParent());
+		}
+		if (treeNode.hasChildren())
+		{
+			treeNode.getChildren().forEach(this::updateEntry);
+		}
+	}
+
+	/**
+	 * Replaces the entry of the given node with a new {@link TreeIdNode} object
+	 *
+	 * @param treeNode
+	 *            the node
+	 */
+	private void updateEntry(final BaseTreeNode<T, K> treeNode)
+	{
+		putEntry(BaseTreeNodeTransformer.toTreeIdNode(treeNode));
+	}
+
+	/**
+	 * Puts the given {@link TreeIdNode} object in the key map and marks its key as changed
+	 *
+	 * @param treeIdNode
+	 *            the {@link TreeIdNode} object
+	 */
+	private void putEntry(final TreeIdNode<T, K> treeIdNode)
+	{
+		keyMap.put(treeIdNode.getId(), treeIdNode);
+		changedKeys.add(treeIdNode.getId());
+	}
+
+	/**
+	 * Removes the entry with the given key and the entries of all its descendants over the
+	 * children ids of the key map
+	 *
+	 * @param key
+	 *            the key of the subtree root
+	 */
+	private void removeSubtree(final K key)
+	{
+		final Deque<K> stack = new ArrayDeque<>();
+		stack.push(key);
+		while (!stack.isEmpty())
+		{
+			final K current = stack.pop();
+			final TreeIdNode<T, K> removed = keyMap.remove(current);
+			changedKeys.add(current);
+			if (removed != null && removed.getChildrenIds() != null)
+			{
+				removed.getChildrenIds().forEach(stack::push);
+			}
+		}
+	}
+}
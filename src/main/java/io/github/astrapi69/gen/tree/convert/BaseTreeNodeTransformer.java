@@ -24,14 +24,28 @@
  */
 package io.github.astrapi69.gen.tree.convert;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.LongTreeIdNode;
 import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import io.github.astrapi69.gen.tree.collection.LongIdMap;
+import io.github.astrapi69.gen.tree.intern.TreeValueInterner;
 import lombok.NonNull;
 
 /**
@@ -43,6 +57,16 @@ import lombok.NonNull;
  */
 public final class BaseTreeNodeTransformer
 {
+
+	/**
+	 * The lower bound of the threshold of a parallel transformation, that is the maximum number of
+	 * nodes that a parallel task handles without a split
+	 */
+	private static final int PARALLEL_MIN_RANGE = 1024;
+
+	/** The number of ranges per worker that a parallel transformation is split into */
+	private static final int PARALLEL_RANGES_PER_WORKER = 4;
+
 	private BaseTreeNodeTransformer()
 	{
 	}
@@ -68,6 +92,57 @@ public final class BaseTreeNodeTransformer
 		));
 	}
 
+	/**
+	 * Transforms the given {@link BaseTreeNode} object in parallel to a {@link Map} object with the
+	 * key and the corresponding {@link TreeIdNode} objects. The nodes are collected in
+	 * pre-order, their keys are resolved and they are mapped in parallel over the common fork join
+	 * pool and the results are merged in pre-order, so if the same id occurs more than once the
+	 * first node in pre-order is kept
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the {@link BaseTreeNode} object to transform
+	 * @param keepDocumentOrder
+	 *            the flag that indicates if the returned map keeps the pre-order of the tree. If
+	 *            false the returned map has no defined iteration order
+	 * @return a {@link Map} object with the corresponding {@link TreeIdNode} objects
+	 */
+	public static <T, K> Map<K, TreeIdNode<T, K>> toKeyMapParallel(
+		final @NonNull BaseTreeNode<T, K> root, final boolean keepDocumentOrder)
+	{
+		return toKeyMapParallel(root, keepDocumentOrder, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Transforms the given {@link BaseTreeNode} object in parallel to a {@link Map} object with the
+	 * key and the corresponding {@link TreeIdNode} objects. The nodes are collected in
+	 * pre-order, their keys are resolved and they are mapped in parallel over the given fork join
+	 * pool and the results are merged in pre-order, so if the same id occurs more than once the
+	 * first node in pre-order is kept
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the {@link BaseTreeNode} object to transform
+	 * @param keepDocumentOrder
+	 *            the flag that indicates if the returned map keeps the pre-order of the tree. If
+	 *            false the returned map has no defined iteration order
+	 * @param pool
+	 *            the fork join pool that executes the traversal
+	 * @return a {@link Map} object with the corresponding {@link TreeIdNode} objects
+	 */
+	public static <T, K> Map<K, TreeIdNode<T, K>> toKeyMapParallel(
+		final @NonNull BaseTreeNode<T, K> root, final boolean keepDocumentOrder,
+		final @NonNull ForkJoinPool pool)
+	{
+		return toMapParallel(root, BaseTreeNodeTransformer::toTreeIdNode, keepDocumentOrder, pool);
+	}
+
 	/**
 	 * Transforms the given {@link BaseTreeNode} object to a {@link TreeIdNode} object
 	 *
@@ -85,9 +160,34 @@ public final class BaseTreeNodeTransformer
 		return TreeIdNode.<T, K> builder().id(baseTreeNode.getId())
 			.parentId(baseTreeNode.hasParent() ? baseTreeNode.getParent().getId() : null)
 			.value(baseTreeNode.getValue()).displayValue(baseTreeNode.getDisplayValue())
-			.leaf(baseTreeNode.isLeaf()).childrenIds(baseTreeNode.getChildren().stream()
-				.map(BaseTreeNode::getId).collect(Collectors.toSet()))
-			.build();
+			.leaf(baseTreeNode.isLeaf()).childrenIds(toChildrenIds(baseTreeNode)).build();
+	}
+
+	/**
+	 * Collects the ids of the children from the given {@link BaseTreeNode} object in the order of
+	 * the children
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param baseTreeNode
+	 *            the {@link BaseTreeNode} object
+	 * @return a {@link Set} object with the ids of the children
+	 */
+	private static <T, K> Set<K> toChildrenIds(final BaseTreeNode<T, K> baseTreeNode)
+	{
+		if (!baseTreeNode.hasChildren())
+		{
+			return new LinkedHashSet<>();
+		}
+		final Set<K> childrenIds = new LinkedHashSet<>(
+			(int)(baseTreeNode.getChildCount() / 0.75f) + 1);
+		for (BaseTreeNode<T, K> child : baseTreeNode.getChildren())
+		{
+			childrenIds.add(child.getId());
+		}
+		return childrenIds;
 	}
 
 	/**
@@ -112,6 +212,148 @@ public final class BaseTreeNodeTransformer
 		));
 	}
 
+	/**
+	 * Transforms the given {@link BaseTreeNode} object in parallel to a {@link Map} object with the
+	 * key and the corresponding {@link BaseTreeNode} objects. The nodes are collected in
+	 * pre-order, their keys are resolved and they are mapped in parallel over the common fork join
+	 * pool and the results are merged in pre-order, so if the same id occurs more than once the
+	 * first node in pre-order is kept
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the {@link BaseTreeNode} object to transform
+	 * @param keepDocumentOrder
+	 *            the flag that indicates if the returned map keeps the pre-order of the tree. If
+	 *            false the returned map has no defined iteration order
+	 * @return a {@link Map} object with the corresponding {@link BaseTreeNode} objects
+	 */
+	public static <T, K> Map<K, BaseTreeNode<T, K>> toKeyBaseTreeNodeMapParallel(
+		final @NonNull BaseTreeNode<T, K> root, final boolean keepDocumentOrder)
+	{
+		return toKeyBaseTreeNodeMapParallel(root, keepDocumentOrder, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Transforms the given {@link BaseTreeNode} object in parallel to a {@link Map} object with the
+	 * key and the corresponding {@link BaseTreeNode} objects. The nodes are collected in
+	 * pre-order, their keys are resolved and they are mapped in parallel over the given fork join
+	 * pool and the results are merged in pre-order, so if the same id occurs more than once the
+	 * first node in pre-order is kept
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the {@link BaseTreeNode} object to transform
+	 * @param keepDocumentOrder
+	 *            the flag that indicates if the returned map keeps the pre-order of the tree. If
+	 *            false the returned map has no defined iteration order
+	 * @param pool
+	 *            the fork join pool that executes the traversal
+	 * @return a {@link Map} object with the corresponding {@link BaseTreeNode} objects
+	 */
+	public static <T, K> Map<K, BaseTreeNode<T, K>> toKeyBaseTreeNodeMapParallel(
+		final @NonNull BaseTreeNode<T, K> root, final boolean keepDocumentOrder,
+		final @NonNull ForkJoinPool pool)
+	{
+		return toMapParallel(root, null, keepDocumentOrder, pool);
+	}
+
+	/**
+	 * Resolves the ids and maps all nodes of the given {@link BaseTreeNode} object in parallel and
+	 * collects them in pre-order in a {@link Map} object with the id as key. If the same id occurs
+	 * more than once the first node in pre-order is kept. A task splits its range while it is
+	 * larger than the threshold, that is the number of nodes divided by the ranges of all workers
+	 * but at least {@link #PARALLEL_MIN_RANGE}
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param <R>
+	 *            the generic type of the mapped objects
+	 * @param root
+	 *            the {@link BaseTreeNode} object to transform
+	 * @param mapper
+	 *            the function that maps a node or null if the nodes themselves are collected
+	 * @param keepDocumentOrder
+	 *            the flag that indicates if the returned map keeps the pre-order of the tree
+	 * @param pool
+	 *            the fork join pool that executes the traversal
+	 * @return the {@link Map} object with the mapped objects
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T, K, R> Map<K, R> toMapParallel(final BaseTreeNode<T, K> root,
+		final Function<BaseTreeNode<T, K>, R> mapper, final boolean keepDocumentOrder,
+		final ForkJoinPool pool)
+	{
+		final BaseTreeNode<T, K>[] nodes = toPreOrderArray(root);
+		final int threshold = Math.max(PARALLEL_MIN_RANGE,
+			nodes.length / (pool.getParallelism() * PARALLEL_RANGES_PER_WORKER));
+		final Object[] keys = new Object[nodes.length];
+		final Object[] results = mapper != null ? new Object[nodes.length] : nodes;
+		pool.invoke(new PreOrderMappingTask<>(nodes, BaseTreeNode::getId, keys, mapper,
+			mapper != null ? results : null, threshold, 0, nodes.length));
+		final int capacity = (int)(nodes.length / 0.75f) + 1;
+		final Map<K, R> map = keepDocumentOrder
+			? new LinkedHashMap<>(capacity)
+			: new HashMap<>(capacity);
+		for (int position = 0; position < nodes.length; position++)
+		{
+			map.putIfAbsent((K)keys[position], (R)results[position]);
+		}
+		return map;
+	}
+
+	/**
+	 * Collects the nodes of the given {@link BaseTreeNode} object iteratively in pre-order into an
+	 * array without the creation of any children collection
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root
+	 * @return the array with the nodes in pre-order
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T, K> BaseTreeNode<T, K>[] toPreOrderArray(final BaseTreeNode<T, K> root)
+	{
+		BaseTreeNode<T, K>[] nodes = new BaseTreeNode[16];
+		int size = 0;
+		final Deque<Iterator<BaseTreeNode<T, K>>> stack = new ArrayDeque<>();
+		nodes[size++] = root;
+		if (root.hasChildren())
+		{
+			stack.push(root.getChildren().iterator());
+		}
+		while (!stack.isEmpty())
+		{
+			final Iterator<BaseTreeNode<T, K>> children = stack.peek();
+			if (!children.hasNext())
+			{
+				stack.pop();
+				continue;
+			}
+			final BaseTreeNode<T, K> child = children.next();
+			if (size == nodes.length)
+			{
+				nodes = Arrays.copyOf(nodes, size << 1);
+			}
+			nodes[size++] = child;
+			if (child.hasChildren())
+			{
+				stack.push(child.getChildren().iterator());
+			}
+		}
+		return Arrays.copyOf(nodes, size);
+	}
+
 	/**
 	 * Transforms the given {@link Map} object that contains {@link TreeIdNode} objects as values
 	 * and the id as key
@@ -126,12 +368,35 @@ public final class BaseTreeNodeTransformer
 	 */
 	public static <T, K> Map<K, BaseTreeNode<T, K>> transform(
 		final @NonNull Map<K, TreeIdNode<T, K>> treeIdNodeMap)
+	{
+		return transform(treeIdNodeMap, null);
+	}
+
+	/**
+	 * Transforms the given {@link Map} object that contains {@link TreeIdNode} objects as values
+	 * and the id as key and interns the values and the display values with the given interner
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param treeIdNodeMap
+	 *            the {@link Map} object with the {@link TreeIdNode} objects to transform
+	 * @param treeValueInterner
+	 *            the interner of the values and the display values or null if the values are kept
+	 *            as they are
+	 * @return a {@link Map} object with the corresponding {@link BaseTreeNode} objects
+	 */
+	public static <T, K> Map<K, BaseTreeNode<T, K>> transform(
+		final @NonNull Map<K, TreeIdNode<T, K>> treeIdNodeMap,
+		final TreeValueInterner<T> treeValueInterner)
 	{
 		final Map<K, BaseTreeNode<T, K>> baseTreeNodeMap = treeIdNodeMap.entrySet().stream()
 			.collect(Collectors.toMap(Map.Entry::getKey, // keyMapper
 				entry -> BaseTreeNode.<T, K> builder().id(entry.getValue().getId())
-					.value(entry.getValue().getValue())
-					.displayValue(entry.getValue().getDisplayValue())
+					.value(internValue(treeValueInterner, entry.getValue().getValue()))
+					.displayValue(internDisplayValue(treeValueInterner,
+						entry.getValue().getDisplayValue()))
 					.leaf(entry.getValue().isLeaf()).build(), // valueMapper
 				(first, second) -> first, // mergeFunction
 				LinkedHashMap::new // mapFactory
@@ -179,4 +444,278 @@ public final class BaseTreeNodeTransformer
 		});
 		return root.get();
 	}
+
+	/**
+	 * Transforms the given {@link BaseTreeNode} object with long ids to a {@link LongIdMap} object
+	 * with the primitive id as key and the corresponding {@link LongTreeIdNode} objects. Neither
+	 * the keys nor the ids of the children are boxed. The nodes are visited in pre-order, so of
+	 * nodes with the same id the first one in pre-order is kept
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param root
+	 *            the {@link BaseTreeNode} object to transform
+	 * @return a {@link LongIdMap} object with the corresponding {@link LongTreeIdNode} objects
+	 */
+	public static <T> LongIdMap<LongTreeIdNode<T>> toLongKeyMap(
+		final @NonNull BaseTreeNode<T, Long> root)
+	{
+		final LongIdMap<LongTreeIdNode<T>> longKeyMap = new LongIdMap<>();
+		final LongIdMap<Boolean> seenIds = new LongIdMap<>();
+		final Deque<BaseTreeNode<T, Long>> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			BaseTreeNode<T, Long> current = stack.pop();
+			LongTreeIdNode<T> longTreeIdNode = toLongTreeIdNode(current, seenIds);
+			longKeyMap.putIfAbsent(longTreeIdNode.getId(), longTreeIdNode);
+			if (current.hasChildren())
+			{
+				// the children are pushed in reverse order, so they are popped in pre-order
+				final List<BaseTreeNode<T, Long>> children = new ArrayList<>(current.getChildren());
+				for (int i = children.size() - 1; 0 <= i; i--)
+				{
+					stack.push(children.get(i));
+				}
+			}
+		}
+		return longKeyMap;
+	}
+
+	/**
+	 * Transforms the given {@link BaseTreeNode} object with a long id to a {@link LongTreeIdNode}
+	 * object. Duplicate ids of the children are kept only once
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param baseTreeNode
+	 *            the {@link BaseTreeNode} object to convert
+	 * @return the new created {@link LongTreeIdNode} object
+	 * @throws IllegalArgumentException
+	 *             if the given node, its parent or one of its children has no id or the id
+	 *             {@link LongTreeIdNode#NO_ID}
+	 */
+	public static <T> LongTreeIdNode<T> toLongTreeIdNode(
+		final @NonNull BaseTreeNode<T, Long> baseTreeNode)
+	{
+		final int childCount = baseTreeNode.getChildCount();
+		return toLongTreeIdNode(baseTreeNode,
+			1 < childCount ? new LongIdMap<>(childCount) : null);
+	}
+
+	/**
+	 * Transforms the given {@link BaseTreeNode} object with a long id to a {@link LongTreeIdNode}
+	 * object and detects the duplicate ids of the children with the given empty map, that is
+	 * empty again after the transformation, so one map can be reused for all nodes of a tree
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param baseTreeNode
+	 *            the {@link BaseTreeNode} object to convert
+	 * @param seenIds
+	 *            the empty map for the detection of the duplicate ids of the children or null if
+	 *            the node has at most one child
+	 * @return the new created {@link LongTreeIdNode} object
+	 * @throws IllegalArgumentException
+	 *             if the given node, its parent or one of its children has no id or the id
+	 *             {@link LongTreeIdNode#NO_ID}
+	 */
+	private static <T> LongTreeIdNode<T> toLongTreeIdNode(
+		final BaseTreeNode<T, Long> baseTreeNode, final LongIdMap<Boolean> seenIds)
+	{
+		final long[] childrenIds = new long[baseTreeNode.hasChildren()
+			? baseTreeNode.getChildCount()
+			: 0];
+		int index = 0;
+		if (childrenIds.length == 1)
+		{
+			childrenIds[index++] = requireLongId(baseTreeNode.getChildren().iterator().next());
+		}
+		else if (childrenIds.length != 0)
+		{
+			try
+			{
+				for (BaseTreeNode<T, Long> child : baseTreeNode.getChildren())
+				{
+					final long childId = requireLongId(child);
+					if (seenIds.putIfAbsent(childId, Boolean.TRUE) == null)
+					{
+						childrenIds[index++] = childId;
+					}
+				}
+			}
+			finally
+			{
+				// only the added ids are removed, so the cost does not depend on the capacity
+				for (int i = 0; i < index; i++)
+				{
+					seenIds.remove(childrenIds[i]);
+				}
+			}
+		}
+		return LongTreeIdNode.<T> builder().id(requireLongId(baseTreeNode))
+			.parentId(baseTreeNode.hasParent()
+				? requireLongId(baseTreeNode.getParent())
+				: LongTreeIdNode.NO_ID)
+			.value(baseTreeNode.getValue()).displayValue(baseTreeNode.getDisplayValue())
+			.leaf(baseTreeNode.isLeaf())
+			.childrenIds(index == childrenIds.length
+				? childrenIds
+				: Arrays.copyOf(childrenIds, index))
+			.build();
+	}
+
+	/**
+	 * Gets the long id of the given node
+	 *
+	 * @param treeNode
+	 *            the node
+	 * @return the id
+	 * @throws IllegalArgumentException
+	 *             if the given node has no id or the id {@link LongTreeIdNode#NO_ID}
+	 */
+	private static long requireLongId(final BaseTreeNode<?, Long> treeNode)
+	{
+		final Long id = treeNode.getId();
+		if (id == null)
+		{
+			throw new IllegalArgumentException(
+				"A node without id can not be transformed to a LongTreeIdNode");
+		}
+		if (id == LongTreeIdNode.NO_ID)
+		{
+			throw new IllegalArgumentException(
+				"The id " + id + " is reserved for a missing parent id of a LongTreeIdNode");
+		}
+		return id;
+	}
+
+	/**
+	 * Transforms the given {@link LongIdMap} object that contains {@link LongTreeIdNode} objects
+	 * as values and the primitive id as key
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param longTreeIdNodeMap
+	 *            the {@link LongIdMap} object with the {@link LongTreeIdNode} objects to transform
+	 * @return a {@link LongIdMap} object with the corresponding {@link BaseTreeNode} objects
+	 * @throws IllegalArgumentException
+	 *             if a child id belongs to no node of the given map
+	 */
+	public static <T> LongIdMap<BaseTreeNode<T, Long>> transform(
+		final @NonNull LongIdMap<LongTreeIdNode<T>> longTreeIdNodeMap)
+	{
+		return transform(longTreeIdNodeMap, null);
+	}
+
+	/**
+	 * Transforms the given {@link LongIdMap} object that contains {@link LongTreeIdNode} objects
+	 * as values and the primitive id as key and interns the values and the display values with the
+	 * given interner
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param longTreeIdNodeMap
+	 *            the {@link LongIdMap} object with the {@link LongTreeIdNode} objects to transform
+	 * @param treeValueInterner
+	 *            the interner of the values and the display values or null if the values are kept
+	 *            as they are
+	 * @return a {@link LongIdMap} object with the corresponding {@link BaseTreeNode} objects
+	 * @throws IllegalArgumentException
+	 *             if a child id belongs to no node of the given map
+	 */
+	public static <T> LongIdMap<BaseTreeNode<T, Long>> transform(
+		final @NonNull LongIdMap<LongTreeIdNode<T>> longTreeIdNodeMap,
+		final TreeValueInterner<T> treeValueInterner)
+	{
+		final LongIdMap<BaseTreeNode<T, Long>> baseTreeNodeMap = new LongIdMap<>(
+			longTreeIdNodeMap.size());
+		longTreeIdNodeMap.forEach((id, longTreeIdNode) -> baseTreeNodeMap.put(id,
+			BaseTreeNode.<T, Long> builder().id(id)
+				.value(internValue(treeValueInterner, longTreeIdNode.getValue()))
+				.displayValue(
+					internDisplayValue(treeValueInterner, longTreeIdNode.getDisplayValue()))
+				.leaf(longTreeIdNode.isLeaf()).build()));
+		longTreeIdNodeMap.forEach((id, longTreeIdNode) -> {
+			BaseTreeNode<T, Long> baseTreeNode = baseTreeNodeMap.get(id);
+			if (longTreeIdNode.hasParent())
+			{
+				baseTreeNode.setParent(baseTreeNodeMap.get(longTreeIdNode.getParentId()));
+			}
+			final int childCount = longTreeIdNode.getChildCount();
+			if (childCount != 0)
+			{
+				Set<BaseTreeNode<T, Long>> children = new AdaptiveLinkedSet<>(childCount);
+				for (int i = 0; i < childCount; i++)
+				{
+					final long childId = longTreeIdNode.getChildId(i);
+					final BaseTreeNode<T, Long> child = baseTreeNodeMap.get(childId);
+					if (child == null)
+					{
+						throw new IllegalArgumentException(
+							"The child id " + childId + " of the node " + id + " has no node");
+					}
+					children.add(child);
+				}
+				baseTreeNode.setChildren(children);
+			}
+		});
+		return baseTreeNodeMap;
+	}
+
+	/**
+	 * Retrieves the root {@link BaseTreeNode} object from the given {@link LongIdMap} object that
+	 * contains {@link LongTreeIdNode} objects as values and the primitive id as key
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param longTreeIdNodeMap
+	 *            the {@link LongIdMap} object with the {@link LongTreeIdNode} objects to transform
+	 * @return the root {@link BaseTreeNode} object or null if not found
+	 */
+	public static <T> BaseTreeNode<T, Long> getRoot(
+		final @NonNull LongIdMap<LongTreeIdNode<T>> longTreeIdNodeMap)
+	{
+		if (longTreeIdNodeMap.isEmpty())
+		{
+			return null;
+		}
+		return transform(longTreeIdNodeMap).values().get(0).getRoot();
+	}
+
+	/**
+	 * Interns the given value with the given interner
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param treeValueInterner
+	 *            the interner or null
+	 * @param value
+	 *            the value
+	 * @return the canonical value or the given value if the given interner is null
+	 */
+	private static <T> T internValue(final TreeValueInterner<T> treeValueInterner, final T value)
+	{
+		return treeValueInterner == null ? value : treeValueInterner.internValue(value);
+	}
+
+	/**
+	 * Interns the given display value with the given interner
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param treeValueInterner
+	 *            the interner or null
+	 * @param displayValue
+	 *            the display value
+	 * @return the canonical display value or the given display value if the given interner is
+	 *         null
+	 */
+	private static <T> String internDisplayValue(final TreeValueInterner<T> treeValueInterner,
+		final String displayValue)
+	{
+		return treeValueInterner == null
+			? displayValue
+			: treeValueInterner.internDisplayValue(displayValue);
+	}
 }
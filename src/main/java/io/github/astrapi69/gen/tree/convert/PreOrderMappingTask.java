@@ -0,0 +1,140 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.convert;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+
+/**
+ * The class {@link PreOrderMappingTask} resolves the keys and maps a range of the nodes of a tree
+ * that are flattened in pre-order. A range that is larger than the threshold is split in two
+ * halves that are executed as own tasks, so every task handles at most a threshold number of nodes
+ * and also a shallow and wide tree is split evenly over all workers. <br>
+ * <br>
+ * The key and the mapped object of every node are written to the shared arrays at the pre-order
+ * position of the node, so the ranges of the tasks never overlap and the caller can merge the
+ * results in pre-order
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ * @param <R>
+ *            the generic type of the mapped objects
+ */
+final class PreOrderMappingTask<T, K, R> extends RecursiveAction
+{
+
+	/** The serialVersionUID */
+	private static final long serialVersionUID = 1L;
+
+	/** The nodes in pre-order */
+	private final BaseTreeNode<T, K>[] nodes;
+
+	/** The function that resolves the key of a node */
+	private final Function<BaseTreeNode<T, K>, K> keyMapper;
+
+	/** The key array with the keys in pre-order */
+	private final Object[] keys;
+
+	/** The function that maps a node or null if the nodes are not mapped */
+	private final Function<BaseTreeNode<T, K>, R> mapper;
+
+	/** The result array with the mapped objects in pre-order or null if the nodes are not mapped */
+	private final Object[] results;
+
+	/** The maximum number of nodes that a task handles without a split */
+	private final int threshold;
+
+	/** The first position of the range */
+	private final int from;
+
+	/** The position after the last position of the range */
+	private final int to;
+
+	/**
+	 * Instantiates a new {@link PreOrderMappingTask} object
+	 *
+	 * @param nodes
+	 *            the nodes in pre-order
+	 * @param keyMapper
+	 *            the function that resolves the key of a node
+	 * @param keys
+	 *            the key array with the length of the nodes
+	 * @param mapper
+	 *            the function that maps a node or null if the nodes are not mapped
+	 * @param results
+	 *            the result array with the length of the nodes or null if the nodes are not
+	 *            mapped
+	 * @param threshold
+	 *            the maximum number of nodes that a task handles without a split
+	 * @param from
+	 *            the first position of the range
+	 * @param to
+	 *            the position after the last position of the range
+	 */
+	PreOrderMappingTask(final BaseTreeNode<T, K>[] nodes,
+		final Function<BaseTreeNode<T, K>, K> keyMapper, final Object[] keys,
+		final Function<BaseTreeNode<T, K>, R> mapper, final Object[] results, final int threshold,
+		final int from, final int to)
+	{
+		this.nodes = nodes;
+		this.keyMapper = keyMapper;
+		this.keys = keys;
+		this.mapper = mapper;
+		this.results = results;
+		this.threshold = threshold;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void compute()
+	{
+		if (threshold < to - from)
+		{
+			final int middle = (from + to) >>> 1;
+			invokeAll(
+				new PreOrderMappingTask<>(nodes, keyMapper, keys, mapper, results, threshold, from,
+					middle),
+				new PreOrderMappingTask<>(nodes, keyMapper, keys, mapper, results, threshold,
+					middle, to));
+			return;
+		}
+		for (int position = from; position < to; position++)
+		{
+			keys[position] = keyMapper.apply(nodes[position]);
+			if (mapper != null)
+			{
+				results[position] = mapper.apply(nodes[position]);
+			}
+		}
+	}
+}
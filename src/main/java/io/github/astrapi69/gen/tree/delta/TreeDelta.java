@@ -0,0 +1,149 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.delta;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeDelta} holds the changes of a tree between two snapshots. A delta consists
+ * of the ids of the removed subtree roots and of the {@link TreeIdNode} records of all added or
+ * changed nodes. A delta is applied to a {@link Map} object with the {@link TreeIdNode} records of
+ * the previous state with {@link #applyTo(Map)}
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class TreeDelta<T, K>
+{
+
+	/** The ids of the removed subtree roots */
+	private final Set<K> removedIds;
+
+	/** The records of the added or changed nodes with the id as key */
+	private final Map<K, TreeIdNode<T, K>> upserts;
+
+	/**
+	 * Instantiates a new {@link TreeDelta} object
+	 *
+	 * @param removedIds
+	 *            the ids of the removed subtree roots
+	 * @param upserts
+	 *            the records of the added or changed nodes with the id as key
+	 */
+	public TreeDelta(final @NonNull Set<K> removedIds,
+		final @NonNull Map<K, TreeIdNode<T, K>> upserts)
+	{
+		this.removedIds = Collections.unmodifiableSet(new LinkedHashSet<>(removedIds));
+		this.upserts = Collections.unmodifiableMap(new LinkedHashMap<>(upserts));
+	}
+
+	/**
+	 * Gets the ids of the removed subtree roots
+	 *
+	 * @return an unmodifiable {@link Set} object with the ids
+	 */
+	public Set<K> getRemovedIds()
+	{
+		return removedIds;
+	}
+
+	/**
+	 * Gets the records of the added or changed nodes
+	 *
+	 * @return an unmodifiable {@link Map} object with the records and the id as key
+	 */
+	public Map<K, TreeIdNode<T, K>> getUpserts()
+	{
+		return upserts;
+	}
+
+	/**
+	 * Checks if this delta contains no changes
+	 *
+	 * @return true, if this delta contains no changes otherwise false
+	 */
+	public boolean isEmpty()
+	{
+		return removedIds.isEmpty() && upserts.isEmpty();
+	}
+
+	/**
+	 * Applies this delta to the given {@link Map} object with the records of the previous state.
+	 * First the removed subtrees are removed over the children ids of the previous state, the
+	 * nodes that are contained in the upserts are kept with their subtrees, because they were
+	 * moved or added again. Then the upserts are put in the map
+	 *
+	 * @param treeIdNodeMap
+	 *            the {@link Map} object with the records of the previous state
+	 */
+	public void applyTo(final @NonNull Map<K, TreeIdNode<T, K>> treeIdNodeMap)
+	{
+		final Deque<K> stack = new ArrayDeque<>();
+		for (final K removedId : removedIds)
+		{
+			stack.push(removedId);
+			while (!stack.isEmpty())
+			{
+				final TreeIdNode<T, K> removed = treeIdNodeMap.remove(stack.pop());
+				if (removed == null || !removed.hasChildren())
+				{
+					continue;
+				}
+				for (final K childId : removed.getChildrenIds())
+				{
+					if (!upserts.containsKey(childId))
+					{
+						stack.push(childId);
+					}
+				}
+			}
+		}
+		for (final TreeIdNode<T, K> upsert : upserts.values())
+		{
+			treeIdNodeMap.put(upsert.getId(), upsert.toBuilder()
+				.childrenIds(new LinkedHashSet<>(upsert.getChildrenIds())).build());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "TreeDelta(removedIds=" + removedIds + ", upserts=" + upserts.keySet() + ")";
+	}
+}
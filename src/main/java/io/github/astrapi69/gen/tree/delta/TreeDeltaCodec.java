@@ -0,0 +1,325 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.delta;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.codec.BaseTreeNodeBinaryCodec;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeInput;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeOutput;
+import io.github.astrapi69.gen.tree.codec.ValueCodec;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeDeltaCodec} writes and reads differential snapshots. A chain starts with a
+ * full base snapshot in the format of the {@link BaseTreeNodeBinaryCodec} and continues with the
+ * {@link TreeDelta} objects that are drained from a {@link TreeDirtyTracker} after every
+ * snapshot. A delta file contains only the removed subtree roots and the records of the changed
+ * nodes, so its size depends on the number of changes and not on the size of the tree.
+ * {@link #restore(Path, List)} reads the base snapshot and applies the chain of deltas in order
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class TreeDeltaCodec<T, K>
+{
+
+	/** The magic number at the start of a delta file */
+	public static final int MAGIC = 0x47544453;
+
+	/** The version of the delta format */
+	public static final int VERSION = 1;
+
+	/** The flag that indicates that the record has a parent id */
+	private static final int FLAG_PARENT_ID = 1;
+
+	/** The flag that indicates that the record has a value */
+	private static final int FLAG_VALUE = 1 << 1;
+
+	/** The flag that indicates that the record has a display value */
+	private static final int FLAG_DISPLAY_VALUE = 1 << 2;
+
+	/** The flag that indicates that the record is a leaf */
+	private static final int FLAG_LEAF = 1 << 3;
+
+	/** The codec for the base snapshots */
+	private final BaseTreeNodeBinaryCodec<T, K> codec;
+
+	/**
+	 * Instantiates a new {@link TreeDeltaCodec} object
+	 *
+	 * @param codec
+	 *            the codec for the base snapshots, its value and id codecs are used for the deltas
+	 */
+	public TreeDeltaCodec(final @NonNull BaseTreeNodeBinaryCodec<T, K> codec)
+	{
+		this.codec = codec;
+	}
+
+	/**
+	 * Writes the full base snapshot of the tree of the given root
+	 *
+	 * @param root
+	 *            the root of the tree
+	 * @param path
+	 *            the path of the base snapshot
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeBase(final @NonNull BaseTreeNode<T, K> root, final @NonNull Path path)
+		throws IOException
+	{
+		codec.write(root, path);
+	}
+
+	/**
+	 * Writes the given delta to the given file
+	 *
+	 * @param delta
+	 *            the delta to write
+	 * @param path
+	 *            the path of the delta file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void writeDelta(final @NonNull TreeDelta<T, K> delta, final @NonNull Path path)
+		throws IOException
+	{
+		final ValueCodec<K> idCodec = codec.getIdCodec();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			final BinaryTreeOutput output = new BinaryTreeOutput(channel);
+			output.writeInt(MAGIC);
+			output.writeByte(VERSION);
+			output.writeVarInt(delta.getRemovedIds().size());
+			for (final K removedId : delta.getRemovedIds())
+			{
+				idCodec.encode(removedId, output);
+			}
+			output.writeVarInt(delta.getUpserts().size());
+			for (final TreeIdNode<T, K> upsert : delta.getUpserts().values())
+			{
+				writeRecord(upsert, output);
+			}
+			output.flush();
+		}
+	}
+
+	/**
+	 * Reads the delta from the given file
+	 *
+	 * @param path
+	 *            the path of the delta file
+	 * @return the read {@link TreeDelta} object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file contains no delta
+	 */
+	public TreeDelta<T, K> readDelta(final @NonNull Path path) throws IOException
+	{
+		final ValueCodec<K> idCodec = codec.getIdCodec();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			final BinaryTreeInput input = new BinaryTreeInput(channel);
+			if (input.readInt() != MAGIC)
+			{
+				throw new IOException("The file " + path + " contains no tree delta");
+			}
+			final int version = input.readByte();
+			if (version != VERSION)
+			{
+				throw new IOException("Unsupported version " + version + " of the tree delta");
+			}
+			final int removedCount = input.readVarInt();
+			final Set<K> removedIds = new LinkedHashSet<>();
+			for (int i = 0; i < removedCount; i++)
+			{
+				removedIds.add(idCodec.decode(input));
+			}
+			final int upsertCount = input.readVarInt();
+			final Map<K, TreeIdNode<T, K>> upserts = new LinkedHashMap<>();
+			for (int i = 0; i < upsertCount; i++)
+			{
+				final TreeIdNode<T, K> upsert = readRecord(input);
+				upserts.put(upsert.getId(), upsert);
+			}
+			return new TreeDelta<>(removedIds, upserts);
+		}
+	}
+
+	/**
+	 * Restores the tree from the given base snapshot and the given chain of delta files
+	 *
+	 * @param baseSnapshot
+	 *            the path of the base snapshot
+	 * @param deltas
+	 *            the paths of the delta files in the order they were written
+	 * @return the root of the restored tree or null if the tree is empty
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public BaseTreeNode<T, K> restore(final @NonNull Path baseSnapshot,
+		final @NonNull List<Path> deltas) throws IOException
+	{
+		final Map<K, TreeIdNode<T, K>> treeIdNodeMap = BaseTreeNodeTransformer
+			.toKeyMap(codec.read(baseSnapshot));
+		for (final Path delta : deltas)
+		{
+			readDelta(delta).applyTo(treeIdNodeMap);
+		}
+		return toTree(treeIdNodeMap);
+	}
+
+	/**
+	 * Builds the tree from the given records in the order of the children ids
+	 *
+	 * @param treeIdNodeMap
+	 *            the records with the id as key
+	 * @return the root of the tree or null if no root was found
+	 */
+	private static <T, K> BaseTreeNode<T, K> toTree(final Map<K, TreeIdNode<T, K>> treeIdNodeMap)
+	{
+		final TreeIdNode<T, K> rootRecord = treeIdNodeMap.values().stream()
+			.filter(TreeIdNode::isRoot).findFirst().orElse(null);
+		if (rootRecord == null)
+		{
+			return null;
+		}
+		final BaseTreeNode<T, K> root = toNode(rootRecord, null);
+		final Deque<BaseTreeNode<T, K>> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<T, K> parent = stack.pop();
+			final TreeIdNode<T, K> parentRecord = treeIdNodeMap.get(parent.getId());
+			if (!parentRecord.hasChildren())
+			{
+				continue;
+			}
+			final Set<BaseTreeNode<T, K>> children = new LinkedHashSet<>(
+				(int)(parentRecord.getChildCount() / 0.75f) + 1);
+			for (final K childId : parentRecord.getChildrenIds())
+			{
+				final TreeIdNode<T, K> childRecord = treeIdNodeMap.get(childId);
+				if (childRecord != null)
+				{
+					final BaseTreeNode<T, K> child = toNode(childRecord, parent);
+					children.add(child);
+					stack.push(child);
+				}
+			}
+			parent.setChildren(children);
+		}
+		return root;
+	}
+
+	/**
+	 * Creates the node of the given record
+	 */
+	private static <T, K> BaseTreeNode<T, K> toNode(final TreeIdNode<T, K> record,
+		final BaseTreeNode<T, K> parent)
+	{
+		return BaseTreeNode.<T, K> builder().id(record.getId()).value(record.getValue())
+			.displayValue(record.getDisplayValue()).leaf(record.isLeaf()).parent(parent).build();
+	}
+
+	/**
+	 * Writes the given record
+	 */
+	private void writeRecord(final TreeIdNode<T, K> record, final BinaryTreeOutput output)
+		throws IOException
+	{
+		final ValueCodec<K> idCodec = codec.getIdCodec();
+		int flags = record.isLeaf() ? FLAG_LEAF : 0;
+		if (record.getParentId() != null)
+		{
+			flags |= FLAG_PARENT_ID;
+		}
+		if (record.getValue() != null)
+		{
+			flags |= FLAG_VALUE;
+		}
+		if (record.getDisplayValue() != null)
+		{
+			flags |= FLAG_DISPLAY_VALUE;
+		}
+		output.writeByte(flags);
+		idCodec.encode(record.getId(), output);
+		if (record.getParentId() != null)
+		{
+			idCodec.encode(record.getParentId(), output);
+		}
+		if (record.getValue() != null)
+		{
+			codec.getValueCodec().encode(record.getValue(), output);
+		}
+		if (record.getDisplayValue() != null)
+		{
+			output.writeString(record.getDisplayValue());
+		}
+		output.writeVarInt(record.getChildCount());
+		for (final K childId : record.getChildrenIds())
+		{
+			idCodec.encode(childId, output);
+		}
+	}
+
+	/**
+	 * Reads a record
+	 */
+	private TreeIdNode<T, K> readRecord(final BinaryTreeInput input) throws IOException
+	{
+		final ValueCodec<K> idCodec = codec.getIdCodec();
+		final int flags = input.readByte();
+		final K id = idCodec.decode(input);
+		final K parentId = (flags & FLAG_PARENT_ID) != 0 ? idCodec.decode(input) : null;
+		final T value = (flags & FLAG_VALUE) != 0 ? codec.getValueCodec().decode(input) : null;
+		final String displayValue = (flags & FLAG_DISPLAY_VALUE) != 0 ? input.readString() : null;
+		final int childCount = input.readVarInt();
+		final Set<K> childrenIds = new LinkedHashSet<>((int)(childCount / 0.75f) + 1);
+		for (int i = 0; i < childCount; i++)
+		{
+			childrenIds.add(idCodec.decode(input));
+		}
+		return TreeIdNode.<T, K> builder().id(id).parentId(parentId).value(value)
+			.displayValue(displayValue).leaf((flags & FLAG_LEAF) != 0).childrenIds(childrenIds)
+			.build();
+	}
+}
@@ -0,0 +1,275 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.delta;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.api.IBaseTreeNodeListener;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeDirtyTracker} tracks the changes of a {@link BaseTreeNode} tree between two
+ * snapshots. The tracker is registered as listener on the root and remembers the changed nodes,
+ * the roots of the added subtrees and the ids of the removed subtrees, the records are only created
+ * when the changes are drained with {@link #drain()}. So the costs of a mutation are constant and
+ * the costs of a differential snapshot depend only on the number of changed nodes
+ *
+ * <p>
+ * The nodes are referenced by their ids in the deltas, so the ids have to be unique and not null.
+ * Changes over the static methods of the handler classes or over {@link BaseTreeNode#setChildren}
+ * are not tracked
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class TreeDirtyTracker<T, K>
+	implements
+		IBaseTreeNodeListener<T, K, BaseTreeNode<T, K>>,
+		Closeable
+{
+
+	/** The root of the tracked tree */
+	private final BaseTreeNode<T, K> root;
+
+	/** The nodes with changed fields or changed children */
+	private Set<BaseTreeNode<T, K>> dirtyNodes = newIdentitySet();
+
+	/** The roots of the added subtrees */
+	private Set<BaseTreeNode<T, K>> dirtySubtrees = newIdentitySet();
+
+	/** The ids of the removed subtree roots */
+	private Set<K> removedIds = new LinkedHashSet<>();
+
+	/**
+	 * Instantiates a new {@link TreeDirtyTracker} object and registers it on the given root
+	 *
+	 * @param root
+	 *            the root of the tree to track
+	 */
+	public TreeDirtyTracker(final @NonNull BaseTreeNode<T, K> root)
+	{
+		this.root = root;
+		root.addTreeNodeListener(this);
+	}
+
+	/**
+	 * Gets the root of the tracked tree
+	 *
+	 * @return the root
+	 */
+	public BaseTreeNode<T, K> getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * Checks if the tree was changed since the last drain
+	 *
+	 * @return true, if the tree was changed otherwise false
+	 */
+	public synchronized boolean isDirty()
+	{
+		return !dirtyNodes.isEmpty() || !dirtySubtrees.isEmpty() || !removedIds.isEmpty();
+	}
+
+	/**
+	 * Creates the delta of all changes since the last drain and starts a new tracking period. The
+	 * changed nodes and added subtrees that are no longer attached to the root are skipped
+	 *
+	 * @return the {@link TreeDelta} object with the changes
+	 */
+	public synchronized TreeDelta<T, K> drain()
+	{
+		final Map<K, TreeIdNode<T, K>> upserts = new LinkedHashMap<>();
+		for (final BaseTreeNode<T, K> dirtyNode : dirtyNodes)
+		{
+			if (isAttached(dirtyNode))
+			{
+				upserts.put(dirtyNode.getId(), BaseTreeNodeTransformer.toTreeIdNode(dirtyNode));
+			}
+		}
+		final Deque<BaseTreeNode<T, K>> stack = new ArrayDeque<>();
+		for (final BaseTreeNode<T, K> subtreeRoot : dirtySubtrees)
+		{
+			if (!isAttached(subtreeRoot))
+			{
+				continue;
+			}
+			stack.push(subtreeRoot);
+			while (!stack.isEmpty())
+			{
+				final BaseTreeNode<T, K> current = stack.pop();
+				upserts.put(current.getId(), BaseTreeNodeTransformer.toTreeIdNode(current));
+				if (current.hasChildren())
+				{
+					current.getChildren().forEach(stack::push);
+				}
+			}
+		}
+		final TreeDelta<T, K> delta = new TreeDelta<>(removedIds, upserts);
+		dirtyNodes = newIdentitySet();
+		dirtySubtrees = newIdentitySet();
+		removedIds = new LinkedHashSet<>();
+		return delta;
+	}
+
+	/**
+	 * Unregisters this tracker from the root
+	 */
+	@Override
+	public void close()
+	{
+		root.removeTreeNodeListener(this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void onChildAdded(final BaseTreeNode<T, K> parent,
+		final BaseTreeNode<T, K> child)
+	{
+		dirtyNodes.add(parent);
+		dirtySubtrees.add(child);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void onChildRemoved(final BaseTreeNode<T, K> parent,
+		final BaseTreeNode<T, K> child)
+	{
+		dirtyNodes.add(parent);
+		removedIds.add(child.getId());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void onMoved(final BaseTreeNode<T, K> treeNode,
+		final BaseTreeNode<T, K> oldParent, final BaseTreeNode<T, K> newParent)
+	{
+		if (oldParent != null)
+		{
+			dirtyNodes.add(oldParent);
+		}
+		if (newParent == null)
+		{
+			removedIds.add(treeNode.getId());
+			return;
+		}
+		dirtyNodes.add(newParent);
+		dirtyNodes.add(treeNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void onValueChanged(final BaseTreeNode<T, K> treeNode, final T oldValue)
+	{
+		dirtyNodes.add(treeNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void onIdChanged(final BaseTreeNode<T, K> treeNode, final K oldId)
+	{
+		// the old record is removed, the parent and the children reference the new id
+		removedIds.add(oldId);
+		dirtyNodes.add(treeNode);
+		if (treeNode.hasParent())
+		{
+			dirtyNodes.add(treeNode.getParent());
+		}
+		if (treeNode.hasChildren())
+		{
+			dirtyNodes.addAll(treeNode.getChildren());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void onDisplayValueChanged(final BaseTreeNode<T, K> treeNode,
+		final String oldDisplayValue)
+	{
+		dirtyNodes.add(treeNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void onLeafChanged(final BaseTreeNode<T, K> treeNode)
+	{
+		dirtyNodes.add(treeNode);
+	}
+
+	/**
+	 * Checks if the given node is attached to the tracked root
+	 *
+	 * @param treeNode
+	 *            the node
+	 * @return true, if the root of the given node is the tracked root otherwise false
+	 */
+	private boolean isAttached(final BaseTreeNode<T, K> treeNode)
+	{
+		BaseTreeNode<T, K> current = treeNode;
+		while (current.getParent() != null)
+		{
+			current = current.getParent();
+		}
+		return current == root;
+	}
+
+	/**
+	 * Creates a new {@link Set} object that compares the nodes by identity
+	 *
+	 * @return the new {@link Set} object
+	 */
+	private static <T, K> Set<BaseTreeNode<T, K>> newIdentitySet()
+	{
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+import java.lang.instrument.Instrumentation;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link InstrumentationObjectSizer} measures the shallow size of an object with the
+ * {@link Instrumentation} of the JVM, that knows the exact layout of every object. The
+ * {@link Instrumentation} object is only available in a java agent, see {@link ObjectSizeAgent}
+ */
+public final class InstrumentationObjectSizer implements ObjectSizer
+{
+
+	/** The instrumentation of the JVM */
+	@Getter
+	private final Instrumentation instrumentation;
+
+	/**
+	 * Instantiates a new {@link InstrumentationObjectSizer} object
+	 *
+	 * @param instrumentation
+	 *            the instrumentation of the JVM
+	 */
+	public InstrumentationObjectSizer(final @NonNull Instrumentation instrumentation)
+	{
+		this.instrumentation = instrumentation;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long sizeOf(final @NonNull Object object)
+	{
+		return instrumentation.getObjectSize(object);
+	}
+}
@@ -0,0 +1,258 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link ObjectLayout} describes the memory layout of the objects of a JVM and
+ * estimates the shallow size of an object from this layout. The estimation sums up the header and
+ * the fields of all classes of the hierarchy and aligns the result, the field packing of the JVM
+ * can save a few bytes on some classes. The predefined layouts cover the 64 bit HotSpot JVM with
+ * and without compressed ordinary object pointers and the 32 bit JVM
+ */
+@Getter
+public final class ObjectLayout implements ObjectSizer
+{
+
+	/**
+	 * The layout of a 64 bit JVM with compressed object pointers and compressed class pointers,
+	 * that is the default for heaps smaller than 32 GB
+	 */
+	public static final ObjectLayout COMPRESSED_OOPS = new ObjectLayout(12, 16, 4, 8);
+
+	/**
+	 * The layout of a 64 bit JVM without compressed object pointers but with compressed class
+	 * pointers, that is the default for heaps of 32 GB and more
+	 */
+	public static final ObjectLayout UNCOMPRESSED_OOPS = new ObjectLayout(12, 16, 8, 8);
+
+	/** The layout of a 32 bit JVM */
+	public static final ObjectLayout BIT_32 = new ObjectLayout(8, 12, 4, 8);
+
+	/** The maximum heap size that can be addressed with compressed object pointers */
+	private static final long COMPRESSED_OOPS_MAX_HEAP = 32L * 1024 * 1024 * 1024;
+
+	/** The number of bytes of the header of an object */
+	private final int objectHeaderBytes;
+
+	/** The number of bytes of the header of an array including the length */
+	private final int arrayHeaderBytes;
+
+	/** The number of bytes of a reference */
+	private final int referenceBytes;
+
+	/** The alignment of the objects in bytes */
+	private final int alignmentBytes;
+
+	/** The cache of the shallow sizes of the instances of a class */
+	@Getter(AccessLevel.NONE)
+	private final ClassValue<Long> instanceBytes = new ClassValue<Long>()
+	{
+		@Override
+		protected Long computeValue(final Class<?> type)
+		{
+			return computeInstanceBytes(type);
+		}
+	};
+
+	/**
+	 * Instantiates a new {@link ObjectLayout} object
+	 *
+	 * @param objectHeaderBytes
+	 *            the number of bytes of the header of an object
+	 * @param arrayHeaderBytes
+	 *            the number of bytes of the header of an array including the length
+	 * @param referenceBytes
+	 *            the number of bytes of a reference
+	 * @param alignmentBytes
+	 *            the alignment of the objects in bytes, must be a power of two
+	 */
+	public ObjectLayout(final int objectHeaderBytes, final int arrayHeaderBytes,
+		final int referenceBytes, final int alignmentBytes)
+	{
+		if (alignmentBytes <= 0 || Integer.bitCount(alignmentBytes) != 1)
+		{
+			throw new IllegalArgumentException("alignmentBytes must be a power of two");
+		}
+		this.objectHeaderBytes = objectHeaderBytes;
+		this.arrayHeaderBytes = arrayHeaderBytes;
+		this.referenceBytes = referenceBytes;
+		this.alignmentBytes = alignmentBytes;
+	}
+
+	/**
+	 * Detects the layout of the running JVM from the data model and the maximum heap size. The
+	 * JVM flags can not be read without the management module, so a changed default of the
+	 * compressed object pointers is not detected
+	 *
+	 * @return the detected layout
+	 */
+	public static ObjectLayout detect()
+	{
+		if ("32".equals(System.getProperty("sun.arch.data.model")))
+		{
+			return BIT_32;
+		}
+		return Runtime.getRuntime().maxMemory() < COMPRESSED_OOPS_MAX_HEAP
+			? COMPRESSED_OOPS
+			: UNCOMPRESSED_OOPS;
+	}
+
+	/**
+	 * Aligns the given number of bytes to the alignment of the objects
+	 *
+	 * @param bytes
+	 *            the number of bytes
+	 * @return the aligned number of bytes
+	 */
+	public long align(final long bytes)
+	{
+		return (bytes + alignmentBytes - 1) & -alignmentBytes;
+	}
+
+	/**
+	 * Gets the number of bytes of a field or an array element of the given type
+	 *
+	 * @param type
+	 *            the type of the field
+	 * @return the number of bytes
+	 */
+	public int fieldBytes(final @NonNull Class<?> type)
+	{
+		if (!type.isPrimitive())
+		{
+			return referenceBytes;
+		}
+		if (type == long.class || type == double.class)
+		{
+			return 8;
+		}
+		if (type == int.class || type == float.class)
+		{
+			return 4;
+		}
+		if (type == short.class || type == char.class)
+		{
+			return 2;
+		}
+		return 1;
+	}
+
+	/**
+	 * Estimates the shallow size of an array
+	 *
+	 * @param componentType
+	 *            the type of the elements
+	 * @param length
+	 *            the length of the array
+	 * @return the estimated shallow size in bytes
+	 */
+	public long arrayBytes(final @NonNull Class<?> componentType, final int length)
+	{
+		return align(arrayHeaderBytes + (long)length * fieldBytes(componentType));
+	}
+
+	/**
+	 * Estimates the shallow size of an object with the given fields, that is used for the
+	 * internal objects of a collection that can not be reached
+	 *
+	 * @param referenceFields
+	 *            the number of reference fields
+	 * @param primitiveBytes
+	 *            the number of bytes of all primitive fields
+	 * @return the estimated shallow size in bytes
+	 */
+	public long objectBytes(final int referenceFields, final int primitiveBytes)
+	{
+		return align(objectHeaderBytes + (long)referenceFields * referenceBytes + primitiveBytes);
+	}
+
+	/**
+	 * Estimates the shallow size of an instance of the given class
+	 *
+	 * @param type
+	 *            the class
+	 * @return the estimated shallow size in bytes
+	 */
+	public long instanceBytes(final @NonNull Class<?> type)
+	{
+		return instanceBytes.get(type);
+	}
+
+	/**
+	 * Computes the shallow size of an instance of the given class from its declared fields
+	 *
+	 * @param type
+	 *            the class
+	 * @return the estimated shallow size in bytes
+	 */
+	private long computeInstanceBytes(final Class<?> type)
+	{
+		long bytes = objectHeaderBytes;
+		for (Class<?> current = type; current != null; current = current.getSuperclass())
+		{
+			for (final Field field : current.getDeclaredFields())
+			{
+				if (!Modifier.isStatic(field.getModifiers()))
+				{
+					bytes += fieldBytes(field.getType());
+				}
+			}
+		}
+		return align(bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long sizeOf(final @NonNull Object object)
+	{
+		final Class<?> type = object.getClass();
+		if (type.isArray())
+		{
+			return arrayBytes(type.getComponentType(), Array.getLength(object));
+		}
+		return instanceBytes(type);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "ObjectLayout(objectHeaderBytes=" + objectHeaderBytes + ", arrayHeaderBytes="
+			+ arrayHeaderBytes + ", referenceBytes=" + referenceBytes + ", alignmentBytes="
+			+ alignmentBytes + ")";
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+import java.lang.instrument.Instrumentation;
+import java.util.Optional;
+
+/**
+ * The class {@link ObjectSizeAgent} is the java agent of this library, that only keeps the
+ * {@link Instrumentation} of the JVM for the {@link InstrumentationObjectSizer}. The agent is
+ * started with the option <code>-javaagent:gen-tree.jar</code> or attached to a running JVM, the
+ * manifest of the jar declares this class as premain and agent class. The module
+ * <code>java.instrument</code> is optional for this library, so this class is only loaded by
+ * {@link ObjectSizer#detect()} if the module is available
+ */
+public final class ObjectSizeAgent
+{
+
+	/** The instrumentation of the JVM or null if the agent was not started */
+	private static volatile Instrumentation instrumentation;
+
+	/**
+	 * Private constructor, this class has only static methods
+	 */
+	private ObjectSizeAgent()
+	{
+	}
+
+	/**
+	 * The entry point of the agent if it is started with the JVM
+	 *
+	 * @param agentArguments
+	 *            the arguments of the agent
+	 * @param jvmInstrumentation
+	 *            the instrumentation of the JVM
+	 */
+	public static void premain(final String agentArguments,
+		final Instrumentation jvmInstrumentation)
+	{
+		instrumentation = jvmInstrumentation;
+	}
+
+	/**
+	 * The entry point of the agent if it is attached to a running JVM
+	 *
+	 * @param agentArguments
+	 *            the arguments of the agent
+	 * @param jvmInstrumentation
+	 *            the instrumentation of the JVM
+	 */
+	public static void agentmain(final String agentArguments,
+		final Instrumentation jvmInstrumentation)
+	{
+		instrumentation = jvmInstrumentation;
+	}
+
+	/**
+	 * Gets the instrumentation of the JVM
+	 *
+	 * @return an {@link Optional} with the instrumentation or an empty {@link Optional} if the
+	 *         agent was not started
+	 */
+	public static Optional<Instrumentation> getInstrumentation()
+	{
+		return Optional.ofNullable(instrumentation);
+	}
+}
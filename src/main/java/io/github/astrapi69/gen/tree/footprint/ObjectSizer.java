@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+/**
+ * The functional interface {@link ObjectSizer} gets the shallow size of an object, that is the
+ * size of the object itself without the objects it references
+ */
+@FunctionalInterface
+public interface ObjectSizer
+{
+
+	/**
+	 * Gets the shallow size of the given object in bytes
+	 *
+	 * @param object
+	 *            the object
+	 * @return the shallow size in bytes
+	 */
+	long sizeOf(Object object);
+
+	/**
+	 * Gets the most exact {@link ObjectSizer} that is available. If the optional module
+	 * <code>java.instrument</code> is available and the {@link ObjectSizeAgent} was started as java
+	 * agent the sizes are measured with the instrumentation of the JVM, otherwise the sizes are
+	 * estimated from the detected {@link ObjectLayout}
+	 *
+	 * @return the most exact {@link ObjectSizer}
+	 */
+	static ObjectSizer detect()
+	{
+		if (!isInstrumentationAvailable())
+		{
+			return ObjectLayout.detect();
+		}
+		return ObjectSizeAgent.getInstrumentation()
+			.<ObjectSizer> map(InstrumentationObjectSizer::new).orElseGet(ObjectLayout::detect);
+	}
+
+	/**
+	 * Checks if the classes of the optional module <code>java.instrument</code> are available, so
+	 * the {@link ObjectSizeAgent} can be loaded without a {@link NoClassDefFoundError}
+	 *
+	 * @return true, if the instrumentation classes are available otherwise false
+	 */
+	private static boolean isInstrumentationAvailable()
+	{
+		try
+		{
+			Class.forName("java.lang.instrument.Instrumentation", false,
+				ObjectSizer.class.getClassLoader());
+			return true;
+		}
+		catch (final ClassNotFoundException | LinkageError exception)
+		{
+			return false;
+		}
+	}
+}
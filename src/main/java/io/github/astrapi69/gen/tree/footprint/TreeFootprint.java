@@ -0,0 +1,209 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeFootprint} is the memory report of one tree, that is created by the
+ * {@link TreeFootprintAnalyzer}. For every {@link TreeFootprintComponent} the report holds the
+ * number of the distinct objects that the nodes reference directly, the shallow bytes of these
+ * objects and the retained bytes. The retained bytes of a component are the bytes of all objects
+ * that are reachable from the component and were not reached before from another component, so
+ * the retained bytes of all components sum up to the footprint of the whole tree and an object
+ * that is shared, like an interned value, is counted only once
+ */
+public final class TreeFootprint
+{
+
+	/** The number of the nodes of the tree */
+	@Getter
+	private final long nodeCount;
+
+	/** The flag that indicates if the sizes are measured with the instrumentation of the JVM */
+	@Getter
+	private final boolean measured;
+
+	/** The number of the distinct objects per component */
+	private final long[] objectCounts;
+
+	/** The shallow bytes per component */
+	private final long[] shallowBytes;
+
+	/** The retained bytes per component */
+	private final long[] retainedBytes;
+
+	/**
+	 * Instantiates a new {@link TreeFootprint} object
+	 *
+	 * @param nodeCount
+	 *            the number of the nodes
+	 * @param measured
+	 *            the flag that indicates if the sizes are measured
+	 * @param objectCounts
+	 *            the number of the distinct objects per component ordinal
+	 * @param shallowBytes
+	 *            the shallow bytes per component ordinal
+	 * @param retainedBytes
+	 *            the retained bytes per component ordinal
+	 */
+	TreeFootprint(final long nodeCount, final boolean measured, final long[] objectCounts,
+		final long[] shallowBytes, final long[] retainedBytes)
+	{
+		this.nodeCount = nodeCount;
+		this.measured = measured;
+		this.objectCounts = objectCounts.clone();
+		this.shallowBytes = shallowBytes.clone();
+		this.retainedBytes = retainedBytes.clone();
+	}
+
+	/**
+	 * Gets the number of the distinct objects of the given component that the nodes reference
+	 * directly
+	 *
+	 * @param component
+	 *            the component
+	 * @return the number of the distinct objects
+	 */
+	public long getObjectCount(final @NonNull TreeFootprintComponent component)
+	{
+		return objectCounts[component.ordinal()];
+	}
+
+	/**
+	 * Gets the shallow bytes of the distinct objects of the given component that the nodes
+	 * reference directly
+	 *
+	 * @param component
+	 *            the component
+	 * @return the shallow bytes
+	 */
+	public long getShallowBytes(final @NonNull TreeFootprintComponent component)
+	{
+		return shallowBytes[component.ordinal()];
+	}
+
+	/**
+	 * Gets the retained bytes of the given component
+	 *
+	 * @param component
+	 *            the component
+	 * @return the retained bytes
+	 */
+	public long getRetainedBytes(final @NonNull TreeFootprintComponent component)
+	{
+		return retainedBytes[component.ordinal()];
+	}
+
+	/**
+	 * Gets the retained bytes of the whole tree
+	 *
+	 * @return the retained bytes of the whole tree
+	 */
+	public long getTotalBytes()
+	{
+		long total = 0;
+		for (final long bytes : retainedBytes)
+		{
+			total += bytes;
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the average retained bytes per node
+	 *
+	 * @return the average retained bytes per node or 0 if the tree is empty
+	 */
+	public double getBytesPerNode()
+	{
+		return nodeCount == 0 ? 0 : getTotalBytes() / (double)nodeCount;
+	}
+
+	/**
+	 * Gets the component with the most retained bytes
+	 *
+	 * @return the component with the most retained bytes
+	 */
+	public TreeFootprintComponent getDominantComponent()
+	{
+		TreeFootprintComponent dominant = TreeFootprintComponent.NODES;
+		for (final TreeFootprintComponent component : TreeFootprintComponent.values())
+		{
+			if (getRetainedBytes(dominant) < getRetainedBytes(component))
+			{
+				dominant = component;
+			}
+		}
+		return dominant;
+	}
+
+	/**
+	 * Gets the share of the retained bytes of the given component on the retained bytes of the
+	 * whole tree
+	 *
+	 * @param component
+	 *            the component
+	 * @return the share between 0 and 1 or 0 if the tree is empty
+	 */
+	public double getShare(final @NonNull TreeFootprintComponent component)
+	{
+		final long total = getTotalBytes();
+		return total == 0 ? 0 : getRetainedBytes(component) / (double)total;
+	}
+
+	/**
+	 * Creates a human readable report with one line per component
+	 *
+	 * @return the report
+	 */
+	public String toReport()
+	{
+		final StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-16s %12s %14s %14s %7s%n", "component", "objects", "shallow",
+			"retained", "share"));
+		for (final TreeFootprintComponent component : TreeFootprintComponent.values())
+		{
+			sb.append(String.format("%-16s %12d %14d %14d %6.1f%%%n", component,
+				getObjectCount(component), getShallowBytes(component),
+				getRetainedBytes(component), getShare(component) * 100));
+		}
+		sb.append(String.format("%-16s %12d %14s %14d %7s%n", "total", nodeCount, "",
+			getTotalBytes(), measured ? "measured" : "estimated"));
+		return sb.toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "TreeFootprint(nodeCount=" + nodeCount + ", totalBytes=" + getTotalBytes()
+			+ ", bytesPerNode=" + getBytesPerNode() + ", dominantComponent="
+			+ getDominantComponent() + ", measured=" + measured + ")";
+	}
+}
@@ -0,0 +1,644 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.astrapi69.gen.tree.SimpleTreeNode;
+import io.github.astrapi69.gen.tree.api.IBaseTreeNode;
+import io.github.astrapi69.gen.tree.api.ITreeNode;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeFootprintAnalyzer} estimates the heap footprint of a tree in one iterative
+ * pass over the nodes and creates a {@link TreeFootprint} report with the shallow and the retained
+ * bytes of every {@link TreeFootprintComponent}. The object graph of the ids and values is walked
+ * with reflection, a tree node that is reached from a value is never entered. The internal
+ * objects of the collections of the JDK can not be reached with reflection, so they are estimated
+ * from the size of the collection and the {@link ObjectLayout}. The children collections are read
+ * directly from the fields of the nodes, so the analysis never creates an empty children
+ * collection. An analyzer is not thread safe
+ */
+public class TreeFootprintAnalyzer
+{
+
+	/** The name of the field that holds the children collection of a node */
+	private static final String CHILDREN_FIELD_NAME = "children";
+
+	/** The load factor of the hash based collections of the JDK */
+	private static final float HASH_LOAD_FACTOR = 0.75f;
+
+	/** The minimum table capacity of the hash based collections of the JDK */
+	private static final int HASH_MIN_CAPACITY = 16;
+
+	/** The sizer for the shallow size of the reachable objects */
+	@Getter
+	private final ObjectSizer objectSizer;
+
+	/** The layout for the estimation of the internal objects of the collections */
+	@Getter
+	private final ObjectLayout objectLayout;
+
+	/** The cache of the accessible reference fields of a class */
+	private final ClassValue<Field[]> referenceFields = new ClassValue<Field[]>()
+	{
+		@Override
+		protected Field[] computeValue(final Class<?> type)
+		{
+			return findReferenceFields(type);
+		}
+	};
+
+	/** The cache of the children field of a node class */
+	private final ClassValue<Optional<Field>> childrenFields = new ClassValue<Optional<Field>>()
+	{
+		@Override
+		protected Optional<Field> computeValue(final Class<?> type)
+		{
+			return findChildrenField(type);
+		}
+	};
+
+	/**
+	 * Instantiates a new {@link TreeFootprintAnalyzer} object with the most exact
+	 * {@link ObjectSizer} that is available and the detected {@link ObjectLayout}
+	 */
+	public TreeFootprintAnalyzer()
+	{
+		this(ObjectSizer.detect(), ObjectLayout.detect());
+	}
+
+	/**
+	 * Instantiates a new {@link TreeFootprintAnalyzer} object that estimates all sizes from the
+	 * given {@link ObjectLayout}
+	 *
+	 * @param objectLayout
+	 *            the layout
+	 */
+	public TreeFootprintAnalyzer(final @NonNull ObjectLayout objectLayout)
+	{
+		this(objectLayout, objectLayout);
+	}
+
+	/**
+	 * Instantiates a new {@link TreeFootprintAnalyzer} object
+	 *
+	 * @param objectSizer
+	 *            the sizer for the shallow size of the reachable objects
+	 * @param objectLayout
+	 *            the layout for the estimation of the internal objects of the collections
+	 */
+	public TreeFootprintAnalyzer(final @NonNull ObjectSizer objectSizer,
+		final @NonNull ObjectLayout objectLayout)
+	{
+		this.objectSizer = objectSizer;
+		this.objectLayout = objectLayout;
+	}
+
+	/**
+	 * Analyzes the footprint of the subtree of the given {@link ITreeNode} object. The ids are
+	 * accounted if the nodes are {@link IBaseTreeNode} objects
+	 *
+	 * @param <V>
+	 *            the generic type of the value
+	 * @param <T>
+	 *            the generic type of the concrete tree node
+	 * @param root
+	 *            the root of the subtree
+	 * @return the footprint report
+	 */
+	public <V, T extends ITreeNode<V, T>> TreeFootprint analyze(final @NonNull T root)
+	{
+		final Accounting accounting = new Accounting();
+		final Deque<T> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final T node = stack.pop();
+			final Collection<T> children = getChildren(node);
+			final Object id = node instanceof IBaseTreeNode
+				? ((IBaseTreeNode<?, ?, ?>)node).getId()
+				: null;
+			accounting.addNode(node, children, id, node.getValue(), node.getDisplayValue());
+			if (children != null)
+			{
+				for (final T child : children)
+				{
+					stack.push(child);
+				}
+			}
+		}
+		return accounting.toFootprint();
+	}
+
+	/**
+	 * Analyzes the footprint of the subtree of the given {@link SimpleTreeNode} object. A
+	 * {@link SimpleTreeNode} links its children without a collection and has no display value
+	 *
+	 * @param <V>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the subtree
+	 * @return the footprint report
+	 */
+	public <V, K> TreeFootprint analyze(final @NonNull SimpleTreeNode<V, K> root)
+	{
+		final Accounting accounting = new Accounting();
+		final Deque<SimpleTreeNode<V, K>> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final SimpleTreeNode<V, K> node = stack.pop();
+			accounting.addNode(node, null, node.getId(), node.getValue(), null);
+			for (SimpleTreeNode<V, K> child = node.getLeftMostChild(); child != null; child = child
+				.getRightSibling())
+			{
+				stack.push(child);
+			}
+		}
+		return accounting.toFootprint();
+	}
+
+	/**
+	 * Gets the children collection of the given node without creating it
+	 *
+	 * @param node
+	 *            the node
+	 * @return the children collection or null if the node has no children collection
+	 */
+	@SuppressWarnings("unchecked")
+	private <V, T extends ITreeNode<V, T>> Collection<T> getChildren(final T node)
+	{
+		final Optional<Field> childrenField = childrenFields.get(node.getClass());
+		if (!childrenField.isPresent())
+		{
+			return node.getChildren();
+		}
+		try
+		{
+			return (Collection<T>)childrenField.get().get(node);
+		}
+		catch (final IllegalAccessException exception)
+		{
+			return node.getChildren();
+		}
+	}
+
+	/**
+	 * Finds the accessible field of the given node class that holds the children collection
+	 *
+	 * @param type
+	 *            the node class
+	 * @return an {@link Optional} with the field or an empty {@link Optional} if the class has no
+	 *         accessible children field
+	 */
+	private static Optional<Field> findChildrenField(final Class<?> type)
+	{
+		for (Class<?> current = type; current != null; current = current.getSuperclass())
+		{
+			for (final Field field : current.getDeclaredFields())
+			{
+				if (CHILDREN_FIELD_NAME.equals(field.getName())
+					&& !Modifier.isStatic(field.getModifiers())
+					&& Collection.class.isAssignableFrom(field.getType()) && isOpen(current)
+					&& field.trySetAccessible())
+				{
+					return Optional.of(field);
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Finds the accessible non static reference fields of the given class and its super classes
+	 *
+	 * @param type
+	 *            the class
+	 * @return the accessible reference fields
+	 */
+	private static Field[] findReferenceFields(final Class<?> type)
+	{
+		final List<Field> fields = new ArrayList<>();
+		for (Class<?> current = type; current != null; current = current.getSuperclass())
+		{
+			if (!isOpen(current))
+			{
+				continue;
+			}
+			for (final Field field : current.getDeclaredFields())
+			{
+				if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()
+					&& field.trySetAccessible())
+				{
+					fields.add(field);
+				}
+			}
+		}
+		return fields.toArray(new Field[0]);
+	}
+
+	/**
+	 * Checks if the package of the given class is open for the reflective access of this class
+	 *
+	 * @param type
+	 *            the class
+	 * @return true, if the package of the given class is open otherwise false
+	 */
+	private static boolean isOpen(final Class<?> type)
+	{
+		return type.getModule().isOpen(type.getPackageName(),
+			TreeFootprintAnalyzer.class.getModule());
+	}
+
+	/**
+	 * Checks if the given object is a tree node, a tree node is only accounted as node of the
+	 * analyzed tree and never entered from another component
+	 *
+	 * @param object
+	 *            the object
+	 * @return true, if the given object is a tree node otherwise false
+	 */
+	private static boolean isTreeNode(final Object object)
+	{
+		return object instanceof ITreeNode || object instanceof SimpleTreeNode;
+	}
+
+	/**
+	 * Computes the capacity of the table of a hash based collection of the JDK
+	 *
+	 * @param size
+	 *            the number of the entries
+	 * @return the estimated capacity of the table
+	 */
+	private static int hashTableCapacity(final int size)
+	{
+		final int needed = (int)Math.ceil(size / HASH_LOAD_FACTOR);
+		return Math.max(HASH_MIN_CAPACITY, Integer.highestOneBit(Math.max(1, needed - 1)) << 1);
+	}
+
+	/**
+	 * Estimates the bytes of the table and the entries of a hash based collection of the JDK
+	 *
+	 * @param size
+	 *            the number of the entries
+	 * @param linked
+	 *            the flag that indicates if the entries are linked in insertion order
+	 * @return the estimated bytes
+	 */
+	private long hashInternals(final int size, final boolean linked)
+	{
+		if (size == 0)
+		{
+			return 0;
+		}
+		// a node holds the hash, the key, the value and the next node, a linked node also the
+		// previous and the next node in insertion order
+		return objectLayout.arrayBytes(Object.class, hashTableCapacity(size))
+			+ size * objectLayout.objectBytes(linked ? 5 : 3, 4);
+	}
+
+	/**
+	 * Estimates the bytes of the entries of a red black tree of the JDK
+	 *
+	 * @param size
+	 *            the number of the entries
+	 * @return the estimated bytes
+	 */
+	private long treeInternals(final int size)
+	{
+		// an entry holds the key, the value, the left, the right and the parent entry and the color
+		return size * objectLayout.objectBytes(5, 1);
+	}
+
+	/**
+	 * Estimates the bytes of the internal objects of the given collection of the JDK, that can
+	 * not be reached with reflection
+	 *
+	 * @param collection
+	 *            the collection
+	 * @return the estimated bytes of the internal objects
+	 */
+	private long collectionInternals(final Collection<?> collection)
+	{
+		final int size = collection.size();
+		if (collection instanceof HashSet)
+		{
+			final boolean linked = collection instanceof LinkedHashSet;
+			return objectLayout.instanceBytes(linked ? LinkedHashMap.class : HashMap.class)
+				+ hashInternals(size, linked);
+		}
+		if (collection instanceof TreeSet)
+		{
+			return objectLayout.instanceBytes(TreeMap.class) + treeInternals(size);
+		}
+		if (collection instanceof ArrayList || collection instanceof Vector
+			|| collection instanceof ArrayDeque)
+		{
+			return size == 0 ? 0 : objectLayout.arrayBytes(Object.class, size);
+		}
+		if (collection instanceof LinkedList)
+		{
+			return size * objectLayout.objectBytes(3, 0);
+		}
+		return 0;
+	}
+
+	/**
+	 * Estimates the bytes of the internal objects of the given map of the JDK, that can not be
+	 * reached with reflection
+	 *
+	 * @param map
+	 *            the map
+	 * @return the estimated bytes of the internal objects
+	 */
+	private long mapInternals(final Map<?, ?> map)
+	{
+		final int size = map.size();
+		if (map instanceof HashMap || map instanceof ConcurrentHashMap)
+		{
+			return hashInternals(size, map instanceof LinkedHashMap);
+		}
+		if (map instanceof TreeMap)
+		{
+			return treeInternals(size);
+		}
+		if (map instanceof IdentityHashMap)
+		{
+			return objectLayout.arrayBytes(Object.class, 2 * hashTableCapacity(size));
+		}
+		return 0;
+	}
+
+	/**
+	 * Estimates the bytes of the internal value array of the given string, that can not be
+	 * reached with reflection. The compact strings of the JVM store a string with only latin 1
+	 * characters with one byte per character
+	 *
+	 * @param string
+	 *            the string
+	 * @return the estimated bytes of the value array
+	 */
+	private long stringInternals(final String string)
+	{
+		final int length = string.length();
+		for (int i = 0; i < length; i++)
+		{
+			if (0xFF < string.charAt(i))
+			{
+				return objectLayout.arrayBytes(byte.class, length << 1);
+			}
+		}
+		return objectLayout.arrayBytes(byte.class, length);
+	}
+
+	/**
+	 * The class {@link Accounting} holds the state of one analysis
+	 */
+	private final class Accounting
+	{
+
+		/** All objects that are already accounted as retained bytes */
+		private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		/** The bit masks of the components that reference an object directly */
+		private final Map<Object, Integer> directComponents = new IdentityHashMap<>();
+
+		/** The stack of the objects that are not expanded yet */
+		private final Deque<Object> pending = new ArrayDeque<>();
+
+		/** The number of the distinct objects per component */
+		private final long[] objectCounts = new long[TreeFootprintComponent.values().length];
+
+		/** The shallow bytes per component */
+		private final long[] shallowBytes = new long[objectCounts.length];
+
+		/** The retained bytes per component */
+		private final long[] retainedBytes = new long[objectCounts.length];
+
+		/** The number of the nodes */
+		private long nodeCount;
+
+		/**
+		 * Accounts the given node with its components
+		 *
+		 * @param node
+		 *            the node
+		 * @param children
+		 *            the children collection or null
+		 * @param id
+		 *            the id or null
+		 * @param value
+		 *            the value or null
+		 * @param displayValue
+		 *            the display value or null
+		 */
+		void addNode(final Object node, final Object children, final Object id, final Object value,
+			final String displayValue)
+		{
+			nodeCount++;
+			add(TreeFootprintComponent.NODES, node);
+			add(TreeFootprintComponent.CHILD_CONTAINERS, children);
+			add(TreeFootprintComponent.IDS, id);
+			add(TreeFootprintComponent.VALUES, value);
+			add(TreeFootprintComponent.DISPLAY_VALUES, displayValue);
+		}
+
+		/**
+		 * Accounts the given object that is referenced directly by a node
+		 *
+		 * @param component
+		 *            the component
+		 * @param object
+		 *            the object or null
+		 */
+		private void add(final TreeFootprintComponent component, final Object object)
+		{
+			if (object == null)
+			{
+				return;
+			}
+			final int index = component.ordinal();
+			if (component == TreeFootprintComponent.NODES)
+			{
+				objectCounts[index]++;
+				shallowBytes[index] += objectSizer.sizeOf(object);
+			}
+			else
+			{
+				final int bit = 1 << index;
+				final Integer mask = directComponents.get(object);
+				if (mask == null || (mask & bit) == 0)
+				{
+					directComponents.put(object, mask == null ? bit : mask | bit);
+					objectCounts[index]++;
+					shallowBytes[index] += objectSizer.sizeOf(object);
+				}
+			}
+			retainedBytes[index] += retain(object);
+		}
+
+		/**
+		 * Computes the bytes of all objects that are reachable from the given object and are not
+		 * accounted yet
+		 *
+		 * @param start
+		 *            the start object
+		 * @return the retained bytes
+		 */
+		private long retain(final Object start)
+		{
+			if (!visited.add(start))
+			{
+				return 0;
+			}
+			long bytes = objectSizer.sizeOf(start);
+			if (isTreeNode(start))
+			{
+				return bytes;
+			}
+			pending.push(start);
+			while (!pending.isEmpty())
+			{
+				bytes += expand(pending.pop());
+			}
+			return bytes;
+		}
+
+		/**
+		 * Pushes the given referenced object if it is not accounted yet
+		 *
+		 * @param object
+		 *            the referenced object
+		 * @return the shallow bytes of the given object or 0 if it is already accounted
+		 */
+		private long reach(final Object object)
+		{
+			if (object == null || object instanceof Class || isTreeNode(object)
+				|| !visited.add(object))
+			{
+				return 0;
+			}
+			pending.push(object);
+			return objectSizer.sizeOf(object);
+		}
+
+		/**
+		 * Pushes the objects that are referenced by the given object
+		 *
+		 * @param object
+		 *            the object
+		 * @return the bytes of the pushed objects and of the internal objects that can not be
+		 *         reached
+		 */
+		private long expand(final Object object)
+		{
+			long bytes = 0;
+			final Class<?> type = object.getClass();
+			if (object instanceof String)
+			{
+				return stringInternals((String)object);
+			}
+			if (type.isArray())
+			{
+				if (object instanceof Object[])
+				{
+					for (final Object element : (Object[])object)
+					{
+						bytes += reach(element);
+					}
+				}
+				return bytes;
+			}
+			if (isOpen(type))
+			{
+				for (final Field field : referenceFields.get(type))
+				{
+					try
+					{
+						bytes += reach(field.get(object));
+					}
+					catch (final IllegalAccessException exception)
+					{
+						// the field is not accessible and is not accounted
+					}
+				}
+				return bytes;
+			}
+			if (object instanceof Collection)
+			{
+				bytes += collectionInternals((Collection<?>)object);
+				for (final Object element : (Collection<?>)object)
+				{
+					bytes += reach(element);
+				}
+			}
+			else if (object instanceof Map)
+			{
+				bytes += mapInternals((Map<?, ?>)object);
+				for (final Map.Entry<?, ?> entry : ((Map<?, ?>)object).entrySet())
+				{
+					bytes += reach(entry.getKey());
+					bytes += reach(entry.getValue());
+				}
+			}
+			return bytes;
+		}
+
+		/**
+		 * Creates the report of this analysis
+		 *
+		 * @return the report
+		 */
+		TreeFootprint toFootprint()
+		{
+			return new TreeFootprint(nodeCount, objectSizer instanceof InstrumentationObjectSizer,
+				objectCounts, shallowBytes, retainedBytes);
+		}
+	}
+}
@@ -0,0 +1,531 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.frozen;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.TreeNode;
+import io.github.astrapi69.gen.tree.api.ITreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link FrozenTree} is an immutable array based copy of a tree for read heavy access.
+ * The nodes are numbered in pre-order, so the subtree of a node is the contiguous range of the
+ * indexes from the node to {@link #getSubtreeEnd(int)}, the first child of a node is the next
+ * index and the next sibling of a node is the end of its subtree. The parents, the previous
+ * siblings, the levels, the number of children and the index of the ids are computed once, and the
+ * {@link FrozenTreeNode} handles of all nodes are created once
+ *
+ * <p>
+ * All fields are final and no field is changed after the construction, so a {@link FrozenTree}
+ * object can be published to other threads without copying and all methods can be called from
+ * many threads without synchronization. The values themselves are shared with the source tree and
+ * are only safe to read if they are not changed
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class FrozenTree<T, K>
+{
+
+	/** The index that marks a missing node */
+	public static final int NO_NODE = -1;
+
+	/** The ids in pre-order */
+	private final Object[] ids;
+
+	/** The values in pre-order */
+	private final Object[] values;
+
+	/** The display values in pre-order */
+	private final String[] displayValues;
+
+	/** The leaf flags in pre-order */
+	private final boolean[] leaves;
+
+	/** The index of the parent of every node or {@link #NO_NODE} for the root */
+	private final int[] parents;
+
+	/** The index after the last node of the subtree of every node */
+	private final int[] subtreeEnds;
+
+	/** The index of the previous sibling of every node or {@link #NO_NODE} */
+	private final int[] previousSiblings;
+
+	/** The number of children of every node */
+	private final int[] childCounts;
+
+	/** The level of every node, the root has the level 0 */
+	private final int[] levels;
+
+	/** The index of the first node in pre-order with the id as key */
+	private final Map<K, Integer> indexById;
+
+	/** The handles of the nodes in pre-order */
+	private final List<FrozenTreeNode<T, K>> nodes;
+
+	/**
+	 * Instantiates a new {@link FrozenTree} object from the given nodes in pre-order
+	 *
+	 * @param order
+	 *            the source nodes in pre-order
+	 * @param parents
+	 *            the index of the parent of every node
+	 * @param subtreeEnds
+	 *            the index after the last node of the subtree of every node
+	 * @param ids
+	 *            the ids of the nodes in pre-order
+	 */
+	private <N extends ITreeNode<T, N>> FrozenTree(final List<N> order, final int[] parents,
+		final int[] subtreeEnds, final Object[] ids)
+	{
+		final int size = order.size();
+		this.ids = ids;
+		this.values = new Object[size];
+		this.displayValues = new String[size];
+		this.leaves = new boolean[size];
+		this.parents = Arrays.copyOf(parents, size);
+		this.subtreeEnds = Arrays.copyOf(subtreeEnds, size);
+		this.previousSiblings = new int[size];
+		this.childCounts = new int[size];
+		this.levels = new int[size];
+		final int[] lastChildren = new int[size];
+		final Map<K, Integer> index = new HashMap<>();
+		final List<FrozenTreeNode<T, K>> handles = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+		{
+			final N node = order.get(i);
+			values[i] = node.getValue();
+			displayValues[i] = node.getDisplayValue();
+			leaves[i] = node.isLeaf();
+			previousSiblings[i] = NO_NODE;
+			final int parent = this.parents[i];
+			if (parent != NO_NODE)
+			{
+				levels[i] = levels[parent] + 1;
+				// the children of a parent are visited in their order in pre-order
+				if (childCounts[parent]++ != 0)
+				{
+					previousSiblings[i] = lastChildren[parent];
+				}
+				lastChildren[parent] = i;
+			}
+			@SuppressWarnings("unchecked")
+			final K id = (K)ids[i];
+			if (id != null)
+			{
+				index.putIfAbsent(id, i);
+			}
+			handles.add(new FrozenTreeNode<>(this, i));
+		}
+		this.indexById = Collections.unmodifiableMap(index);
+		this.nodes = Collections.unmodifiableList(handles);
+	}
+
+	/**
+	 * Factory method for create a new {@link FrozenTree} object from the subtree of the given
+	 * {@link BaseTreeNode} object. The order of the children is preserved
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the subtree to freeze
+	 * @return the new {@link FrozenTree} object
+	 */
+	public static <T, K> FrozenTree<T, K> of(final @NonNull BaseTreeNode<T, K> root)
+	{
+		final List<BaseTreeNode<T, K>> order = new ArrayList<>();
+		final int[][] structure = collect(root, order);
+		final Object[] ids = new Object[order.size()];
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = order.get(i).getId();
+		}
+		return new FrozenTree<>(order, structure[0], structure[1], ids);
+	}
+
+	/**
+	 * Factory method for create a new {@link FrozenTree} object from the subtree of the given
+	 * {@link TreeNode} object. A {@link TreeNode} has no id, so the position of a node in
+	 * pre-order is its id. The order of the children is preserved
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param root
+	 *            the root of the subtree to freeze
+	 * @return the new {@link FrozenTree} object
+	 */
+	public static <T> FrozenTree<T, Integer> of(final @NonNull TreeNode<T> root)
+	{
+		final List<TreeNode<T>> order = new ArrayList<>();
+		final int[][] structure = collect(root, order);
+		final Object[] ids = new Object[order.size()];
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = i;
+		}
+		return new FrozenTree<>(order, structure[0], structure[1], ids);
+	}
+
+	/**
+	 * Collects the nodes of the subtree of the given root iteratively in pre-order
+	 *
+	 * @param root
+	 *            the root of the subtree
+	 * @param order
+	 *            the list that gets the nodes in pre-order
+	 * @return an array with the parent indexes and the subtree ends
+	 */
+	private static <T, N extends ITreeNode<T, N>> int[][] collect(final N root,
+		final List<N> order)
+	{
+		int[] parents = new int[16];
+		int[] subtreeEnds = new int[16];
+		int[] indexStack = new int[16];
+		int depth = 0;
+		final Deque<Iterator<N>> stack = new ArrayDeque<>();
+		order.add(root);
+		parents[0] = NO_NODE;
+		subtreeEnds[0] = 1;
+		if (root.hasChildren())
+		{
+			stack.push(root.getChildren().iterator());
+			indexStack[depth++] = 0;
+		}
+		while (!stack.isEmpty())
+		{
+			final Iterator<N> children = stack.peek();
+			if (!children.hasNext())
+			{
+				stack.pop();
+				subtreeEnds[indexStack[--depth]] = order.size();
+				continue;
+			}
+			final N child = children.next();
+			final int index = order.size();
+			if (index == parents.length)
+			{
+				parents = Arrays.copyOf(parents, index << 1);
+				subtreeEnds = Arrays.copyOf(subtreeEnds, index << 1);
+			}
+			order.add(child);
+			parents[index] = indexStack[depth - 1];
+			subtreeEnds[index] = index + 1;
+			if (child.hasChildren())
+			{
+				if (depth == indexStack.length)
+				{
+					indexStack = Arrays.copyOf(indexStack, depth << 1);
+				}
+				stack.push(child.getChildren().iterator());
+				indexStack[depth++] = index;
+			}
+		}
+		return new int[][] { parents, subtreeEnds };
+	}
+
+	/**
+	 * Gets the number of nodes
+	 *
+	 * @return the number of nodes
+	 */
+	public int size()
+	{
+		return values.length;
+	}
+
+	/**
+	 * Gets the root node
+	 *
+	 * @return the root node
+	 */
+	public FrozenTreeNode<T, K> getRootNode()
+	{
+		return nodes.get(0);
+	}
+
+	/**
+	 * Gets the node with the given index
+	 *
+	 * @param index
+	 *            the index
+	 * @return the node or null if the given index is {@link #NO_NODE}
+	 */
+	public FrozenTreeNode<T, K> getNode(final int index)
+	{
+		return index == NO_NODE ? null : nodes.get(index);
+	}
+
+	/**
+	 * Gets all nodes in pre-order
+	 *
+	 * @return an unmodifiable {@link List} object with all nodes
+	 */
+	public List<FrozenTreeNode<T, K>> getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * Gets the nodes of the subtree of the given node in pre-order without copying
+	 *
+	 * @param index
+	 *            the index of the root of the subtree
+	 * @return an unmodifiable {@link List} object with the nodes of the subtree
+	 */
+	public List<FrozenTreeNode<T, K>> getSubtree(final int index)
+	{
+		return nodes.subList(index, subtreeEnds[index]);
+	}
+
+	/**
+	 * Gets the index of the first node in pre-order with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return the index or {@link #NO_NODE} if no node has the given id
+	 */
+	public int indexOf(final K id)
+	{
+		final Integer index = id == null ? null : indexById.get(id);
+		return index == null ? NO_NODE : index;
+	}
+
+	/**
+	 * Finds the first node in pre-order with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return the node or null if no node has the given id
+	 */
+	public FrozenTreeNode<T, K> findById(final K id)
+	{
+		return getNode(indexOf(id));
+	}
+
+	/**
+	 * Gets the id of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the id
+	 */
+	@SuppressWarnings("unchecked")
+	public K getId(final int index)
+	{
+		return (K)ids[index];
+	}
+
+	/**
+	 * Gets the value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	public T getValue(final int index)
+	{
+		return (T)values[index];
+	}
+
+	/**
+	 * Gets the display value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the display value
+	 */
+	public String getDisplayValue(final int index)
+	{
+		return displayValues[index];
+	}
+
+	/**
+	 * Checks if the given node is a leaf
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return true, if the given node is a leaf otherwise false
+	 */
+	public boolean isLeaf(final int index)
+	{
+		return leaves[index];
+	}
+
+	/**
+	 * Gets the index of the parent of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the parent or {@link #NO_NODE} for the root
+	 */
+	public int getParent(final int index)
+	{
+		return parents[index];
+	}
+
+	/**
+	 * Gets the index of the first child of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the first child or {@link #NO_NODE} if the given node has no children
+	 */
+	public int getFirstChild(final int index)
+	{
+		return index + 1 < subtreeEnds[index] ? index + 1 : NO_NODE;
+	}
+
+	/**
+	 * Gets the index of the next sibling of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the next sibling or {@link #NO_NODE} if the given node is the last child
+	 */
+	public int getNextSibling(final int index)
+	{
+		final int parent = parents[index];
+		final int next = subtreeEnds[index];
+		return parent != NO_NODE && next < subtreeEnds[parent] ? next : NO_NODE;
+	}
+
+	/**
+	 * Gets the index of the previous sibling of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the previous sibling or {@link #NO_NODE} if the given node is the first
+	 *         child
+	 */
+	public int getPreviousSibling(final int index)
+	{
+		return previousSiblings[index];
+	}
+
+	/**
+	 * Gets the number of children of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the number of children
+	 */
+	public int getChildCount(final int index)
+	{
+		return childCounts[index];
+	}
+
+	/**
+	 * Gets the level of the given node, the root has the level 0
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the level
+	 */
+	public int getLevel(final int index)
+	{
+		return levels[index];
+	}
+
+	/**
+	 * Gets the index after the last node of the subtree of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the end of the subtree
+	 */
+	public int getSubtreeEnd(final int index)
+	{
+		return subtreeEnds[index];
+	}
+
+	/**
+	 * Checks if the second given node is in the subtree of the first given node
+	 *
+	 * @param index
+	 *            the index of the root of the subtree
+	 * @param descendant
+	 *            the index of the possible descendant
+	 * @return true, if the second given node is the first given node or one of its descendants
+	 *         otherwise false
+	 */
+	public boolean isInSubtree(final int index, final int descendant)
+	{
+		return index <= descendant && descendant < subtreeEnds[index];
+	}
+
+	/**
+	 * Creates a mutable {@link BaseTreeNode} tree of the whole tree. The order of the children is
+	 * preserved
+	 *
+	 * @return the root of the new tree
+	 */
+	public BaseTreeNode<T, K> toBaseTreeNode()
+	{
+		return toBaseTreeNode(0);
+	}
+
+	/**
+	 * Creates a mutable {@link BaseTreeNode} tree of the subtree of the given node. The order of
+	 * the children is preserved
+	 *
+	 * @param index
+	 *            the index of the root of the subtree
+	 * @return the root of the new tree
+	 */
+	@SuppressWarnings("unchecked")
+	public BaseTreeNode<T, K> toBaseTreeNode(final int index)
+	{
+		final int end = subtreeEnds[index];
+		final List<BaseTreeNode<T, K>> created = new ArrayList<>(end - index);
+		for (int i = index; i < end; i++)
+		{
+			final BaseTreeNode<T, K> parent = i == index ? null : created.get(parents[i] - index);
+			final BaseTreeNode<T, K> node = BaseTreeNode.<T, K> builder().id((K)ids[i])
+				.value((T)values[i]).displayValue(displayValues[i]).leaf(leaves[i]).parent(parent)
+				.build();
+			if (parent != null)
+			{
+				parent.getChildren().add(node);
+			}
+			created.add(node);
+		}
+		return created.get(0);
+	}
+}
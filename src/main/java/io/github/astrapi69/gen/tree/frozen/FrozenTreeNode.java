@@ -0,0 +1,529 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.frozen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import io.github.astrapi69.gen.tree.api.IBaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link FrozenTreeNode} is an immutable handle of a node in a {@link FrozenTree} that
+ * holds only the tree and the index. All read methods delegate to the precomputed arrays of the
+ * tree, the subtree of a node is a view of the contiguous pre-order range of the tree, so
+ * {@link #traverse()}, {@link #contains(FrozenTreeNode)} and {@link #findById(Object)} need no
+ * recursion. All methods that would change the tree throw an
+ * {@link UnsupportedOperationException}. Two {@link FrozenTreeNode} objects are equal if they
+ * belong to the same tree and have the same index
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class FrozenTreeNode<T, K> implements IBaseTreeNode<T, K, FrozenTreeNode<T, K>>
+{
+
+	/** The tree of this node */
+	private final FrozenTree<T, K> tree;
+
+	/** The index of this node */
+	private final int index;
+
+	/**
+	 * Instantiates a new {@link FrozenTreeNode} object
+	 *
+	 * @param tree
+	 *            the tree of this node
+	 * @param index
+	 *            the index of this node
+	 */
+	FrozenTreeNode(final FrozenTree<T, K> tree, final int index)
+	{
+		this.tree = tree;
+		this.index = index;
+	}
+
+	/**
+	 * Gets the tree of this node
+	 *
+	 * @return the tree
+	 */
+	public FrozenTree<T, K> getTree()
+	{
+		return tree;
+	}
+
+	/**
+	 * Gets the index of this node in the tree
+	 *
+	 * @return the index
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public K getId()
+	{
+		return tree.getId(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T getValue()
+	{
+		return tree.getValue(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getDisplayValue()
+	{
+		return tree.getDisplayValue(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaf()
+	{
+		return tree.isLeaf(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FrozenTreeNode<T, K> getParent()
+	{
+		return tree.getNode(tree.getParent(index));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Collection<FrozenTreeNode<T, K>> getChildren()
+	{
+		final int childCount = tree.getChildCount(index);
+		if (childCount == 0)
+		{
+			return Collections.emptyList();
+		}
+		final List<FrozenTreeNode<T, K>> children = new ArrayList<>(childCount);
+		for (int child = index + 1; child != FrozenTree.NO_NODE; child = tree
+			.getNextSibling(child))
+		{
+			children.add(tree.getNode(child));
+		}
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildCount()
+	{
+		return tree.getChildCount(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasChildren()
+	{
+		return tree.getChildCount(index) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasParent()
+	{
+		return tree.getParent(index) != FrozenTree.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRoot()
+	{
+		return !hasParent();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getLevel()
+	{
+		return tree.getLevel(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FrozenTreeNode<T, K> getRoot()
+	{
+		return tree.getRootNode();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FrozenTreeNode<T, K> getNextSibling()
+	{
+		return tree.getNode(tree.getNextSibling(index));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNextSibling()
+	{
+		return tree.getNextSibling(index) != FrozenTree.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FrozenTreeNode<T, K> getPreviousSibling()
+	{
+		return tree.getNode(tree.getPreviousSibling(index));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasPreviousSibling()
+	{
+		return tree.getPreviousSibling(index) != FrozenTree.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildIndex(final FrozenTreeNode<T, K> child)
+	{
+		if (child == null || child.tree != tree || tree.getParent(child.index) != index)
+		{
+			return -1;
+		}
+		int position = 0;
+		for (int current = child.index; current != index + 1; current = tree
+			.getPreviousSibling(current))
+		{
+			position++;
+		}
+		return position;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Optional<FrozenTreeNode<T, K>> getChildAt(final int position)
+	{
+		if (position < 0 || tree.getChildCount(index) <= position)
+		{
+			return Optional.empty();
+		}
+		int child = index + 1;
+		for (int i = 0; i < position; i++)
+		{
+			child = tree.getNextSibling(child);
+		}
+		return Optional.of(tree.getNode(child));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The returned unmodifiable {@link List} object is a view of the nodes of the tree in
+	 * pre-order
+	 */
+	@Override
+	public Collection<FrozenTreeNode<T, K>> traverse()
+	{
+		return tree.getSubtree(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<FrozenTreeNode<T, K>> toList()
+	{
+		return new ArrayList<>(tree.getSubtree(index));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean contains(final FrozenTreeNode<T, K> treeNode)
+	{
+		return treeNode != null && treeNode.tree == tree
+			&& tree.isInSubtree(index, treeNode.index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FrozenTreeNode<T, K> findById(final @NonNull K id)
+	{
+		final int found = tree.indexOf(id);
+		if (found == FrozenTree.NO_NODE || tree.isInSubtree(index, found))
+		{
+			return tree.getNode(found);
+		}
+		// the first node with the id is outside of this subtree, so search the subtree range
+		final int end = tree.getSubtreeEnd(index);
+		for (int current = index; current < end; current++)
+		{
+			if (id.equals(tree.getId(current)))
+			{
+				return tree.getNode(current);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the exception for all methods that would change the tree
+	 *
+	 * @return the exception
+	 */
+	private static UnsupportedOperationException frozen()
+	{
+		return new UnsupportedOperationException("A frozen tree can not be changed");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setId(final K id)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setValue(final T value)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDisplayValue(final String displayValue)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setLeaf(final boolean leaf)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setParent(final FrozenTreeNode<T, K> parent)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setChildren(final Collection<FrozenTreeNode<T, K>> children)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addChild(final FrozenTreeNode<T, K> child)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addChild(final FrozenTreeNode<T, K> child, final int position)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addChildren(final @NonNull Collection<FrozenTreeNode<T, K>> children)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean move(final FrozenTreeNode<T, K> newParent)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeChild(final FrozenTreeNode<T, K> child)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeChildren(final @NonNull Collection<FrozenTreeNode<T, K>> children)
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeChildren()
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearChildren()
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearAll()
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void sortChildren()
+	{
+		throw frozen();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (!(object instanceof FrozenTreeNode))
+		{
+			return false;
+		}
+		final FrozenTreeNode<?, ?> other = (FrozenTreeNode<?, ?>)object;
+		return tree == other.tree && index == other.index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode()
+	{
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "FrozenTreeNode(index=" + index + ")";
+	}
+}
@@ -29,6 +29,7 @@ import java.util.LinkedHashSet;
 
 import io.github.astrapi69.design.pattern.visitor.Visitor;
 import io.github.astrapi69.gen.tree.api.ITreeNode;
+import io.github.astrapi69.gen.tree.collection.IdentityLinkedSet;
 import lombok.NonNull;
 
 /**
@@ -59,6 +60,31 @@ public class TreeNodeVisitorHandlerExtensions
 		return allTreeNodes;
 	}
 
+	/**
+	 * Traverse the given {@link ITreeNode} object and add all descendants with the given
+	 * {@link ITreeNode} object included in to the returned {@link Collection} object that compares
+	 * the nodes by identity. In contrast to {@link #traverse(ITreeNode)} no node is hashed, so the
+	 * traversal does not depend on the size of the values or on the depth of the tree, and
+	 * distinct nodes that are equal are all contained
+	 *
+	 * @param <V>
+	 *            the generic type of the value
+	 * @param <T>
+	 *            the generic type of the concrete tree node
+	 * @param treeNode
+	 *            the tree node
+	 *
+	 * @return a {@link Collection} object with the given {@link ITreeNode} object and add all
+	 *         descendants
+	 */
+	public static <V, T extends ITreeNode<V, T>> Collection<T> traverseByIdentity(
+		final @NonNull T treeNode)
+	{
+		final Collection<T> allTreeNodes = new IdentityLinkedSet<>();
+		treeNode.accept(allTreeNodes::add);
+		return allTreeNodes;
+	}
+
 	/**
 	 * Accepts the given visitor that provides a custom algorithm for processing all elements
 	 *
@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.intern;
+
+import lombok.Getter;
+
+/**
+ * The class {@link TreeValueInterner} bundles a {@link ValueInterner} for the values and a
+ * {@link ValueInterner} for the display values of the nodes of a tree. Trees with many repeated
+ * values share one instance of every distinct value and display value, if the tree builders, the
+ * converters and the setters of the nodes intern them with this interner
+ *
+ * @param <V>
+ *            the generic type of the value
+ */
+@Getter
+public class TreeValueInterner<V>
+{
+
+	/** The interner for the values */
+	private final ValueInterner<V> valueInterner = new ValueInterner<>();
+
+	/** The interner for the display values */
+	private final ValueInterner<String> displayValueInterner = new ValueInterner<>();
+
+	/**
+	 * Gets the canonical instance of the given value
+	 *
+	 * @param value
+	 *            the value
+	 * @return the canonical instance or null if the given value is null
+	 */
+	public V internValue(final V value)
+	{
+		return valueInterner.intern(value);
+	}
+
+	/**
+	 * Gets the canonical instance of the given display value
+	 *
+	 * @param displayValue
+	 *            the display value
+	 * @return the canonical instance or null if the given display value is null
+	 */
+	public String internDisplayValue(final String displayValue)
+	{
+		return displayValueInterner.intern(displayValue);
+	}
+
+	/**
+	 * Gets the ratio of the deduplicated requests to all requests of both interners
+	 *
+	 * @return the dedup ratio between 0 and 1 or 0 if no request was made
+	 */
+	public double getDedupRatio()
+	{
+		final long requestCount = valueInterner.getRequestCount()
+			+ displayValueInterner.getRequestCount();
+		final long dedupCount = valueInterner.getDedupCount()
+			+ displayValueInterner.getDedupCount();
+		return requestCount == 0 ? 0 : dedupCount / (double)requestCount;
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.intern;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The class {@link ValueInterner} canonicalizes equal objects to one shared instance. The
+ * canonical instances are only weakly referenced, so an instance that is not used anymore is
+ * garbage collected and removed from this interner. The interner counts the requests and the
+ * deduplicated requests, so the gain of the interning can be measured with
+ * {@link #getDedupRatio()}. The interned objects have to be immutable or at least must not change
+ * their {@link Object#equals(Object)} and {@link Object#hashCode()} results. All methods are
+ * thread safe
+ *
+ * @param <T>
+ *            the generic type of the interned objects
+ */
+public class ValueInterner<T>
+{
+
+	/** The canonical instances with the weakly referenced canonical instance itself as key */
+	private final Map<T, WeakReference<T>> canonicals = new WeakHashMap<>();
+
+	/** The number of the intern requests with a value that is not null */
+	private long requestCount;
+
+	/** The number of the intern requests that returned an existing canonical instance */
+	private long dedupCount;
+
+	/**
+	 * Gets the canonical instance that is equal to the given value. If no canonical instance
+	 * exists the given value becomes the canonical instance
+	 *
+	 * @param value
+	 *            the value
+	 * @return the canonical instance or null if the given value is null
+	 */
+	public synchronized T intern(final T value)
+	{
+		if (value == null)
+		{
+			return null;
+		}
+		requestCount++;
+		final WeakReference<T> reference = canonicals.get(value);
+		final T canonical = reference == null ? null : reference.get();
+		if (canonical != null)
+		{
+			dedupCount++;
+			return canonical;
+		}
+		canonicals.put(value, new WeakReference<>(value));
+		return value;
+	}
+
+	/**
+	 * Gets the number of the canonical instances that are still referenced
+	 *
+	 * @return the number of the canonical instances
+	 */
+	public synchronized int size()
+	{
+		return canonicals.size();
+	}
+
+	/**
+	 * Gets the number of the intern requests with a value that is not null
+	 *
+	 * @return the number of the intern requests
+	 */
+	public synchronized long getRequestCount()
+	{
+		return requestCount;
+	}
+
+	/**
+	 * Gets the number of the intern requests that returned an existing canonical instance instead
+	 * of the given value
+	 *
+	 * @return the number of the deduplicated requests
+	 */
+	public synchronized long getDedupCount()
+	{
+		return dedupCount;
+	}
+
+	/**
+	 * Gets the ratio of the deduplicated requests to all requests
+	 *
+	 * @return the dedup ratio between 0 and 1 or 0 if no request was made
+	 */
+	public synchronized double getDedupRatio()
+	{
+		return requestCount == 0 ? 0 : dedupCount / (double)requestCount;
+	}
+
+	/**
+	 * Resets the request statistics, the canonical instances are kept
+	 */
+	public synchronized void resetStatistics()
+	{
+		requestCount = 0;
+		dedupCount = 0;
+	}
+
+	/**
+	 * Removes all canonical instances and resets the request statistics
+	 */
+	public synchronized void clear()
+	{
+		canonicals.clear();
+		resetStatistics();
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.journal;
+
+/**
+ * The enum {@link JournalRecordType} defines the operations that are logged by a
+ * {@link TreeJournal}. The code is the first byte of the payload of a journal record
+ */
+public enum JournalRecordType
+{
+
+	/** A child with its subtree was added to a parent */
+	ADD_CHILD(1),
+
+	/** A child was removed from its parent */
+	REMOVE_CHILD(2),
+
+	/** A node was moved to a new parent */
+	MOVE(3),
+
+	/** The value of a node was changed */
+	SET_VALUE(4),
+
+	/** The id of a node was changed */
+	SET_ID(5),
+
+	/** The display value of a node was changed */
+	SET_DISPLAY_VALUE(6),
+
+	/** The leaf flag of a node was changed */
+	SET_LEAF(7);
+
+	/** The code of the record type */
+	private final int code;
+
+	JournalRecordType(final int code)
+	{
+		this.code = code;
+	}
+
+	/**
+	 * Gets the code of the record type
+	 *
+	 * @return the code
+	 */
+	public int getCode()
+	{
+		return code;
+	}
+
+	/**
+	 * Gets the record type of the given code
+	 *
+	 * @param code
+	 *            the code
+	 * @return the record type or null if the given code is unknown
+	 */
+	public static JournalRecordType of(final int code)
+	{
+		for (JournalRecordType type : values())
+		{
+			if (type.code == code)
+			{
+				return type;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,1165 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.api.IBaseTreeNodeListener;
+import io.github.astrapi69.gen.tree.codec.BaseTreeNodeBinaryCodec;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeInput;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeOutput;
+import io.github.astrapi69.gen.tree.handler.ITreeNodeHandlerExtensions;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeJournal} makes a mutable {@link BaseTreeNode} tree durable without
+ * serializing the whole tree after every change. The journal is registered as listener on the root
+ * and appends every add, remove, move and change of a node as compact binary record to a log file
+ * in its directory. The records are collected in memory and written as group commit, the
+ * {@link FsyncPolicy} defines when they are forced to the storage device. Every record is framed
+ * with its length and a CRC32 checksum, so a torn record at the end of the log is detected and
+ * dropped on recovery
+ *
+ * <p>
+ * The directory contains the snapshot file and one log file per generation. A snapshot holds the
+ * generation of the first log file that has to be replayed onto it. A compaction switches to the
+ * log file of the next generation, writes the new snapshot in the background, replaces the old
+ * snapshot atomically and deletes the old log files. {@link #recover} reads the snapshot and
+ * replays all log files of the same or a newer generation
+ *
+ * <p>
+ * The nodes are referenced by their ids in the records, so the ids have to be unique and not null.
+ * Changes over the static methods of the handler classes or over {@link BaseTreeNode#setChildren}
+ * bypass the journal
+ *
+ * <p>
+ * The listener callbacks are notified after the tree is changed, so a change that can not be
+ * journaled, like a node without id or an I/O error of a group commit, does not throw out of the
+ * change. The failure is recorded, no further records are appended, because the tree and the
+ * journal have diverged, and the next {@link #commit()}, {@link #compactAsync(Executor)} or
+ * {@link #close()} throws an {@link IOException} with the failure as cause
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class TreeJournal<T, K>
+	implements
+		IBaseTreeNodeListener<T, K, BaseTreeNode<T, K>>,
+		Closeable
+{
+
+	/** The name of the snapshot file */
+	public static final String SNAPSHOT_FILE_NAME = "snapshot.bin";
+
+	/** The name of the temporary snapshot file during a compaction */
+	static final String SNAPSHOT_TEMP_FILE_NAME = "snapshot.bin.tmp";
+
+	/** The magic number at the start of the snapshot file */
+	static final int SNAPSHOT_MAGIC = 0x47544A53;
+
+	/** The pattern of the names of the log files */
+	private static final Pattern LOG_FILE_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+	/** The directory of the journal */
+	private final Path directory;
+
+	/** The root of the journaled tree */
+	private final BaseTreeNode<T, K> root;
+
+	/** The codec for the snapshots and the added subtrees */
+	private final BaseTreeNodeBinaryCodec<T, K> codec;
+
+	/** The fsync policy */
+	private final FsyncPolicy fsyncPolicy;
+
+	/** The number of records that triggers a group commit */
+	private final int groupCommitSize;
+
+	/** The bytes of the payload of the current record */
+	private final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+
+	/** The output over the payload bytes */
+	private final BinaryTreeOutput payload = new BinaryTreeOutput(
+		Channels.newChannel(payloadBytes), 4096);
+
+	/** The bytes of the framed records that are not committed yet */
+	private final ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream();
+
+	/** The output over the pending bytes */
+	private final BinaryTreeOutput pending = new BinaryTreeOutput(
+		Channels.newChannel(pendingBytes), 4096);
+
+	/** The checksum of the records */
+	private final CRC32 checksum = new CRC32();
+
+	/** The number of records that are not committed yet */
+	private int pendingRecords;
+
+	/** The generation of the current log file */
+	private long generation;
+
+	/** The channel of the current log file */
+	private FileChannel logChannel;
+
+	/** The running compaction or null */
+	private CompletableFuture<Void> runningCompaction;
+
+	/** The flag that indicates if this journal is closed */
+	private boolean closed;
+
+	/** The first failure of a journaled change or null */
+	private Exception failure;
+
+	/**
+	 * Instantiates a new {@link TreeJournal} object, opens the log file of the given generation
+	 * and registers the journal on the given root
+	 */
+	private TreeJournal(final Path directory, final BaseTreeNode<T, K> root,
+		final BaseTreeNodeBinaryCodec<T, K> codec, final FsyncPolicy fsyncPolicy,
+		final int groupCommitSize, final long generation) throws IOException
+	{
+		if (groupCommitSize < 1)
+		{
+			throw new IllegalArgumentException("groupCommitSize must be positive");
+		}
+		if (root.hasParent())
+		{
+			throw new IllegalArgumentException("The journaled node must be a root");
+		}
+		this.directory = directory;
+		this.root = root;
+		this.codec = codec;
+		this.fsyncPolicy = fsyncPolicy;
+		this.groupCommitSize = groupCommitSize;
+		this.generation = generation;
+		this.logChannel = openLog(directory, generation);
+		root.addTreeNodeListener(this);
+	}
+
+	/**
+	 * Creates a new journal for the given tree in the given directory. The initial snapshot of the
+	 * tree is written immediately
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param directory
+	 *            the directory of the journal, it must not contain a journal yet
+	 * @param root
+	 *            the root of the tree to journal
+	 * @param codec
+	 *            the codec for the snapshots and the added subtrees
+	 * @param fsyncPolicy
+	 *            the fsync policy
+	 * @param groupCommitSize
+	 *            the number of records that triggers a group commit
+	 * @return the new {@link TreeJournal} object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the directory already contains a
+	 *             journal
+	 */
+	public static <T, K> TreeJournal<T, K> create(final @NonNull Path directory,
+		final @NonNull BaseTreeNode<T, K> root, final @NonNull BaseTreeNodeBinaryCodec<T, K> codec,
+		final @NonNull FsyncPolicy fsyncPolicy, final int groupCommitSize) throws IOException
+	{
+		Files.createDirectories(directory);
+		if (Files.exists(directory.resolve(SNAPSHOT_FILE_NAME)))
+		{
+			throw new IOException("The directory " + directory + " already contains a journal");
+		}
+		writeSnapshot(directory, encodeSnapshot(root, codec, 0L));
+		return new TreeJournal<>(directory, root, codec, fsyncPolicy, groupCommitSize, 0L);
+	}
+
+	/**
+	 * Recovers the tree from the journal in the given directory. The snapshot is read and all log
+	 * files of the same or a newer generation are replayed in order. A torn record at the end of
+	 * the last log file is dropped and the log file is truncated
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param directory
+	 *            the directory of the journal
+	 * @param codec
+	 *            the codec for the snapshots and the added subtrees
+	 * @param fsyncPolicy
+	 *            the fsync policy of the recovered journal
+	 * @param groupCommitSize
+	 *            the number of records that triggers a group commit
+	 * @return the recovered {@link TreeJournal} object, the tree is available over
+	 *         {@link #getRoot()}
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the journal is corrupt
+	 */
+	public static <T, K> TreeJournal<T, K> recover(final @NonNull Path directory,
+		final @NonNull BaseTreeNodeBinaryCodec<T, K> codec, final @NonNull FsyncPolicy fsyncPolicy,
+		final int groupCommitSize) throws IOException
+	{
+		final BaseTreeNode<T, K> root;
+		final long snapshotGeneration;
+		try (FileChannel channel = FileChannel.open(directory.resolve(SNAPSHOT_FILE_NAME),
+			StandardOpenOption.READ))
+		{
+			final BinaryTreeInput input = new BinaryTreeInput(channel);
+			if (input.readInt() != SNAPSHOT_MAGIC)
+			{
+				throw new IOException("The directory " + directory + " contains no journal snapshot");
+			}
+			snapshotGeneration = input.readVarLong();
+			root = codec.read(input);
+		}
+		Files.deleteIfExists(directory.resolve(SNAPSHOT_TEMP_FILE_NAME));
+		deleteLogs(directory, snapshotGeneration);
+		final List<Long> generations = listLogGenerations(directory);
+		final Map<K, BaseTreeNode<T, K>> index = new HashMap<>();
+		putSubtree(index, root);
+		for (int i = 0; i < generations.size(); i++)
+		{
+			final boolean last = i == generations.size() - 1;
+			replay(directory, generations.get(i), root, index, codec, last);
+		}
+		final long generation = generations.isEmpty()
+			? snapshotGeneration
+			: generations.get(generations.size() - 1);
+		return new TreeJournal<>(directory, root, codec, fsyncPolicy, groupCommitSize, generation);
+	}
+
+	/**
+	 * Gets the root of the journaled tree
+	 *
+	 * @return the root
+	 */
+	public BaseTreeNode<T, K> getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * Gets the generation of the current log file
+	 *
+	 * @return the generation
+	 */
+	public synchronized long getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Gets the number of records that are not committed yet
+	 *
+	 * @return the number of pending records
+	 */
+	public synchronized int getPendingRecords()
+	{
+		return pendingRecords;
+	}
+
+	/**
+	 * Writes all pending records to the log file and forces them to the storage device if the
+	 * fsync policy requires it
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or a change could not be journaled
+	 */
+	public synchronized void commit() throws IOException
+	{
+		ensureOpen();
+		ensureNoFailure();
+		pending.flush();
+		if (pendingBytes.size() == 0)
+		{
+			return;
+		}
+		final ByteBuffer buffer = ByteBuffer.wrap(pendingBytes.toByteArray());
+		while (buffer.hasRemaining())
+		{
+			logChannel.write(buffer);
+		}
+		pendingBytes.reset();
+		pendingRecords = 0;
+		if (fsyncPolicy != FsyncPolicy.NONE)
+		{
+			logChannel.force(false);
+		}
+	}
+
+	/**
+	 * Compacts the journal synchronously
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @see #compactAsync(Executor)
+	 */
+	public void compact() throws IOException
+	{
+		try
+		{
+			compactAsync(Runnable::run).join();
+		}
+		catch (CompletionException exception)
+		{
+			if (exception.getCause() instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException)exception.getCause()).getCause();
+			}
+			throw exception;
+		}
+	}
+
+	/**
+	 * Compacts the journal. The journal switches to the log file of the next generation and takes
+	 * a structural copy of the tree in the calling thread, so the tree must not be changed
+	 * concurrently. The copy shares the values with the tree, which are replaced and not changed
+	 * by the journaled changes. The copy is encoded as new snapshot, written, atomically installed
+	 * and the old log files are deleted with the given executor, so later changes of the tree do
+	 * not wait for the encoding. If a compaction is already running, its future is returned
+	 *
+	 * @param executor
+	 *            the executor for encoding and writing the snapshot
+	 * @return the future of the compaction
+	 */
+	public synchronized CompletableFuture<Void> compactAsync(final @NonNull Executor executor)
+	{
+		if (runningCompaction != null && !runningCompaction.isDone())
+		{
+			return runningCompaction;
+		}
+		final long nextGeneration = generation + 1;
+		final BaseTreeNode<T, K> snapshotRoot;
+		try
+		{
+			commit();
+			logChannel.force(false);
+			final FileChannel nextLogChannel = openLog(directory, nextGeneration);
+			logChannel.close();
+			logChannel = nextLogChannel;
+			generation = nextGeneration;
+			snapshotRoot = root.copy();
+		}
+		catch (IOException exception)
+		{
+			return CompletableFuture.failedFuture(new UncheckedIOException(exception));
+		}
+		runningCompaction = CompletableFuture.runAsync(() -> {
+			try
+			{
+				writeSnapshot(directory, encodeSnapshot(snapshotRoot, codec, nextGeneration));
+				deleteLogs(directory, nextGeneration);
+			}
+			catch (IOException exception)
+			{
+				throw new UncheckedIOException(exception);
+			}
+		}, executor);
+		return runningCompaction;
+	}
+
+	/**
+	 * Commits all pending records, waits for a running compaction, closes the log file and
+	 * unregisters the journal from the root
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or a change could not be journaled
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		final CompletableFuture<Void> compaction;
+		synchronized (this)
+		{
+			if (closed)
+			{
+				return;
+			}
+			compaction = runningCompaction;
+		}
+		if (compaction != null)
+		{
+			try
+			{
+				compaction.join();
+			}
+			catch (CompletionException exception)
+			{
+				// the old snapshot and the old log files are still valid
+			}
+		}
+		synchronized (this)
+		{
+			root.removeTreeNodeListener(this);
+			try
+			{
+				commit();
+				logChannel.force(false);
+			}
+			finally
+			{
+				closed = true;
+				logChannel.close();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onChildAdded(final BaseTreeNode<T, K> parent, final BaseTreeNode<T, K> child)
+	{
+		final int position = positionOf(parent, child);
+		append(output -> {
+			output.writeByte(JournalRecordType.ADD_CHILD.getCode());
+			writeReference(parent, output);
+			output.writeZigZagLong(position);
+			codec.writeTree(child, output);
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onChildRemoved(final BaseTreeNode<T, K> parent, final BaseTreeNode<T, K> child)
+	{
+		append(output -> {
+			output.writeByte(JournalRecordType.REMOVE_CHILD.getCode());
+			writeReference(parent, output);
+			writeReference(child, output);
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onMoved(final BaseTreeNode<T, K> treeNode, final BaseTreeNode<T, K> oldParent,
+		final BaseTreeNode<T, K> newParent)
+	{
+		if (oldParent == null)
+		{
+			if (newParent == null)
+			{
+				return;
+			}
+			if (treeNode == root)
+			{
+				fail(new IllegalStateException(
+					"The journaled root can not be attached to another tree"));
+				return;
+			}
+			// a detached node re-enters the tree, it is not known on replay and is journaled
+			// with its whole subtree
+			onChildAdded(newParent, treeNode);
+			return;
+		}
+		append(output -> {
+			output.writeByte(JournalRecordType.MOVE.getCode());
+			writeReference(treeNode, output);
+			output.writeBoolean(newParent != null);
+			if (newParent != null)
+			{
+				writeReference(newParent, output);
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onValueChanged(final BaseTreeNode<T, K> treeNode, final T oldValue)
+	{
+		final T value = treeNode.getValue();
+		append(output -> {
+			output.writeByte(JournalRecordType.SET_VALUE.getCode());
+			writeReference(treeNode, output);
+			output.writeBoolean(value != null);
+			if (value != null)
+			{
+				codec.getValueCodec().encode(value, output);
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onIdChanged(final BaseTreeNode<T, K> treeNode, final K oldId)
+	{
+		final K id = treeNode.getId();
+		if (oldId == null || id == null)
+		{
+			fail(new IllegalStateException("A journaled node needs an id"));
+			return;
+		}
+		append(output -> {
+			output.writeByte(JournalRecordType.SET_ID.getCode());
+			codec.getIdCodec().encode(oldId, output);
+			codec.getIdCodec().encode(id, output);
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onDisplayValueChanged(final BaseTreeNode<T, K> treeNode,
+		final String oldDisplayValue)
+	{
+		final String displayValue = treeNode.getDisplayValue();
+		append(output -> {
+			output.writeByte(JournalRecordType.SET_DISPLAY_VALUE.getCode());
+			writeReference(treeNode, output);
+			output.writeBoolean(displayValue != null);
+			if (displayValue != null)
+			{
+				output.writeString(displayValue);
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onLeafChanged(final BaseTreeNode<T, K> treeNode)
+	{
+		final boolean leaf = treeNode.isLeaf();
+		append(output -> {
+			output.writeByte(JournalRecordType.SET_LEAF.getCode());
+			writeReference(treeNode, output);
+			output.writeBoolean(leaf);
+		});
+	}
+
+	/**
+	 * Gets the position of the given child in the iteration order of the children of the given
+	 * parent
+	 *
+	 * @param parent
+	 *            the parent
+	 * @param child
+	 *            the child
+	 * @return the position or -1 if the parent does not contain the child
+	 */
+	private int positionOf(final BaseTreeNode<T, K> parent, final BaseTreeNode<T, K> child)
+	{
+		int position = 0;
+		for (final BaseTreeNode<T, K> current : parent.getChildren())
+		{
+			if (current == child)
+			{
+				return position;
+			}
+			position++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Writes the id of the given node as reference
+	 *
+	 * @param treeNode
+	 *            the referenced node
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeReference(final BaseTreeNode<T, K> treeNode, final BinaryTreeOutput output)
+		throws IOException
+	{
+		if (treeNode.getId() == null)
+		{
+			throw new IllegalStateException("A journaled node needs an id");
+		}
+		codec.getIdCodec().encode(treeNode.getId(), output);
+	}
+
+	/**
+	 * Appends a record with the payload of the given writer and commits if the group is full. A
+	 * failure is recorded and not thrown, because the tree is already changed
+	 *
+	 * @param payloadWriter
+	 *            the writer of the payload
+	 */
+	private synchronized void append(final PayloadWriter payloadWriter)
+	{
+		if (failure != null || closed)
+		{
+			return;
+		}
+		try
+		{
+			payloadBytes.reset();
+			payloadWriter.write(payload);
+			payload.flush();
+			final byte[] bytes = payloadBytes.toByteArray();
+			checksum.reset();
+			checksum.update(bytes);
+			pending.writeVarInt(bytes.length);
+			pending.writeInt((int)checksum.getValue());
+			pending.writeRawBytes(bytes, 0, bytes.length);
+			pendingRecords++;
+			if (fsyncPolicy == FsyncPolicy.EVERY_RECORD || groupCommitSize <= pendingRecords)
+			{
+				commit();
+			}
+		}
+		catch (IOException | RuntimeException exception)
+		{
+			fail(exception);
+		}
+	}
+
+	/**
+	 * Records the given failure of a journaled change, the first failure is kept
+	 *
+	 * @param exception
+	 *            the failure
+	 */
+	private synchronized void fail(final Exception exception)
+	{
+		if (failure == null)
+		{
+			failure = exception;
+		}
+	}
+
+	/**
+	 * Checks that no journaled change has failed
+	 *
+	 * @throws IOException
+	 *             if a journaled change has failed
+	 */
+	private void ensureNoFailure() throws IOException
+	{
+		if (failure != null)
+		{
+			throw new IOException("The journal diverged from the tree after a failed change",
+				failure);
+		}
+	}
+
+	/**
+	 * Checks that this journal is not closed
+	 *
+	 * @throws IOException
+	 *             if this journal is closed
+	 */
+	private void ensureOpen() throws IOException
+	{
+		if (closed)
+		{
+			throw new IOException("The journal is closed");
+		}
+	}
+
+	/**
+	 * Replays the log file of the given generation onto the given tree
+	 *
+	 * @param directory
+	 *            the directory of the journal
+	 * @param generation
+	 *            the generation of the log file
+	 * @param root
+	 *            the root of the tree
+	 * @param index
+	 *            the nodes of the tree with the id as key
+	 * @param codec
+	 *            the codec for the added subtrees
+	 * @param last
+	 *            the flag that indicates if the log file is the last one, only the last log file
+	 *            can have a torn record at the end
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the log file is corrupt
+	 */
+	private static <T, K> void replay(final Path directory, final long generation,
+		final BaseTreeNode<T, K> root, final Map<K, BaseTreeNode<T, K>> index,
+		final BaseTreeNodeBinaryCodec<T, K> codec, final boolean last) throws IOException
+	{
+		final Path logFile = directory.resolve(logFileName(generation));
+		final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile));
+		final CRC32 checksum = new CRC32();
+		while (buffer.hasRemaining())
+		{
+			final int recordStart = buffer.position();
+			final int length = readFrameLength(buffer);
+			if (length <= 0 || buffer.remaining() < Integer.BYTES + length)
+			{
+				buffer.position(recordStart);
+				break;
+			}
+			final int expectedChecksum = buffer.getInt();
+			final byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			checksum.reset();
+			checksum.update(bytes);
+			if ((int)checksum.getValue() != expectedChecksum)
+			{
+				buffer.position(recordStart);
+				break;
+			}
+			apply(bytes, index, codec);
+		}
+		if (buffer.hasRemaining())
+		{
+			if (!last)
+			{
+				throw new IOException("The log file " + logFile + " is corrupt");
+			}
+			try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE))
+			{
+				channel.truncate(buffer.position());
+				channel.force(true);
+			}
+		}
+	}
+
+	/**
+	 * Reads the length of a record frame as variable length integer
+	 *
+	 * @param buffer
+	 *            the buffer to read from
+	 * @return the length or -1 if the length is torn
+	 */
+	private static int readFrameLength(final ByteBuffer buffer)
+	{
+		int length = 0;
+		for (int shift = 0; shift < 32 && buffer.hasRemaining(); shift += 7)
+		{
+			final int current = buffer.get();
+			length |= (current & 0x7F) << shift;
+			if ((current & 0x80) == 0)
+			{
+				return length;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Applies the record with the given payload onto the tree
+	 *
+	 * @param bytes
+	 *            the payload of the record
+	 * @param index
+	 *            the nodes of the tree with the id as key
+	 * @param codec
+	 *            the codec for the added subtrees
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the record is corrupt
+	 */
+	private static <T, K> void apply(final byte[] bytes, final Map<K, BaseTreeNode<T, K>> index,
+		final BaseTreeNodeBinaryCodec<T, K> codec) throws IOException
+	{
+		final BinaryTreeInput input = new BinaryTreeInput(ByteBuffer.wrap(bytes));
+		final int code = input.readByte();
+		final JournalRecordType type = JournalRecordType.of(code);
+		if (type == null)
+		{
+			throw new IOException("Unknown journal record type " + code);
+		}
+		switch (type)
+		{
+			case ADD_CHILD :
+			{
+				final BaseTreeNode<T, K> parent = resolve(input, index, codec);
+				final int position = (int)input.readZigZagLong();
+				final BaseTreeNode<T, K> child = codec.readTree(input);
+				insertChild(parent, child, position);
+				putSubtree(index, child);
+				break;
+			}
+			case REMOVE_CHILD :
+			{
+				final BaseTreeNode<T, K> parent = resolve(input, index, codec);
+				final BaseTreeNode<T, K> child = resolve(input, index, codec);
+				removeSubtree(index, child);
+				ITreeNodeHandlerExtensions.removeChild(parent, child);
+				break;
+			}
+			case MOVE :
+			{
+				final BaseTreeNode<T, K> treeNode = resolve(input, index, codec);
+				final BaseTreeNode<T, K> newParent = input.readBoolean()
+					? resolve(input, index, codec)
+					: null;
+				if (newParent == null)
+				{
+					removeSubtree(index, treeNode);
+				}
+				treeNode.move(newParent);
+				break;
+			}
+			case SET_VALUE :
+			{
+				final BaseTreeNode<T, K> treeNode = resolve(input, index, codec);
+				treeNode.setValue(input.readBoolean() ? codec.getValueCodec().decode(input) : null);
+				break;
+			}
+			case SET_ID :
+			{
+				final BaseTreeNode<T, K> treeNode = resolve(input, index, codec);
+				final K id = codec.getIdCodec().decode(input);
+				index.remove(treeNode.getId());
+				treeNode.setId(id);
+				index.put(id, treeNode);
+				break;
+			}
+			case SET_DISPLAY_VALUE :
+			{
+				final BaseTreeNode<T, K> treeNode = resolve(input, index, codec);
+				treeNode.setDisplayValue(input.readBoolean() ? input.readString() : null);
+				break;
+			}
+			case SET_LEAF :
+			{
+				final BaseTreeNode<T, K> treeNode = resolve(input, index, codec);
+				treeNode.setLeaf(input.readBoolean());
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Adds the given child to the given parent at the given position of the iteration order of the
+	 * children. The children of a sorted parent keep their sort order, the children of a parent
+	 * that are not held in a list are reordered
+	 *
+	 * @param parent
+	 *            the parent
+	 * @param child
+	 *            the child to add
+	 * @param position
+	 *            the position of the child or -1 to append it
+	 */
+	private static <T, K> void insertChild(final BaseTreeNode<T, K> parent,
+		final BaseTreeNode<T, K> child, final int position)
+	{
+		if (position < 0 || parent.getChildren() instanceof SortedSet)
+		{
+			ITreeNodeHandlerExtensions.addChild(parent, child);
+			return;
+		}
+		if (parent.getChildren() instanceof List)
+		{
+			ITreeNodeHandlerExtensions.addChild(parent, child, position);
+			return;
+		}
+		ITreeNodeHandlerExtensions.addChild(parent, child);
+		final Collection<BaseTreeNode<T, K>> children = parent.getChildren();
+		final List<BaseTreeNode<T, K>> ordered = new ArrayList<>(children);
+		final int last = ordered.size() - 1;
+		if (position < last && ordered.get(last) == child)
+		{
+			ordered.remove(last);
+			ordered.add(position, child);
+			children.clear();
+			children.addAll(ordered);
+		}
+	}
+
+	/**
+	 * Reads a reference and resolves the referenced node
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @param index
+	 *            the nodes of the tree with the id as key
+	 * @param codec
+	 *            the codec for the ids
+	 * @return the referenced node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the referenced node does not exist
+	 */
+	private static <T, K> BaseTreeNode<T, K> resolve(final BinaryTreeInput input,
+		final Map<K, BaseTreeNode<T, K>> index, final BaseTreeNodeBinaryCodec<T, K> codec)
+		throws IOException
+	{
+		final K id = codec.getIdCodec().decode(input);
+		final BaseTreeNode<T, K> treeNode = index.get(id);
+		if (treeNode == null)
+		{
+			throw new IOException("The journal references the unknown id " + id);
+		}
+		return treeNode;
+	}
+
+	/**
+	 * Puts all nodes of the subtree of the given node in the given index
+	 *
+	 * @param index
+	 *            the nodes of the tree with the id as key
+	 * @param subtreeRoot
+	 *            the root of the subtree
+	 */
+	private static <T, K> void putSubtree(final Map<K, BaseTreeNode<T, K>> index,
+		final BaseTreeNode<T, K> subtreeRoot)
+	{
+		final Deque<BaseTreeNode<T, K>> stack = new ArrayDeque<>();
+		stack.push(subtreeRoot);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<T, K> current = stack.pop();
+			index.put(current.getId(), current);
+			if (current.hasChildren())
+			{
+				current.getChildren().forEach(stack::push);
+			}
+		}
+	}
+
+	/**
+	 * Removes all nodes of the subtree of the given node from the given index
+	 *
+	 * @param index
+	 *            the nodes of the tree with the id as key
+	 * @param subtreeRoot
+	 *            the root of the subtree
+	 */
+	private static <T, K> void removeSubtree(final Map<K, BaseTreeNode<T, K>> index,
+		final BaseTreeNode<T, K> subtreeRoot)
+	{
+		final Deque<BaseTreeNode<T, K>> stack = new ArrayDeque<>();
+		stack.push(subtreeRoot);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<T, K> current = stack.pop();
+			index.remove(current.getId());
+			if (current.hasChildren())
+			{
+				current.getChildren().forEach(stack::push);
+			}
+		}
+	}
+
+	/**
+	 * Encodes the snapshot of the given tree with the given generation
+	 *
+	 * @param root
+	 *            the root of the tree
+	 * @param codec
+	 *            the codec for the tree
+	 * @param generation
+	 *            the generation of the first log file to replay onto the snapshot
+	 * @return the bytes of the snapshot
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private static <T, K> byte[] encodeSnapshot(final BaseTreeNode<T, K> root,
+		final BaseTreeNodeBinaryCodec<T, K> codec, final long generation) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final BinaryTreeOutput output = new BinaryTreeOutput(Channels.newChannel(bytes));
+		output.writeInt(SNAPSHOT_MAGIC);
+		output.writeVarLong(generation);
+		codec.write(root, output);
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes the given snapshot to a temporary file, forces it to the storage device and replaces
+	 * the snapshot file atomically
+	 *
+	 * @param directory
+	 *            the directory of the journal
+	 * @param snapshot
+	 *            the bytes of the snapshot
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private static void writeSnapshot(final Path directory, final byte[] snapshot)
+		throws IOException
+	{
+		final Path tempFile = directory.resolve(SNAPSHOT_TEMP_FILE_NAME);
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			final ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(tempFile, directory.resolve(SNAPSHOT_FILE_NAME),
+			StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		// the rename and the new log file are durable before the old log files are deleted
+		forceDirectory(directory);
+	}
+
+	/**
+	 * Forces the entries of the given directory to the storage device
+	 *
+	 * @param directory
+	 *            the directory
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private static void forceDirectory(final Path directory) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ))
+		{
+			channel.force(true);
+		}
+		catch (AccessDeniedException exception)
+		{
+			// some platforms like Windows can not open a directory, the rename is durable there
+			// without forcing the directory
+		}
+	}
+
+	/**
+	 * Opens the log file of the given generation for appending
+	 *
+	 * @param directory
+	 *            the directory of the journal
+	 * @param generation
+	 *            the generation
+	 * @return the channel of the log file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private static FileChannel openLog(final Path directory, final long generation)
+		throws IOException
+	{
+		return FileChannel.open(directory.resolve(logFileName(generation)),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Gets the name of the log file of the given generation
+	 *
+	 * @param generation
+	 *            the generation
+	 * @return the name of the log file
+	 */
+	static String logFileName(final long generation)
+	{
+		return "journal-" + generation + ".log";
+	}
+
+	/**
+	 * Lists the generations of the existing log files in ascending order
+	 *
+	 * @param directory
+	 *            the directory of the journal
+	 * @return the generations
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private static List<Long> listLogGenerations(final Path directory) throws IOException
+	{
+		final List<Long> generations = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory))
+		{
+			files.forEach(file -> {
+				final Matcher matcher = LOG_FILE_NAME.matcher(file.getFileName().toString());
+				if (matcher.matches())
+				{
+					generations.add(Long.parseLong(matcher.group(1)));
+				}
+			});
+		}
+		Collections.sort(generations);
+		return generations;
+	}
+
+	/**
+	 * Deletes the log files with a generation lower than the given generation
+	 *
+	 * @param directory
+	 *            the directory of the journal
+	 * @param generation
+	 *            the lowest generation to keep
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private static void deleteLogs(final Path directory, final long generation)
+		throws IOException
+	{
+		for (long oldGeneration : listLogGenerations(directory))
+		{
+			if (oldGeneration < generation)
+			{
+				Files.deleteIfExists(directory.resolve(logFileName(oldGeneration)));
+			}
+		}
+	}
+
+	/**
+	 * The interface {@link PayloadWriter} writes the payload of a record
+	 */
+	@FunctionalInterface
+	private interface PayloadWriter
+	{
+
+		/**
+		 * Writes the payload to the given output
+		 *
+		 * @param output
+		 *            the output to write to
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void write(BinaryTreeOutput output) throws IOException;
+	}
+}
@@ -0,0 +1,478 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.layout;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Function;
+
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeLayout} holds the nodes of a tree in the order of a {@link TreeLayoutOrder}
+ * with the layout position of the parent and the number of children of every node. A relayout
+ * allocates its new nodes in the order of the layout positions, so a parent is always allocated
+ * before its children and the children can be appended to their parent in the order of their
+ * layout positions. The order is computed iteratively over primitive child and sibling links, so
+ * also degenerated deep trees are supported
+ *
+ * @param <N>
+ *            the generic type of the node
+ */
+public final class TreeLayout<N>
+{
+
+	/** The index that indicates no node */
+	public static final int NO_NODE = -1;
+
+	/** The nodes in the layout order */
+	private final Object[] nodes;
+
+	/** The layout positions of the parents, the root has no parent */
+	private final int[] parentPositions;
+
+	/** The number of children of the nodes */
+	private final int[] childCounts;
+
+	/**
+	 * Instantiates a new {@link TreeLayout} object
+	 *
+	 * @param nodes
+	 *            the nodes in the layout order
+	 * @param parentPositions
+	 *            the layout positions of the parents
+	 * @param childCounts
+	 *            the number of children of the nodes
+	 */
+	private TreeLayout(final Object[] nodes, final int[] parentPositions, final int[] childCounts)
+	{
+		this.nodes = nodes;
+		this.parentPositions = parentPositions;
+		this.childCounts = childCounts;
+	}
+
+	/**
+	 * Factory method for create a new {@link TreeLayout} object of the tree of the given root
+	 *
+	 * @param <N>
+	 *            the generic type of the node
+	 * @param root
+	 *            the root of the tree
+	 * @param childrenFunction
+	 *            the function that gets the children of a node in their order or null if the node
+	 *            has no children
+	 * @param order
+	 *            the layout order
+	 * @return the new {@link TreeLayout} object
+	 */
+	public static <N> TreeLayout<N> of(final @NonNull N root,
+		final @NonNull Function<N, ? extends Collection<N>> childrenFunction,
+		final @NonNull TreeLayoutOrder order)
+	{
+		// flatten the tree in pre-order into primitive links
+		Object[] preOrder = new Object[16];
+		int[] parents = new int[16];
+		int[] firstChildren = new int[16];
+		int[] nextSiblings = new int[16];
+		int[] lastChildren = new int[16];
+		int[] indexStack = new int[16];
+		int depth = 0;
+		int size = 0;
+		final Deque<Iterator<N>> stack = new ArrayDeque<>();
+		preOrder[size] = root;
+		parents[size] = NO_NODE;
+		firstChildren[size] = NO_NODE;
+		nextSiblings[size] = NO_NODE;
+		lastChildren[size] = NO_NODE;
+		size++;
+		final Collection<N> rootChildren = childrenFunction.apply(root);
+		if (rootChildren != null && !rootChildren.isEmpty())
+		{
+			stack.push(rootChildren.iterator());
+			indexStack[depth++] = 0;
+		}
+		while (!stack.isEmpty())
+		{
+			final Iterator<N> children = stack.peek();
+			if (!children.hasNext())
+			{
+				stack.pop();
+				depth--;
+				continue;
+			}
+			final N child = children.next();
+			if (size == preOrder.length)
+			{
+				final int capacity = size << 1;
+				preOrder = Arrays.copyOf(preOrder, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+				firstChildren = Arrays.copyOf(firstChildren, capacity);
+				nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+				lastChildren = Arrays.copyOf(lastChildren, capacity);
+			}
+			final int index = size++;
+			final int parent = indexStack[depth - 1];
+			preOrder[index] = child;
+			parents[index] = parent;
+			firstChildren[index] = NO_NODE;
+			nextSiblings[index] = NO_NODE;
+			lastChildren[index] = NO_NODE;
+			if (lastChildren[parent] == NO_NODE)
+			{
+				firstChildren[parent] = index;
+			}
+			else
+			{
+				nextSiblings[lastChildren[parent]] = index;
+			}
+			lastChildren[parent] = index;
+			final Collection<N> grandChildren = childrenFunction.apply(child);
+			if (grandChildren != null && !grandChildren.isEmpty())
+			{
+				if (depth == indexStack.length)
+				{
+					indexStack = Arrays.copyOf(indexStack, depth << 1);
+				}
+				stack.push(grandChildren.iterator());
+				indexStack[depth++] = index;
+			}
+		}
+		final int[] sequence = order(0, firstChildren, nextSiblings, size, order);
+		final int[] positions = lastChildren;
+		for (int position = 0; position < size; position++)
+		{
+			positions[sequence[position]] = position;
+		}
+		final Object[] nodes = new Object[size];
+		final int[] parentPositions = new int[size];
+		final int[] childCounts = new int[size];
+		for (int position = 0; position < size; position++)
+		{
+			final int index = sequence[position];
+			nodes[position] = preOrder[index];
+			final int parent = parents[index];
+			parentPositions[position] = parent == NO_NODE ? NO_NODE : positions[parent];
+			if (parent != NO_NODE)
+			{
+				childCounts[positions[parent]]++;
+			}
+		}
+		return new TreeLayout<>(nodes, parentPositions, childCounts);
+	}
+
+	/**
+	 * Computes the layout order of the tree of the given root, that is given as primitive links
+	 * from a node to its first child and from a node to its next sibling
+	 *
+	 * @param root
+	 *            the index of the root
+	 * @param firstChildren
+	 *            the index of the first child of every node or {@link #NO_NODE}
+	 * @param nextSiblings
+	 *            the index of the next sibling of every node or {@link #NO_NODE}
+	 * @param size
+	 *            the number of the nodes of the tree of the given root
+	 * @param order
+	 *            the layout order
+	 * @return the indexes of the nodes in the layout order
+	 */
+	public static int[] order(final int root, final @NonNull int[] firstChildren,
+		final @NonNull int[] nextSiblings, final int size, final @NonNull TreeLayoutOrder order)
+	{
+		final int[] sequence = new int[size];
+		switch (order)
+		{
+			case DEPTH_FIRST :
+				depthFirst(root, firstChildren, nextSiblings, sequence);
+				break;
+			case BREADTH_FIRST :
+				breadthFirst(root, firstChildren, nextSiblings, sequence);
+				break;
+			default :
+				vanEmdeBoas(root, height(root, firstChildren, nextSiblings, size), firstChildren,
+					nextSiblings, sequence, 0);
+				break;
+		}
+		return sequence;
+	}
+
+	/**
+	 * Writes the nodes in depth first pre-order into the given sequence
+	 *
+	 * @param root
+	 *            the index of the root
+	 * @param firstChildren
+	 *            the first child links
+	 * @param nextSiblings
+	 *            the next sibling links
+	 * @param sequence
+	 *            the target sequence
+	 */
+	private static void depthFirst(final int root, final int[] firstChildren,
+		final int[] nextSiblings, final int[] sequence)
+	{
+		// the stack holds the next siblings to continue with after a subtree
+		int[] stack = new int[16];
+		int stackSize = 0;
+		int position = 0;
+		int node = root;
+		while (node != NO_NODE)
+		{
+			sequence[position++] = node;
+			final int next = node == root ? NO_NODE : nextSiblings[node];
+			if (firstChildren[node] != NO_NODE)
+			{
+				if (next != NO_NODE)
+				{
+					if (stackSize == stack.length)
+					{
+						stack = Arrays.copyOf(stack, stackSize << 1);
+					}
+					stack[stackSize++] = next;
+				}
+				node = firstChildren[node];
+			}
+			else if (next != NO_NODE)
+			{
+				node = next;
+			}
+			else
+			{
+				node = stackSize == 0 ? NO_NODE : stack[--stackSize];
+			}
+		}
+	}
+
+	/**
+	 * Writes the nodes in breadth first level order into the given sequence, the sequence itself
+	 * is the queue of the traversal
+	 *
+	 * @param root
+	 *            the index of the root
+	 * @param firstChildren
+	 *            the first child links
+	 * @param nextSiblings
+	 *            the next sibling links
+	 * @param sequence
+	 *            the target sequence
+	 */
+	private static void breadthFirst(final int root, final int[] firstChildren,
+		final int[] nextSiblings, final int[] sequence)
+	{
+		int tail = 0;
+		sequence[tail++] = root;
+		for (int head = 0; head < tail; head++)
+		{
+			int child = firstChildren[sequence[head]];
+			for (; child != NO_NODE; child = nextSiblings[child])
+			{
+				sequence[tail++] = child;
+			}
+		}
+	}
+
+	/**
+	 * Computes the number of the levels of the tree of the given root
+	 *
+	 * @param root
+	 *            the index of the root
+	 * @param firstChildren
+	 *            the first child links
+	 * @param nextSiblings
+	 *            the next sibling links
+	 * @param size
+	 *            the number of the nodes
+	 * @return the number of the levels
+	 */
+	private static int height(final int root, final int[] firstChildren, final int[] nextSiblings,
+		final int size)
+	{
+		final int[] queue = new int[size];
+		int tail = 0;
+		int levels = 0;
+		queue[tail++] = root;
+		int head = 0;
+		while (head < tail)
+		{
+			final int levelEnd = tail;
+			levels++;
+			for (; head < levelEnd; head++)
+			{
+				int child = firstChildren[queue[head]];
+				for (; child != NO_NODE; child = nextSiblings[child])
+				{
+					queue[tail++] = child;
+				}
+			}
+		}
+		return levels;
+	}
+
+	/**
+	 * Writes the nodes of the given number of levels of the subtree of the given root in van Emde
+	 * Boas order into the given sequence. The recursion halves the number of levels, so its depth
+	 * is logarithmic in the height of the tree
+	 *
+	 * @param root
+	 *            the index of the root of the subtree
+	 * @param levels
+	 *            the number of the levels to lay out
+	 * @param firstChildren
+	 *            the first child links
+	 * @param nextSiblings
+	 *            the next sibling links
+	 * @param sequence
+	 *            the target sequence
+	 * @param position
+	 *            the next free position in the sequence
+	 * @return the next free position in the sequence
+	 */
+	private static int vanEmdeBoas(final int root, final int levels, final int[] firstChildren,
+		final int[] nextSiblings, final int[] sequence, int position)
+	{
+		if (levels == 1 || firstChildren[root] == NO_NODE)
+		{
+			sequence[position++] = root;
+			return position;
+		}
+		final int topLevels = levels >>> 1;
+		position = vanEmdeBoas(root, topLevels, firstChildren, nextSiblings, sequence, position);
+		final int[] bottomRoots = nodesAtDepth(root, topLevels, firstChildren, nextSiblings);
+		for (final int bottomRoot : bottomRoots)
+		{
+			position = vanEmdeBoas(bottomRoot, levels - topLevels, firstChildren, nextSiblings,
+				sequence, position);
+		}
+		return position;
+	}
+
+	/**
+	 * Collects the nodes of the subtree of the given root that have the given depth relative to
+	 * the root from left to right
+	 *
+	 * @param root
+	 *            the index of the root of the subtree
+	 * @param depth
+	 *            the relative depth, that is at least 1
+	 * @param firstChildren
+	 *            the first child links
+	 * @param nextSiblings
+	 *            the next sibling links
+	 * @return the indexes of the nodes with the given depth
+	 */
+	private static int[] nodesAtDepth(final int root, final int depth, final int[] firstChildren,
+		final int[] nextSiblings)
+	{
+		int[] result = new int[4];
+		int resultSize = 0;
+		int[] nodeStack = new int[16];
+		int[] depthStack = new int[16];
+		int stackSize = 0;
+		nodeStack[stackSize] = firstChildren[root];
+		depthStack[stackSize++] = 1;
+		while (stackSize != 0)
+		{
+			final int node = nodeStack[--stackSize];
+			final int nodeDepth = depthStack[stackSize];
+			if (node == NO_NODE)
+			{
+				continue;
+			}
+			if (stackSize + 2 > nodeStack.length)
+			{
+				nodeStack = Arrays.copyOf(nodeStack, nodeStack.length << 1);
+				depthStack = Arrays.copyOf(depthStack, depthStack.length << 1);
+			}
+			// the next sibling is continued after the subtree of this node
+			nodeStack[stackSize] = nextSiblings[node];
+			depthStack[stackSize++] = nodeDepth;
+			if (nodeDepth == depth)
+			{
+				if (resultSize == result.length)
+				{
+					result = Arrays.copyOf(result, resultSize << 1);
+				}
+				result[resultSize++] = node;
+			}
+			else
+			{
+				nodeStack[stackSize] = firstChildren[node];
+				depthStack[stackSize++] = nodeDepth + 1;
+			}
+		}
+		return Arrays.copyOf(result, resultSize);
+	}
+
+	/**
+	 * Gets the number of the nodes
+	 *
+	 * @return the number of the nodes
+	 */
+	public int size()
+	{
+		return nodes.length;
+	}
+
+	/**
+	 * Gets the node at the given layout position
+	 *
+	 * @param position
+	 *            the layout position
+	 * @return the node
+	 */
+	@SuppressWarnings("unchecked")
+	public N getNode(final int position)
+	{
+		return (N)nodes[position];
+	}
+
+	/**
+	 * Gets the layout position of the parent of the node at the given layout position. The
+	 * parent position is always smaller than the given position
+	 *
+	 * @param position
+	 *            the layout position
+	 * @return the layout position of the parent or {@link #NO_NODE} for the root
+	 */
+	public int getParentPosition(final int position)
+	{
+		return parentPositions[position];
+	}
+
+	/**
+	 * Gets the number of the children of the node at the given layout position
+	 *
+	 * @param position
+	 *            the layout position
+	 * @return the number of the children
+	 */
+	public int getChildCount(final int position)
+	{
+		return childCounts[position];
+	}
+}
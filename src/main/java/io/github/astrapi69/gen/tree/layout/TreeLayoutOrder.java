@@ -0,0 +1,52 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.layout;
+
+/**
+ * The enum {@link TreeLayoutOrder} defines the order in that the nodes of a tree are allocated by a
+ * relayout, so the nodes that are visited one after the other by a traversal lie close together in
+ * the memory. In all orders a parent precedes its children and the siblings keep their order
+ */
+public enum TreeLayoutOrder
+{
+
+	/**
+	 * The depth first pre-order, that fits the depth first traversals and the subtree scans
+	 */
+	DEPTH_FIRST,
+
+	/**
+	 * The breadth first level order, that fits the level order traversals and the scans of the
+	 * children of a node
+	 */
+	BREADTH_FIRST,
+
+	/**
+	 * The van Emde Boas blocked order, that cuts the tree at the half of its height and lays out
+	 * the top part and then every bottom part recursively. So every root to leaf path crosses only
+	 * a few blocks of any size, without the knowledge of the cache line or the page size
+	 */
+	VAN_EMDE_BOAS
+}
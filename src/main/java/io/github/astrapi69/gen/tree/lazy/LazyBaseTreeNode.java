@@ -0,0 +1,441 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.lazy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.api.IBaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link LazyBaseTreeNode} is a node of a {@link LazyBaseTreeNodeView}. It holds only the
+ * id and reads and writes all other fields through the corresponding {@link TreeIdNode} object of
+ * the view. The parent and the children are resolved on demand over the ids. Two
+ * {@link LazyBaseTreeNode} objects are equal if they belong to the same view and have the same id
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class LazyBaseTreeNode<T, K> implements IBaseTreeNode<T, K, LazyBaseTreeNode<T, K>>
+{
+
+	/** The view of this node */
+	private final LazyBaseTreeNodeView<T, K> view;
+
+	/** The id of this node */
+	private K id;
+
+	/**
+	 * Instantiates a new {@link LazyBaseTreeNode} object
+	 *
+	 * @param view
+	 *            the view of this node
+	 * @param id
+	 *            the id of this node
+	 */
+	LazyBaseTreeNode(final LazyBaseTreeNodeView<T, K> view, final K id)
+	{
+		this.view = view;
+		this.id = id;
+	}
+
+	/**
+	 * Gets the {@link TreeIdNode} object of this node
+	 *
+	 * @return the {@link TreeIdNode} object
+	 * @throws IllegalStateException
+	 *             if this node is not contained in the map of the view anymore
+	 */
+	public TreeIdNode<T, K> getTreeIdNode()
+	{
+		final TreeIdNode<T, K> treeIdNode = view.getTreeIdNode(id);
+		if (treeIdNode == null)
+		{
+			throw new IllegalStateException("No entry found for the id " + id);
+		}
+		return treeIdNode;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public K getId()
+	{
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the view already contains a node with the given id
+	 */
+	@Override
+	public void setId(final K id)
+	{
+		if (!Objects.equals(this.id, id))
+		{
+			getTreeIdNode();
+			view.rekey(this, this.id, id);
+			this.id = id;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T getValue()
+	{
+		return getTreeIdNode().getValue();
+	}
+
+	/**
+	 * Sets the value and writes it through to the map of the view
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void setValue(final T value)
+	{
+		final TreeIdNode<T, K> treeIdNode = getTreeIdNode();
+		treeIdNode.setValue(value);
+		view.write(treeIdNode);
+	}
+
+	/**
+	 * Gets the display value from the map of the view
+	 *
+	 * @return the display value
+	 */
+	public String getDisplayValue()
+	{
+		return getTreeIdNode().getDisplayValue();
+	}
+
+	/**
+	 * Sets the display value and writes it through to the map of the view
+	 *
+	 * @param displayValue
+	 *            the display value
+	 */
+	public void setDisplayValue(final String displayValue)
+	{
+		final TreeIdNode<T, K> treeIdNode = getTreeIdNode();
+		treeIdNode.setDisplayValue(displayValue);
+		view.write(treeIdNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaf()
+	{
+		return getTreeIdNode().isLeaf();
+	}
+
+	/**
+	 * Sets the leaf flag and writes it through to the map of the view
+	 *
+	 * @param leaf
+	 *            the flag that indicates if this node is a leaf
+	 */
+	public void setLeaf(final boolean leaf)
+	{
+		final TreeIdNode<T, K> treeIdNode = getTreeIdNode();
+		treeIdNode.setLeaf(leaf);
+		view.write(treeIdNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LazyBaseTreeNode<T, K> getParent()
+	{
+		return view.getNode(getTreeIdNode().getParentId());
+	}
+
+	/**
+	 * Sets the parent and updates the children ids of the old and the new parent
+	 *
+	 * @param parent
+	 *            the new parent or null if this node will be a root
+	 */
+	@Override
+	public void setParent(final LazyBaseTreeNode<T, K> parent)
+	{
+		final TreeIdNode<T, K> treeIdNode = getTreeIdNode();
+		final K oldParentId = treeIdNode.getParentId();
+		final K newParentId = parent != null ? parent.getId() : null;
+		if (Objects.equals(oldParentId, newParentId))
+		{
+			return;
+		}
+		final TreeIdNode<T, K> oldParent = view.getTreeIdNode(oldParentId);
+		if (oldParent != null)
+		{
+			oldParent.getChildrenIds().remove(id);
+			view.write(oldParent);
+		}
+		treeIdNode.setParentId(newParentId);
+		view.write(treeIdNode);
+		final TreeIdNode<T, K> newParent = view.getTreeIdNode(newParentId);
+		if (newParent != null)
+		{
+			newParent.getChildrenIds().add(id);
+			view.write(newParent);
+		}
+	}
+
+	/**
+	 * Gets the children that are resolved over the children ids. The returned {@link List} object
+	 * is a snapshot, changes of the children are done with the methods of this node like
+	 * {@link #addChild(LazyBaseTreeNode, int)}
+	 *
+	 * @return a new {@link List} object with the children
+	 */
+	@Override
+	public Collection<LazyBaseTreeNode<T, K>> getChildren()
+	{
+		final Set<K> childrenIds = getTreeIdNode().getChildrenIds();
+		final List<LazyBaseTreeNode<T, K>> children = new ArrayList<>(childrenIds.size());
+		for (K childId : childrenIds)
+		{
+			final LazyBaseTreeNode<T, K> child = view.getNode(childId);
+			if (child != null)
+			{
+				children.add(child);
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Adds the given child at the given index of the children ids and writes the change through to
+	 * the map of the view. The child is removed from its old parent, a child of this node is moved
+	 * to the given index
+	 *
+	 * @param child
+	 *            the child to add
+	 * @param index
+	 *            the index of the child
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is negative or greater than the number of children
+	 */
+	@Override
+	public void addChild(final LazyBaseTreeNode<T, K> child, final int index)
+	{
+		final int childCount = getChildCount();
+		if (index < 0 || childCount < index)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + childCount);
+		}
+		if (child == null || !isNode())
+		{
+			return;
+		}
+		child.setParent(this);
+		final TreeIdNode<T, K> treeIdNode = getTreeIdNode();
+		final List<K> childrenIds = new ArrayList<>(treeIdNode.getChildrenIds());
+		childrenIds.remove(child.getId());
+		childrenIds.add(Math.min(index, childrenIds.size()), child.getId());
+		treeIdNode.getChildrenIds().clear();
+		treeIdNode.getChildrenIds().addAll(childrenIds);
+		view.write(treeIdNode);
+	}
+
+	/**
+	 * Sets the children, the removed children will be roots and the new children are removed from
+	 * their old parents
+	 *
+	 * @param children
+	 *            the new children
+	 */
+	public void setChildren(final Collection<LazyBaseTreeNode<T, K>> children)
+	{
+		final Set<K> newChildrenIds = new LinkedHashSet<>();
+		if (children != null)
+		{
+			children.forEach(child -> newChildrenIds.add(child.getId()));
+		}
+		for (K childId : new ArrayList<>(getTreeIdNode().getChildrenIds()))
+		{
+			if (!newChildrenIds.contains(childId))
+			{
+				view.getNode(childId).setParent(null);
+			}
+		}
+		if (children != null)
+		{
+			children.forEach(child -> child.setParent(this));
+		}
+		final TreeIdNode<T, K> treeIdNode = getTreeIdNode();
+		treeIdNode.getChildrenIds().clear();
+		treeIdNode.getChildrenIds().addAll(newChildrenIds);
+		view.write(treeIdNode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildCount()
+	{
+		return getTreeIdNode().getChildrenIds().size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasChildren()
+	{
+		return !getTreeIdNode().getChildrenIds().isEmpty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasParent()
+	{
+		return getTreeIdNode().getParentId() != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRoot()
+	{
+		return !hasParent();
+	}
+
+	/**
+	 * Removes the given child. In difference to the other tree nodes the subtree of the given child
+	 * is kept, so the child becomes the root of its subtree in the map of the view
+	 *
+	 * @param child
+	 *            the child to remove
+	 */
+	@Override
+	public void removeChild(final LazyBaseTreeNode<T, K> child)
+	{
+		if (child != null && Objects.equals(child.getTreeIdNode().getParentId(), id))
+		{
+			child.setParent(null);
+		}
+	}
+
+	/**
+	 * Removes all children with {@link #removeChild(LazyBaseTreeNode)}, so their subtrees are kept
+	 */
+	@Override
+	public void clearChildren()
+	{
+		removeChildren();
+	}
+
+	/**
+	 * Removes all children with {@link #removeChild(LazyBaseTreeNode)}, so their subtrees are kept
+	 */
+	@Override
+	public void removeChildren()
+	{
+		removeChildren(new ArrayList<>(getChildren()));
+	}
+
+	/**
+	 * Removes the given children with {@link #removeChild(LazyBaseTreeNode)}, so their subtrees
+	 * are kept
+	 *
+	 * @param children
+	 *            the children to remove
+	 */
+	@Override
+	public void removeChildren(final @NonNull Collection<LazyBaseTreeNode<T, K>> children)
+	{
+		children.forEach(this::removeChild);
+	}
+
+	/**
+	 * The children are sorted by the order of the children ids, so this method does nothing
+	 */
+	@Override
+	public void sortChildren()
+	{
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (!(object instanceof LazyBaseTreeNode))
+		{
+			return false;
+		}
+		final LazyBaseTreeNode<?, ?> other = (LazyBaseTreeNode<?, ?>)object;
+		return view == other.view && Objects.equals(id, other.id);
+	}
+
+	/**
+	 * Computes the hash code from the first id of the entry in the view, so the hash code of a
+	 * node does not change with {@link #setId(Object)} and a node in a hashed collection is still
+	 * found after its id is changed
+	 *
+	 * @return the hash code
+	 */
+	@Override
+	public int hashCode()
+	{
+		return Objects.hashCode(view.getOriginalId(id));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "LazyBaseTreeNode(id=" + id + ")";
+	}
+}
@@ -0,0 +1,490 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.lazy;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link LazyBaseTreeNodeView} is a lazy tree view on top of a {@link Map} object with
+ * the id as key and the corresponding {@link TreeIdNode} objects. The nodes of the view are
+ * {@link LazyBaseTreeNode} objects that are materialized only on demand and that resolve their
+ * parent and their children over the ids. The materialized nodes are cached with the configured
+ * {@link CacheEvictionPolicy}. Because a {@link LazyBaseTreeNode} object holds only the id, an
+ * evicted node is simply materialized again on the next access. The map stays the only source of
+ * truth and all changes are written back with {@link Map#put(Object, Object)}, so also store backed
+ * maps can be used
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class LazyBaseTreeNodeView<T, K>
+{
+
+	/** The default maximum cache size for the {@link CacheEvictionPolicy#LRU} policy */
+	public static final int DEFAULT_MAX_CACHE_SIZE = 1024;
+
+	/** The map with the {@link TreeIdNode} objects */
+	private final Map<K, TreeIdNode<T, K>> treeIdNodeMap;
+
+	/** The eviction policy of the cache */
+	private final CacheEvictionPolicy evictionPolicy;
+
+	/** The cache for the policies {@link CacheEvictionPolicy#UNBOUNDED} and LRU */
+	private final Map<K, LazyBaseTreeNode<T, K>> cache;
+
+	/** The cache for the policy {@link CacheEvictionPolicy#WEAK} */
+	private final Map<K, KeyedWeakReference<K, LazyBaseTreeNode<T, K>>> weakCache;
+
+	/** The queue with the collected nodes of the weak cache */
+	private final ReferenceQueue<LazyBaseTreeNode<T, K>> collectedNodes = new ReferenceQueue<>();
+
+	/** The first ids of the entries whose id was changed with the current id as key */
+	private final Map<K, K> originalIds = new HashMap<>();
+
+	/**
+	 * Instantiates a new {@link LazyBaseTreeNodeView} object with the
+	 * {@link CacheEvictionPolicy#LRU} policy and the default maximum cache size
+	 *
+	 * @param treeIdNodeMap
+	 *            the map with the {@link TreeIdNode} objects
+	 */
+	public LazyBaseTreeNodeView(final @NonNull Map<K, TreeIdNode<T, K>> treeIdNodeMap)
+	{
+		this(treeIdNodeMap, CacheEvictionPolicy.LRU, DEFAULT_MAX_CACHE_SIZE);
+	}
+
+	/**
+	 * Instantiates a new {@link LazyBaseTreeNodeView} object
+	 *
+	 * @param treeIdNodeMap
+	 *            the map with the {@link TreeIdNode} objects
+	 * @param evictionPolicy
+	 *            the eviction policy of the cache
+	 * @param maxCacheSize
+	 *            the maximum number of cached nodes, only used for the
+	 *            {@link CacheEvictionPolicy#LRU} policy
+	 */
+	public LazyBaseTreeNodeView(final @NonNull Map<K, TreeIdNode<T, K>> treeIdNodeMap,
+		final @NonNull CacheEvictionPolicy evictionPolicy, final int maxCacheSize)
+	{
+		if (evictionPolicy == CacheEvictionPolicy.LRU && maxCacheSize < 1)
+		{
+			throw new IllegalArgumentException("maxCacheSize must be positive");
+		}
+		this.treeIdNodeMap = treeIdNodeMap;
+		this.evictionPolicy = evictionPolicy;
+		switch (evictionPolicy)
+		{
+			case UNBOUNDED :
+				this.cache = new HashMap<>();
+				this.weakCache = null;
+				break;
+			case LRU :
+				this.cache = new LinkedHashMap<>(16, 0.75f, true)
+				{
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected boolean removeEldestEntry(
+						final Map.Entry<K, LazyBaseTreeNode<T, K>> eldest)
+					{
+						return size() > maxCacheSize;
+					}
+				};
+				this.weakCache = null;
+				break;
+			case WEAK :
+				this.cache = null;
+				this.weakCache = new HashMap<>();
+				break;
+			default :
+				this.cache = null;
+				this.weakCache = null;
+		}
+	}
+
+	/**
+	 * Gets the eviction policy of the cache
+	 *
+	 * @return the eviction policy
+	 */
+	public CacheEvictionPolicy getEvictionPolicy()
+	{
+		return evictionPolicy;
+	}
+
+	/**
+	 * Gets the number of the currently cached nodes
+	 *
+	 * @return the number of cached nodes
+	 */
+	public int getCachedNodeCount()
+	{
+		if (cache != null)
+		{
+			return cache.size();
+		}
+		if (weakCache != null)
+		{
+			expungeCollectedNodes();
+			return weakCache.size();
+		}
+		return 0;
+	}
+
+	/**
+	 * Removes all nodes from the cache
+	 */
+	public void clearCache()
+	{
+		if (cache != null)
+		{
+			cache.clear();
+		}
+		if (weakCache != null)
+		{
+			weakCache.clear();
+		}
+	}
+
+	/**
+	 * Gets the materialized node with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return the {@link LazyBaseTreeNode} object or null if the given id is not in the map
+	 */
+	public LazyBaseTreeNode<T, K> getNode(final K id)
+	{
+		if (id == null || !treeIdNodeMap.containsKey(id))
+		{
+			return null;
+		}
+		LazyBaseTreeNode<T, K> node = getCached(id);
+		if (node == null)
+		{
+			node = new LazyBaseTreeNode<>(this, id);
+			putCached(id, node);
+		}
+		return node;
+	}
+
+	/**
+	 * Gets the root node. The root is searched over the id graph from any entry of the map, the
+	 * search stops at a parent id that is not in the map
+	 *
+	 * @return the root {@link LazyBaseTreeNode} object or null if the map is empty
+	 * @throws IllegalStateException
+	 *             if the parent ids contain a cycle
+	 */
+	public LazyBaseTreeNode<T, K> getRoot()
+	{
+		if (treeIdNodeMap.isEmpty())
+		{
+			return null;
+		}
+		K id = treeIdNodeMap.keySet().iterator().next();
+		final Set<K> visited = new HashSet<>();
+		visited.add(id);
+		K parentId;
+		while ((parentId = treeIdNodeMap.get(id).getParentId()) != null
+			&& treeIdNodeMap.containsKey(parentId))
+		{
+			if (!visited.add(parentId))
+			{
+				throw new IllegalStateException(
+					"The parent ids contain a cycle at the id " + parentId);
+			}
+			id = parentId;
+		}
+		return getNode(id);
+	}
+
+	/**
+	 * Traverses the subtree of the given id in pre-order over the id graph and performs the given
+	 * action for every {@link TreeIdNode} object. Null children ids are treated as no children and
+	 * an id that is already visited over a cycle of the children ids is skipped. No
+	 * {@link LazyBaseTreeNode} object is materialized
+	 *
+	 * @param id
+	 *            the id of the subtree root
+	 * @param action
+	 *            the action to perform
+	 */
+	public void traverse(final K id, final @NonNull Consumer<TreeIdNode<T, K>> action)
+	{
+		final Deque<K> stack = new ArrayDeque<>();
+		final Set<K> visited = new HashSet<>();
+		stack.push(id);
+		while (!stack.isEmpty())
+		{
+			final K currentId = stack.pop();
+			final TreeIdNode<T, K> treeIdNode = treeIdNodeMap.get(currentId);
+			if (treeIdNode == null || !visited.add(currentId))
+			{
+				continue;
+			}
+			action.accept(treeIdNode);
+			if (treeIdNode.getChildrenIds() == null)
+			{
+				continue;
+			}
+			final List<K> childrenIds = new ArrayList<>(treeIdNode.getChildrenIds());
+			for (int i = childrenIds.size() - 1; 0 <= i; i--)
+			{
+				stack.push(childrenIds.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Gets the ids of the subtree of the given id in pre-order over the id graph
+	 *
+	 * @param id
+	 *            the id of the subtree root
+	 * @return a new {@link List} object with the ids of the subtree
+	 */
+	public List<K> getSubtreeIds(final K id)
+	{
+		final List<K> subtreeIds = new ArrayList<>();
+		traverse(id, treeIdNode -> subtreeIds.add(treeIdNode.getId()));
+		return subtreeIds;
+	}
+
+	/**
+	 * Gets the {@link TreeIdNode} object with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return the {@link TreeIdNode} object or null if not found
+	 */
+	TreeIdNode<T, K> getTreeIdNode(final K id)
+	{
+		return id == null ? null : treeIdNodeMap.get(id);
+	}
+
+	/**
+	 * Writes the given {@link TreeIdNode} object back to the map
+	 *
+	 * @param treeIdNode
+	 *            the {@link TreeIdNode} object
+	 */
+	void write(final TreeIdNode<T, K> treeIdNode)
+	{
+		treeIdNodeMap.put(treeIdNode.getId(), treeIdNode);
+	}
+
+	/**
+	 * Gets the first id of the entry with the given id. The first id does not change with
+	 * {@link LazyBaseTreeNode#setId(Object)}, so it is used for the hash code of the nodes
+	 *
+	 * @param id
+	 *            the current id
+	 * @return the first id of the entry
+	 */
+	K getOriginalId(final K id)
+	{
+		return originalIds.isEmpty() ? id : originalIds.getOrDefault(id, id);
+	}
+
+	/**
+	 * Changes the key of the entry with the given old id to the given new id
+	 *
+	 * @param node
+	 *            the node of the entry
+	 * @param oldId
+	 *            the old id
+	 * @param newId
+	 *            the new id
+	 * @throws IllegalArgumentException
+	 *             if the map already contains an entry with the new id
+	 */
+	void rekey(final LazyBaseTreeNode<T, K> node, final K oldId, final K newId)
+	{
+		if (treeIdNodeMap.containsKey(newId))
+		{
+			throw new IllegalArgumentException("The id " + newId + " is already used");
+		}
+		final K originalId = originalIds.containsKey(oldId) ? originalIds.remove(oldId) : oldId;
+		if (!Objects.equals(originalId, newId))
+		{
+			originalIds.put(newId, originalId);
+		}
+		final TreeIdNode<T, K> treeIdNode = treeIdNodeMap.remove(oldId);
+		treeIdNode.setId(newId);
+		write(treeIdNode);
+		removeCached(oldId);
+		putCached(newId, node);
+		final TreeIdNode<T, K> parent = getTreeIdNode(treeIdNode.getParentId());
+		// a parent that does not list the child keeps its children ids
+		if (parent != null && parent.getChildrenIds() != null
+			&& parent.getChildrenIds().contains(oldId))
+		{
+			final List<K> childrenIds = new ArrayList<>(parent.getChildrenIds());
+			childrenIds.set(childrenIds.indexOf(oldId), newId);
+			parent.getChildrenIds().clear();
+			parent.getChildrenIds().addAll(childrenIds);
+			write(parent);
+		}
+		if (treeIdNode.getChildrenIds() == null)
+		{
+			return;
+		}
+		for (K childId : treeIdNode.getChildrenIds())
+		{
+			final TreeIdNode<T, K> child = getTreeIdNode(childId);
+			if (child != null)
+			{
+				child.setParentId(newId);
+				write(child);
+			}
+		}
+	}
+
+	/**
+	 * Gets the cached node with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return the cached node or null
+	 */
+	private LazyBaseTreeNode<T, K> getCached(final K id)
+	{
+		if (cache != null)
+		{
+			return cache.get(id);
+		}
+		if (weakCache != null)
+		{
+			final KeyedWeakReference<K, LazyBaseTreeNode<T, K>> reference = weakCache.get(id);
+			return reference != null ? reference.get() : null;
+		}
+		return null;
+	}
+
+	/**
+	 * Puts the given node in the cache
+	 *
+	 * @param id
+	 *            the id
+	 * @param node
+	 *            the node
+	 */
+	private void putCached(final K id, final LazyBaseTreeNode<T, K> node)
+	{
+		if (cache != null)
+		{
+			cache.put(id, node);
+		}
+		if (weakCache != null)
+		{
+			expungeCollectedNodes();
+			weakCache.put(id, new KeyedWeakReference<>(id, node, collectedNodes));
+		}
+	}
+
+	/**
+	 * Removes the node with the given id from the cache
+	 *
+	 * @param id
+	 *            the id
+	 */
+	private void removeCached(final K id)
+	{
+		if (cache != null)
+		{
+			cache.remove(id);
+		}
+		if (weakCache != null)
+		{
+			weakCache.remove(id);
+		}
+	}
+
+	/**
+	 * Removes the entries of the collected nodes from the weak cache
+	 */
+	private void expungeCollectedNodes()
+	{
+		Reference<? extends LazyBaseTreeNode<T, K>> reference;
+		while ((reference = collectedNodes.poll()) != null)
+		{
+			final K key = ((KeyedWeakReference<K, ?>)reference).key;
+			if (weakCache.get(key) == reference)
+			{
+				weakCache.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * The class {@link KeyedWeakReference} is a weak reference that knows its key in the weak cache
+	 *
+	 * @param <K>
+	 *            the generic type of the key
+	 * @param <N>
+	 *            the generic type of the referent
+	 */
+	private static final class KeyedWeakReference<K, N> extends WeakReference<N>
+	{
+
+		/** The key in the weak cache */
+		private final K key;
+
+		/**
+		 * Instantiates a new {@link KeyedWeakReference} object
+		 *
+		 * @param key
+		 *            the key in the weak cache
+		 * @param referent
+		 *            the referent
+		 * @param queue
+		 *            the queue for the collected referents
+		 */
+		KeyedWeakReference(final K key, final N referent, final ReferenceQueue<? super N> queue)
+		{
+			super(referent, queue);
+			this.key = key;
+		}
+	}
+}
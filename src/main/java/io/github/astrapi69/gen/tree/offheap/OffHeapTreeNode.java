@@ -0,0 +1,520 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.offheap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import io.github.astrapi69.gen.tree.api.IBaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link OffHeapTreeNode} is a lightweight handle of a node in an
+ * {@link OffHeapTreeStore} that holds only the store and the index. All read methods decode the
+ * off heap record of the node on every call, the fields can be changed and the node can be moved
+ * and its children can be removed. Adding children is done with
+ * {@link OffHeapTreeStore#append(int, Object, Object)}, so the methods that add existing nodes
+ * throw an {@link UnsupportedOperationException}. Two {@link OffHeapTreeNode} objects are equal if
+ * they belong to the same store and have the same index
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class OffHeapTreeNode<T, K> implements IBaseTreeNode<T, K, OffHeapTreeNode<T, K>>
+{
+
+	/** The store of this node */
+	private final OffHeapTreeStore<T, K> store;
+
+	/** The index of this node */
+	private final int index;
+
+	/**
+	 * Instantiates a new {@link OffHeapTreeNode} object
+	 *
+	 * @param store
+	 *            the store of this node
+	 * @param index
+	 *            the index of this node
+	 */
+	OffHeapTreeNode(final OffHeapTreeStore<T, K> store, final int index)
+	{
+		this.store = store;
+		this.index = index;
+	}
+
+	/**
+	 * Gets the store of this node
+	 *
+	 * @return the store
+	 */
+	public OffHeapTreeStore<T, K> getStore()
+	{
+		return store;
+	}
+
+	/**
+	 * Gets the index of this node in the store
+	 *
+	 * @return the index
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public K getId()
+	{
+		return store.getId(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setId(final K id)
+	{
+		store.setId(index, id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T getValue()
+	{
+		return store.getValue(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setValue(final T value)
+	{
+		store.setValue(index, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getDisplayValue()
+	{
+		return store.getDisplayValue(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDisplayValue(final String displayValue)
+	{
+		store.setDisplayValue(index, displayValue);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaf()
+	{
+		return store.isLeaf(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setLeaf(final boolean leaf)
+	{
+		store.setLeaf(index, leaf);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public OffHeapTreeNode<T, K> getParent()
+	{
+		return store.getNode(store.getParent(index));
+	}
+
+	/**
+	 * Gets the children over the first child and the next sibling indexes
+	 *
+	 * @return an unmodifiable {@link List} object with the children
+	 */
+	@Override
+	public Collection<OffHeapTreeNode<T, K>> getChildren()
+	{
+		int child = store.getFirstChild(index);
+		if (child == OffHeapTreeStore.NO_NODE)
+		{
+			return Collections.emptyList();
+		}
+		final List<OffHeapTreeNode<T, K>> children = new ArrayList<>();
+		while (child != OffHeapTreeStore.NO_NODE)
+		{
+			children.add(new OffHeapTreeNode<>(store, child));
+			child = store.getNextSibling(child);
+		}
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildCount()
+	{
+		return store.getChildCount(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasChildren()
+	{
+		return store.getFirstChild(index) != OffHeapTreeStore.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasParent()
+	{
+		return store.getParent(index) != OffHeapTreeStore.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRoot()
+	{
+		return !hasParent();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getLevel()
+	{
+		int level = 0;
+		int ancestor = store.getParent(index);
+		while (ancestor != OffHeapTreeStore.NO_NODE)
+		{
+			level++;
+			ancestor = store.getParent(ancestor);
+		}
+		return level;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public OffHeapTreeNode<T, K> getNextSibling()
+	{
+		return store.getNode(store.getNextSibling(index));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNextSibling()
+	{
+		return store.getNextSibling(index) != OffHeapTreeStore.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public OffHeapTreeNode<T, K> getPreviousSibling()
+	{
+		return store.getNode(store.getPreviousSibling(index));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasPreviousSibling()
+	{
+		return store.getPreviousSibling(index) != OffHeapTreeStore.NO_NODE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildIndex(final OffHeapTreeNode<T, K> child)
+	{
+		if (child == null || child.store != store)
+		{
+			return -1;
+		}
+		int position = 0;
+		for (int current = store.getFirstChild(index); current != OffHeapTreeStore.NO_NODE;
+			current = store.getNextSibling(current))
+		{
+			if (current == child.index)
+			{
+				return position;
+			}
+			position++;
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Optional<OffHeapTreeNode<T, K>> getChildAt(final int position)
+	{
+		int child = store.getFirstChild(index);
+		for (int i = 0; i < position && child != OffHeapTreeStore.NO_NODE; i++)
+		{
+			child = store.getNextSibling(child);
+		}
+		return Optional.ofNullable(position < 0 ? null : store.getNode(child));
+	}
+
+	/**
+	 * Moves this node to the end of the children of the given new parent
+	 *
+	 * @param newParent
+	 *            the new parent of the same store
+	 * @return true, if this node was moved otherwise false
+	 */
+	@Override
+	public boolean move(final OffHeapTreeNode<T, K> newParent)
+	{
+		if (newParent == null || newParent.store != store)
+		{
+			return false;
+		}
+		return store.move(index, newParent.index);
+	}
+
+	/**
+	 * Deletes the given child with its descendants from the store
+	 *
+	 * @param child
+	 *            the child
+	 */
+	@Override
+	public void removeChild(final OffHeapTreeNode<T, K> child)
+	{
+		if (child != null && child.store == store && store.contains(child.index)
+			&& store.getParent(child.index) == index)
+		{
+			store.delete(child.index);
+		}
+	}
+
+	/**
+	 * Deletes the given children with their descendants from the store
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void removeChildren(final @NonNull Collection<OffHeapTreeNode<T, K>> children)
+	{
+		children.forEach(this::removeChild);
+	}
+
+	/**
+	 * Deletes all children with their descendants from the store
+	 */
+	@Override
+	public void removeChildren()
+	{
+		int child = store.getFirstChild(index);
+		while (child != OffHeapTreeStore.NO_NODE)
+		{
+			store.delete(child);
+			child = store.getFirstChild(index);
+		}
+	}
+
+	/**
+	 * Deletes all children with their descendants from the store
+	 */
+	@Override
+	public void clearChildren()
+	{
+		removeChildren();
+	}
+
+	/**
+	 * Deletes all children with their descendants from the store
+	 */
+	@Override
+	public void clearAll()
+	{
+		removeChildren();
+	}
+
+	/**
+	 * Throws an {@link UnsupportedOperationException}, because the nodes of an off heap store
+	 * are added with {@link OffHeapTreeStore#append(int, Object, Object)}
+	 *
+	 * @return never
+	 */
+	private static UnsupportedOperationException appendOnly()
+	{
+		return new UnsupportedOperationException(
+			"The nodes of an off heap store are added with OffHeapTreeStore#append");
+	}
+
+	/**
+	 * Not supported, use {@link #move(OffHeapTreeNode)}
+	 *
+	 * @param parent
+	 *            the parent
+	 */
+	@Override
+	public void setParent(final OffHeapTreeNode<T, K> parent)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of an off heap store are added with
+	 * {@link OffHeapTreeStore#append(int, Object, Object)}
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void setChildren(final Collection<OffHeapTreeNode<T, K>> children)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of an off heap store are added with
+	 * {@link OffHeapTreeStore#append(int, Object, Object)}
+	 *
+	 * @param child
+	 *            the child
+	 */
+	@Override
+	public void addChild(final OffHeapTreeNode<T, K> child)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of an off heap store are added with
+	 * {@link OffHeapTreeStore#append(int, Object, Object)}
+	 *
+	 * @param child
+	 *            the child
+	 * @param position
+	 *            the position
+	 */
+	@Override
+	public void addChild(final OffHeapTreeNode<T, K> child, final int position)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because the nodes of an off heap store are added with
+	 * {@link OffHeapTreeStore#append(int, Object, Object)}
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void addChildren(final @NonNull Collection<OffHeapTreeNode<T, K>> children)
+	{
+		throw appendOnly();
+	}
+
+	/**
+	 * Not supported, because an off heap store has no child comparator
+	 */
+	@Override
+	public void sortChildren()
+	{
+		throw new UnsupportedOperationException("An off heap store has no child comparator");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (!(object instanceof OffHeapTreeNode))
+		{
+			return false;
+		}
+		final OffHeapTreeNode<?, ?> other = (OffHeapTreeNode<?, ?>)object;
+		return store == other.store && index == other.index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode()
+	{
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "OffHeapTreeNode(index=" + index + ")";
+	}
+}
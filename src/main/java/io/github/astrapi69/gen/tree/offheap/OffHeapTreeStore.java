@@ -0,0 +1,1211 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.offheap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeInput;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeOutput;
+import io.github.astrapi69.gen.tree.codec.ValueCodec;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import lombok.NonNull;
+
+/**
+ * The class {@link OffHeapTreeStore} stores a tree outside of the java heap in direct
+ * {@link ByteBuffer} segments, so the garbage collector has to trace only the few segment buffers
+ * and not one object per node. Every node is a fixed size record with the parent, the first child,
+ * the next sibling and the previous sibling indexes and the location of its data, the previous
+ * sibling of a first child is the last child of the parent. The id, the value and the display
+ * value of a node are encoded with the given {@link ValueCodec} objects into the data segments,
+ * the data starts with the lengths of the encoded id and value, so every field can be decoded
+ * without the others
+ *
+ * <p>
+ * A changed id, value or display value is appended to the data segments and the old data becomes
+ * garbage. The data is compacted automatically as soon as the garbage is at least
+ * {@link #DATA_SEGMENT_SIZE} bytes and more than {@link #MAX_GARBAGE_RATIO} of the used data
+ * bytes, it can also be compacted explicitly with {@link #compactData()}. The indexes of deleted
+ * nodes are reused over a free list. The nodes can be accessed as lightweight
+ * {@link OffHeapTreeNode} handles. This class is not thread safe
+ *
+ * <p>
+ * The store has to be closed with {@link #close()}, after closing every access throws an
+ * {@link IllegalStateException}. The store uses direct {@link ByteBuffer} segments that can not be
+ * freed explicitly, so closing drops only the references to the segments and their memory is
+ * returned when the garbage collector collects the buffer objects
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class OffHeapTreeStore<T, K> implements Closeable
+{
+
+	/** The index that indicates no node */
+	public static final int NO_NODE = -1;
+
+	/** The size of a data segment in bytes */
+	public static final int DATA_SEGMENT_SIZE = 1 << 20;
+
+	/**
+	 * The ratio of the garbage to the used data bytes above that the data is compacted
+	 * automatically
+	 */
+	public static final double MAX_GARBAGE_RATIO = 0.5;
+
+	/** The number of node records of a node segment */
+	public static final int NODES_PER_SEGMENT = 1 << 13;
+
+	/** The size of a node record in bytes */
+	static final int RECORD_SIZE = 32;
+
+	/** The offset of the parent index in a node record */
+	private static final int PARENT = 0;
+
+	/** The offset of the first child index in a node record */
+	private static final int FIRST_CHILD = 4;
+
+	/** The offset of the next sibling index in a node record */
+	private static final int NEXT_SIBLING = 8;
+
+	/** The offset of the previous sibling index in a node record */
+	private static final int PREVIOUS_SIBLING = 12;
+
+	/** The offset of the flags in a node record */
+	private static final int FLAGS = 16;
+
+	/** The offset of the data segment number in a node record */
+	private static final int DATA_SEGMENT = 20;
+
+	/** The offset of the data offset in the data segment in a node record */
+	private static final int DATA_OFFSET = 24;
+
+	/** The offset of the data length in a node record */
+	private static final int DATA_LENGTH = 28;
+
+	/** The parent index of a free node record */
+	private static final int FREE = -2;
+
+	/** The flag that indicates a leaf */
+	private static final int FLAG_LEAF = 1;
+
+	/** The flag that indicates that the data contains an id */
+	private static final int FLAG_ID = 1 << 1;
+
+	/** The flag that indicates that the data contains a value */
+	private static final int FLAG_VALUE = 1 << 2;
+
+	/** The flag that indicates that the data contains a display value */
+	private static final int FLAG_DISPLAY_VALUE = 1 << 3;
+
+	/** The codec for the values */
+	private final ValueCodec<T> valueCodec;
+
+	/** The codec for the ids */
+	private final ValueCodec<K> idCodec;
+
+	/** The segments of the node records */
+	private List<ByteBuffer> nodeSegments = new ArrayList<>();
+
+	/** The segments of the node data */
+	private List<ByteBuffer> dataSegments = new ArrayList<>();
+
+	/** The stream that collects the encoded data of one node */
+	private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+
+	/** The output that encodes the data of one node */
+	private final BinaryTreeOutput encoder = new BinaryTreeOutput(Channels.newChannel(encoded),
+		256);
+
+	/** The number of used node records including the free records */
+	private int highWaterMark;
+
+	/** The head of the free list */
+	private int freeHead = NO_NODE;
+
+	/** The number of nodes */
+	private int size;
+
+	/** The index of the root */
+	private int root = NO_NODE;
+
+	/** The number of bytes of the data segments that belong to no node any more */
+	private long garbageBytes;
+
+	/** The number of bytes of the data segments that are used by the data of nodes or garbage */
+	private long usedBytes;
+
+	/** The flag that indicates if this store is closed */
+	private boolean closed;
+
+	/**
+	 * Instantiates a new empty {@link OffHeapTreeStore} object
+	 *
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 */
+	public OffHeapTreeStore(final @NonNull ValueCodec<T> valueCodec,
+		final @NonNull ValueCodec<K> idCodec)
+	{
+		this.valueCodec = valueCodec;
+		this.idCodec = idCodec;
+	}
+
+	/**
+	 * Creates a new {@link OffHeapTreeStore} object from the tree of the given root. The order of
+	 * the children is preserved and the pre-order of the given tree is the order of the indexes
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the tree
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 * @return the new {@link OffHeapTreeStore} object
+	 */
+	public static <T, K> OffHeapTreeStore<T, K> of(final @NonNull BaseTreeNode<T, K> root,
+		final @NonNull ValueCodec<T> valueCodec, final @NonNull ValueCodec<K> idCodec)
+	{
+		final OffHeapTreeStore<T, K> store = new OffHeapTreeStore<>(valueCodec, idCodec);
+		final Deque<Iterator<BaseTreeNode<T, K>>> stack = new ArrayDeque<>();
+		int[] indexStack = new int[16];
+		int depth = 0;
+		final int rootIndex = store.allocate(root);
+		store.root = rootIndex;
+		if (root.hasChildren())
+		{
+			stack.push(root.getChildren().iterator());
+			indexStack[depth++] = rootIndex;
+		}
+		while (!stack.isEmpty())
+		{
+			final Iterator<BaseTreeNode<T, K>> children = stack.peek();
+			if (!children.hasNext())
+			{
+				stack.pop();
+				depth--;
+				continue;
+			}
+			final BaseTreeNode<T, K> child = children.next();
+			final int index = store.allocate(child);
+			store.link(index, indexStack[depth - 1]);
+			if (child.hasChildren())
+			{
+				if (depth == indexStack.length)
+				{
+					indexStack = Arrays.copyOf(indexStack, depth << 1);
+				}
+				stack.push(child.getChildren().iterator());
+				indexStack[depth++] = index;
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Gets the number of nodes
+	 *
+	 * @return the number of nodes
+	 */
+	public int size()
+	{
+		checkOpen();
+		return size;
+	}
+
+	/**
+	 * Checks if this store has no nodes
+	 *
+	 * @return true, if this store has no nodes otherwise false
+	 */
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	/**
+	 * Checks if this store is closed
+	 *
+	 * @return true, if this store is closed otherwise false
+	 */
+	public boolean isClosed()
+	{
+		return closed;
+	}
+
+	/**
+	 * Gets the number of bytes of all allocated node and data segments
+	 *
+	 * @return the number of the allocated off heap bytes
+	 */
+	public long getOffHeapBytes()
+	{
+		checkOpen();
+		long bytes = 0;
+		for (final ByteBuffer segment : nodeSegments)
+		{
+			bytes += segment.capacity();
+		}
+		for (final ByteBuffer segment : dataSegments)
+		{
+			bytes += segment.capacity();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Gets the number of bytes of the data segments that belong to no node any more and can be
+	 * reclaimed with {@link #compactData()}
+	 *
+	 * @return the number of the garbage bytes
+	 */
+	public long getGarbageBytes()
+	{
+		checkOpen();
+		return garbageBytes;
+	}
+
+	/**
+	 * Gets the index of the root
+	 *
+	 * @return the index of the root or {@link #NO_NODE} if this store is empty
+	 */
+	public int getRoot()
+	{
+		checkOpen();
+		return root;
+	}
+
+	/**
+	 * Gets the handle of the root
+	 *
+	 * @return the handle of the root or null if this store is empty
+	 */
+	public OffHeapTreeNode<T, K> getRootNode()
+	{
+		return getNode(getRoot());
+	}
+
+	/**
+	 * Gets the handle of the node with the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the handle of the node or null if the given index is {@link #NO_NODE}
+	 */
+	public OffHeapTreeNode<T, K> getNode(final int index)
+	{
+		if (index == NO_NODE)
+		{
+			return null;
+		}
+		checkNode(index);
+		return new OffHeapTreeNode<>(this, index);
+	}
+
+	/**
+	 * Checks if the given index belongs to a node of this store
+	 *
+	 * @param index
+	 *            the index
+	 * @return true, if the given index belongs to a node otherwise false
+	 */
+	public boolean contains(final int index)
+	{
+		checkOpen();
+		return 0 <= index && index < highWaterMark && getInt(index, PARENT) != FREE;
+	}
+
+	/**
+	 * Adds the root of this store
+	 *
+	 * @param id
+	 *            the id of the root
+	 * @param value
+	 *            the value of the root
+	 * @return the index of the root
+	 * @throws IllegalStateException
+	 *             if this store has already a root
+	 */
+	public int addRoot(final K id, final T value)
+	{
+		checkOpen();
+		if (root != NO_NODE)
+		{
+			throw new IllegalStateException("The store has already a root");
+		}
+		root = allocate(id, value, null, false);
+		return root;
+	}
+
+	/**
+	 * Appends a new node as last child of the given parent
+	 *
+	 * @param parentIndex
+	 *            the index of the parent
+	 * @param id
+	 *            the id of the new node
+	 * @param value
+	 *            the value of the new node
+	 * @return the index of the new node
+	 * @throws IllegalArgumentException
+	 *             if the given parent is no node of this store or a leaf
+	 */
+	public int append(final int parentIndex, final K id, final T value)
+	{
+		if (isLeaf(parentIndex))
+		{
+			throw new IllegalArgumentException("The parent " + parentIndex + " is a leaf");
+		}
+		final int index = allocate(id, value, null, false);
+		link(index, parentIndex);
+		return index;
+	}
+
+	/**
+	 * Moves the node with the given index to the end of the children of the given new parent
+	 *
+	 * @param index
+	 *            the index of the node to move
+	 * @param newParentIndex
+	 *            the index of the new parent
+	 * @return true, if the node was moved or false if the new parent is a leaf, the node itself or
+	 *         a descendant of the node
+	 */
+	public boolean move(final int index, final int newParentIndex)
+	{
+		checkNode(index);
+		if (isLeaf(newParentIndex))
+		{
+			return false;
+		}
+		int ancestor = newParentIndex;
+		while (ancestor != NO_NODE)
+		{
+			if (ancestor == index)
+			{
+				return false;
+			}
+			ancestor = getInt(ancestor, PARENT);
+		}
+		unlink(index);
+		link(index, newParentIndex);
+		return true;
+	}
+
+	/**
+	 * Deletes the node with the given index and all its descendants. The indexes of the deleted
+	 * nodes are reused by the next added nodes
+	 *
+	 * @param index
+	 *            the index of the node to delete
+	 * @return the number of the deleted nodes
+	 */
+	public int delete(final int index)
+	{
+		checkNode(index);
+		if (index == root)
+		{
+			root = NO_NODE;
+		}
+		else
+		{
+			unlink(index);
+		}
+		int deleted = 0;
+		int[] stack = new int[16];
+		int stackSize = 0;
+		stack[stackSize++] = index;
+		while (0 < stackSize)
+		{
+			final int current = stack[--stackSize];
+			for (int child = getInt(current, FIRST_CHILD); child != NO_NODE; child = getInt(child,
+				NEXT_SIBLING))
+			{
+				if (stackSize == stack.length)
+				{
+					stack = Arrays.copyOf(stack, stackSize << 1);
+				}
+				stack[stackSize++] = child;
+			}
+			free(current);
+			deleted++;
+		}
+		size -= deleted;
+		compactDataIfNeeded();
+		return deleted;
+	}
+
+	/**
+	 * Gets the parent index of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the parent or {@link #NO_NODE} for the root
+	 */
+	public int getParent(final int index)
+	{
+		checkNode(index);
+		return getInt(index, PARENT);
+	}
+
+	/**
+	 * Gets the index of the first child of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the first child or {@link #NO_NODE} if the node has no children
+	 */
+	public int getFirstChild(final int index)
+	{
+		checkNode(index);
+		return getInt(index, FIRST_CHILD);
+	}
+
+	/**
+	 * Gets the index of the last child of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the last child or {@link #NO_NODE} if the node has no children
+	 */
+	public int getLastChild(final int index)
+	{
+		checkNode(index);
+		final int first = getInt(index, FIRST_CHILD);
+		return first == NO_NODE ? NO_NODE : getInt(first, PREVIOUS_SIBLING);
+	}
+
+	/**
+	 * Gets the index of the next sibling of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the next sibling or {@link #NO_NODE} if the node is the last child
+	 */
+	public int getNextSibling(final int index)
+	{
+		checkNode(index);
+		return getInt(index, NEXT_SIBLING);
+	}
+
+	/**
+	 * Gets the index of the previous sibling of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the index of the previous sibling or {@link #NO_NODE} if the node is the first child
+	 */
+	public int getPreviousSibling(final int index)
+	{
+		checkNode(index);
+		final int parentIndex = getInt(index, PARENT);
+		if (parentIndex == NO_NODE || getInt(parentIndex, FIRST_CHILD) == index)
+		{
+			return NO_NODE;
+		}
+		return getInt(index, PREVIOUS_SIBLING);
+	}
+
+	/**
+	 * Gets the number of children of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the number of children
+	 */
+	public int getChildCount(final int index)
+	{
+		checkNode(index);
+		int count = 0;
+		for (int child = getInt(index, FIRST_CHILD); child != NO_NODE; child = getInt(child,
+			NEXT_SIBLING))
+		{
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the id of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the id
+	 */
+	public K getId(final int index)
+	{
+		return readField(index, FLAG_ID, idCodec::decode);
+	}
+
+	/**
+	 * Sets the id of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param id
+	 *            the id
+	 */
+	public void setId(final int index, final K id)
+	{
+		final NodeData<T, K> data = readData(index);
+		writeData(index, id, data.value, data.displayValue);
+	}
+
+	/**
+	 * Gets the value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the value
+	 */
+	public T getValue(final int index)
+	{
+		return readField(index, FLAG_VALUE, valueCodec::decode);
+	}
+
+	/**
+	 * Sets the value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param value
+	 *            the value
+	 */
+	public void setValue(final int index, final T value)
+	{
+		final NodeData<T, K> data = readData(index);
+		writeData(index, data.id, value, data.displayValue);
+	}
+
+	/**
+	 * Gets the display value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the display value
+	 */
+	public String getDisplayValue(final int index)
+	{
+		return readField(index, FLAG_DISPLAY_VALUE, BinaryTreeInput::readString);
+	}
+
+	/**
+	 * Sets the display value of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param displayValue
+	 *            the display value
+	 */
+	public void setDisplayValue(final int index, final String displayValue)
+	{
+		final NodeData<T, K> data = readData(index);
+		writeData(index, data.id, data.value, displayValue);
+	}
+
+	/**
+	 * Checks if the given node is a leaf
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return true, if the node is a leaf otherwise false
+	 */
+	public boolean isLeaf(final int index)
+	{
+		checkNode(index);
+		return (getInt(index, FLAGS) & FLAG_LEAF) != 0;
+	}
+
+	/**
+	 * Sets the leaf flag of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param leaf
+	 *            the flag that indicates if the node is a leaf
+	 */
+	public void setLeaf(final int index, final boolean leaf)
+	{
+		checkNode(index);
+		final int flags = getInt(index, FLAGS);
+		putInt(index, FLAGS, leaf ? flags | FLAG_LEAF : flags & ~FLAG_LEAF);
+	}
+
+	/**
+	 * Copies the data of all nodes into new data segments, so the garbage of the changed and the
+	 * deleted nodes is released
+	 */
+	public void compactData()
+	{
+		checkOpen();
+		final List<ByteBuffer> oldSegments = dataSegments;
+		dataSegments = new ArrayList<>();
+		usedBytes = 0;
+		for (int index = 0; index < highWaterMark; index++)
+		{
+			if (getInt(index, PARENT) == FREE)
+			{
+				continue;
+			}
+			final int length = getInt(index, DATA_LENGTH);
+			final ByteBuffer source = oldSegments.get(getInt(index, DATA_SEGMENT)).duplicate();
+			final int offset = getInt(index, DATA_OFFSET);
+			source.limit(offset + length).position(offset);
+			final ByteBuffer target = reserve(length);
+			putInt(index, DATA_SEGMENT, dataSegments.size() - 1);
+			putInt(index, DATA_OFFSET, target.position());
+			target.put(source);
+			usedBytes += length;
+		}
+		garbageBytes = 0;
+	}
+
+	/**
+	 * Compacts the data if the garbage is at least {@link #DATA_SEGMENT_SIZE} bytes and more than
+	 * {@link #MAX_GARBAGE_RATIO} of the used data bytes
+	 */
+	private void compactDataIfNeeded()
+	{
+		if (DATA_SEGMENT_SIZE <= garbageBytes && usedBytes * MAX_GARBAGE_RATIO < garbageBytes)
+		{
+			compactData();
+		}
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} tree of the whole store
+	 *
+	 * @return the root of the new tree or null if this store is empty
+	 */
+	public BaseTreeNode<T, K> toBaseTreeNode()
+	{
+		return getRoot() == NO_NODE ? null : toBaseTreeNode(root);
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} tree of the subtree of the given node. The order of the
+	 * children is preserved
+	 *
+	 * @param index
+	 *            the index of the root of the subtree
+	 * @return the root of the new tree
+	 */
+	public BaseTreeNode<T, K> toBaseTreeNode(final int index)
+	{
+		checkNode(index);
+		final BaseTreeNode<T, K> subtreeRoot = newBaseTreeNode(index, null);
+		final Deque<BaseTreeNode<T, K>> nodes = new ArrayDeque<>();
+		int[] indexes = new int[16];
+		nodes.push(subtreeRoot);
+		indexes[0] = index;
+		while (!nodes.isEmpty())
+		{
+			final BaseTreeNode<T, K> node = nodes.pop();
+			final int current = indexes[nodes.size()];
+			if (getInt(current, FIRST_CHILD) == NO_NODE)
+			{
+				continue;
+			}
+			final AdaptiveLinkedSet<BaseTreeNode<T, K>> children = new AdaptiveLinkedSet<>();
+			for (int child = getInt(current, FIRST_CHILD); child != NO_NODE; child = getInt(child,
+				NEXT_SIBLING))
+			{
+				final BaseTreeNode<T, K> childNode = newBaseTreeNode(child, node);
+				children.add(childNode);
+				if (nodes.size() == indexes.length)
+				{
+					indexes = Arrays.copyOf(indexes, nodes.size() << 1);
+				}
+				indexes[nodes.size()] = child;
+				nodes.push(childNode);
+			}
+			node.setChildren(children);
+		}
+		return subtreeRoot;
+	}
+
+	/**
+	 * Closes this store and drops the references to all segments, so their memory is returned
+	 * when the garbage collector collects the direct buffers. Closing a closed store has no effect
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		nodeSegments = null;
+		dataSegments = null;
+		size = 0;
+		root = NO_NODE;
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} object without children from the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param parentNode
+	 *            the parent of the new node
+	 * @return the new {@link BaseTreeNode} object
+	 */
+	private BaseTreeNode<T, K> newBaseTreeNode(final int index, final BaseTreeNode<T, K> parentNode)
+	{
+		final NodeData<T, K> data = readData(index);
+		return BaseTreeNode.<T, K> builder().id(data.id).value(data.value)
+			.displayValue(data.displayValue).leaf(isLeaf(index)).parent(parentNode).build();
+	}
+
+	/**
+	 * Checks that this store is not closed
+	 *
+	 * @throws IllegalStateException
+	 *             if this store is closed
+	 */
+	private void checkOpen()
+	{
+		if (closed)
+		{
+			throw new IllegalStateException("The off heap tree store is closed");
+		}
+	}
+
+	/**
+	 * Checks that the given index belongs to a node of this store
+	 *
+	 * @param index
+	 *            the index
+	 * @throws IllegalArgumentException
+	 *             if the given index belongs to no node
+	 */
+	private void checkNode(final int index)
+	{
+		if (!contains(index))
+		{
+			throw new IllegalArgumentException("The index " + index + " belongs to no node");
+		}
+	}
+
+	/**
+	 * Reads an int field of the given node record
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param field
+	 *            the offset of the field in the node record
+	 * @return the value of the field
+	 */
+	private int getInt(final int index, final int field)
+	{
+		return nodeSegments.get(index / NODES_PER_SEGMENT)
+			.getInt((index % NODES_PER_SEGMENT) * RECORD_SIZE + field);
+	}
+
+	/**
+	 * Writes an int field of the given node record
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param field
+	 *            the offset of the field in the node record
+	 * @param value
+	 *            the value of the field
+	 */
+	private void putInt(final int index, final int field, final int value)
+	{
+		nodeSegments.get(index / NODES_PER_SEGMENT)
+			.putInt((index % NODES_PER_SEGMENT) * RECORD_SIZE + field, value);
+	}
+
+	/**
+	 * Allocates a node record for the given node without linking it
+	 *
+	 * @param node
+	 *            the source node
+	 * @return the index of the new node
+	 */
+	private int allocate(final BaseTreeNode<T, K> node)
+	{
+		return allocate(node.getId(), node.getValue(), node.getDisplayValue(), node.isLeaf());
+	}
+
+	/**
+	 * Allocates a node record from the free list or at the end of the node segments
+	 *
+	 * @param id
+	 *            the id of the new node
+	 * @param value
+	 *            the value of the new node
+	 * @param displayValue
+	 *            the display value of the new node
+	 * @param leaf
+	 *            the flag that indicates if the new node is a leaf
+	 * @return the index of the new node
+	 */
+	private int allocate(final K id, final T value, final String displayValue,
+		final boolean leaf)
+	{
+		final int index;
+		if (freeHead != NO_NODE)
+		{
+			index = freeHead;
+			freeHead = getInt(index, NEXT_SIBLING);
+		}
+		else
+		{
+			if (highWaterMark == nodeSegments.size() * NODES_PER_SEGMENT)
+			{
+				nodeSegments.add(ByteBuffer.allocateDirect(NODES_PER_SEGMENT * RECORD_SIZE)
+					.order(ByteOrder.nativeOrder()));
+			}
+			index = highWaterMark++;
+		}
+		putInt(index, PARENT, NO_NODE);
+		putInt(index, FIRST_CHILD, NO_NODE);
+		putInt(index, NEXT_SIBLING, NO_NODE);
+		putInt(index, PREVIOUS_SIBLING, NO_NODE);
+		putInt(index, FLAGS, leaf ? FLAG_LEAF : 0);
+		putInt(index, DATA_LENGTH, 0);
+		size++;
+		writeData(index, id, value, displayValue);
+		return index;
+	}
+
+	/**
+	 * Frees the node record of the given node and puts it on the free list
+	 *
+	 * @param index
+	 *            the index of the node
+	 */
+	private void free(final int index)
+	{
+		garbageBytes += getInt(index, DATA_LENGTH);
+		putInt(index, PARENT, FREE);
+		putInt(index, FIRST_CHILD, NO_NODE);
+		putInt(index, PREVIOUS_SIBLING, NO_NODE);
+		putInt(index, NEXT_SIBLING, freeHead);
+		putInt(index, FLAGS, 0);
+		putInt(index, DATA_LENGTH, 0);
+		freeHead = index;
+	}
+
+	/**
+	 * Reserves the given number of bytes in the data segments
+	 *
+	 * @param length
+	 *            the number of bytes
+	 * @return the data segment with the position at the reserved bytes
+	 */
+	private ByteBuffer reserve(final int length)
+	{
+		ByteBuffer segment = dataSegments.isEmpty() ? null : dataSegments.get(
+			dataSegments.size() - 1);
+		if (segment == null || segment.remaining() < length)
+		{
+			segment = ByteBuffer.allocateDirect(Math.max(DATA_SEGMENT_SIZE, length))
+				.order(ByteOrder.nativeOrder());
+			dataSegments.add(segment);
+		}
+		return segment;
+	}
+
+	/**
+	 * Encodes the given data of the given node and appends it to the data segments. The data
+	 * starts with the lengths of the present id and value as variable length integers
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param id
+	 *            the id
+	 * @param value
+	 *            the value
+	 * @param displayValue
+	 *            the display value
+	 */
+	private void writeData(final int index, final K id, final T value, final String displayValue)
+	{
+		int flags = getInt(index, FLAGS) & FLAG_LEAF;
+		final byte[] fields;
+		final byte[] lengths;
+		encoded.reset();
+		try
+		{
+			long start = encoder.getWrittenBytes();
+			int idLength = 0;
+			int valueLength = 0;
+			if (id != null)
+			{
+				flags |= FLAG_ID;
+				idCodec.encode(id, encoder);
+				idLength = (int)(encoder.getWrittenBytes() - start);
+				start = encoder.getWrittenBytes();
+			}
+			if (value != null)
+			{
+				flags |= FLAG_VALUE;
+				valueCodec.encode(value, encoder);
+				valueLength = (int)(encoder.getWrittenBytes() - start);
+			}
+			if (displayValue != null)
+			{
+				flags |= FLAG_DISPLAY_VALUE;
+				encoder.writeString(displayValue);
+			}
+			encoder.flush();
+			fields = encoded.toByteArray();
+			encoded.reset();
+			if (id != null)
+			{
+				encoder.writeVarInt(idLength);
+			}
+			if (value != null)
+			{
+				encoder.writeVarInt(valueLength);
+			}
+			encoder.flush();
+			lengths = encoded.toByteArray();
+		}
+		catch (IOException exception)
+		{
+			throw new UncheckedIOException(
+				"The data of the node with the index " + index + " can not be encoded", exception);
+		}
+		garbageBytes += getInt(index, DATA_LENGTH);
+		final int length = lengths.length + fields.length;
+		final ByteBuffer segment = reserve(length);
+		putInt(index, FLAGS, flags);
+		putInt(index, DATA_SEGMENT, dataSegments.size() - 1);
+		putInt(index, DATA_OFFSET, segment.position());
+		putInt(index, DATA_LENGTH, length);
+		segment.put(lengths).put(fields);
+		usedBytes += length;
+		compactDataIfNeeded();
+	}
+
+	/**
+	 * Decodes the data of the given node
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the decoded data
+	 */
+	private NodeData<T, K> readData(final int index)
+	{
+		final NodeData<T, K> data = new NodeData<>();
+		data.id = getId(index);
+		data.value = getValue(index);
+		data.displayValue = getDisplayValue(index);
+		return data;
+	}
+
+	/**
+	 * Decodes only the given field of the data of the given node
+	 *
+	 * @param <F>
+	 *            the generic type of the field
+	 * @param index
+	 *            the index of the node
+	 * @param field
+	 *            the flag of the field
+	 * @param decoder
+	 *            the decoder of the field
+	 * @return the decoded field or null if the node has no such field
+	 */
+	private <F> F readField(final int index, final int field, final FieldDecoder<F> decoder)
+	{
+		checkNode(index);
+		final int flags = getInt(index, FLAGS);
+		if ((flags & field) == 0)
+		{
+			return null;
+		}
+		final ByteBuffer segment = dataSegments.get(getInt(index, DATA_SEGMENT)).duplicate();
+		final int offset = getInt(index, DATA_OFFSET);
+		segment.limit(offset + getInt(index, DATA_LENGTH)).position(offset);
+		try
+		{
+			final BinaryTreeInput lengths = new BinaryTreeInput(segment);
+			final int idLength = (flags & FLAG_ID) != 0 ? lengths.readVarInt() : -1;
+			final int valueLength = (flags & FLAG_VALUE) != 0 ? lengths.readVarInt() : -1;
+			int position = offset + varIntSize(idLength) + varIntSize(valueLength);
+			if (field != FLAG_ID && idLength != -1)
+			{
+				position += idLength;
+			}
+			if (field == FLAG_DISPLAY_VALUE && valueLength != -1)
+			{
+				position += valueLength;
+			}
+			if (idLength < -1 || valueLength < -1 || segment.limit() < position)
+			{
+				throw new IOException("Invalid field lengths " + idLength + " and " + valueLength);
+			}
+			segment.position(position);
+			return decoder.decode(new BinaryTreeInput(segment));
+		}
+		catch (IOException exception)
+		{
+			throw new UncheckedIOException(
+				"The data of the node with the index " + index + " is corrupt", exception);
+		}
+	}
+
+	/**
+	 * Gets the number of bytes of the given length as variable length integer
+	 *
+	 * @param length
+	 *            the length or -1 for no length
+	 * @return the number of bytes
+	 */
+	private static int varIntSize(final int length)
+	{
+		if (length == -1)
+		{
+			return 0;
+		}
+		return (38 - Integer.numberOfLeadingZeros(length | 1)) / 7;
+	}
+
+	/**
+	 * Links the given detached node as last child of the given parent
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param parentIndex
+	 *            the index of the parent
+	 */
+	private void link(final int index, final int parentIndex)
+	{
+		putInt(index, PARENT, parentIndex);
+		putInt(index, NEXT_SIBLING, NO_NODE);
+		final int first = getInt(parentIndex, FIRST_CHILD);
+		if (first == NO_NODE)
+		{
+			putInt(parentIndex, FIRST_CHILD, index);
+			putInt(index, PREVIOUS_SIBLING, index);
+			return;
+		}
+		final int last = getInt(first, PREVIOUS_SIBLING);
+		putInt(last, NEXT_SIBLING, index);
+		putInt(index, PREVIOUS_SIBLING, last);
+		putInt(first, PREVIOUS_SIBLING, index);
+	}
+
+	/**
+	 * Unlinks the given node from its parent
+	 *
+	 * @param index
+	 *            the index of the node
+	 */
+	private void unlink(final int index)
+	{
+		final int parentIndex = getInt(index, PARENT);
+		if (parentIndex == NO_NODE)
+		{
+			return;
+		}
+		final int first = getInt(parentIndex, FIRST_CHILD);
+		final int next = getInt(index, NEXT_SIBLING);
+		if (first == index)
+		{
+			putInt(parentIndex, FIRST_CHILD, next);
+			if (next != NO_NODE)
+			{
+				putInt(next, PREVIOUS_SIBLING, getInt(index, PREVIOUS_SIBLING));
+			}
+		}
+		else
+		{
+			final int previous = getInt(index, PREVIOUS_SIBLING);
+			putInt(previous, NEXT_SIBLING, next);
+			putInt(next == NO_NODE ? first : next, PREVIOUS_SIBLING, previous);
+		}
+		putInt(index, PARENT, NO_NODE);
+		putInt(index, NEXT_SIBLING, NO_NODE);
+		putInt(index, PREVIOUS_SIBLING, NO_NODE);
+	}
+
+	/**
+	 * The class {@link NodeData} holds the decoded data of a node
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 */
+	private static final class NodeData<T, K>
+	{
+
+		/** The id */
+		K id;
+
+		/** The value */
+		T value;
+
+		/** The display value */
+		String displayValue;
+	}
+
+	/**
+	 * The interface {@link FieldDecoder} decodes one field of the data of a node
+	 *
+	 * @param <F>
+	 *            the generic type of the field
+	 */
+	@FunctionalInterface
+	private interface FieldDecoder<F>
+	{
+
+		/**
+		 * Decodes the field from the given input
+		 *
+		 * @param input
+		 *            the input at the start of the field
+		 * @return the decoded field
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		F decode(BinaryTreeInput input) throws IOException;
+	}
+}
@@ -0,0 +1,446 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.persistent;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link PersistentTree} is one immutable version of a tree of
+ * {@link PersistentTreeNode} objects. Every change creates a new version and copies only the nodes
+ * on the path from the root down to the changed node, all other subtrees are shared between the
+ * versions. So a change costs O(depth) new nodes and all older versions stay readable without any
+ * further copy. A node is addressed either by its id or by its path, that is the array with the
+ * child positions from the root down to the node. Note that the nodes have no parent references
+ * and no index of the ids is kept, so every lookup by id searches the tree in O(n). The path of a
+ * node can be computed once with {@link #findPath(Object)} and reused for many changes with the
+ * path based methods that cost only O(depth)
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class PersistentTree<T, K>
+{
+
+	/** The root of this version */
+	private final PersistentTreeNode<T, K> root;
+
+	/** The number of this version, the first version has the number 0 */
+	private final long version;
+
+	/**
+	 * Instantiates a new {@link PersistentTree} object with the given root as first version
+	 *
+	 * @param root
+	 *            the root
+	 */
+	public PersistentTree(final @NonNull PersistentTreeNode<T, K> root)
+	{
+		this(root, 0L);
+	}
+
+	/**
+	 * Instantiates a new {@link PersistentTree} object
+	 *
+	 * @param root
+	 *            the root
+	 * @param version
+	 *            the number of the version
+	 */
+	private PersistentTree(final PersistentTreeNode<T, K> root, final long version)
+	{
+		this.root = root;
+		this.version = version;
+	}
+
+	/**
+	 * Factory method for create the first version of a {@link PersistentTree} from the given
+	 * {@link BaseTreeNode} object. The given tree is not changed
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the tree to convert
+	 * @return the new {@link PersistentTree} object
+	 */
+	public static <T, K> PersistentTree<T, K> of(final @NonNull BaseTreeNode<T, K> root)
+	{
+		return new PersistentTree<>(PersistentTreeNode.of(root));
+	}
+
+	/**
+	 * Gets the root of this version
+	 *
+	 * @return the root
+	 */
+	public PersistentTreeNode<T, K> getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * Gets the number of this version. Every change increments the number of the version it was
+	 * applied to
+	 *
+	 * @return the number of this version
+	 */
+	public long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Gets the number of the nodes of this version
+	 *
+	 * @return the number of the nodes
+	 */
+	public int size()
+	{
+		return root.size();
+	}
+
+	/**
+	 * Finds the path of the first node in pre-order with the given id. The tree is searched
+	 * iteratively in O(n), so also degenerated deep trees are supported
+	 *
+	 * @param id
+	 *            the id of the node
+	 * @return the path with the child positions from the root down to the node, an empty array
+	 *         for the root or null if no node has the given id
+	 */
+	public int[] findPath(final @NonNull K id)
+	{
+		if (id.equals(root.getId()))
+		{
+			return new int[0];
+		}
+		PersistentTreeNode<T, K>[] nodes = newNodeArray(16);
+		int[] positions = new int[16];
+		int depth = 0;
+		nodes[0] = root;
+		positions[0] = -1;
+		while (0 <= depth)
+		{
+			final PersistentTreeNode<T, K> node = nodes[depth];
+			final int position = ++positions[depth];
+			if (node.getChildCount() <= position)
+			{
+				depth--;
+				continue;
+			}
+			final PersistentTreeNode<T, K> child = node.getChild(position);
+			if (id.equals(child.getId()))
+			{
+				return Arrays.copyOf(positions, depth + 1);
+			}
+			if (child.hasChildren())
+			{
+				if (++depth == nodes.length)
+				{
+					nodes = Arrays.copyOf(nodes, depth << 1);
+					positions = Arrays.copyOf(positions, depth << 1);
+				}
+				nodes[depth] = child;
+				positions[depth] = -1;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the first node in pre-order with the given id
+	 *
+	 * @param id
+	 *            the id of the node
+	 * @return the node or null if no node has the given id
+	 */
+	public PersistentTreeNode<T, K> findById(final @NonNull K id)
+	{
+		final int[] path = findPath(id);
+		return path != null ? get(path) : null;
+	}
+
+	/**
+	 * Gets the node at the given path
+	 *
+	 * @param path
+	 *            the path with the child positions from the root down to the node
+	 * @return the node
+	 */
+	public PersistentTreeNode<T, K> get(final @NonNull int[] path)
+	{
+		PersistentTreeNode<T, K> node = root;
+		for (final int position : path)
+		{
+			node = node.getChild(position);
+		}
+		return node;
+	}
+
+	/**
+	 * Creates a new version in that the node at the given path is replaced with the result of the
+	 * given function. Only the nodes on the path are copied, all other nodes are shared with this
+	 * version
+	 *
+	 * @param path
+	 *            the path with the child positions from the root down to the node
+	 * @param function
+	 *            the function that creates the replacement of the node
+	 * @return the new version
+	 */
+	public PersistentTree<T, K> update(final @NonNull int[] path,
+		final @NonNull UnaryOperator<PersistentTreeNode<T, K>> function)
+	{
+		final PersistentTreeNode<T, K>[] nodes = newNodeArray(path.length + 1);
+		nodes[0] = root;
+		for (int i = 0; i < path.length; i++)
+		{
+			nodes[i + 1] = nodes[i].getChild(path[i]);
+		}
+		PersistentTreeNode<T, K> updated = function.apply(nodes[path.length]);
+		if (updated == null)
+		{
+			throw new IllegalArgumentException("The replacement of a node must not be null");
+		}
+		for (int i = path.length - 1; 0 <= i; i--)
+		{
+			updated = nodes[i].withChild(path[i], updated);
+		}
+		return new PersistentTree<>(updated, version + 1);
+	}
+
+	/**
+	 * Creates a new version in that the node with the given id is replaced with the result of the
+	 * given function. The node is searched with {@link #findPath(Object)} in O(n)
+	 *
+	 * @param id
+	 *            the id of the node
+	 * @param function
+	 *            the function that creates the replacement of the node
+	 * @return the new version
+	 * @throws IllegalArgumentException
+	 *             if no node has the given id
+	 */
+	public PersistentTree<T, K> update(final @NonNull K id,
+		final @NonNull UnaryOperator<PersistentTreeNode<T, K>> function)
+	{
+		return update(requirePath(id), function);
+	}
+
+	/**
+	 * Creates a new version in that the node with the given id has the given value
+	 *
+	 * @param id
+	 *            the id of the node
+	 * @param value
+	 *            the new value
+	 * @return the new version
+	 * @throws IllegalArgumentException
+	 *             if no node has the given id
+	 */
+	public PersistentTree<T, K> setValue(final @NonNull K id, final T value)
+	{
+		return update(id, node -> node.withValue(value));
+	}
+
+	/**
+	 * Creates a new version in that the node with the given id has the given display value
+	 *
+	 * @param id
+	 *            the id of the node
+	 * @param displayValue
+	 *            the new display value
+	 * @return the new version
+	 * @throws IllegalArgumentException
+	 *             if no node has the given id
+	 */
+	public PersistentTree<T, K> setDisplayValue(final @NonNull K id, final String displayValue)
+	{
+		return update(id, node -> node.withDisplayValue(displayValue));
+	}
+
+	/**
+	 * Creates a new version in that the given child is appended to the node with the given id.
+	 * The subtree of the given child is shared and not copied
+	 *
+	 * @param parentId
+	 *            the id of the parent
+	 * @param child
+	 *            the new child
+	 * @return the new version
+	 * @throws IllegalArgumentException
+	 *             if no node has the given id
+	 * @throws IllegalStateException
+	 *             if the parent is a leaf
+	 */
+	public PersistentTree<T, K> addChild(final @NonNull K parentId,
+		final @NonNull PersistentTreeNode<T, K> child)
+	{
+		return update(parentId, parent -> parent.withAddedChild(child));
+	}
+
+	/**
+	 * Creates a new version in that a new child with the given id and the given value is appended
+	 * to the node with the given parent id
+	 *
+	 * @param parentId
+	 *            the id of the parent
+	 * @param id
+	 *            the id of the new child
+	 * @param value
+	 *            the value of the new child
+	 * @return the new version
+	 * @throws IllegalArgumentException
+	 *             if no node has the given parent id
+	 * @throws IllegalStateException
+	 *             if the parent is a leaf
+	 */
+	public PersistentTree<T, K> addChild(final @NonNull K parentId, final K id, final T value)
+	{
+		return addChild(parentId, new PersistentTreeNode<>(id, value));
+	}
+
+	/**
+	 * Creates a new version without the node with the given id and its descendants
+	 *
+	 * @param id
+	 *            the id of the removed node
+	 * @return the new version
+	 * @throws IllegalArgumentException
+	 *             if no node has the given id or if the given id is the id of the root
+	 */
+	public PersistentTree<T, K> remove(final @NonNull K id)
+	{
+		final int[] path = requirePath(id);
+		if (path.length == 0)
+		{
+			throw new IllegalArgumentException("The root can not be removed");
+		}
+		final int position = path[path.length - 1];
+		return update(Arrays.copyOf(path, path.length - 1),
+			parent -> parent.withoutChild(position));
+	}
+
+	/**
+	 * Creates a new version in that the node with the given id is moved with its descendants to
+	 * the end of the children of the node with the given new parent id. Both nodes are searched
+	 * once and the path of the new parent is adjusted to the removal of the moved node
+	 *
+	 * @param id
+	 *            the id of the moved node
+	 * @param newParentId
+	 *            the id of the new parent
+	 * @return the new version
+	 * @throws IllegalArgumentException
+	 *             if a node is not found, if the moved node is the root or if the new parent is
+	 *             in the subtree of the moved node
+	 * @throws IllegalStateException
+	 *             if the new parent is a leaf
+	 */
+	public PersistentTree<T, K> move(final @NonNull K id, final @NonNull K newParentId)
+	{
+		final int[] path = requirePath(id);
+		final int[] newParentPath = requirePath(newParentId);
+		if (path.length <= newParentPath.length
+			&& Arrays.equals(path, Arrays.copyOf(newParentPath, path.length)))
+		{
+			throw new IllegalArgumentException(
+				"A node can not be moved into its own subtree or the root can not be moved");
+		}
+		final PersistentTreeNode<T, K> node = get(path);
+		final int last = path.length - 1;
+		final int[] adjustedNewParentPath = newParentPath.clone();
+		if (last < newParentPath.length && path[last] < newParentPath[last]
+			&& Arrays.equals(path, 0, last, newParentPath, 0, last))
+		{
+			adjustedNewParentPath[last]--;
+		}
+		final int position = path[last];
+		return update(Arrays.copyOf(path, last), parent -> parent.withoutChild(position))
+			.update(adjustedNewParentPath, parent -> parent.withAddedChild(node))
+			.withVersion(version + 1);
+	}
+
+	/**
+	 * Creates a mutable {@link BaseTreeNode} tree of this version. This version is not changed
+	 *
+	 * @return the root of the new tree
+	 */
+	public BaseTreeNode<T, K> toBaseTreeNode()
+	{
+		return root.toBaseTreeNode();
+	}
+
+	/**
+	 * Creates a copy of this version with the given number of the version
+	 *
+	 * @param version
+	 *            the number of the version
+	 * @return the copy that shares the root with this version
+	 */
+	private PersistentTree<T, K> withVersion(final long version)
+	{
+		return new PersistentTree<>(root, version);
+	}
+
+	/**
+	 * Finds the path of the node with the given id
+	 *
+	 * @param id
+	 *            the id of the node
+	 * @return the path of the node
+	 * @throws IllegalArgumentException
+	 *             if no node has the given id
+	 */
+	private int[] requirePath(final K id)
+	{
+		final int[] path = findPath(id);
+		if (path == null)
+		{
+			throw new IllegalArgumentException("No node with the id " + id);
+		}
+		return path;
+	}
+
+	/**
+	 * Creates a new array for nodes with the given length
+	 *
+	 * @param length
+	 *            the length
+	 * @return the new array
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T, K> PersistentTreeNode<T, K>[] newNodeArray(final int length)
+	{
+		return new PersistentTreeNode[length];
+	}
+}
@@ -0,0 +1,460 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.persistent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link PersistentTreeNode} is an immutable node of a {@link PersistentTree}. A node
+ * has no reference to its parent, so one node can be shared by many versions of a tree. Every
+ * change creates a new node with the methods <code>with...</code>, the children that are not
+ * changed are shared with this node. The number of nodes of the subtree is computed once at the
+ * construction
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class PersistentTreeNode<T, K>
+{
+
+	/** The shared empty array of all nodes without children */
+	private static final PersistentTreeNode<?, ?>[] NO_CHILDREN = {};
+
+	/** The id of this node */
+	private final K id;
+
+	/** The value of this node */
+	private final T value;
+
+	/** The optional display value of this node */
+	private final String displayValue;
+
+	/** The flag that indicates if this node is a leaf */
+	private final boolean leaf;
+
+	/** The children of this node, the array is never changed */
+	private final PersistentTreeNode<T, K>[] children;
+
+	/** The number of the nodes of the subtree of this node */
+	private final int size;
+
+	/**
+	 * Instantiates a new {@link PersistentTreeNode} object without display value and without
+	 * children
+	 *
+	 * @param id
+	 *            the id
+	 * @param value
+	 *            the value
+	 */
+	public PersistentTreeNode(final K id, final T value)
+	{
+		this(id, value, null, false, noChildren());
+	}
+
+	/**
+	 * Instantiates a new {@link PersistentTreeNode} object
+	 *
+	 * @param id
+	 *            the id
+	 * @param value
+	 *            the value
+	 * @param displayValue
+	 *            the optional display value
+	 * @param leaf
+	 *            the flag that indicates if this node is a leaf
+	 * @param children
+	 *            the children in their order
+	 */
+	@SuppressWarnings("unchecked")
+	public PersistentTreeNode(final K id, final T value, final String displayValue,
+		final boolean leaf, final @NonNull Collection<PersistentTreeNode<T, K>> children)
+	{
+		this(id, value, displayValue, leaf,
+			children.isEmpty() ? noChildren() : children.toArray(new PersistentTreeNode[0]));
+	}
+
+	/**
+	 * Instantiates a new {@link PersistentTreeNode} object that takes the given array
+	 *
+	 * @param id
+	 *            the id
+	 * @param value
+	 *            the value
+	 * @param displayValue
+	 *            the optional display value
+	 * @param leaf
+	 *            the flag that indicates if this node is a leaf
+	 * @param children
+	 *            the array with the children that is not changed anymore
+	 */
+	private PersistentTreeNode(final K id, final T value, final String displayValue,
+		final boolean leaf, final PersistentTreeNode<T, K>[] children)
+	{
+		this.id = id;
+		this.value = value;
+		this.displayValue = displayValue;
+		this.leaf = leaf;
+		this.children = children;
+		int subtreeSize = 1;
+		for (final PersistentTreeNode<T, K> child : children)
+		{
+			subtreeSize += child.size;
+		}
+		this.size = subtreeSize;
+	}
+
+	/**
+	 * Gets the shared empty children array
+	 *
+	 * @return the shared empty children array
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T, K> PersistentTreeNode<T, K>[] noChildren()
+	{
+		return (PersistentTreeNode<T, K>[])NO_CHILDREN;
+	}
+
+	/**
+	 * Factory method for create a new {@link PersistentTreeNode} tree from the subtree of the
+	 * given {@link BaseTreeNode} object. The tree is converted iteratively in post-order and the
+	 * order of the children is preserved
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the subtree to convert
+	 * @return the root of the new {@link PersistentTreeNode} tree
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T, K> PersistentTreeNode<T, K> of(final @NonNull BaseTreeNode<T, K> root)
+	{
+		final Deque<BaseTreeNode<T, K>> nodes = new ArrayDeque<>();
+		final Deque<Iterator<BaseTreeNode<T, K>>> iterators = new ArrayDeque<>();
+		final Deque<List<PersistentTreeNode<T, K>>> converted = new ArrayDeque<>();
+		push(root, nodes, iterators, converted);
+		while (true)
+		{
+			final Iterator<BaseTreeNode<T, K>> children = iterators.peek();
+			if (children.hasNext())
+			{
+				push(children.next(), nodes, iterators, converted);
+				continue;
+			}
+			final BaseTreeNode<T, K> node = nodes.pop();
+			iterators.pop();
+			final List<PersistentTreeNode<T, K>> convertedChildren = converted.pop();
+			final PersistentTreeNode<T, K> persistentNode = new PersistentTreeNode<>(node.getId(),
+				node.getValue(), node.getDisplayValue(), node.isLeaf(), convertedChildren);
+			if (converted.isEmpty())
+			{
+				return persistentNode;
+			}
+			converted.peek().add(persistentNode);
+		}
+	}
+
+	/**
+	 * Pushes the given node with the iterator over its children and the list for its converted
+	 * children
+	 *
+	 * @param node
+	 *            the node
+	 * @param nodes
+	 *            the stack of the nodes
+	 * @param iterators
+	 *            the stack of the iterators over the children
+	 * @param converted
+	 *            the stack of the lists with the converted children
+	 */
+	private static <T, K> void push(final BaseTreeNode<T, K> node,
+		final Deque<BaseTreeNode<T, K>> nodes, final Deque<Iterator<BaseTreeNode<T, K>>> iterators,
+		final Deque<List<PersistentTreeNode<T, K>>> converted)
+	{
+		nodes.push(node);
+		iterators.push(node.hasChildren()
+			? node.getChildren().iterator()
+			: Collections.<BaseTreeNode<T, K>> emptyIterator());
+		converted.push(new ArrayList<>(node.getChildCount()));
+	}
+
+	/**
+	 * Gets the id of this node
+	 *
+	 * @return the id
+	 */
+	public K getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Gets the value of this node
+	 *
+	 * @return the value
+	 */
+	public T getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Gets the display value of this node
+	 *
+	 * @return the display value
+	 */
+	public String getDisplayValue()
+	{
+		return displayValue;
+	}
+
+	/**
+	 * Checks if this node is a leaf
+	 *
+	 * @return true, if this node is a leaf otherwise false
+	 */
+	public boolean isLeaf()
+	{
+		return leaf;
+	}
+
+	/**
+	 * Gets the number of the nodes of the subtree of this node
+	 *
+	 * @return the number of the nodes of the subtree
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the number of children
+	 *
+	 * @return the number of children
+	 */
+	public int getChildCount()
+	{
+		return children.length;
+	}
+
+	/**
+	 * Checks if this node has children
+	 *
+	 * @return true, if this node has children otherwise false
+	 */
+	public boolean hasChildren()
+	{
+		return children.length != 0;
+	}
+
+	/**
+	 * Gets the child at the given position
+	 *
+	 * @param position
+	 *            the position of the child
+	 * @return the child
+	 */
+	public PersistentTreeNode<T, K> getChild(final int position)
+	{
+		return children[position];
+	}
+
+	/**
+	 * Gets the children of this node
+	 *
+	 * @return an unmodifiable {@link List} object with the children in their order
+	 */
+	public List<PersistentTreeNode<T, K>> getChildren()
+	{
+		return Collections.unmodifiableList(Arrays.asList(children));
+	}
+
+	/**
+	 * Creates a copy of this node with the given value
+	 *
+	 * @param value
+	 *            the new value
+	 * @return the new node that shares the children with this node
+	 */
+	public PersistentTreeNode<T, K> withValue(final T value)
+	{
+		return new PersistentTreeNode<>(id, value, displayValue, leaf, children);
+	}
+
+	/**
+	 * Creates a copy of this node with the given display value
+	 *
+	 * @param displayValue
+	 *            the new display value
+	 * @return the new node that shares the children with this node
+	 */
+	public PersistentTreeNode<T, K> withDisplayValue(final String displayValue)
+	{
+		return new PersistentTreeNode<>(id, value, displayValue, leaf, children);
+	}
+
+	/**
+	 * Creates a copy of this node with the given leaf flag
+	 *
+	 * @param leaf
+	 *            the new leaf flag
+	 * @return the new node that shares the children with this node
+	 */
+	public PersistentTreeNode<T, K> withLeaf(final boolean leaf)
+	{
+		return new PersistentTreeNode<>(id, value, displayValue, leaf, children);
+	}
+
+	/**
+	 * Creates a copy of this node with the given child at the given position
+	 *
+	 * @param position
+	 *            the position of the replaced child
+	 * @param child
+	 *            the new child
+	 * @return the new node that shares the other children with this node
+	 */
+	public PersistentTreeNode<T, K> withChild(final int position,
+		final @NonNull PersistentTreeNode<T, K> child)
+	{
+		final PersistentTreeNode<T, K>[] newChildren = children.clone();
+		newChildren[position] = child;
+		return new PersistentTreeNode<>(id, value, displayValue, leaf, newChildren);
+	}
+
+	/**
+	 * Creates a copy of this node with the given child appended as last child
+	 *
+	 * @param child
+	 *            the new child
+	 * @return the new node that shares the other children with this node
+	 * @throws IllegalStateException
+	 *             if this node is a leaf
+	 */
+	public PersistentTreeNode<T, K> withAddedChild(final @NonNull PersistentTreeNode<T, K> child)
+	{
+		if (leaf)
+		{
+			throw new IllegalStateException("A leaf can not have children");
+		}
+		final PersistentTreeNode<T, K>[] newChildren = Arrays.copyOf(children,
+			children.length + 1);
+		newChildren[children.length] = child;
+		return new PersistentTreeNode<>(id, value, displayValue, leaf, newChildren);
+	}
+
+	/**
+	 * Creates a copy of this node without the child at the given position
+	 *
+	 * @param position
+	 *            the position of the removed child
+	 * @return the new node that shares the other children with this node
+	 */
+	public PersistentTreeNode<T, K> withoutChild(final int position)
+	{
+		if (position < 0 || children.length <= position)
+		{
+			throw new IndexOutOfBoundsException("Invalid child position " + position);
+		}
+		if (children.length == 1)
+		{
+			return new PersistentTreeNode<>(id, value, displayValue, leaf, noChildren());
+		}
+		final PersistentTreeNode<T, K>[] newChildren = Arrays.copyOf(children,
+			children.length - 1);
+		System.arraycopy(children, position + 1, newChildren, position,
+			children.length - position - 1);
+		return new PersistentTreeNode<>(id, value, displayValue, leaf, newChildren);
+	}
+
+	/**
+	 * Creates a mutable {@link BaseTreeNode} tree of the subtree of this node iteratively. The
+	 * order of the children is preserved
+	 *
+	 * @return the root of the new tree
+	 */
+	public BaseTreeNode<T, K> toBaseTreeNode()
+	{
+		final BaseTreeNode<T, K> root = newBaseTreeNode(this, null);
+		final Deque<PersistentTreeNode<T, K>> sources = new ArrayDeque<>();
+		final Deque<BaseTreeNode<T, K>> targets = new ArrayDeque<>();
+		sources.push(this);
+		targets.push(root);
+		while (!sources.isEmpty())
+		{
+			final PersistentTreeNode<T, K> source = sources.pop();
+			final BaseTreeNode<T, K> target = targets.pop();
+			for (final PersistentTreeNode<T, K> child : source.children)
+			{
+				final BaseTreeNode<T, K> childNode = newBaseTreeNode(child, target);
+				target.getChildren().add(childNode);
+				sources.push(child);
+				targets.push(childNode);
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} object without children from the given node
+	 *
+	 * @param node
+	 *            the source node
+	 * @param parent
+	 *            the parent of the new node
+	 * @return the new {@link BaseTreeNode} object
+	 */
+	private static <T, K> BaseTreeNode<T, K> newBaseTreeNode(final PersistentTreeNode<T, K> node,
+		final BaseTreeNode<T, K> parent)
+	{
+		return BaseTreeNode.<T, K> builder().id(node.id).value(node.value)
+			.displayValue(node.displayValue).leaf(node.leaf).parent(parent).build();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "PersistentTreeNode(id=" + id + ", value=" + value + ", displayValue="
+			+ displayValue + ", leaf=" + leaf + ", size=" + size + ")";
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The class {@link MappedRegions} maps a file in segments, because a single
+ * {@link MappedByteBuffer} object can not address more than two gigabytes. The snapshot format
+ * guarantees that no node record and no data record crosses a segment boundary, so every record
+ * can be read from exactly one segment
+ */
+final class MappedRegions
+{
+
+	/** The number of bits of the segment size */
+	static final int SEGMENT_BITS = 30;
+
+	/** The size of a segment */
+	static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+	/** The mapped segments */
+	private final MappedByteBuffer[] segments;
+
+	/**
+	 * Maps the given range of the given channel with the given mode
+	 *
+	 * @param channel
+	 *            the channel of the file
+	 * @param mode
+	 *            the map mode
+	 * @param length
+	 *            the number of bytes to map from the start of the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	MappedRegions(final FileChannel channel, final FileChannel.MapMode mode, final long length)
+		throws IOException
+	{
+		final int count = (int)((length + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+		segments = new MappedByteBuffer[count];
+		for (int i = 0; i < count; i++)
+		{
+			final long start = (long)i << SEGMENT_BITS;
+			segments[i] = channel.map(mode, start, Math.min(SEGMENT_SIZE, length - start));
+		}
+	}
+
+	/**
+	 * Gets the segment of the given absolute offset
+	 *
+	 * @param offset
+	 *            the absolute offset
+	 * @return the segment
+	 */
+	private MappedByteBuffer segment(final long offset)
+	{
+		return segments[(int)(offset >>> SEGMENT_BITS)];
+	}
+
+	/**
+	 * Gets the offset in the segment of the given absolute offset
+	 *
+	 * @param offset
+	 *            the absolute offset
+	 * @return the offset in the segment
+	 */
+	private static int inSegment(final long offset)
+	{
+		return (int)(offset & (SEGMENT_SIZE - 1));
+	}
+
+	/**
+	 * Reads the int at the given absolute offset
+	 *
+	 * @param offset
+	 *            the absolute offset
+	 * @return the int
+	 */
+	int getInt(final long offset)
+	{
+		return segment(offset).getInt(inSegment(offset));
+	}
+
+	/**
+	 * Reads the long at the given absolute offset
+	 *
+	 * @param offset
+	 *            the absolute offset
+	 * @return the long
+	 */
+	long getLong(final long offset)
+	{
+		return segment(offset).getLong(inSegment(offset));
+	}
+
+	/**
+	 * Writes the given int at the given absolute offset
+	 *
+	 * @param offset
+	 *            the absolute offset
+	 * @param value
+	 *            the int to write
+	 */
+	void putInt(final long offset, final int value)
+	{
+		segment(offset).putInt(inSegment(offset), value);
+	}
+
+	/**
+	 * Writes the given long at the given absolute offset
+	 *
+	 * @param offset
+	 *            the absolute offset
+	 * @param value
+	 *            the long to write
+	 */
+	void putLong(final long offset, final long value)
+	{
+		segment(offset).putLong(inSegment(offset), value);
+	}
+
+	/**
+	 * Creates a read only view of the given range that must not cross a segment boundary
+	 *
+	 * @param offset
+	 *            the absolute offset
+	 * @param length
+	 *            the length of the range
+	 * @return the view as {@link ByteBuffer} object
+	 */
+	ByteBuffer slice(final long offset, final int length)
+	{
+		return segment(offset).slice(inSegment(offset), length).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Forces all changes to the storage device
+	 */
+	void force()
+	{
+		for (MappedByteBuffer segment : segments)
+		{
+			segment.force();
+		}
+	}
+}
@@ -0,0 +1,519 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import io.github.astrapi69.gen.tree.api.IBaseTreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link MappedTreeNode} is a read only view of a node in a {@link MappedTreeSnapshot}.
+ * The structure is read from the node table of the snapshot on every access and the id, the value
+ * and the display value are decoded on the first access. All methods that would change the tree
+ * throw an {@link UnsupportedOperationException}. Two {@link MappedTreeNode} objects are equal if
+ * they belong to the same snapshot and have the same index
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class MappedTreeNode<T, K> implements IBaseTreeNode<T, K, MappedTreeNode<T, K>>
+{
+
+	/** The snapshot of this node */
+	private final MappedTreeSnapshot<T, K> snapshot;
+
+	/** The pre-order index of this node */
+	private final int index;
+
+	/** The flag that indicates if the data record is decoded */
+	private boolean decoded;
+
+	/** The decoded id */
+	private K id;
+
+	/** The decoded value */
+	private T value;
+
+	/** The decoded display value */
+	private String displayValue;
+
+	/**
+	 * Instantiates a new {@link MappedTreeNode} object
+	 *
+	 * @param snapshot
+	 *            the snapshot of this node
+	 * @param index
+	 *            the pre-order index of this node
+	 */
+	MappedTreeNode(final MappedTreeSnapshot<T, K> snapshot, final int index)
+	{
+		this.snapshot = snapshot;
+		this.index = index;
+	}
+
+	/**
+	 * Gets the pre-order index of this node in the snapshot
+	 *
+	 * @return the index
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Sets the decoded fields of the data record
+	 *
+	 * @param id
+	 *            the id
+	 * @param value
+	 *            the value
+	 * @param displayValue
+	 *            the display value
+	 */
+	void decoded(final K id, final T value, final String displayValue)
+	{
+		this.id = id;
+		this.value = value;
+		this.displayValue = displayValue;
+		this.decoded = true;
+	}
+
+	/**
+	 * Decodes the data record if not already done
+	 */
+	private void ensureDecoded()
+	{
+		if (!decoded)
+		{
+			snapshot.decode(this);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public K getId()
+	{
+		ensureDecoded();
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T getValue()
+	{
+		ensureDecoded();
+		return value;
+	}
+
+	/**
+	 * Gets the display value
+	 *
+	 * @return the display value
+	 */
+	public String getDisplayValue()
+	{
+		ensureDecoded();
+		return displayValue;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaf()
+	{
+		return (snapshot.getField(index, TreeSnapshotFormat.FLAGS)
+			& TreeSnapshotFormat.FLAG_LEAF) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MappedTreeNode<T, K> getParent()
+	{
+		return snapshot.getNodeOrNull(snapshot.getField(index, TreeSnapshotFormat.PARENT));
+	}
+
+	/**
+	 * Gets the children over the first child and the next sibling indexes
+	 *
+	 * @return an unmodifiable {@link List} object with the children
+	 */
+	@Override
+	public Collection<MappedTreeNode<T, K>> getChildren()
+	{
+		final int childCount = getChildCount();
+		if (childCount == 0)
+		{
+			return Collections.emptyList();
+		}
+		final List<MappedTreeNode<T, K>> children = new ArrayList<>(childCount);
+		int childIndex = snapshot.getField(index, TreeSnapshotFormat.FIRST_CHILD);
+		while (childIndex != TreeSnapshotFormat.NO_INDEX)
+		{
+			children.add(new MappedTreeNode<>(snapshot, childIndex));
+			childIndex = snapshot.getField(childIndex, TreeSnapshotFormat.NEXT_SIBLING);
+		}
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildCount()
+	{
+		return snapshot.getField(index, TreeSnapshotFormat.CHILD_COUNT);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasChildren()
+	{
+		return getChildCount() != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasParent()
+	{
+		return snapshot.getField(index, TreeSnapshotFormat.PARENT) != TreeSnapshotFormat.NO_INDEX;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRoot()
+	{
+		return !hasParent();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MappedTreeNode<T, K> getNextSibling()
+	{
+		return snapshot.getNodeOrNull(snapshot.getField(index, TreeSnapshotFormat.NEXT_SIBLING));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNextSibling()
+	{
+		return snapshot.getField(index,
+			TreeSnapshotFormat.NEXT_SIBLING) != TreeSnapshotFormat.NO_INDEX;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getChildIndex(final MappedTreeNode<T, K> child)
+	{
+		if (child == null || child.snapshot != snapshot)
+		{
+			return -1;
+		}
+		int position = 0;
+		int childIndex = snapshot.getField(index, TreeSnapshotFormat.FIRST_CHILD);
+		while (childIndex != TreeSnapshotFormat.NO_INDEX)
+		{
+			if (childIndex == child.index)
+			{
+				return position;
+			}
+			position++;
+			childIndex = snapshot.getField(childIndex, TreeSnapshotFormat.NEXT_SIBLING);
+		}
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if the given position is negative
+	 */
+	@Override
+	public Optional<MappedTreeNode<T, K>> getChildAt(final int position)
+	{
+		if (position < 0)
+		{
+			throw new IndexOutOfBoundsException("Index: " + position);
+		}
+		int childIndex = snapshot.getField(index, TreeSnapshotFormat.FIRST_CHILD);
+		for (int i = 0; i < position && childIndex != TreeSnapshotFormat.NO_INDEX; i++)
+		{
+			childIndex = snapshot.getField(childIndex, TreeSnapshotFormat.NEXT_SIBLING);
+		}
+		return Optional.ofNullable(snapshot.getNodeOrNull(childIndex));
+	}
+
+	/**
+	 * Throws an {@link UnsupportedOperationException}, because the snapshot is read only
+	 *
+	 * @return never
+	 */
+	private static UnsupportedOperationException readOnly()
+	{
+		return new UnsupportedOperationException("A mapped tree snapshot is read only");
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param id
+	 *            the id
+	 */
+	@Override
+	public void setId(final K id)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void setValue(final T value)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param displayValue
+	 *            the display value
+	 */
+	public void setDisplayValue(final String displayValue)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param leaf
+	 *            the leaf flag
+	 */
+	public void setLeaf(final boolean leaf)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param parent
+	 *            the parent
+	 */
+	@Override
+	public void setParent(final MappedTreeNode<T, K> parent)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param children
+	 *            the children
+	 */
+	public void setChildren(final Collection<MappedTreeNode<T, K>> children)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param child
+	 *            the child
+	 */
+	@Override
+	public void addChild(final MappedTreeNode<T, K> child)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param child
+	 *            the child
+	 * @param position
+	 *            the position
+	 */
+	@Override
+	public void addChild(final MappedTreeNode<T, K> child, final int position)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void addChildren(final @NonNull Collection<MappedTreeNode<T, K>> children)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param child
+	 *            the child
+	 */
+	@Override
+	public void removeChild(final MappedTreeNode<T, K> child)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param children
+	 *            the children
+	 */
+	@Override
+	public void removeChildren(final @NonNull Collection<MappedTreeNode<T, K>> children)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 */
+	@Override
+	public void removeChildren()
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 */
+	@Override
+	public void clearChildren()
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 */
+	@Override
+	public void clearAll()
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 *
+	 * @param newParent
+	 *            the new parent
+	 * @return never
+	 */
+	@Override
+	public boolean move(final MappedTreeNode<T, K> newParent)
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, because the snapshot is read only
+	 */
+	@Override
+	public void sortChildren()
+	{
+		throw readOnly();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (!(object instanceof MappedTreeNode))
+		{
+			return false;
+		}
+		final MappedTreeNode<?, ?> other = (MappedTreeNode<?, ?>)object;
+		return snapshot == other.snapshot && index == other.index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode()
+	{
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "MappedTreeNode(index=" + index + ")";
+	}
+}
@@ -0,0 +1,230 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import io.github.astrapi69.gen.tree.codec.BinaryTreeInput;
+import io.github.astrapi69.gen.tree.codec.ValueCodec;
+import lombok.NonNull;
+
+/**
+ * The class {@link MappedTreeSnapshot} opens a snapshot file that is written with the
+ * {@link TreeSnapshotWriter} over {@link FileChannel#map(FileChannel.MapMode, long, long)}. The
+ * tree is navigated in place over the parent, first child and next sibling indexes of the node
+ * table, only the values of the accessed nodes are decoded. Opening a snapshot only maps the file,
+ * so the time does not depend on the size of the tree. The snapshot is read only and can be used
+ * from several threads. The mapping is released by the garbage collector
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public final class MappedTreeSnapshot<T, K>
+{
+
+	/** The mapped file */
+	private final MappedRegions regions;
+
+	/** The number of nodes */
+	private final int nodeCount;
+
+	/** The codec for the values */
+	private final ValueCodec<T> valueCodec;
+
+	/** The codec for the ids */
+	private final ValueCodec<K> idCodec;
+
+	/**
+	 * Instantiates a new {@link MappedTreeSnapshot} object
+	 *
+	 * @param regions
+	 *            the mapped file
+	 * @param nodeCount
+	 *            the number of nodes
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 */
+	private MappedTreeSnapshot(final MappedRegions regions, final int nodeCount,
+		final ValueCodec<T> valueCodec, final ValueCodec<K> idCodec)
+	{
+		this.regions = regions;
+		this.nodeCount = nodeCount;
+		this.valueCodec = valueCodec;
+		this.idCodec = idCodec;
+	}
+
+	/**
+	 * Opens the snapshot file with the given path
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param path
+	 *            the path of the snapshot file
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 * @return the new {@link MappedTreeSnapshot} object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file is no valid snapshot
+	 */
+	public static <T, K> MappedTreeSnapshot<T, K> open(final @NonNull Path path,
+		final @NonNull ValueCodec<T> valueCodec, final @NonNull ValueCodec<K> idCodec)
+		throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			final long size = channel.size();
+			if (size < TreeSnapshotFormat.HEADER_SIZE)
+			{
+				throw new IOException("The file " + path + " is no tree snapshot");
+			}
+			final MappedRegions regions = new MappedRegions(channel, FileChannel.MapMode.READ_ONLY,
+				size);
+			if (regions.getInt(0) != TreeSnapshotFormat.MAGIC)
+			{
+				throw new IOException("The file " + path + " is no tree snapshot");
+			}
+			final int version = regions.getInt(4);
+			if (version != TreeSnapshotFormat.VERSION)
+			{
+				throw new IOException("Unsupported version " + version + " of the tree snapshot");
+			}
+			final long nodeCount = regions.getLong(TreeSnapshotFormat.HEADER_NODE_COUNT);
+			if (regions.getLong(TreeSnapshotFormat.HEADER_FILE_LENGTH) != size || nodeCount < 1
+				|| Integer.MAX_VALUE < nodeCount)
+			{
+				throw new IOException("The tree snapshot " + path + " is incomplete");
+			}
+			return new MappedTreeSnapshot<>(regions, (int)nodeCount, valueCodec, idCodec);
+		}
+	}
+
+	/**
+	 * Gets the number of nodes
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Gets the root node
+	 *
+	 * @return the root node
+	 */
+	public MappedTreeNode<T, K> getRoot()
+	{
+		return getNode(0);
+	}
+
+	/**
+	 * Gets the node with the given index. The index of a node is its position in pre-order, so
+	 * iterating over all indexes visits the tree in pre-order without any navigation
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the node with the given index
+	 */
+	public MappedTreeNode<T, K> getNode(final int index)
+	{
+		if (index < 0 || nodeCount <= index)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for node count "
+				+ nodeCount);
+		}
+		return new MappedTreeNode<>(this, index);
+	}
+
+	/**
+	 * Reads the int field with the given field offset of the node record with the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @param field
+	 *            the offset of the field in the node record
+	 * @return the value of the field
+	 */
+	int getField(final int index, final int field)
+	{
+		return regions.getInt(TreeSnapshotWriter.recordOffset(index) + field);
+	}
+
+	/**
+	 * Creates the node for the given index or null if the given index is
+	 * {@link TreeSnapshotFormat#NO_INDEX}
+	 *
+	 * @param index
+	 *            the index or {@link TreeSnapshotFormat#NO_INDEX}
+	 * @return the node or null
+	 */
+	MappedTreeNode<T, K> getNodeOrNull(final int index)
+	{
+		return index == TreeSnapshotFormat.NO_INDEX ? null : new MappedTreeNode<>(this, index);
+	}
+
+	/**
+	 * Decodes the data record of the node with the given index into the given node
+	 *
+	 * @param node
+	 *            the node to fill
+	 */
+	void decode(final MappedTreeNode<T, K> node)
+	{
+		final long offset = TreeSnapshotWriter.recordOffset(node.getIndex());
+		final int flags = regions.getInt(offset + TreeSnapshotFormat.FLAGS);
+		final BinaryTreeInput input = new BinaryTreeInput(
+			regions.slice(regions.getLong(offset + TreeSnapshotFormat.DATA_OFFSET),
+				regions.getInt(offset + TreeSnapshotFormat.DATA_LENGTH)));
+		try
+		{
+			final K id = (flags & TreeSnapshotFormat.FLAG_ID) != 0 ? idCodec.decode(input) : null;
+			final T value = (flags & TreeSnapshotFormat.FLAG_VALUE) != 0
+				? valueCodec.decode(input)
+				: null;
+			final String displayValue = (flags & TreeSnapshotFormat.FLAG_DISPLAY_VALUE) != 0
+				? input.readString()
+				: null;
+			node.decoded(id, value, displayValue);
+		}
+		catch (IOException exception)
+		{
+			throw new UncheckedIOException("The data of the node with the index "
+				+ node.getIndex() + " is corrupt", exception);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.snapshot;
+
+/**
+ * The class {@link TreeSnapshotFormat} holds the constants of the memory mapped snapshot format.
+ * A snapshot file starts with a header, followed by the node table and the data region. The node
+ * table contains one record with a fixed size for every node in pre-order, so the index of a node
+ * is its pre-order position and the offset of its record is computed from the index. The data
+ * region contains the encoded id, value and display value of every node
+ *
+ * <pre>
+ * header:      int magic, int version, long node count, long node table offset,
+ *              long data region offset, long file length, padding up to 64 bytes
+ * node record: int parent index, int first child index, int next sibling index,
+ *              int child count, int flags, int data length, long data offset
+ * </pre>
+ *
+ * A missing parent, first child or next sibling is marked with the index <code>-1</code>
+ */
+final class TreeSnapshotFormat
+{
+
+	/** The magic number at the start of the snapshot format */
+	static final int MAGIC = 0x4754524D;
+
+	/** The version of the snapshot format */
+	static final int VERSION = 1;
+
+	/** The size of the header */
+	static final int HEADER_SIZE = 64;
+
+	/** The size of a node record */
+	static final int NODE_SIZE = 32;
+
+	/** The index that marks a missing node */
+	static final int NO_INDEX = -1;
+
+	/** The offset of the node count in the header */
+	static final int HEADER_NODE_COUNT = 8;
+
+	/** The offset of the node table offset in the header */
+	static final int HEADER_TABLE_OFFSET = 16;
+
+	/** The offset of the data region offset in the header */
+	static final int HEADER_DATA_OFFSET = 24;
+
+	/** The offset of the file length in the header */
+	static final int HEADER_FILE_LENGTH = 32;
+
+	/** The offset of the parent index in a node record */
+	static final int PARENT = 0;
+
+	/** The offset of the first child index in a node record */
+	static final int FIRST_CHILD = 4;
+
+	/** The offset of the next sibling index in a node record */
+	static final int NEXT_SIBLING = 8;
+
+	/** The offset of the child count in a node record */
+	static final int CHILD_COUNT = 12;
+
+	/** The offset of the flags in a node record */
+	static final int FLAGS = 16;
+
+	/** The offset of the data length in a node record */
+	static final int DATA_LENGTH = 20;
+
+	/** The offset of the data offset in a node record */
+	static final int DATA_OFFSET = 24;
+
+	/** The flag that indicates that the node has an id */
+	static final int FLAG_ID = 1;
+
+	/** The flag that indicates that the node has a value */
+	static final int FLAG_VALUE = 1 << 1;
+
+	/** The flag that indicates that the node has a display value */
+	static final int FLAG_DISPLAY_VALUE = 1 << 2;
+
+	/** The flag that indicates that the node is a leaf */
+	static final int FLAG_LEAF = 1 << 3;
+
+	private TreeSnapshotFormat()
+	{
+	}
+}
@@ -0,0 +1,364 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeOutput;
+import io.github.astrapi69.gen.tree.codec.ValueCodec;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeSnapshotWriter} writes {@link BaseTreeNode} trees to snapshot files that can
+ * be opened with {@link MappedTreeSnapshot#open(Path, ValueCodec, ValueCodec)} and navigated in
+ * place without deserializing. The format is described in {@link TreeSnapshotFormat}
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class TreeSnapshotWriter<T, K>
+{
+
+	/** The suffix of the temporary file that is written before it replaces the snapshot file */
+	static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	/** The codec for the values */
+	private final ValueCodec<T> valueCodec;
+
+	/** The codec for the ids */
+	private final ValueCodec<K> idCodec;
+
+	/**
+	 * Instantiates a new {@link TreeSnapshotWriter} object
+	 *
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 */
+	public TreeSnapshotWriter(final @NonNull ValueCodec<T> valueCodec,
+		final @NonNull ValueCodec<K> idCodec)
+	{
+		this.valueCodec = valueCodec;
+		this.idCodec = idCodec;
+	}
+
+	/**
+	 * Writes the tree of the given root to a snapshot file with the given path. The snapshot is
+	 * written to a temporary file next to the given path, forced to the storage device and renamed
+	 * atomically, so a {@link MappedTreeSnapshot} that maps an existing file keeps its consistent
+	 * view and a crash never leaves a half written snapshot. The data region and the node table
+	 * are forced before the header is written, so a valid header never points at unwritten data
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param path
+	 *            the path of the snapshot file, an existing file is replaced
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void write(final @NonNull BaseTreeNode<T, K> root, final @NonNull Path path)
+		throws IOException
+	{
+		final long nodeCount = count(root);
+		if (Integer.MAX_VALUE < nodeCount)
+		{
+			throw new IOException("A snapshot can not contain more than " + Integer.MAX_VALUE
+				+ " nodes");
+		}
+		final long dataStart = TreeSnapshotFormat.HEADER_SIZE
+			+ nodeCount * TreeSnapshotFormat.NODE_SIZE;
+		final Path tempFile = path.resolveSibling(path.getFileName() + TEMP_FILE_SUFFIX);
+		try
+		{
+			try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE))
+			{
+				final MappedRegions table = new MappedRegions(channel,
+					FileChannel.MapMode.READ_WRITE, dataStart);
+				channel.position(dataStart);
+				final BinaryTreeOutput data = new BinaryTreeOutput(channel);
+				writeRecords(root, table, data, dataStart);
+				data.flush();
+				channel.force(true);
+				table.force();
+				table.putInt(0, TreeSnapshotFormat.MAGIC);
+				table.putInt(4, TreeSnapshotFormat.VERSION);
+				table.putLong(TreeSnapshotFormat.HEADER_NODE_COUNT, nodeCount);
+				table.putLong(TreeSnapshotFormat.HEADER_TABLE_OFFSET,
+					TreeSnapshotFormat.HEADER_SIZE);
+				table.putLong(TreeSnapshotFormat.HEADER_DATA_OFFSET, dataStart);
+				table.putLong(TreeSnapshotFormat.HEADER_FILE_LENGTH,
+					dataStart + data.getWrittenBytes());
+				table.force();
+			}
+			Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException | RuntimeException exception)
+		{
+			Files.deleteIfExists(tempFile);
+			throw exception;
+		}
+	}
+
+	/**
+	 * Writes the node records and the data records of the tree of the given root in pre-order
+	 *
+	 * @param root
+	 *            the root of the tree to write
+	 * @param table
+	 *            the mapped header and node table
+	 * @param data
+	 *            the output of the data region
+	 * @param dataStart
+	 *            the absolute offset of the data region
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeRecords(final BaseTreeNode<T, K> root, final MappedRegions table,
+		final BinaryTreeOutput data, final long dataStart) throws IOException
+	{
+		final DataRecordEncoder encoder = new DataRecordEncoder();
+		final Deque<Frame<T, K>> stack = new ArrayDeque<>();
+		int nextIndex = 0;
+		writeRecord(root, nextIndex++, TreeSnapshotFormat.NO_INDEX, table, data, dataStart,
+			encoder, stack);
+		while (!stack.isEmpty())
+		{
+			final Frame<T, K> frame = stack.peek();
+			if (!frame.children.hasNext())
+			{
+				stack.pop();
+				continue;
+			}
+			final int index = nextIndex++;
+			final BaseTreeNode<T, K> child = frame.children.next();
+			if (frame.lastChild == TreeSnapshotFormat.NO_INDEX)
+			{
+				table.putInt(recordOffset(frame.index) + TreeSnapshotFormat.FIRST_CHILD, index);
+			}
+			else
+			{
+				table.putInt(recordOffset(frame.lastChild) + TreeSnapshotFormat.NEXT_SIBLING,
+					index);
+			}
+			frame.lastChild = index;
+			writeRecord(child, index, frame.index, table, data, dataStart, encoder, stack);
+		}
+	}
+
+	/**
+	 * Writes the node record and the data record of the given node and pushes the frame for its
+	 * children
+	 *
+	 * @param node
+	 *            the node to write
+	 * @param index
+	 *            the pre-order index of the node
+	 * @param parentIndex
+	 *            the index of the parent or {@link TreeSnapshotFormat#NO_INDEX}
+	 * @param table
+	 *            the mapped header and node table
+	 * @param data
+	 *            the output of the data region
+	 * @param dataStart
+	 *            the absolute offset of the data region
+	 * @param encoder
+	 *            the encoder of the data records
+	 * @param stack
+	 *            the stack with the frames of the nodes whose children are written
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeRecord(final BaseTreeNode<T, K> node, final int index, final int parentIndex,
+		final MappedRegions table, final BinaryTreeOutput data, final long dataStart,
+		final DataRecordEncoder encoder, final Deque<Frame<T, K>> stack) throws IOException
+	{
+		final K id = node.getId();
+		final T value = node.getValue();
+		final String displayValue = node.getDisplayValue();
+		final int flags = (id != null ? TreeSnapshotFormat.FLAG_ID : 0)
+			| (value != null ? TreeSnapshotFormat.FLAG_VALUE : 0)
+			| (displayValue != null ? TreeSnapshotFormat.FLAG_DISPLAY_VALUE : 0)
+			| (node.isLeaf() ? TreeSnapshotFormat.FLAG_LEAF : 0);
+		final byte[] dataRecord = encoder.encode(id, value, displayValue);
+		if (MappedRegions.SEGMENT_SIZE < dataRecord.length)
+		{
+			throw new IOException("The data of the node with the index " + index + " is too large");
+		}
+		long dataOffset = dataStart + data.getWrittenBytes();
+		final long segmentRemaining = MappedRegions.SEGMENT_SIZE
+			- (dataOffset & (MappedRegions.SEGMENT_SIZE - 1));
+		if (segmentRemaining < dataRecord.length)
+		{
+			// a data record never crosses a segment boundary
+			for (long i = 0; i < segmentRemaining; i++)
+			{
+				data.writeByte(0);
+			}
+			dataOffset += segmentRemaining;
+		}
+		data.writeRawBytes(dataRecord, 0, dataRecord.length);
+		final int childCount = node.hasChildren() ? node.getChildren().size() : 0;
+		final long offset = recordOffset(index);
+		table.putInt(offset + TreeSnapshotFormat.PARENT, parentIndex);
+		table.putInt(offset + TreeSnapshotFormat.FIRST_CHILD, TreeSnapshotFormat.NO_INDEX);
+		table.putInt(offset + TreeSnapshotFormat.NEXT_SIBLING, TreeSnapshotFormat.NO_INDEX);
+		table.putInt(offset + TreeSnapshotFormat.CHILD_COUNT, childCount);
+		table.putInt(offset + TreeSnapshotFormat.FLAGS, flags);
+		table.putInt(offset + TreeSnapshotFormat.DATA_LENGTH, dataRecord.length);
+		table.putLong(offset + TreeSnapshotFormat.DATA_OFFSET, dataOffset);
+		if (0 < childCount)
+		{
+			stack.push(new Frame<>(node.getChildren().iterator(), index));
+		}
+	}
+
+	/**
+	 * Counts the nodes of the tree of the given root iteratively
+	 *
+	 * @param root
+	 *            the root
+	 * @return the number of nodes
+	 */
+	private static <T, K> long count(final BaseTreeNode<T, K> root)
+	{
+		long count = 0;
+		final Deque<BaseTreeNode<T, K>> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<T, K> current = stack.pop();
+			count++;
+			if (current.hasChildren())
+			{
+				current.getChildren().forEach(stack::push);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Computes the offset of the node record with the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 * @return the absolute offset of the node record
+	 */
+	static long recordOffset(final int index)
+	{
+		return TreeSnapshotFormat.HEADER_SIZE + (long)index * TreeSnapshotFormat.NODE_SIZE;
+	}
+
+	/**
+	 * The class {@link Frame} holds the state of a node whose children are written
+	 */
+	private static final class Frame<T, K>
+	{
+
+		/** The iterator over the children */
+		final Iterator<BaseTreeNode<T, K>> children;
+
+		/** The index of the node */
+		final int index;
+
+		/** The index of the last written child */
+		int lastChild = TreeSnapshotFormat.NO_INDEX;
+
+		/**
+		 * Instantiates a new {@link Frame} object
+		 *
+		 * @param children
+		 *            the iterator over the children
+		 * @param index
+		 *            the index of the node
+		 */
+		Frame(final Iterator<BaseTreeNode<T, K>> children, final int index)
+		{
+			this.children = children;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * The class {@link DataRecordEncoder} encodes the data records with a reused buffer
+	 */
+	private final class DataRecordEncoder
+	{
+
+		/** The bytes of the current data record */
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		/** The output over the bytes */
+		final BinaryTreeOutput output = new BinaryTreeOutput(Channels.newChannel(bytes), 4096);
+
+		/**
+		 * Encodes the given fields to a data record, the null fields are omitted
+		 *
+		 * @param id
+		 *            the id
+		 * @param value
+		 *            the value
+		 * @param displayValue
+		 *            the display value
+		 * @return the bytes of the data record
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		byte[] encode(final K id, final T value, final String displayValue) throws IOException
+		{
+			bytes.reset();
+			if (id != null)
+			{
+				idCodec.encode(id, output);
+			}
+			if (value != null)
+			{
+				valueCodec.encode(value, output);
+			}
+			if (displayValue != null)
+			{
+				output.writeString(displayValue);
+			}
+			output.flush();
+			return bytes.toByteArray();
+		}
+	}
+}
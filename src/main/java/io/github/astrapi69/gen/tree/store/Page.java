@@ -0,0 +1,73 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.store;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.github.astrapi69.gen.tree.TreeIdNode;
+
+/**
+ * The class {@link Page} holds the decoded records of one page of a {@link PagedTreeStore} in the
+ * page cache
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+final class Page<T, K>
+{
+
+	/** The number of the page in the file */
+	final int number;
+
+	/** The records of the page with the id as key */
+	final Map<K, TreeIdNode<T, K>> records = new LinkedHashMap<>();
+
+	/** The encoded sizes of the records including the length prefix with the id as key */
+	final Map<K, Integer> recordSizes = new HashMap<>();
+
+	/** The overflow pages of the records that do not fit in the page with the id as key */
+	final Map<K, int[]> overflowPages = new HashMap<>();
+
+	/** The encoded lengths of the records in the overflow pages with the id as key */
+	final Map<K, Integer> overflowLengths = new HashMap<>();
+
+	/** The flag that indicates if the page was changed since it was read or written */
+	boolean dirty;
+
+	/**
+	 * Instantiates a new {@link Page} object
+	 *
+	 * @param number
+	 *            the number of the page in the file
+	 */
+	Page(final int number)
+	{
+		this.number = number;
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.store;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The class {@link PageCacheMetrics} is an immutable snapshot of the counters of the page cache of
+ * a {@link PagedTreeStore}. The counters help to size the cache, a low hit ratio together with many
+ * evictions indicates that the cache is too small for the access pattern
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class PageCacheMetrics
+{
+
+	/** The number of page accesses that were served from the cache */
+	private final long hits;
+
+	/** The number of page accesses that had to read the page from the file */
+	private final long misses;
+
+	/** The number of pages that were evicted from the cache */
+	private final long evictions;
+
+	/** The number of dirty pages that were written back to the file */
+	private final long writeBacks;
+
+	/** The number of pages in the cache */
+	private final int cachedPages;
+
+	/** The maximum number of pages in the cache */
+	private final int maxCachedPages;
+
+	/** The number of pages in the file including the header page */
+	private final int pageCount;
+
+	/**
+	 * Gets the ratio of the hits to all page accesses
+	 *
+	 * @return the hit ratio between 0 and 1 or 0 if no page was accessed yet
+	 */
+	public double getHitRatio()
+	{
+		final long accesses = hits + misses;
+		return accesses == 0 ? 0 : hits / (double)accesses;
+	}
+}
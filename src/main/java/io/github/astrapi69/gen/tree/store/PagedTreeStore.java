@@ -0,0 +1,1281 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeInput;
+import io.github.astrapi69.gen.tree.codec.BinaryTreeOutput;
+import io.github.astrapi69.gen.tree.codec.ValueCodec;
+import io.github.astrapi69.gen.tree.lazy.LazyBaseTreeNodeView;
+import lombok.NonNull;
+
+/**
+ * The class {@link PagedTreeStore} keeps {@link TreeIdNode} records in fixed size pages of a local
+ * file, so a tree does not have to fit in the heap. The pages are read through a bounded LRU page
+ * cache, changed pages are marked dirty and written back when they are evicted or the store is
+ * flushed. Only the index from the ids to the page numbers and the used bytes per page stay in the
+ * heap. A new record is placed in the page of its parent if it fits there, so siblings tend to
+ * share a page and the navigation needs few page reads
+ *
+ * <p>
+ * The store returns and takes copies of the records, so a changed record has to be written back
+ * with {@link #put(TreeIdNode)}. The navigation over {@link #findById(Object)},
+ * {@link #getParent(Object)} and {@link #getChildren(Object)} works directly on the records, the
+ * navigation over {@link io.github.astrapi69.gen.tree.lazy.LazyBaseTreeNode} objects is available
+ * with {@link #getView()}. The store is not thread safe
+ *
+ * <p>
+ * A record that does not fit in a data page, like a node with thousands of children, is written
+ * to a chain of overflow pages, the data page keeps only a small stub with the id and the first
+ * overflow page. The freed overflow pages are reused by the following records
+ *
+ * <p>
+ * The store is not crash safe. The header is written whenever a page is allocated, but the dirty
+ * pages of the cache reach the file only on their eviction or on {@link #flush()}. After a crash
+ * the changes since the last flush can be lost, and a record that was moved to another page can
+ * be lost or can come back in its old version
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class PagedTreeStore<T, K> implements Closeable
+{
+
+	/** The default page size */
+	public static final int DEFAULT_PAGE_SIZE = 8192;
+
+	/** The default maximum number of cached pages */
+	public static final int DEFAULT_MAX_CACHED_PAGES = 256;
+
+	/** The magic number at the start of the header page */
+	static final int MAGIC = 0x47545053;
+
+	/** The version of the file format */
+	static final int VERSION = 1;
+
+	/** The size of the header of a data page with the record count and the used bytes */
+	static final int PAGE_HEADER_SIZE = 2 * Integer.BYTES;
+
+	/** The marker in place of the record count that indicates an overflow page */
+	static final int OVERFLOW_PAGE = -1;
+
+	/** The size of the header of an overflow page with the marker, the next page and the length */
+	static final int OVERFLOW_HEADER_SIZE = 3 * Integer.BYTES;
+
+	/** The flag that indicates that the record has a parent id */
+	private static final int FLAG_PARENT_ID = 1;
+
+	/** The flag that indicates that the record has a value */
+	private static final int FLAG_VALUE = 1 << 1;
+
+	/** The flag that indicates that the record has a display value */
+	private static final int FLAG_DISPLAY_VALUE = 1 << 2;
+
+	/** The flag that indicates that the record is a leaf */
+	private static final int FLAG_LEAF = 1 << 3;
+
+	/** The flag that indicates a stub of a record in overflow pages */
+	private static final int FLAG_OVERFLOW = 1 << 4;
+
+	/** The channel of the file */
+	private final FileChannel channel;
+
+	/** The codec for the values */
+	private final ValueCodec<T> valueCodec;
+
+	/** The codec for the ids */
+	private final ValueCodec<K> idCodec;
+
+	/** The size of a page */
+	private final int pageSize;
+
+	/** The maximum number of cached pages */
+	private final int maxCachedPages;
+
+	/** The buffer for reading and writing a page */
+	private final ByteBuffer pageBuffer;
+
+	/** The buffer for reading and writing an overflow page and the header */
+	private final ByteBuffer overflowBuffer;
+
+	/** The bytes of the encoded record */
+	private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+
+	/** The output over the record bytes */
+	private final BinaryTreeOutput recordOutput = new BinaryTreeOutput(
+		Channels.newChannel(recordBytes), 4096);
+
+	/** The index from the ids to the page numbers */
+	private final Map<K, Integer> pageIndex = new HashMap<>();
+
+	/** The page cache in access order */
+	private final LinkedHashMap<Integer, Page<T, K>> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** The used bytes of the data pages with the page number as index */
+	private int[] usedBytes = new int[16];
+
+	/** The number of pages in the file including the header page */
+	private int pageCount;
+
+	/** The number of the page that receives the records without a placement in the parent page */
+	private int fillPage;
+
+	/** The numbers of the free overflow pages */
+	private final Deque<Integer> freePages = new ArrayDeque<>();
+
+	/** The counters of the page cache */
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long writeBacks;
+
+	/**
+	 * Instantiates a new {@link PagedTreeStore} object
+	 */
+	private PagedTreeStore(final FileChannel channel, final ValueCodec<T> valueCodec,
+		final ValueCodec<K> idCodec, final int pageSize, final int maxCachedPages)
+	{
+		this.channel = channel;
+		this.valueCodec = valueCodec;
+		this.idCodec = idCodec;
+		this.pageSize = pageSize;
+		this.maxCachedPages = maxCachedPages;
+		this.pageBuffer = ByteBuffer.allocate(pageSize);
+		this.overflowBuffer = ByteBuffer.allocate(pageSize);
+	}
+
+	/**
+	 * Opens the store in the given file with the default page size and the default cache size.
+	 * The file is created if it does not exist
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param path
+	 *            the path of the file
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 * @return the opened {@link PagedTreeStore} object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file is no store file
+	 */
+	public static <T, K> PagedTreeStore<T, K> open(final @NonNull Path path,
+		final @NonNull ValueCodec<T> valueCodec, final @NonNull ValueCodec<K> idCodec)
+		throws IOException
+	{
+		return open(path, valueCodec, idCodec, DEFAULT_PAGE_SIZE, DEFAULT_MAX_CACHED_PAGES);
+	}
+
+	/**
+	 * Opens the store in the given file. The file is created if it does not exist, otherwise the
+	 * index is rebuilt with one sequential scan over all pages
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param path
+	 *            the path of the file
+	 * @param valueCodec
+	 *            the codec for the values
+	 * @param idCodec
+	 *            the codec for the ids
+	 * @param pageSize
+	 *            the size of a page, it must match the page size of an existing file
+	 * @param maxCachedPages
+	 *            the maximum number of cached pages
+	 * @return the opened {@link PagedTreeStore} object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file is no store file
+	 */
+	public static <T, K> PagedTreeStore<T, K> open(final @NonNull Path path,
+		final @NonNull ValueCodec<T> valueCodec, final @NonNull ValueCodec<K> idCodec,
+		final int pageSize, final int maxCachedPages) throws IOException
+	{
+		if (pageSize < 64)
+		{
+			throw new IllegalArgumentException("pageSize must be at least 64");
+		}
+		if (maxCachedPages < 1)
+		{
+			throw new IllegalArgumentException("maxCachedPages must be positive");
+		}
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+			StandardOpenOption.READ, StandardOpenOption.WRITE);
+		final PagedTreeStore<T, K> store = new PagedTreeStore<>(channel, valueCodec, idCodec,
+			pageSize, maxCachedPages);
+		try
+		{
+			if (channel.size() == 0)
+			{
+				store.pageCount = 1;
+				store.writeHeader();
+			}
+			else
+			{
+				store.readHeader();
+				store.rebuildIndex();
+			}
+		}
+		catch (IOException | RuntimeException exception)
+		{
+			channel.close();
+			throw exception;
+		}
+		return store;
+	}
+
+	/**
+	 * Gets the number of records
+	 *
+	 * @return the number of records
+	 */
+	public int size()
+	{
+		return pageIndex.size();
+	}
+
+	/**
+	 * Gets the ids of all records
+	 *
+	 * @return an unmodifiable {@link Set} object with the ids
+	 */
+	public Set<K> getIds()
+	{
+		return Collections.unmodifiableSet(pageIndex.keySet());
+	}
+
+	/**
+	 * Checks if a record with the given id exists
+	 *
+	 * @param id
+	 *            the id
+	 * @return true, if a record with the given id exists otherwise false
+	 */
+	public boolean contains(final K id)
+	{
+		return id != null && pageIndex.containsKey(id);
+	}
+
+	/**
+	 * Finds the record with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return a copy of the record or null if no record with the given id exists
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public TreeIdNode<T, K> findById(final K id) throws IOException
+	{
+		final Integer pageNumber = id == null ? null : pageIndex.get(id);
+		if (pageNumber == null)
+		{
+			return null;
+		}
+		return copy(getPage(pageNumber).records.get(id));
+	}
+
+	/**
+	 * Finds the parent record of the record with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return a copy of the parent record or null if the record does not exist or is a root
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public TreeIdNode<T, K> getParent(final K id) throws IOException
+	{
+		final TreeIdNode<T, K> treeIdNode = findById(id);
+		return treeIdNode == null ? null : findById(treeIdNode.getParentId());
+	}
+
+	/**
+	 * Finds the child records of the record with the given id
+	 *
+	 * @param id
+	 *            the id
+	 * @return a new {@link List} object with copies of the child records in the order of the
+	 *         children ids
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public List<TreeIdNode<T, K>> getChildren(final K id) throws IOException
+	{
+		final TreeIdNode<T, K> treeIdNode = findById(id);
+		if (treeIdNode == null || !treeIdNode.hasChildren())
+		{
+			return new ArrayList<>();
+		}
+		final List<TreeIdNode<T, K>> children = new ArrayList<>(treeIdNode.getChildCount());
+		for (final K childId : treeIdNode.getChildrenIds())
+		{
+			final TreeIdNode<T, K> child = findById(childId);
+			if (child != null)
+			{
+				children.add(child);
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Finds the root record. The root is searched over the parent ids from any record
+	 *
+	 * @return a copy of the root record or null if the store is empty
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the parent ids contain a cycle
+	 */
+	public TreeIdNode<T, K> getRoot() throws IOException
+	{
+		if (pageIndex.isEmpty())
+		{
+			return null;
+		}
+		TreeIdNode<T, K> current = findById(pageIndex.keySet().iterator().next());
+		final Set<K> visited = new HashSet<>();
+		visited.add(current.getId());
+		while (current.hasParent() && contains(current.getParentId()))
+		{
+			if (!visited.add(current.getParentId()))
+			{
+				throw new IOException(
+					"The parent ids contain a cycle at the id " + current.getParentId());
+			}
+			current = findById(current.getParentId());
+		}
+		return current;
+	}
+
+	/**
+	 * Stores a copy of the given record. The record stays in its page if it still fits, otherwise
+	 * it is moved to the page of its parent, to the current fill page or to a new page. A record
+	 * that does not fit in a page is written to overflow pages and only its stub is placed in a
+	 * page
+	 *
+	 * @param treeIdNode
+	 *            the record to store
+	 * @return a copy of the previous record or null if the id was not stored yet
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws IllegalArgumentException
+	 *             if the id is null or the id is too large for the stub in a page
+	 */
+	public TreeIdNode<T, K> put(final @NonNull TreeIdNode<T, K> treeIdNode) throws IOException
+	{
+		final K id = treeIdNode.getId();
+		if (id == null)
+		{
+			throw new IllegalArgumentException("The id of the record must not be null");
+		}
+		final TreeIdNode<T, K> record = copy(treeIdNode);
+		final byte[] encoded = encode(record);
+		final boolean overflow = pageCapacity() < encoded.length + Integer.BYTES;
+		final int recordSize = overflow
+			? encodeStub(id, encoded.length, 0).length + Integer.BYTES
+			: encoded.length + Integer.BYTES;
+		if (pageCapacity() < recordSize)
+		{
+			throw new IllegalArgumentException("The stub of the record with the id " + id
+				+ " needs " + recordSize + " bytes and does not fit in a page of " + pageSize
+				+ " bytes");
+		}
+		final Integer currentPageNumber = pageIndex.get(id);
+		final Page<T, K> currentPage = currentPageNumber != null
+			? getPage(currentPageNumber)
+			: null;
+		if (currentPage != null)
+		{
+			// the overflow pages of the previous record are reused by the new record
+			freeOverflow(currentPage, id);
+		}
+		final int[] overflowPages = overflow ? writeOverflow(encoded) : null;
+		TreeIdNode<T, K> previous = null;
+		if (currentPage != null)
+		{
+			final int previousSize = currentPage.recordSizes.get(id);
+			previous = currentPage.records.get(id);
+			if (usedBytes[currentPage.number] - previousSize + recordSize <= pageCapacity())
+			{
+				putRecord(currentPage, record, recordSize, overflowPages, encoded.length);
+				usedBytes[currentPage.number] -= previousSize;
+				return previous;
+			}
+			removeRecord(currentPage, id);
+		}
+		final Page<T, K> page = getPage(choosePage(record.getParentId(), recordSize));
+		putRecord(page, record, recordSize, overflowPages, encoded.length);
+		pageIndex.put(id, page.number);
+		return previous;
+	}
+
+	/**
+	 * Removes the record with the given id. The freed space is reused by the following records
+	 * that are placed in the same page
+	 *
+	 * @param id
+	 *            the id
+	 * @return a copy of the removed record or null if no record with the given id exists
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public TreeIdNode<T, K> remove(final K id) throws IOException
+	{
+		final Integer pageNumber = id == null ? null : pageIndex.get(id);
+		if (pageNumber == null)
+		{
+			return null;
+		}
+		final Page<T, K> page = getPage(pageNumber);
+		final TreeIdNode<T, K> removed = page.records.get(id);
+		removeRecord(page, id);
+		pageIndex.remove(id);
+		return removed;
+	}
+
+	/**
+	 * Gets a {@link Map} view of this store with the id as key. The view reads and writes through
+	 * this store, I/O errors are thrown as {@link UncheckedIOException}
+	 *
+	 * @return the {@link Map} view
+	 */
+	public Map<K, TreeIdNode<T, K>> asMap()
+	{
+		return new StoreMap();
+	}
+
+	/**
+	 * Creates a new {@link LazyBaseTreeNodeView} object over {@link #asMap()} for the navigation
+	 * with the {@link io.github.astrapi69.gen.tree.lazy.LazyBaseTreeNode} objects
+	 *
+	 * @return the new {@link LazyBaseTreeNodeView} object
+	 */
+	public LazyBaseTreeNodeView<T, K> getView()
+	{
+		return new LazyBaseTreeNodeView<>(asMap());
+	}
+
+	/**
+	 * Gets a snapshot of the counters of the page cache
+	 *
+	 * @return the {@link PageCacheMetrics} object
+	 */
+	public PageCacheMetrics getMetrics()
+	{
+		return new PageCacheMetrics(hits, misses, evictions, writeBacks, cache.size(),
+			maxCachedPages, pageCount);
+	}
+
+	/**
+	 * Resets the counters of the page cache
+	 */
+	public void resetMetrics()
+	{
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		writeBacks = 0;
+	}
+
+	/**
+	 * Writes all dirty pages and the header and forces them to the storage device
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void flush() throws IOException
+	{
+		for (final Page<T, K> page : cache.values())
+		{
+			if (page.dirty)
+			{
+				writePage(page);
+			}
+		}
+		writeHeader();
+		channel.force(false);
+	}
+
+	/**
+	 * Flushes and closes this store
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			cache.clear();
+			channel.close();
+		}
+	}
+
+	/**
+	 * Puts the given record in the given page and adds its size to the used bytes of the page
+	 *
+	 * @param page
+	 *            the page
+	 * @param record
+	 *            the record
+	 * @param recordSize
+	 *            the size of the record or of its stub in the page
+	 * @param overflowPages
+	 *            the overflow pages of the record or null if the record is placed in the page
+	 * @param encodedLength
+	 *            the length of the encoded record
+	 */
+	private void putRecord(final Page<T, K> page, final TreeIdNode<T, K> record,
+		final int recordSize, final int[] overflowPages, final int encodedLength)
+	{
+		final K id = record.getId();
+		page.records.put(id, record);
+		page.recordSizes.put(id, recordSize);
+		if (overflowPages != null)
+		{
+			page.overflowPages.put(id, overflowPages);
+			page.overflowLengths.put(id, encodedLength);
+		}
+		usedBytes[page.number] += recordSize;
+		page.dirty = true;
+	}
+
+	/**
+	 * Gets the capacity of a data page for the records
+	 *
+	 * @return the capacity in bytes
+	 */
+	private int pageCapacity()
+	{
+		return pageSize - PAGE_HEADER_SIZE;
+	}
+
+	/**
+	 * Chooses the page for a new record, that is the page of the parent, the fill page or a new
+	 * page
+	 *
+	 * @param parentId
+	 *            the parent id of the record
+	 * @param recordSize
+	 *            the encoded size of the record
+	 * @return the page number
+	 */
+	private int choosePage(final K parentId, final int recordSize) throws IOException
+	{
+		final Integer parentPage = parentId == null ? null : pageIndex.get(parentId);
+		if (parentPage != null && usedBytes[parentPage] + recordSize <= pageCapacity())
+		{
+			return parentPage;
+		}
+		if (fillPage != 0 && usedBytes[fillPage] + recordSize <= pageCapacity())
+		{
+			return fillPage;
+		}
+		fillPage = allocatePage();
+		return fillPage;
+	}
+
+	/**
+	 * Allocates a new empty data page and puts it in the cache
+	 *
+	 * @return the number of the new page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private int allocatePage() throws IOException
+	{
+		final int number = nextFreePage();
+		usedBytes[number] = 0;
+		final Page<T, K> page = new Page<>(number);
+		page.dirty = true;
+		cache.put(number, page);
+		evict();
+		return number;
+	}
+
+	/**
+	 * Takes a free overflow page or appends a new page to the file. The header is written for an
+	 * appended page, so the page is known after a crash
+	 *
+	 * @return the number of the page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private int nextFreePage() throws IOException
+	{
+		if (!freePages.isEmpty())
+		{
+			return freePages.pop();
+		}
+		final int number = pageCount++;
+		if (number == usedBytes.length)
+		{
+			usedBytes = Arrays.copyOf(usedBytes, number << 1);
+		}
+		writeHeader();
+		return number;
+	}
+
+	/**
+	 * Removes the record with the given id from the given page and frees its overflow pages
+	 */
+	private void removeRecord(final Page<T, K> page, final K id)
+	{
+		freeOverflow(page, id);
+		page.records.remove(id);
+		usedBytes[page.number] -= page.recordSizes.remove(id);
+		page.dirty = true;
+	}
+
+	/**
+	 * Frees the overflow pages of the record with the given id in the given page
+	 */
+	private void freeOverflow(final Page<T, K> page, final K id)
+	{
+		final int[] overflowPages = page.overflowPages.remove(id);
+		page.overflowLengths.remove(id);
+		if (overflowPages != null)
+		{
+			for (final int number : overflowPages)
+			{
+				freePages.push(number);
+			}
+		}
+	}
+
+	/**
+	 * Writes the given encoded record to a chain of overflow pages
+	 *
+	 * @param encoded
+	 *            the encoded record
+	 * @return the numbers of the overflow pages in the order of the chain
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private int[] writeOverflow(final byte[] encoded) throws IOException
+	{
+		final int chunkCapacity = pageSize - OVERFLOW_HEADER_SIZE;
+		final int[] overflowPages = new int[(encoded.length + chunkCapacity - 1) / chunkCapacity];
+		for (int i = 0; i < overflowPages.length; i++)
+		{
+			overflowPages[i] = nextFreePage();
+			usedBytes[overflowPages[i]] = pageCapacity();
+		}
+		for (int i = 0; i < overflowPages.length; i++)
+		{
+			final int offset = i * chunkCapacity;
+			final int length = Math.min(chunkCapacity, encoded.length - offset);
+			overflowBuffer.clear();
+			overflowBuffer.putInt(OVERFLOW_PAGE);
+			overflowBuffer.putInt(i + 1 < overflowPages.length ? overflowPages[i + 1] : 0);
+			overflowBuffer.putInt(length);
+			overflowBuffer.put(encoded, offset, length);
+			overflowBuffer.flip();
+			writeBuffer(overflowBuffer, (long)overflowPages[i] * pageSize);
+		}
+		return overflowPages;
+	}
+
+	/**
+	 * Reads the encoded record from the chain of overflow pages that starts with the given page
+	 *
+	 * @param firstPage
+	 *            the number of the first overflow page
+	 * @param encodedLength
+	 *            the length of the encoded record
+	 * @param chain
+	 *            the list that receives the numbers of the overflow pages
+	 * @return the encoded record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the chain is corrupt
+	 */
+	private byte[] readOverflow(final int firstPage, final int encodedLength,
+		final List<Integer> chain) throws IOException
+	{
+		final byte[] encoded = new byte[encodedLength];
+		int offset = 0;
+		int number = firstPage;
+		while (offset < encodedLength)
+		{
+			if (number < 1 || pageCount <= number || pageCount < chain.size())
+			{
+				throw new IOException("The overflow chain of the page " + firstPage
+					+ " is corrupt");
+			}
+			readBuffer(overflowBuffer, (long)number * pageSize);
+			final int length = overflowBuffer.getInt(2 * Integer.BYTES);
+			if (overflowBuffer.getInt() != OVERFLOW_PAGE || length < 1
+				|| encodedLength - offset < length)
+			{
+				throw new IOException("The page " + number + " is no valid overflow page");
+			}
+			chain.add(number);
+			final int next = overflowBuffer.getInt();
+			overflowBuffer.position(OVERFLOW_HEADER_SIZE);
+			overflowBuffer.get(encoded, offset, length);
+			offset += length;
+			number = next;
+		}
+		return encoded;
+	}
+
+	/**
+	 * Gets the page with the given number from the cache or reads it from the file
+	 *
+	 * @param number
+	 *            the page number
+	 * @return the page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private Page<T, K> getPage(final int number) throws IOException
+	{
+		Page<T, K> page = cache.get(number);
+		if (page != null)
+		{
+			hits++;
+			return page;
+		}
+		misses++;
+		page = readPage(number);
+		cache.put(number, page);
+		evict();
+		return page;
+	}
+
+	/**
+	 * Evicts the least recently used pages until the cache size is within the maximum, the dirty
+	 * pages are written back before they are removed from the cache
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void evict() throws IOException
+	{
+		while (maxCachedPages < cache.size())
+		{
+			final Iterator<Page<T, K>> iterator = cache.values().iterator();
+			final Page<T, K> eldest = iterator.next();
+			if (eldest.dirty)
+			{
+				writePage(eldest);
+			}
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Reads and decodes the page with the given number
+	 *
+	 * @param number
+	 *            the page number
+	 * @return the decoded page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private Page<T, K> readPage(final int number) throws IOException
+	{
+		readBuffer(pageBuffer, (long)number * pageSize);
+		final Page<T, K> page = new Page<>(number);
+		final int recordCount = pageBuffer.getInt();
+		if (recordCount == OVERFLOW_PAGE)
+		{
+			throw new IOException("The page " + number + " is no data page");
+		}
+		pageBuffer.getInt();
+		for (int i = 0; i < recordCount; i++)
+		{
+			final int length = pageBuffer.getInt();
+			final BinaryTreeInput input = new BinaryTreeInput(
+				pageBuffer.slice(pageBuffer.position(), length));
+			pageBuffer.position(pageBuffer.position() + length);
+			final TreeIdNode<T, K> record;
+			if ((input.readByte() & FLAG_OVERFLOW) != 0)
+			{
+				idCodec.decode(input);
+				final int encodedLength = input.readVarInt();
+				final int firstPage = input.readVarInt();
+				final List<Integer> chain = new ArrayList<>();
+				record = decode(new BinaryTreeInput(
+					ByteBuffer.wrap(readOverflow(firstPage, encodedLength, chain))));
+				page.overflowPages.put(record.getId(),
+					chain.stream().mapToInt(Integer::intValue).toArray());
+				page.overflowLengths.put(record.getId(), encodedLength);
+			}
+			else
+			{
+				record = decode(new BinaryTreeInput(
+					pageBuffer.slice(pageBuffer.position() - length, length)));
+			}
+			page.records.put(record.getId(), record);
+			page.recordSizes.put(record.getId(), length + Integer.BYTES);
+		}
+		return page;
+	}
+
+	/**
+	 * Encodes and writes the given page and clears its dirty flag
+	 *
+	 * @param page
+	 *            the page to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writePage(final Page<T, K> page) throws IOException
+	{
+		pageBuffer.clear();
+		pageBuffer.putInt(page.records.size());
+		pageBuffer.putInt(usedBytes[page.number]);
+		for (final TreeIdNode<T, K> record : page.records.values())
+		{
+			final int[] overflowPages = page.overflowPages.get(record.getId());
+			final byte[] bytes = overflowPages == null
+				? encode(record)
+				: encodeStub(record.getId(), page.overflowLengths.get(record.getId()),
+					overflowPages[0]);
+			pageBuffer.putInt(bytes.length);
+			pageBuffer.put(bytes);
+		}
+		pageBuffer.flip();
+		writeBuffer(pageBuffer, (long)page.number * pageSize);
+		page.dirty = false;
+		writeBacks++;
+	}
+
+	/**
+	 * Writes the header page
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeHeader() throws IOException
+	{
+		overflowBuffer.clear();
+		overflowBuffer.putInt(MAGIC);
+		overflowBuffer.putInt(VERSION);
+		overflowBuffer.putInt(pageSize);
+		overflowBuffer.putInt(pageCount);
+		overflowBuffer.flip();
+		writeBuffer(overflowBuffer, 0L);
+	}
+
+	/**
+	 * Reads and checks the header page
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the file is no store file
+	 */
+	private void readHeader() throws IOException
+	{
+		readBuffer(pageBuffer, 0L);
+		if (pageBuffer.getInt() != MAGIC)
+		{
+			throw new IOException("The file is no paged tree store");
+		}
+		final int version = pageBuffer.getInt();
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported paged tree store version " + version);
+		}
+		final int filePageSize = pageBuffer.getInt();
+		if (filePageSize != pageSize)
+		{
+			throw new IOException("The page size of the file is " + filePageSize + " and not "
+				+ pageSize);
+		}
+		pageCount = pageBuffer.getInt();
+		usedBytes = new int[Math.max(16, pageCount)];
+	}
+
+	/**
+	 * Rebuilds the index, the used bytes and the free overflow pages with a sequential scan over
+	 * all pages
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void rebuildIndex() throws IOException
+	{
+		final Set<Integer> usedOverflowPages = new HashSet<>();
+		final List<Integer> overflowPages = new ArrayList<>();
+		for (int number = 1; number < pageCount; number++)
+		{
+			readBuffer(pageBuffer, (long)number * pageSize);
+			if (pageBuffer.getInt(0) == OVERFLOW_PAGE)
+			{
+				overflowPages.add(number);
+				usedBytes[number] = pageCapacity();
+				continue;
+			}
+			final Page<T, K> page = readPage(number);
+			int used = 0;
+			for (final Map.Entry<K, Integer> entry : page.recordSizes.entrySet())
+			{
+				pageIndex.put(entry.getKey(), number);
+				used += entry.getValue();
+			}
+			for (final int[] chain : page.overflowPages.values())
+			{
+				Arrays.stream(chain).forEach(usedOverflowPages::add);
+			}
+			usedBytes[number] = used;
+			fillPage = number;
+		}
+		for (final Integer number : overflowPages)
+		{
+			if (!usedOverflowPages.contains(number))
+			{
+				freePages.push(number);
+			}
+		}
+	}
+
+	/**
+	 * Reads the page at the given file position in the given buffer and flips the buffer, the
+	 * missing bytes after the end of the file are zero
+	 */
+	private void readBuffer(final ByteBuffer buffer, final long position) throws IOException
+	{
+		buffer.clear();
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer, position + buffer.position()) < 0)
+			{
+				break;
+			}
+		}
+		while (buffer.hasRemaining())
+		{
+			buffer.put((byte)0);
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Writes the given buffer at the given file position
+	 */
+	private void writeBuffer(final ByteBuffer buffer, final long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	/**
+	 * Encodes the given record
+	 *
+	 * @param record
+	 *            the record to encode
+	 * @return the encoded bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private byte[] encode(final TreeIdNode<T, K> record) throws IOException
+	{
+		recordBytes.reset();
+		int flags = 0;
+		if (record.getParentId() != null)
+		{
+			flags |= FLAG_PARENT_ID;
+		}
+		if (record.getValue() != null)
+		{
+			flags |= FLAG_VALUE;
+		}
+		if (record.getDisplayValue() != null)
+		{
+			flags |= FLAG_DISPLAY_VALUE;
+		}
+		if (record.isLeaf())
+		{
+			flags |= FLAG_LEAF;
+		}
+		recordOutput.writeByte(flags);
+		idCodec.encode(record.getId(), recordOutput);
+		if (record.getParentId() != null)
+		{
+			idCodec.encode(record.getParentId(), recordOutput);
+		}
+		if (record.getValue() != null)
+		{
+			valueCodec.encode(record.getValue(), recordOutput);
+		}
+		if (record.getDisplayValue() != null)
+		{
+			recordOutput.writeString(record.getDisplayValue());
+		}
+		final Set<K> childrenIds = record.getChildrenIds();
+		recordOutput.writeVarInt(childrenIds == null ? 0 : childrenIds.size());
+		if (childrenIds != null)
+		{
+			for (final K childId : childrenIds)
+			{
+				idCodec.encode(childId, recordOutput);
+			}
+		}
+		recordOutput.flush();
+		return recordBytes.toByteArray();
+	}
+
+	/**
+	 * Encodes the stub of a record in overflow pages
+	 *
+	 * @param id
+	 *            the id of the record
+	 * @param encodedLength
+	 *            the length of the encoded record
+	 * @param firstPage
+	 *            the number of the first overflow page
+	 * @return the encoded bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private byte[] encodeStub(final K id, final int encodedLength, final int firstPage)
+		throws IOException
+	{
+		recordBytes.reset();
+		recordOutput.writeByte(FLAG_OVERFLOW);
+		idCodec.encode(id, recordOutput);
+		recordOutput.writeVarInt(encodedLength);
+		recordOutput.writeVarInt(firstPage);
+		recordOutput.flush();
+		return recordBytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a record from the given input
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @return the decoded record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private TreeIdNode<T, K> decode(final BinaryTreeInput input) throws IOException
+	{
+		final int flags = input.readByte();
+		final K id = idCodec.decode(input);
+		final K parentId = (flags & FLAG_PARENT_ID) != 0 ? idCodec.decode(input) : null;
+		final T value = (flags & FLAG_VALUE) != 0 ? valueCodec.decode(input) : null;
+		final String displayValue = (flags & FLAG_DISPLAY_VALUE) != 0 ? input.readString() : null;
+		final int childCount = input.readVarInt();
+		final Set<K> childrenIds = new LinkedHashSet<>(Math.max(16, (int)(childCount / 0.75f) + 1));
+		for (int i = 0; i < childCount; i++)
+		{
+			childrenIds.add(idCodec.decode(input));
+		}
+		return TreeIdNode.<T, K> builder().id(id).parentId(parentId).value(value)
+			.displayValue(displayValue).leaf((flags & FLAG_LEAF) != 0).childrenIds(childrenIds)
+			.build();
+	}
+
+	/**
+	 * Copies the given record with an own set of children ids
+	 *
+	 * @param record
+	 *            the record to copy
+	 * @return the copy or null if the given record is null
+	 */
+	private TreeIdNode<T, K> copy(final TreeIdNode<T, K> record)
+	{
+		if (record == null)
+		{
+			return null;
+		}
+		return record.toBuilder()
+			.childrenIds(record.getChildrenIds() == null
+				? new LinkedHashSet<>()
+				: new LinkedHashSet<>(record.getChildrenIds()))
+			.build();
+	}
+
+	/**
+	 * The class {@link StoreMap} is the {@link Map} view of the store
+	 */
+	private final class StoreMap extends AbstractMap<K, TreeIdNode<T, K>>
+	{
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int size()
+		{
+			return PagedTreeStore.this.size();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean containsKey(final Object key)
+		{
+			return contains((K)key);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public TreeIdNode<T, K> get(final Object key)
+		{
+			try
+			{
+				return findById((K)key);
+			}
+			catch (IOException exception)
+			{
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public TreeIdNode<T, K> put(final K key, final TreeIdNode<T, K> value)
+		{
+			if (!key.equals(value.getId()))
+			{
+				throw new IllegalArgumentException("The key must be the id of the record");
+			}
+			try
+			{
+				return PagedTreeStore.this.put(value);
+			}
+			catch (IOException exception)
+			{
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public TreeIdNode<T, K> remove(final Object key)
+		{
+			try
+			{
+				return PagedTreeStore.this.remove((K)key);
+			}
+			catch (IOException exception)
+			{
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Set<Map.Entry<K, TreeIdNode<T, K>>> entrySet()
+		{
+			return new AbstractSet<>()
+			{
+				@Override
+				public int size()
+				{
+					return PagedTreeStore.this.size();
+				}
+
+				@Override
+				public Iterator<Map.Entry<K, TreeIdNode<T, K>>> iterator()
+				{
+					final Iterator<K> ids = new ArrayList<>(pageIndex.keySet()).iterator();
+					return new Iterator<>()
+					{
+						private K current;
+
+						@Override
+						public boolean hasNext()
+						{
+							return ids.hasNext();
+						}
+
+						@Override
+						public Map.Entry<K, TreeIdNode<T, K>> next()
+						{
+							current = ids.next();
+							return new AbstractMap.SimpleImmutableEntry<>(current, get(current));
+						}
+
+						@Override
+						public void remove()
+						{
+							if (current == null)
+							{
+								throw new IllegalStateException();
+							}
+							StoreMap.this.remove(current);
+							current = null;
+						}
+					};
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.stream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import io.github.astrapi69.gen.tree.api.ITreeNode;
+import io.github.astrapi69.gen.tree.handler.ITreeNodeHandlerExtensions;
+
+/**
+ * The abstract class {@link AbstractTreeEventBuilder} is a {@link TreeEventHandler} that builds a
+ * tree from the received events. Beside the created tree only the path to the current node is
+ * held. The nodes are created with the factory method {@link #newNode(Object, String)}, the value,
+ * the children and the leaf flag are set by this class
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ * @param <N>
+ *            the generic type of the built nodes
+ */
+public abstract class AbstractTreeEventBuilder<T, K, N extends ITreeNode<T, N>>
+	implements
+		TreeEventHandler<T, K>
+{
+
+	/** The path from the root to the current node */
+	private final Deque<N> path = new ArrayDeque<>();
+
+	/** The leaf flags of the nodes in the path, they are applied after the children are added */
+	private final Deque<Boolean> leafFlags = new ArrayDeque<>();
+
+	/** The root of the built tree */
+	private N root;
+
+	/**
+	 * Factory method that creates a new node without value and without children
+	 *
+	 * @param id
+	 *            the id of the node or null if the node has no id
+	 * @param displayValue
+	 *            the display value of the node or null
+	 * @return the new node
+	 */
+	protected abstract N newNode(K id, String displayValue);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void startNode(final K id, final String displayValue, final boolean leaf)
+	{
+		if (path.isEmpty() && root != null)
+		{
+			throw new IllegalStateException("The root is already built");
+		}
+		final N treeNode = newNode(id, displayValue);
+		if (path.isEmpty())
+		{
+			root = treeNode;
+		}
+		else
+		{
+			ITreeNodeHandlerExtensions.addChild(path.peek(), treeNode);
+		}
+		path.push(treeNode);
+		leafFlags.push(leaf);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void value(final T value)
+	{
+		if (path.isEmpty())
+		{
+			throw new IllegalStateException("No node is open");
+		}
+		path.peek().setValue(value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void endNode()
+	{
+		if (path.isEmpty())
+		{
+			throw new IllegalStateException("No node is open");
+		}
+		path.pop().setLeaf(leafFlags.pop());
+	}
+
+	/**
+	 * Gets the root of the built tree
+	 *
+	 * @return the root or null if no node was received yet
+	 */
+	public N getRoot()
+	{
+		return root;
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Function;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.TreeNode;
+import io.github.astrapi69.gen.tree.api.ITreeNode;
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeEventEmitter} reports a tree to a {@link TreeEventHandler} with an
+ * iterative pre-order traversal. In difference to {@link ITreeNode#traverse()} no collection of all
+ * nodes is created, the traversal holds only one child iterator per level
+ */
+public final class TreeEventEmitter
+{
+	private TreeEventEmitter()
+	{
+	}
+
+	/**
+	 * Reports the tree of the given {@link BaseTreeNode} object to the given handler
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the tree
+	 * @param handler
+	 *            the handler that receives the events
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred in the handler
+	 */
+	public static <T, K> void emit(final @NonNull BaseTreeNode<T, K> root,
+		final @NonNull TreeEventHandler<T, K> handler) throws IOException
+	{
+		emit(root, BaseTreeNode::getId, BaseTreeNode::getDisplayValue, handler);
+	}
+
+	/**
+	 * Reports the tree of the given {@link TreeNode} object to the given handler. The nodes are
+	 * reported without ids
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 * @param root
+	 *            the root of the tree
+	 * @param handler
+	 *            the handler that receives the events
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred in the handler
+	 */
+	public static <T, K> void emit(final @NonNull TreeNode<T> root,
+		final @NonNull TreeEventHandler<T, K> handler) throws IOException
+	{
+		emit(root, treeNode -> null, TreeNode::getDisplayValue, handler);
+	}
+
+	/**
+	 * Reports the tree of the given root to the given handler
+	 *
+	 * @param root
+	 *            the root of the tree
+	 * @param idFunction
+	 *            the function that gets the id of a node
+	 * @param displayValueFunction
+	 *            the function that gets the display value of a node
+	 * @param handler
+	 *            the handler that receives the events
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred in the handler
+	 */
+	private static <T, K, N extends ITreeNode<T, N>> void emit(final N root,
+		final Function<N, K> idFunction, final Function<N, String> displayValueFunction,
+		final TreeEventHandler<T, K> handler) throws IOException
+	{
+		final Deque<Iterator<N>> stack = new ArrayDeque<>();
+		startNode(root, idFunction, displayValueFunction, handler, stack);
+		while (!stack.isEmpty())
+		{
+			final Iterator<N> children = stack.peek();
+			if (children.hasNext())
+			{
+				startNode(children.next(), idFunction, displayValueFunction, handler, stack);
+			}
+			else
+			{
+				stack.pop();
+				handler.endNode();
+			}
+		}
+	}
+
+	/**
+	 * Reports the start and the value of the given node and pushes the iterator of its children
+	 */
+	private static <T, K, N extends ITreeNode<T, N>> void startNode(final N treeNode,
+		final Function<N, K> idFunction, final Function<N, String> displayValueFunction,
+		final TreeEventHandler<T, K> handler, final Deque<Iterator<N>> stack) throws IOException
+	{
+		handler.startNode(idFunction.apply(treeNode), displayValueFunction.apply(treeNode),
+			treeNode.isLeaf());
+		if (treeNode.getValue() != null)
+		{
+			handler.value(treeNode.getValue());
+		}
+		stack.push(treeNode.getChildren().iterator());
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.stream;
+
+import java.io.IOException;
+
+/**
+ * The interface {@link TreeEventHandler} receives a tree as stream of events in pre-order, similar
+ * to a SAX handler. Every node is reported with {@link #startNode(Object, String, boolean)},
+ * optionally followed by {@link #value(Object)}, then the events of all its children and finally
+ * {@link #endNode()}. So a handler needs only memory in the order of the depth of the tree
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public interface TreeEventHandler<T, K>
+{
+
+	/**
+	 * Called at the start of a node before its value and its children
+	 *
+	 * @param id
+	 *            the id of the node or null if the node has no id
+	 * @param displayValue
+	 *            the display value of the node or null
+	 * @param leaf
+	 *            the flag that indicates if the node is a leaf
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	void startNode(K id, String displayValue, boolean leaf) throws IOException;
+
+	/**
+	 * Called with the value of the current node before the first child of the node is started. The
+	 * event is omitted if the node has no value
+	 *
+	 * @param value
+	 *            the value of the current node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	void value(T value) throws IOException;
+
+	/**
+	 * Called at the end of the current node after the events of all its children
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	void endNode() throws IOException;
+}
@@ -0,0 +1,50 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.stream;
+
+import io.github.astrapi69.gen.tree.TreeNode;
+
+/**
+ * The class {@link TreeNodeEventBuilder} is a {@link TreeEventHandler} that builds a
+ * {@link TreeNode} tree from the received events. Beside the created tree only the path to the
+ * current node is held. The ids are ignored, because a {@link TreeNode} has no id
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the ignored ids
+ */
+public class TreeNodeEventBuilder<T, K> extends AbstractTreeEventBuilder<T, K, TreeNode<T>>
+{
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected TreeNode<T> newNode(final K id, final String displayValue)
+	{
+		return TreeNode.<T> builder().displayValue(displayValue).build();
+	}
+}
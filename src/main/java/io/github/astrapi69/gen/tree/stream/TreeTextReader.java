@@ -0,0 +1,551 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.stream;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeTextReader} reads the JSON like text that is written by
+ * {@link TreeTextWriter} and reports the nodes as events to a {@link TreeEventHandler}. The text is
+ * parsed in one pass over an own character buffer. The reader holds one frame per open level with
+ * the members of the node that are read so far, the start of a node is reported as soon as its
+ * <code>children</code> member or its end is reached. So the members <code>id</code>,
+ * <code>displayValue</code>, <code>leaf</code> and <code>value</code> can have any order but must
+ * precede the <code>children</code> member. Unknown members are skipped
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class TreeTextReader<T, K> implements Closeable
+{
+
+	/** The default buffer size */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/** The reader to read from */
+	private final Reader reader;
+
+	/** The function that parses the values */
+	private final Function<String, T> valueParser;
+
+	/** The function that parses the ids */
+	private final Function<String, K> idParser;
+
+	/** The buffer of the read characters */
+	private final char[] buffer;
+
+	/** The number of characters in the buffer */
+	private int limit;
+
+	/** The position of the next character in the buffer */
+	private int position;
+
+	/** The reusable builder for the strings */
+	private final StringBuilder stringBuilder = new StringBuilder();
+
+	/** The frames of the open nodes, the frames are reused for all nodes of the same level */
+	private final List<Frame<T, K>> frames = new ArrayList<>();
+
+	/** The number of open nodes */
+	private int depth;
+
+	/**
+	 * Instantiates a new {@link TreeTextReader} object
+	 *
+	 * @param reader
+	 *            the reader to read from
+	 * @param valueParser
+	 *            the function that parses the values
+	 * @param idParser
+	 *            the function that parses the ids
+	 */
+	public TreeTextReader(final @NonNull Reader reader,
+		final @NonNull Function<String, T> valueParser,
+		final @NonNull Function<String, K> idParser)
+	{
+		this.reader = reader;
+		this.valueParser = valueParser;
+		this.idParser = idParser;
+		this.buffer = new char[DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * Reads the next tree and reports it to the given handler. The reader stops after the end of
+	 * the root, so several concatenated trees can be read with repeated calls
+	 *
+	 * @param handler
+	 *            the handler that receives the events
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the text is malformed
+	 */
+	public void read(final @NonNull TreeEventHandler<T, K> handler) throws IOException
+	{
+		expect('{');
+		Frame<T, K> frame = push();
+		while (frame != null)
+		{
+			int character = nextToken();
+			if (character == '}')
+			{
+				start(frame, handler);
+				handler.endNode();
+				depth--;
+				frame = afterChild();
+				continue;
+			}
+			if (frame.hasMember)
+			{
+				if (character != ',')
+				{
+					throw malformed("',' or '}'", character);
+				}
+				character = nextToken();
+			}
+			if (character != '"')
+			{
+				throw malformed("a member name", character);
+			}
+			final String name = readString();
+			expect(':');
+			frame.hasMember = true;
+			if ("children".equals(name))
+			{
+				start(frame, handler);
+				expect('[');
+				character = nextToken();
+				if (character == '{')
+				{
+					frame = push();
+				}
+				else if (character != ']')
+				{
+					throw malformed("'{' or ']'", character);
+				}
+				continue;
+			}
+			if (frame.started && isNodeMember(name))
+			{
+				throw new IOException("The member " + name + " must precede the children");
+			}
+			switch (name)
+			{
+				case "id" :
+					final String id = readScalar();
+					frame.id = id == null ? null : idParser.apply(id);
+					break;
+				case "displayValue" :
+					frame.displayValue = readScalar();
+					break;
+				case "leaf" :
+					frame.leaf = Boolean.parseBoolean(readScalar());
+					break;
+				case "value" :
+					final String value = readScalar();
+					frame.value = value == null ? null : valueParser.apply(value);
+					frame.hasValue = true;
+					break;
+				default :
+					skipValue();
+			}
+		}
+	}
+
+	/**
+	 * Closes the underlying reader
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+
+	/**
+	 * Checks if the given member name is one of the members of a node
+	 *
+	 * @param name
+	 *            the member name
+	 * @return true, if the given member name is one of the members of a node otherwise false
+	 */
+	private static boolean isNodeMember(final String name)
+	{
+		return "id".equals(name) || "displayValue".equals(name) || "leaf".equals(name)
+			|| "value".equals(name);
+	}
+
+	/**
+	 * Reports the start and the value of the node of the given frame if it is not reported yet
+	 */
+	private void start(final Frame<T, K> frame, final TreeEventHandler<T, K> handler)
+		throws IOException
+	{
+		if (!frame.started)
+		{
+			frame.started = true;
+			handler.startNode(frame.id, frame.displayValue, frame.leaf);
+			if (frame.hasValue)
+			{
+				handler.value(frame.value);
+			}
+		}
+	}
+
+	/**
+	 * Gets the reset frame for a new node on the next level
+	 *
+	 * @return the frame of the new node
+	 */
+	private Frame<T, K> push()
+	{
+		if (depth == frames.size())
+		{
+			frames.add(new Frame<>());
+		}
+		final Frame<T, K> frame = frames.get(depth++);
+		frame.reset();
+		return frame;
+	}
+
+	/**
+	 * Reads the separator after the end of a child and gets the frame to continue with
+	 *
+	 * @return the frame of the next sibling, the frame of the parent if the children of the parent
+	 *         are complete or null if the root is complete
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the text is malformed
+	 */
+	private Frame<T, K> afterChild() throws IOException
+	{
+		if (depth == 0)
+		{
+			return null;
+		}
+		final int character = nextToken();
+		if (character == ',')
+		{
+			expect('{');
+			return push();
+		}
+		if (character == ']')
+		{
+			return frames.get(depth - 1);
+		}
+		throw malformed("',' or ']'", character);
+	}
+
+	/**
+	 * Reads a string, the literal <code>null</code> or an unquoted literal like a number or a
+	 * boolean
+	 *
+	 * @return the read string or null for the literal <code>null</code>
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the text is malformed
+	 */
+	private String readScalar() throws IOException
+	{
+		final int character = nextToken();
+		if (character == '"')
+		{
+			return readString();
+		}
+		if (character == '{' || character == '[' || character == ',' || character == '}'
+			|| character == ']')
+		{
+			throw malformed("a string or a literal", character);
+		}
+		stringBuilder.setLength(0);
+		stringBuilder.append((char)character);
+		while (true)
+		{
+			final int next = peek();
+			if (next < 0 || next == ',' || next == '}' || next == ']'
+				|| Character.isWhitespace(next))
+			{
+				break;
+			}
+			stringBuilder.append((char)read());
+		}
+		final String literal = stringBuilder.toString();
+		return "null".equals(literal) ? null : literal;
+	}
+
+	/**
+	 * Reads the rest of a string after the opening quote
+	 *
+	 * @return the unescaped string
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the text is malformed
+	 */
+	private String readString() throws IOException
+	{
+		stringBuilder.setLength(0);
+		while (true)
+		{
+			final int character = readRequired();
+			if (character == '"')
+			{
+				return stringBuilder.toString();
+			}
+			if (character != '\\')
+			{
+				stringBuilder.append((char)character);
+				continue;
+			}
+			final int escaped = readRequired();
+			switch (escaped)
+			{
+				case 'n' :
+					stringBuilder.append('\n');
+					break;
+				case 'r' :
+					stringBuilder.append('\r');
+					break;
+				case 't' :
+					stringBuilder.append('\t');
+					break;
+				case 'b' :
+					stringBuilder.append('\b');
+					break;
+				case 'f' :
+					stringBuilder.append('\f');
+					break;
+				case 'u' :
+					int code = 0;
+					for (int i = 0; i < 4; i++)
+					{
+						final int digit = Character.digit(readRequired(), 16);
+						if (digit < 0)
+						{
+							throw new IOException("Malformed unicode escape");
+						}
+						code = (code << 4) | digit;
+					}
+					stringBuilder.append((char)code);
+					break;
+				default :
+					stringBuilder.append((char)escaped);
+			}
+		}
+	}
+
+	/**
+	 * Skips the value of an unknown member, nested objects and arrays are skipped with a counter
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the text is malformed
+	 */
+	private void skipValue() throws IOException
+	{
+		int character = nextToken();
+		if (character != '{' && character != '[')
+		{
+			position--;
+			readScalar();
+			return;
+		}
+		int nesting = 1;
+		while (0 < nesting)
+		{
+			character = readRequired();
+			if (character == '"')
+			{
+				readString();
+			}
+			else if (character == '{' || character == '[')
+			{
+				nesting++;
+			}
+			else if (character == '}' || character == ']')
+			{
+				nesting--;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next character that is not a whitespace and checks that it is the given character
+	 *
+	 * @param expected
+	 *            the expected character
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the text is malformed
+	 */
+	private void expect(final char expected) throws IOException
+	{
+		final int character = nextToken();
+		if (character != expected)
+		{
+			throw malformed("'" + expected + "'", character);
+		}
+	}
+
+	/**
+	 * Reads the next character that is not a whitespace
+	 *
+	 * @return the read character
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the end of the text is reached
+	 */
+	private int nextToken() throws IOException
+	{
+		int character;
+		do
+		{
+			character = readRequired();
+		}
+		while (Character.isWhitespace(character));
+		return character;
+	}
+
+	/**
+	 * Reads the next character
+	 *
+	 * @return the read character
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the end of the text is reached
+	 */
+	private int readRequired() throws IOException
+	{
+		final int character = read();
+		if (character < 0)
+		{
+			throw new EOFException("Unexpected end of the tree text");
+		}
+		return character;
+	}
+
+	/**
+	 * Reads the next character
+	 *
+	 * @return the read character or -1 if the end of the text is reached
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private int read() throws IOException
+	{
+		final int character = peek();
+		if (0 <= character)
+		{
+			position++;
+		}
+		return character;
+	}
+
+	/**
+	 * Gets the next character without consuming it
+	 *
+	 * @return the next character or -1 if the end of the text is reached
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private int peek() throws IOException
+	{
+		if (position == limit)
+		{
+			final int read = reader.read(buffer, 0, buffer.length);
+			if (read <= 0)
+			{
+				return -1;
+			}
+			position = 0;
+			limit = read;
+		}
+		return buffer[position];
+	}
+
+	/**
+	 * Creates the exception for an unexpected character
+	 *
+	 * @param expected
+	 *            the description of the expected token
+	 * @param actual
+	 *            the actual character
+	 * @return the exception
+	 */
+	private static IOException malformed(final String expected, final int actual)
+	{
+		return new IOException("Malformed tree text: expected " + expected + " but found '"
+			+ (char)actual + "'");
+	}
+
+	/**
+	 * The class {@link Frame} holds the members of an open node that are read so far
+	 *
+	 * @param <T>
+	 *            the generic type of the value
+	 * @param <K>
+	 *            the generic type of the id of the node
+	 */
+	private static final class Frame<T, K>
+	{
+
+		/** The id */
+		K id;
+
+		/** The display value */
+		String displayValue;
+
+		/** The leaf flag */
+		boolean leaf;
+
+		/** The value */
+		T value;
+
+		/** The flag that indicates if the value member was read */
+		boolean hasValue;
+
+		/** The flag that indicates if a member was read */
+		boolean hasMember;
+
+		/** The flag that indicates if the start of the node was reported */
+		boolean started;
+
+		/**
+		 * Resets all members for the reuse of this frame
+		 */
+		void reset()
+		{
+			id = null;
+			displayValue = null;
+			leaf = false;
+			value = null;
+			hasValue = false;
+			hasMember = false;
+			started = false;
+		}
+	}
+}
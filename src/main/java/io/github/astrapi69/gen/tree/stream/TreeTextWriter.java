@@ -0,0 +1,331 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.stream;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import lombok.NonNull;
+
+/**
+ * The class {@link TreeTextWriter} is a {@link TreeEventHandler} that writes the received events
+ * directly as JSON like text. Every node is written as object with the optional members
+ * <code>id</code>, <code>displayValue</code>, <code>leaf</code>, <code>value</code> and
+ * <code>children</code>, for instance:
+ *
+ * <pre>
+ * {"id":"0","value":"root","children":[{"id":"1","leaf":true,"value":"child"}]}
+ * </pre>
+ *
+ * The ids and the values are written as strings that are created with the given formatter
+ * functions. The writer holds only one flag per open level, so a tree of any size can be written
+ * with an iterative traversal like {@link TreeEventEmitter}
+ *
+ * @param <T>
+ *            the generic type of the value
+ * @param <K>
+ *            the generic type of the id of the node
+ */
+public class TreeTextWriter<T, K> implements TreeEventHandler<T, K>, Flushable, Closeable
+{
+
+	/** The default buffer size */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/** The digits for the unicode escapes */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** The writer to write to */
+	private final Writer writer;
+
+	/** The function that formats the values */
+	private final Function<T, String> valueFormatter;
+
+	/** The function that formats the ids */
+	private final Function<K, String> idFormatter;
+
+	/** The buffer of the characters that are not written yet */
+	private final char[] buffer;
+
+	/** The number of characters in the buffer */
+	private int position;
+
+	/** The flags that indicate if the open nodes have children, one flag per level */
+	private boolean[] hasChildren = new boolean[32];
+
+	/** The number of open nodes */
+	private int depth;
+
+	/** The flag that indicates if the current node has a member already */
+	private boolean hasMember;
+
+	/** The flag that indicates if the root is written completely */
+	private boolean rootWritten;
+
+	/**
+	 * Instantiates a new {@link TreeTextWriter} object
+	 *
+	 * @param writer
+	 *            the writer to write to
+	 * @param valueFormatter
+	 *            the function that formats the values
+	 * @param idFormatter
+	 *            the function that formats the ids
+	 */
+	public TreeTextWriter(final @NonNull Writer writer,
+		final @NonNull Function<T, String> valueFormatter,
+		final @NonNull Function<K, String> idFormatter)
+	{
+		this.writer = writer;
+		this.valueFormatter = valueFormatter;
+		this.idFormatter = idFormatter;
+		this.buffer = new char[DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void startNode(final K id, final String displayValue, final boolean leaf)
+		throws IOException
+	{
+		if (0 < depth)
+		{
+			if (hasChildren[depth - 1])
+			{
+				write(',');
+			}
+			else
+			{
+				writeMemberName("children");
+				write('[');
+				hasChildren[depth - 1] = true;
+			}
+		}
+		else if (rootWritten)
+		{
+			throw new IllegalStateException("The root is already written");
+		}
+		if (depth == hasChildren.length)
+		{
+			hasChildren = Arrays.copyOf(hasChildren, depth << 1);
+		}
+		hasChildren[depth++] = false;
+		hasMember = false;
+		write('{');
+		if (id != null)
+		{
+			writeMemberName("id");
+			writeString(idFormatter.apply(id));
+		}
+		if (displayValue != null)
+		{
+			writeMemberName("displayValue");
+			writeString(displayValue);
+		}
+		if (leaf)
+		{
+			writeMemberName("leaf");
+			write("true");
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void value(final T value) throws IOException
+	{
+		if (depth == 0 || hasChildren[depth - 1])
+		{
+			throw new IllegalStateException("A value must follow the start of its node");
+		}
+		writeMemberName("value");
+		if (value == null)
+		{
+			write("null");
+		}
+		else
+		{
+			writeString(valueFormatter.apply(value));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void endNode() throws IOException
+	{
+		if (depth == 0)
+		{
+			throw new IllegalStateException("No node is open");
+		}
+		if (hasChildren[--depth])
+		{
+			write(']');
+		}
+		write('}');
+		if (depth == 0)
+		{
+			rootWritten = true;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		writer.write(buffer, 0, position);
+		position = 0;
+		writer.flush();
+	}
+
+	/**
+	 * Flushes and closes the underlying writer
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes the given member name with the separator of the previous member
+	 *
+	 * @param name
+	 *            the member name
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeMemberName(final String name) throws IOException
+	{
+		if (hasMember)
+		{
+			write(',');
+		}
+		hasMember = true;
+		write('"');
+		write(name);
+		write("\":");
+	}
+
+	/**
+	 * Writes the given string quoted and escaped
+	 *
+	 * @param value
+	 *            the string to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeString(final String value) throws IOException
+	{
+		write('"');
+		for (int i = 0; i < value.length(); i++)
+		{
+			final char character = value.charAt(i);
+			switch (character)
+			{
+				case '"' :
+					write("\\\"");
+					break;
+				case '\\' :
+					write("\\\\");
+					break;
+				case '\n' :
+					write("\\n");
+					break;
+				case '\r' :
+					write("\\r");
+					break;
+				case '\t' :
+					write("\\t");
+					break;
+				default :
+					if (character < 0x20)
+					{
+						write("\\u00");
+						write(HEX_DIGITS[character >> 4]);
+						write(HEX_DIGITS[character & 0xF]);
+					}
+					else
+					{
+						write(character);
+					}
+			}
+		}
+		write('"');
+	}
+
+	/**
+	 * Writes the given characters to the buffer
+	 *
+	 * @param characters
+	 *            the characters to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void write(final String characters) throws IOException
+	{
+		for (int i = 0; i < characters.length(); i++)
+		{
+			write(characters.charAt(i));
+		}
+	}
+
+	/**
+	 * Writes the given character to the buffer and drains the buffer if it is full
+	 *
+	 * @param character
+	 *            the character to write
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void write(final char character) throws IOException
+	{
+		if (position == buffer.length)
+		{
+			writer.write(buffer, 0, position);
+			position = 0;
+		}
+		buffer[position++] = character;
+	}
+}
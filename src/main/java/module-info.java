@@ -24,13 +24,29 @@ module io.github.astrapisixtynine.gen.tree
 	requires io.github.astrapisixtynine.design.patterns.visitor;
 	requires io.github.astrapisixtynine.tree.api;
 	requires io.github.astrapisixtynine.data.api;
+	requires static java.instrument;
 
 	exports io.github.astrapi69.gen.tree;
 	exports io.github.astrapi69.gen.tree.api;
 	exports io.github.astrapi69.gen.tree.binary;
+	exports io.github.astrapi69.gen.tree.codec;
+	exports io.github.astrapi69.gen.tree.collection;
+	exports io.github.astrapi69.gen.tree.compact;
 	exports io.github.astrapi69.gen.tree.convert;
+	exports io.github.astrapi69.gen.tree.delta;
 	exports io.github.astrapi69.gen.tree.enumeration.merge;
 	exports io.github.astrapi69.gen.tree.enumeration.traversal;
+	exports io.github.astrapi69.gen.tree.footprint;
+	exports io.github.astrapi69.gen.tree.frozen;
 	exports io.github.astrapi69.gen.tree.handler;
+	exports io.github.astrapi69.gen.tree.intern;
+	exports io.github.astrapi69.gen.tree.journal;
+	exports io.github.astrapi69.gen.tree.layout;
+	exports io.github.astrapi69.gen.tree.lazy;
+	exports io.github.astrapi69.gen.tree.offheap;
+	exports io.github.astrapi69.gen.tree.persistent;
+	exports io.github.astrapi69.gen.tree.snapshot;
+	exports io.github.astrapi69.gen.tree.store;
+	exports io.github.astrapi69.gen.tree.stream;
 	exports io.github.astrapi69.gen.tree.visitor;
 }
@@ -27,14 +27,25 @@ package io.github.astrapi69.gen.tree;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNotSame;
 import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
 
 import org.meanbean.lang.Factory;
 import org.meanbean.test.BeanTester;
@@ -47,10 +58,14 @@ import org.testng.annotations.Test;
 import io.github.astrapi69.clone.CloneQuietlyExtensions;
 import io.github.astrapi69.collection.set.SetFactory;
 import io.github.astrapi69.design.pattern.visitor.Visitor;
+import io.github.astrapi69.gen.tree.api.IBaseTreeNodeListener;
 import io.github.astrapi69.gen.tree.api.ITreeNode;
+import io.github.astrapi69.gen.tree.collection.AdaptiveLinkedSet;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
 import io.github.astrapi69.gen.tree.element.TreeElement;
 import io.github.astrapi69.gen.tree.handler.BaseTreeNodeVisitorHandlerExtensions;
 import io.github.astrapi69.gen.tree.handler.TreeNodeVisitorHandlerExtensions;
+import io.github.astrapi69.gen.tree.intern.TreeValueInterner;
 import io.github.astrapi69.gen.tree.visitor.MaxIndexFinderTreeNodeVisitor;
 import io.github.astrapi69.gen.tree.visitor.ReindexTreeNodeVisitor;
 import io.github.astrapi69.id.generate.LongIdGenerator;
@@ -162,6 +177,273 @@ public class BaseTreeNodeTest extends AbstractTestCase<Boolean, Boolean>
 		assertEquals(maxIndex, Long.valueOf(23));
 	}
 
+	/**
+	 * Test method for {@link BaseTreeNode#copy()} and {@link BaseTreeNode#copy(UnaryOperator)}
+	 */
+	@Test
+	public void testCopy()
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		BaseTreeNode<String, Long> copy = root.copy();
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(copy),
+			BaseTreeNodeTransformer.toKeyMap(root));
+		assertEquals(new ArrayList<>(copy.getChildren()), new ArrayList<>(root.getChildren()));
+		assertNotSame(copy.findById(3L), testTree.getFirstGrandChild());
+		assertEquals(copy.findById(3L).getParent().getId(), Long.valueOf(2L));
+		// copy only a subtree
+		BaseTreeNode<String, Long> subtreeCopy = testTree.getSecondChild().copy();
+		assertNull(subtreeCopy.getParent());
+		assertEquals(subtreeCopy.traverse().size(), 7);
+		assertEquals(testTree.getSecondChild().getParent(), root);
+		// copy the values
+		copy = root.copy(String::toUpperCase);
+		assertEquals(copy.findById(1L).getValue(), "I'M THE FIRST CHILD");
+		assertNull(copy.findById(8L).getValue());
+		assertEquals(testTree.getFirstChild().getValue(), "I'm the first child");
+		// the child comparator and the sorted children are preserved
+		Comparator<BaseTreeNode<String, Long>> comparator = Comparator
+			.comparing(BaseTreeNode::getId, Comparator.reverseOrder());
+		BaseTreeNode<String, Long> sorted = BaseTreeNode.<String, Long> builder().id(0L)
+			.childComparator(comparator).build();
+		for (long id = 1; id < 5; id++)
+		{
+			sorted.addChild(BaseTreeNode.<String, Long> builder().id(id).build());
+		}
+		BaseTreeNode<String, Long> sortedCopy = sorted.copy();
+		assertEquals(sortedCopy.getChildComparator(), comparator);
+		assertTrue(sortedCopy.getChildren() instanceof TreeSet);
+		assertEquals(sortedCopy.getChildren().iterator().next().getId(), Long.valueOf(4L));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#copy()} with a degenerated deep tree
+	 */
+	@Test
+	public void testCopyDeepTree()
+	{
+		BaseTreeNode<String, Long> root = BaseTreeNode.<String, Long> builder().id(0L).build();
+		BaseTreeNode<String, Long> current = root;
+		for (long id = 1; id < 100000; id++)
+		{
+			BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(id)
+				.parent(current).build();
+			current.getChildren().add(child);
+			current = child;
+		}
+		BaseTreeNode<String, Long> copy = root.copy();
+		int depth = 0;
+		while (copy.hasChildren())
+		{
+			copy = copy.getChildren().iterator().next();
+			depth++;
+		}
+		assertEquals(depth, 99999);
+		assertEquals(copy.getId(), Long.valueOf(99999L));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#copy()} with a subclass of {@link BaseTreeNode}
+	 */
+	@Test
+	public void testCopySubclass()
+	{
+		TaggedTreeNode root = new TaggedTreeNode(0L, "root");
+		root.addChild(new TaggedTreeNode(1L, "child"));
+		BaseTreeNode<String, Long> copy = root.copy();
+		assertTrue(copy instanceof TaggedTreeNode);
+		assertEquals(((TaggedTreeNode)copy).getTag(), "root");
+		BaseTreeNode<String, Long> childCopy = copy.findById(1L);
+		assertTrue(childCopy instanceof TaggedTreeNode);
+		assertEquals(((TaggedTreeNode)childCopy).getTag(), "child");
+		assertEquals(childCopy.getParent(), copy);
+	}
+
+	/**
+	 * Serializes and deserializes the given object
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T serializeAndDeserialize(T object)
+		throws IOException, ClassNotFoundException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(object);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+			new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			return (T)in.readObject();
+		}
+	}
+
+	/**
+	 * Test method for the serialization of {@link BaseTreeNode}
+	 */
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		root.addTreeNodeListener(new IBaseTreeNodeListener<>()
+		{
+		});
+		testTree.getThirdChild().setDisplayValue("third");
+		BaseTreeNode<String, Long> deserialized = serializeAndDeserialize(root);
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(deserialized),
+			BaseTreeNodeTransformer.toKeyMap(root));
+		assertEquals(new ArrayList<>(deserialized.getChildren()),
+			new ArrayList<>(root.getChildren()));
+		assertEquals(deserialized.findById(9L).getDisplayValue(), "third");
+		assertTrue(deserialized.findById(11L).isLeaf());
+		// a serialized inner node is restored with its whole tree
+		BaseTreeNode<String, Long> firstGrandChild = serializeAndDeserialize(
+			testTree.getFirstGrandChild());
+		assertEquals(firstGrandChild, testTree.getFirstGrandChild());
+		assertEquals(firstGrandChild.getChildren().size(), 2);
+		assertEquals(firstGrandChild.getRoot().getId(), Long.valueOf(0L));
+		assertEquals(firstGrandChild.getParent().getId(), Long.valueOf(2L));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#addTreeNodeListener(IBaseTreeNodeListener)} on a node
+	 * that is not a root
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testAddTreeNodeListenerOnChild()
+	{
+		testTree.getFirstChild().addTreeNodeListener(new IBaseTreeNodeListener<>()
+		{
+		});
+	}
+
+	/**
+	 * Test method for the notification of the listeners after structural changes between
+	 * observed trees and trees without listeners
+	 */
+	@Test
+	public void testTreeNodeListenerAfterStructuralChanges()
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		BaseTreeNode<String, Long> otherRoot = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("other root").build();
+		BaseTreeNode<String, Long> otherChild = BaseTreeNode.<String, Long> builder().id(101L)
+			.value("other child").build();
+		otherRoot.addChild(otherChild);
+		List<String> events = new ArrayList<>();
+		IBaseTreeNodeListener<String, Long, BaseTreeNode<String, Long>> listener =
+			new IBaseTreeNodeListener<>()
+			{
+				@Override
+				public void onValueChanged(BaseTreeNode<String, Long> treeNode, String oldValue)
+				{
+					events.add("value " + treeNode.getId());
+				}
+
+				@Override
+				public void onChildAdded(BaseTreeNode<String, Long> parent,
+					BaseTreeNode<String, Long> child)
+				{
+					events.add("added " + child.getId());
+				}
+
+				@Override
+				public void onChildRemoved(BaseTreeNode<String, Long> parent,
+					BaseTreeNode<String, Long> child)
+				{
+					events.add("removed " + child.getId());
+				}
+			};
+		root.addTreeNodeListener(listener);
+		// the listeners of the root see the changes of the existing descendants
+		testTree.getFifthGrandChild().setValue("changed");
+		// nodes of a tree without listeners are not reported
+		otherChild.setValue("changed");
+		assertEquals(events, List.of("value 11"));
+		// the moved subtree is observed in the new tree and not anymore in the old tree
+		events.clear();
+		assertTrue(otherChild.move(testTree.getFirstChild()));
+		otherChild.setValue("changed again");
+		assertTrue(testTree.getThirdChild().move(otherRoot));
+		testTree.getFifthGrandChild().setValue("changed again");
+		assertEquals(events, List.of("added 101", "value 101", "removed 9"));
+		// after the removal of the last listener no change is reported
+		events.clear();
+		root.removeTreeNodeListener(listener);
+		testTree.getFirstChild().setValue("changed");
+		otherChild.setValue("changed");
+		assertTrue(events.isEmpty());
+	}
+
+	/**
+	 * Test method for the serialization of many nodes of one {@link BaseTreeNode} tree in one
+	 * object graph
+	 */
+	@Test
+	public void testSerializationOfNodeGraph() throws IOException, ClassNotFoundException
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		List<BaseTreeNode<String, Long>> nodes = new ArrayList<>(root.traverse());
+		ByteArrayOutputStream treeBytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(treeBytes))
+		{
+			out.writeObject(root);
+		}
+		ByteArrayOutputStream graphBytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(graphBytes))
+		{
+			out.writeObject(nodes);
+		}
+		// the tree is written only once, every further node costs only a back reference
+		assertTrue(graphBytes.size() < treeBytes.size() + 200);
+		List<BaseTreeNode<String, Long>> deserialized = serializeAndDeserialize(nodes);
+		assertEquals(deserialized.size(), nodes.size());
+		BaseTreeNode<String, Long> deserializedRoot = deserialized.get(0).getRoot();
+		assertNull(deserializedRoot.getParent());
+		for (int index = 0; index < nodes.size(); index++)
+		{
+			BaseTreeNode<String, Long> node = deserialized.get(index);
+			assertEquals(node, nodes.get(index));
+			assertSame(node.getRoot(), deserializedRoot);
+			assertSame(deserializedRoot.findById(node.getId()), node);
+		}
+		// the first written node restores the whole tree, also in the reversed order
+		List<BaseTreeNode<String, Long>> reversed = new ArrayList<>(nodes);
+		Collections.reverse(reversed);
+		List<BaseTreeNode<String, Long>> deserializedReversed = serializeAndDeserialize(reversed);
+		BaseTreeNode<String, Long> reversedRoot = deserializedReversed.get(0).getRoot();
+		assertEquals(reversedRoot.traverse().size(), nodes.size());
+		for (BaseTreeNode<String, Long> node : deserializedReversed)
+		{
+			assertSame(reversedRoot.findById(node.getId()), node);
+		}
+	}
+
+	/**
+	 * Test method for the serialization of a degenerated deep {@link BaseTreeNode} tree
+	 */
+	@Test
+	public void testSerializationOfDeepTree() throws IOException, ClassNotFoundException
+	{
+		BaseTreeNode<String, Long> root = BaseTreeNode.<String, Long> builder().id(0L).build();
+		BaseTreeNode<String, Long> current = root;
+		for (long id = 1; id < 100000; id++)
+		{
+			BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(id)
+				.value("value " + id).parent(current).build();
+			current.getChildren().add(child);
+			current = child;
+		}
+		BaseTreeNode<String, Long> deserialized = serializeAndDeserialize(current);
+		assertEquals(deserialized.getValue(), "value 99999");
+		int depth = 0;
+		while (deserialized.hasParent())
+		{
+			deserialized = deserialized.getParent();
+			depth++;
+		}
+		assertEquals(depth, 99999);
+	}
+
 	/**
 	 * Test method for {@link TreeNodeVisitorHandlerExtensions#accept(ITreeNode, Visitor, boolean)}
 	 */
@@ -439,6 +721,223 @@ public class BaseTreeNodeTest extends AbstractTestCase<Boolean, Boolean>
 		assertEquals(expected, actual);
 	}
 
+	/**
+	 * Test method for {@link BaseTreeNode#getChildren()} with more children than the inline
+	 * capacity of {@link AdaptiveLinkedSet}
+	 */
+	@Test
+	public void testManyChildren()
+	{
+		BaseTreeNode<String, Long> parent = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("parent").build();
+		assertFalse(parent.hasChildren());
+		assertEquals(0, parent.getChildCount());
+		List<BaseTreeNode<String, Long>> expected = new ArrayList<>();
+		for (long id = 0; id < 20; id++)
+		{
+			BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(id)
+				.value("child" + id).build();
+			parent.addChild(child);
+			expected.add(child);
+			assertEquals(expected.size(), parent.getChildCount());
+		}
+		assertEquals(expected, new ArrayList<>(parent.getChildren()));
+		parent.removeChild(expected.remove(3));
+		assertEquals(expected, new ArrayList<>(parent.getChildren()));
+		parent.addChild(expected.get(0));
+		assertEquals(19, parent.getChildCount());
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#setIdentityMembership(boolean)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws ClassNotFoundException
+	 *             if the class of a serialized object can not be found
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIdentityMembership() throws IOException, ClassNotFoundException
+	{
+		BaseTreeNode<String, Long> parent = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("parent").build();
+		parent.setIdentityMembership(true);
+		List<BaseTreeNode<String, Long>> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++)
+		{
+			// all children are equal, but they are distinct nodes
+			BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(1L)
+				.value("child").build();
+			parent.addChild(child);
+			expected.add(child);
+			assertTrue(child.isIdentityMembership());
+		}
+		assertEquals(20, parent.getChildCount());
+		assertEquals(21, parent.traverse().size());
+		// a changed value does not corrupt the children of the parent
+		BaseTreeNode<String, Long> changed = expected.get(12);
+		changed.setValue("changed");
+		assertTrue(parent.getChildren().contains(changed));
+		parent.removeChild(changed);
+		expected.remove(changed);
+		assertEquals(expected, new ArrayList<>(parent.getChildren()));
+		// the mode is inherited by the added subtree
+		BaseTreeNode<String, Long> subtree = BaseTreeNode.<String, Long> builder().id(200L)
+			.value("subtree").build();
+		BaseTreeNode<String, Long> subtreeChild = BaseTreeNode.<String, Long> builder().id(201L)
+			.value("subtree child").build();
+		subtree.addChild(subtreeChild);
+		expected.get(0).addChild(subtree);
+		assertTrue(subtreeChild.isIdentityMembership());
+		// the mode is preserved by the copy and the serialization
+		assertTrue(parent.copy().isIdentityMembership());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(parent);
+		}
+		BaseTreeNode<String, Long> read;
+		try (ObjectInputStream in = new ObjectInputStream(
+			new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			read = (BaseTreeNode<String, Long>)in.readObject();
+		}
+		assertTrue(read.isIdentityMembership());
+		assertEquals(19, read.getChildCount());
+		assertEquals(22, read.traverse().size());
+		subtree.setIdentityMembership(false);
+		assertFalse(subtreeChild.isIdentityMembership());
+		assertEquals(1, subtree.getChildCount());
+		assertTrue(subtree.getChildren().contains(subtreeChild));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#addChild(BaseTreeNode)} and
+	 * {@link BaseTreeNode#move(BaseTreeNode)} with a subtree in the identity membership mode that
+	 * has equal children and can not get the mode of the new parent
+	 */
+	@Test
+	public void testAddChildWithEqualChildrenInIdentityMembership()
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		BaseTreeNode<String, Long> subtree = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("subtree").build();
+		subtree.setIdentityMembership(true);
+		for (int i = 0; i < 2; i++)
+		{
+			subtree.addChild(BaseTreeNode.<String, Long> builder().id(101L).value("child").build());
+		}
+		int rootChildCount = root.getChildCount();
+		try
+		{
+			root.addChild(subtree);
+			fail("The subtree can not be added to a node without the identity membership mode");
+		}
+		catch (IllegalStateException exception)
+		{
+			assertNull(subtree.getParent());
+			assertEquals(root.getChildCount(), rootChildCount);
+			assertTrue(subtree.isIdentityMembership());
+			assertEquals(subtree.getChildCount(), 2);
+		}
+		BaseTreeNode<String, Long> identityParent = BaseTreeNode.<String, Long> builder().id(200L)
+			.value("identity parent").build();
+		identityParent.setIdentityMembership(true);
+		identityParent.addChild(subtree);
+		try
+		{
+			subtree.move(root);
+			fail("The subtree can not be moved to a node without the identity membership mode");
+		}
+		catch (IllegalStateException exception)
+		{
+			assertSame(subtree.getParent(), identityParent);
+			assertTrue(identityParent.getChildren().contains(subtree));
+			assertEquals(root.getChildCount(), rootChildCount);
+			assertTrue(subtree.isIdentityMembership());
+		}
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#setIdentityMembership(boolean)} that switches the mode
+	 * off while a node has equal children
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testIdentityMembershipOffWithEqualChildren()
+	{
+		BaseTreeNode<String, Long> parent = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("parent").build();
+		parent.setIdentityMembership(true);
+		for (int i = 0; i < 3; i++)
+		{
+			parent.addChild(BaseTreeNode.<String, Long> builder().id(1L).value("child").build());
+		}
+		parent.setIdentityMembership(false);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#setIdentityMembership(boolean)} that switches the mode
+	 * off without equal children
+	 */
+	@Test
+	public void testIdentityMembershipOff()
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		root.setIdentityMembership(true);
+		// an empty children collection is created again in the new mode
+		testTree.getFirstChild().getChildren();
+		root.setIdentityMembership(false);
+		assertFalse(testTree.getFifthGrandChild().isIdentityMembership());
+		assertEquals(12, root.traverse().size());
+		BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("child").build();
+		testTree.getFirstChild().addChild(child);
+		testTree.getFirstChild()
+			.addChild(BaseTreeNode.<String, Long> builder().id(100L).value("child").build());
+		assertEquals(1, testTree.getFirstChild().getChildCount());
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#setTreeValueInterner(TreeValueInterner)}
+	 */
+	@Test
+	public void testTreeValueInterner()
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		BaseTreeNode<String, Long> firstChild = testTree.getFirstChild();
+		BaseTreeNode<String, Long> secondChild = testTree.getSecondChild();
+		firstChild.setValue(new String("shared"));
+		secondChild.setValue(new String("shared"));
+		assertNotSame(firstChild.getValue(), secondChild.getValue());
+		TreeValueInterner<String> interner = new TreeValueInterner<>();
+		root.setTreeValueInterner(interner);
+		assertSame(interner, secondChild.getTreeValueInterner());
+		assertSame(firstChild.getValue(), secondChild.getValue());
+		testTree.getThirdChild().setValue(new String("shared"));
+		assertSame(firstChild.getValue(), testTree.getThirdChild().getValue());
+		firstChild.setDisplayValue(new String("display"));
+		secondChild.setDisplayValue(new String("display"));
+		assertSame(firstChild.getDisplayValue(), secondChild.getDisplayValue());
+		assertTrue(0 < interner.getDedupRatio());
+		// a copy does not share the interner
+		assertNull(root.toBuilder().build().getTreeValueInterner());
+		// an added node uses the interner, a detached node not anymore
+		BaseTreeNode<String, Long> newChild = BaseTreeNode.<String, Long> builder().id(100L)
+			.build();
+		firstChild.addChild(newChild);
+		assertSame(interner, newChild.getTreeValueInterner());
+		newChild.setValue(new String("shared"));
+		assertSame(firstChild.getValue(), newChild.getValue());
+		assertTrue(newChild.move(null));
+		assertNull(newChild.getTreeValueInterner());
+		newChild.setValue(new String("shared"));
+		assertNotSame(firstChild.getValue(), newChild.getValue());
+		root.setTreeValueInterner(null);
+		secondChild.setValue(new String("shared"));
+		assertNotSame(firstChild.getValue(), secondChild.getValue());
+	}
+
 	/**
 	 * Test method for {@link BaseTreeNode#getLevel()}
 	 */
@@ -687,4 +1186,50 @@ public class BaseTreeNodeTest extends AbstractTestCase<Boolean, Boolean>
 		assertTrue(rootChildren.contains(fifthChild));
 	}
 
+	/**
+	 * A subclass of {@link BaseTreeNode} with an own field that is preserved in a copy
+	 */
+	private static class TaggedTreeNode extends BaseTreeNode<String, Long>
+	{
+
+		/** The serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** The tag of this node */
+		private final String tag;
+
+		/**
+		 * Instantiates a new {@link TaggedTreeNode} object
+		 *
+		 * @param id
+		 *            the id
+		 * @param tag
+		 *            the tag
+		 */
+		TaggedTreeNode(final Long id, final String tag)
+		{
+			setId(id);
+			this.tag = tag;
+		}
+
+		/**
+		 * Gets the tag of this node
+		 *
+		 * @return the tag
+		 */
+		String getTag()
+		{
+			return tag;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected BaseTreeNode<String, Long> newCopyInstance()
+		{
+			return new TaggedTreeNode(null, tag);
+		}
+	}
+
 }
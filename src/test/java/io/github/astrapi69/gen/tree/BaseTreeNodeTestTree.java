@@ -24,6 +24,11 @@
  */
 package io.github.astrapi69.gen.tree;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
 import io.github.astrapi69.id.generate.LongIdGenerator;
 import lombok.Data;
 
@@ -54,6 +59,43 @@ public class BaseTreeNodeTestTree
 		initialize();
 	}
 
+	/**
+	 * Creates a new tree for the unit tests where the third child has the display value "third"
+	 *
+	 * @return the new tree
+	 */
+	public static BaseTreeNodeTestTree newTreeWithDisplayValue()
+	{
+		BaseTreeNodeTestTree testTree = new BaseTreeNodeTestTree();
+		testTree.getThirdChild().setDisplayValue("third");
+		return testTree;
+	}
+
+	/**
+	 * Collects the ids of the given tree in pre-order
+	 *
+	 * @param root
+	 *            the root
+	 * @return the ids in pre-order
+	 */
+	public static List<Long> preOrderIds(final BaseTreeNode<String, Long> root)
+	{
+		final List<Long> ids = new ArrayList<>();
+		final Deque<BaseTreeNode<String, Long>> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			BaseTreeNode<String, Long> current = stack.pop();
+			ids.add(current.getId());
+			List<BaseTreeNode<String, Long>> children = new ArrayList<>(current.getChildren());
+			for (int i = children.size() - 1; 0 <= i; i--)
+			{
+				stack.push(children.get(i));
+			}
+		}
+		return ids;
+	}
+
 	/**
 	 * Set up the tree structure for the unit tests
 	 *
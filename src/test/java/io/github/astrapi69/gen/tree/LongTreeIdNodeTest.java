@@ -0,0 +1,118 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link LongTreeIdNode}
+ */
+public class LongTreeIdNodeTest
+{
+
+	LongTreeIdNode<String> root;
+	LongTreeIdNode<String> firstChild;
+	LongTreeIdNode<String> secondChild;
+	LongTreeIdNode<String> leaf;
+
+	/**
+	 * Set up the tree structure for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		root = LongTreeIdNode.<String> builder().id(0L).value("I'm root").build();
+		firstChild = LongTreeIdNode.<String> builder().id(1L).value("I'm the first child")
+			.build();
+		secondChild = LongTreeIdNode.<String> builder().id(2L).value("I'm the second child")
+			.build();
+		leaf = LongTreeIdNode.<String> builder().id(3L).value("I'm a leaf").leaf(true).build();
+		root.addChild(firstChild);
+		root.addChild(secondChild);
+		secondChild.addChild(leaf);
+	}
+
+	/**
+	 * Test method for {@link LongTreeIdNode#addChild(LongTreeIdNode)}
+	 */
+	@Test
+	public void testAddChild()
+	{
+		assertTrue(root.isRoot());
+		assertFalse(firstChild.isRoot());
+		assertEquals(firstChild.getParentId(), 0L);
+		assertEquals(root.getChildrenIds(), new long[] { 1L, 2L });
+		assertEquals(root.getChildCount(), 2);
+		// adding an existing child changes nothing
+		root.addChild(firstChild);
+		assertEquals(root.getChildCount(), 2);
+		// a leaf can not have children
+		leaf.addChild(firstChild);
+		assertFalse(leaf.hasChildren());
+		for (long childId = 10; childId < 30; childId++)
+		{
+			root.addChildId(childId);
+		}
+		assertEquals(root.getChildCount(), 22);
+		assertEquals(root.getChildId(21), 29L);
+	}
+
+	/**
+	 * Test method for {@link LongTreeIdNode#removeChild(LongTreeIdNode)}
+	 */
+	@Test
+	public void testRemoveChild()
+	{
+		root.removeChild(firstChild);
+		assertEquals(root.getChildrenIds(), new long[] { 2L });
+		assertTrue(firstChild.isRoot());
+		assertFalse(root.removeChildId(42L));
+		assertTrue(root.removeChildId(2L));
+		assertFalse(root.hasChildren());
+	}
+
+	/**
+	 * Test method for {@link LongTreeIdNode#equals(Object)} and {@link LongTreeIdNode#hashCode()}
+	 */
+	@Test
+	public void testEqualsAndHashCode()
+	{
+		LongTreeIdNode<String> copy = root.toBuilder().build();
+		assertEquals(copy, root);
+		assertEquals(copy.hashCode(), root.hashCode());
+		// the capacity of the children array does not matter
+		copy.addChildId(5L);
+		copy.removeChildId(5L);
+		assertEquals(copy, root);
+		copy.addChildId(5L);
+		assertNotEquals(copy, root);
+	}
+}
@@ -0,0 +1,242 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link PrimitiveTreeNode} and its subclasses
+ * {@link IntTreeNode}, {@link LongTreeNode} and {@link DoubleTreeNode}
+ */
+public class PrimitiveTreeNodeTest
+{
+
+	/**
+	 * The operations of one tree node type with the values as double, all values of the tests are
+	 * exactly representable in every type
+	 *
+	 * @param <N>
+	 *            the generic type of the concrete tree node
+	 */
+	static final class NodeType<N extends PrimitiveTreeNode<N>>
+	{
+		final String name;
+		final IntFunction<N> factory;
+		final Function<N, double[]> toArray;
+		final BiPredicate<N, DoublePredicate> accept;
+		final ToDoubleFunction<N> sum;
+		final ToDoubleFunction<N> product;
+		final ToDoubleFunction<N> min;
+		final ToDoubleFunction<N> max;
+		final BiFunction<N, Integer, N> findByValue;
+		final BiPredicate<N, Integer> contains;
+
+		NodeType(final String name, final IntFunction<N> factory,
+			final Function<N, double[]> toArray, final BiPredicate<N, DoublePredicate> accept,
+			final ToDoubleFunction<N> sum, final ToDoubleFunction<N> product,
+			final ToDoubleFunction<N> min, final ToDoubleFunction<N> max,
+			final BiFunction<N, Integer, N> findByValue, final BiPredicate<N, Integer> contains)
+		{
+			this.name = name;
+			this.factory = factory;
+			this.toArray = toArray;
+			this.accept = accept;
+			this.sum = sum;
+			this.product = product;
+			this.min = min;
+			this.max = max;
+			this.findByValue = findByValue;
+			this.contains = contains;
+		}
+
+		/**
+		 * Creates the tree structure for the unit tests
+		 *
+		 * <pre>
+		 *   +- root(1)
+		 *      +- firstChild(2)
+		 *      |  +- grandChild(4)
+		 *      +- secondChild(3)
+		 * </pre>
+		 *
+		 * @return the root, the first child, the second child and the grand child
+		 */
+		@SuppressWarnings("unchecked")
+		N[] createTree()
+		{
+			N root = factory.apply(1);
+			N firstChild = factory.apply(2);
+			N secondChild = factory.apply(3);
+			N grandChild = factory.apply(4);
+			root.addChild(firstChild);
+			root.addChild(secondChild);
+			firstChild.addChild(grandChild);
+			return (N[])new PrimitiveTreeNode[] { root, firstChild, secondChild, grandChild };
+		}
+
+		@Override
+		public String toString()
+		{
+			return name;
+		}
+	}
+
+	/**
+	 * Provides the tree node types
+	 *
+	 * @return the tree node types
+	 */
+	@DataProvider
+	public static Object[][] nodeTypes()
+	{
+		return new Object[][] { { new NodeType<IntTreeNode>("IntTreeNode", IntTreeNode::new,
+			node -> Arrays.stream(node.toArray()).asDoubleStream().toArray(),
+			(node, visitor) -> node.accept(visitor::test), IntTreeNode::sum,
+			node -> node.reduce(1, (result, value) -> result * value), IntTreeNode::min,
+			IntTreeNode::max, IntTreeNode::findByValue, IntTreeNode::contains) },
+			{ new NodeType<LongTreeNode>("LongTreeNode", LongTreeNode::new,
+				node -> Arrays.stream(node.toArray()).asDoubleStream().toArray(),
+				(node, visitor) -> node.accept(visitor::test), LongTreeNode::sum,
+				node -> node.reduce(1, (result, value) -> result * value), LongTreeNode::min,
+				LongTreeNode::max, LongTreeNode::findByValue, LongTreeNode::contains) },
+			{ new NodeType<DoubleTreeNode>("DoubleTreeNode", DoubleTreeNode::new,
+				DoubleTreeNode::toArray, (node, visitor) -> node.accept(visitor::test),
+				DoubleTreeNode::sum, node -> node.reduce(1, (result, value) -> result * value),
+				DoubleTreeNode::min, DoubleTreeNode::max, DoubleTreeNode::findByValue,
+				DoubleTreeNode::contains) } };
+	}
+
+	/**
+	 * Test method for {@link PrimitiveTreeNode#addChild(PrimitiveTreeNode)} and
+	 * {@link PrimitiveTreeNode#removeChild(PrimitiveTreeNode)}
+	 */
+	@Test(dataProvider = "nodeTypes")
+	public <N extends PrimitiveTreeNode<N>> void testAddAndRemoveChild(final NodeType<N> type)
+	{
+		N[] tree = type.createTree();
+		N root = tree[0];
+		N firstChild = tree[1];
+		N secondChild = tree[2];
+		N grandChild = tree[3];
+		assertTrue(root.isRoot());
+		assertEquals(root.getChildCount(), 2);
+		assertSame(grandChild.getRoot(), root);
+		assertEquals(grandChild.getLevel(), 2);
+		// an ancestor can not be added as child
+		grandChild.addChild(root);
+		assertFalse(grandChild.hasChildren());
+		// a child of another parent is moved
+		secondChild.addChild(grandChild);
+		assertFalse(firstChild.hasChildren());
+		assertSame(grandChild.getParent(), secondChild);
+		assertTrue(secondChild.removeChild(grandChild));
+		assertFalse(secondChild.removeChild(grandChild));
+		assertNull(grandChild.getParent());
+		// a leaf can not have children
+		firstChild.setLeaf(true);
+		firstChild.addChild(grandChild);
+		assertFalse(firstChild.hasChildren());
+	}
+
+	/**
+	 * Test method for the visits and the values in pre-order
+	 */
+	@Test(dataProvider = "nodeTypes")
+	public <N extends PrimitiveTreeNode<N>> void testAcceptAndToArray(final NodeType<N> type)
+	{
+		N[] tree = type.createTree();
+		assertEquals(type.toArray.apply(tree[0]), new double[] { 1, 2, 4, 3 });
+		StringBuilder visited = new StringBuilder();
+		assertFalse(type.accept.test(tree[0], value -> {
+			visited.append((int)value);
+			return value != 4;
+		}));
+		assertEquals(visited.toString(), "124");
+		assertTrue(type.accept.test(tree[1], value -> true));
+	}
+
+	/**
+	 * Test method for the reductions, the sums, the minimums and the maximums
+	 */
+	@Test(dataProvider = "nodeTypes")
+	public <N extends PrimitiveTreeNode<N>> void testReduce(final NodeType<N> type)
+	{
+		N[] tree = type.createTree();
+		assertEquals(type.sum.applyAsDouble(tree[0]), 10, 0.0);
+		assertEquals(type.sum.applyAsDouble(tree[1]), 6, 0.0);
+		assertEquals(type.product.applyAsDouble(tree[0]), 24, 0.0);
+		assertEquals(type.min.applyAsDouble(tree[0]), 1, 0.0);
+		assertEquals(type.max.applyAsDouble(tree[0]), 4, 0.0);
+		assertEquals(type.max.applyAsDouble(tree[2]), 3, 0.0);
+	}
+
+	/**
+	 * Test method for the searches by value
+	 */
+	@Test(dataProvider = "nodeTypes")
+	public <N extends PrimitiveTreeNode<N>> void testFindByValue(final NodeType<N> type)
+	{
+		N[] tree = type.createTree();
+		assertSame(type.findByValue.apply(tree[0], 4), tree[3]);
+		assertNull(type.findByValue.apply(tree[2], 4));
+		assertTrue(type.contains.test(tree[0], 3));
+		assertFalse(type.contains.test(tree[0], 5));
+	}
+
+	/**
+	 * Test method for a deep chain of nodes
+	 */
+	@Test(dataProvider = "nodeTypes")
+	public <N extends PrimitiveTreeNode<N>> void testDeepTree(final NodeType<N> type)
+	{
+		N root = type.createTree()[0];
+		N current = root;
+		for (int i = 0; i < 100000; i++)
+		{
+			N child = type.factory.apply(1);
+			current.addChild(child);
+			current = child;
+		}
+		assertEquals(type.sum.applyAsDouble(root), 100010, 0.0);
+		assertEquals(type.toArray.apply(root).length, 100004);
+		assertSame(type.findByValue.apply(root, 1), root);
+		assertNull(type.findByValue.apply(root, -1));
+	}
+}
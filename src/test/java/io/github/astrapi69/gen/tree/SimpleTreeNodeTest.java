@@ -30,6 +30,7 @@ import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.Collection;
+import java.util.function.UnaryOperator;
 
 import org.meanbean.lang.Factory;
 import org.meanbean.test.BeanTester;
@@ -337,4 +338,27 @@ public class SimpleTreeNodeTest
 		beanTester.testBean(SimpleTreeNode.class, configuration);
 	}
 
+	/**
+	 * Test method for {@link SimpleTreeNode#copy()} and {@link SimpleTreeNode#copy(UnaryOperator)}
+	 */
+	@Test
+	public void testCopy()
+	{
+		SimpleTreeNode<String, Long> copy = root.copy();
+		assertEquals(copy.traverse().size(), 12);
+		assertEquals(copy.getLeftMostChild().getRightSibling().getId(), secondChild.getId());
+		assertTrue(copy.getLeftMostChild() != firstChild);
+		assertEquals(copy.getLeftMostChild().getParent(), copy);
+		// copy only a subtree and copy the values
+		SimpleTreeNode<String, Long> subtreeCopy = secondChild.copy(String::toUpperCase);
+		assertNull(subtreeCopy.getParent());
+		assertNull(subtreeCopy.getRightSibling());
+		assertEquals(subtreeCopy.getValue(), "I'M THE SECOND CHILD");
+		assertEquals(subtreeCopy.traverse().size(), 7);
+		assertEquals(subtreeCopy.getLeftMostChild().getRightSibling().getRightSibling().getId(),
+			thirdGrandChild.getId());
+		assertNull(subtreeCopy.getLeftMostChild().getRightSibling().getRightSibling().getValue());
+		assertEquals(secondChild.getRightSibling(), thirdChild);
+	}
+
 }
@@ -27,13 +27,20 @@ package io.github.astrapi69.gen.tree;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNotSame;
 import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import org.meanbean.lang.Factory;
 import org.meanbean.test.BeanTester;
@@ -683,4 +690,132 @@ public class TreeNodeTest extends AbstractTestCase<Boolean, Boolean>
 		assertTrue(rootChildren.contains(fifthChild));
 	}
 
+	/**
+	 * Test method for {@link TreeNode#copy()} and {@link TreeNode#copy(UnaryOperator)}
+	 */
+	@Test
+	public void testCopy()
+	{
+		TreeNode<String> copy = root.copy();
+		assertNull(copy.getParent());
+		assertEquals(copy.toList(), root.toList());
+		assertEquals(copy.traverse().size(), 12);
+		assertNotSame(copy.getChildren().iterator().next(), firstChild);
+		assertEquals(copy.getChildren().iterator().next().getParent(), copy);
+		// copy only a subtree and copy the values
+		TreeNode<String> subtreeCopy = thirdChild.copy(String::toUpperCase);
+		assertNull(subtreeCopy.getParent());
+		assertEquals(subtreeCopy.getValue(), "I'M THE THIRD CHILD");
+		List<TreeNode<String>> children = new ArrayList<>(subtreeCopy.getChildren());
+		assertNull(children.get(0).getValue());
+		assertEquals(children.get(1).getValue(), "I'M THE FIFTH GRAND CHILD");
+		assertTrue(children.get(1).isLeaf());
+		assertEquals(fifthGrandChild.getValue(), fifthGrandChildValue);
+	}
+
+	/**
+	 * Serializes and deserializes the given object
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T serializeAndDeserialize(T object)
+		throws IOException, ClassNotFoundException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(object);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+			new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			return (T)in.readObject();
+		}
+	}
+
+	/**
+	 * Test method for the serialization of {@link TreeNode}
+	 */
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException
+	{
+		TreeNode<String> deserialized = serializeAndDeserialize(root);
+		assertEquals(deserialized.toList(), root.toList());
+		assertEquals(deserialized.traverse().size(), 12);
+		// a serialized inner node is restored with its whole tree
+		TreeNode<String> deserializedFifthGrandChild = serializeAndDeserialize(fifthGrandChild);
+		assertEquals(deserializedFifthGrandChild, fifthGrandChild);
+		assertTrue(deserializedFifthGrandChild.isLeaf());
+		assertEquals(deserializedFifthGrandChild.getRoot().traverse().size(), 12);
+		// a degenerated deep tree
+		TreeNode<String> current = root;
+		for (int i = 0; i < 100000; i++)
+		{
+			TreeNode<String> child = TreeNode.<String> builder().parent(current).value("deep " + i)
+				.build();
+			current.getChildren().add(child);
+			current = child;
+		}
+		TreeNode<String> deserializedDeepNode = serializeAndDeserialize(current);
+		assertEquals(deserializedDeepNode.getValue(), "deep 99999");
+		assertEquals(deserializedDeepNode.getParent().getValue(), "deep 99998");
+	}
+
+	/**
+	 * Test method for the serialization of many nodes of one {@link TreeNode} tree in one object
+	 * graph
+	 */
+	@Test
+	public void testSerializationOfNodeGraph() throws IOException, ClassNotFoundException
+	{
+		List<TreeNode<String>> nodes = new ArrayList<>(root.traverse());
+		List<TreeNode<String>> deserialized = serializeAndDeserialize(nodes);
+		assertEquals(deserialized.size(), nodes.size());
+		TreeNode<String> deserializedRoot = deserialized.get(0).getRoot();
+		assertNull(deserializedRoot.getParent());
+		assertEquals(deserializedRoot.traverse().size(), nodes.size());
+		for (int index = 0; index < nodes.size(); index++)
+		{
+			TreeNode<String> node = deserialized.get(index);
+			assertEquals(node.getValue(), nodes.get(index).getValue());
+			assertTrue(node.getRoot() == deserializedRoot);
+			assertTrue(deserializedRoot.traverse().stream().anyMatch(each -> each == node));
+		}
+	}
+
+	/**
+	 * Test method for {@link TreeNode#setIdentityMembership(boolean)}
+	 */
+	@Test
+	public void testIdentityMembership() throws IOException, ClassNotFoundException
+	{
+		TreeNode<String> parent = TreeNode.<String> builder().value("parent").build();
+		parent.setIdentityMembership(true);
+		assertTrue(parent.isIdentityMembership());
+		// the children are equal, because they have the same value and the same parent
+		TreeNode<String> first = TreeNode.<String> builder().value("child").build();
+		TreeNode<String> second = TreeNode.<String> builder().value("child").build();
+		parent.addChild(first);
+		parent.addChild(second);
+		assertEquals(first, second);
+		assertTrue(second.isIdentityMembership());
+		parent.removeChild(second);
+		assertEquals(parent.getChildren().size(), 1);
+		assertTrue(parent.getChildren().iterator().next() == first);
+		// a changed child is still found by identity
+		parent.addChild(second, 0);
+		first.setValue("changed");
+		assertTrue(parent.getChildren().contains(first));
+		assertTrue(parent.getChildren().iterator().next() == second);
+		assertEquals(parent.traverse().size(), 3);
+		// the mode is preserved by the copy and the serialization
+		assertTrue(parent.copy().isIdentityMembership());
+		TreeNode<String> deserialized = serializeAndDeserialize(parent);
+		assertTrue(deserialized.isIdentityMembership());
+		assertEquals(deserialized.getChildren().size(), 2);
+		// switching the mode off keeps all children
+		parent.setIdentityMembership(false);
+		assertFalse(second.isIdentityMembership());
+		assertEquals(parent.getChildren().size(), 2);
+	}
+
 }
@@ -0,0 +1,203 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.binary;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.OptionalDouble;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToDoubleFunction;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link PrimitiveBinaryTree} and its subclasses
+ * {@link IntBinaryTree}, {@link LongBinaryTree} and {@link DoubleBinaryTree}
+ */
+public class PrimitiveBinaryTreeTest
+{
+
+	/**
+	 * The operations of one binary tree type with the values as double, all values of the tests
+	 * are exactly representable in every type
+	 *
+	 * @param <B>
+	 *            the generic type of the concrete binary tree
+	 */
+	static final class TreeType<B extends PrimitiveBinaryTree>
+	{
+		final String name;
+		final IntFunction<B> factory;
+		final ObjIntConsumer<B> add;
+		final BiPredicate<B, Integer> contains;
+		final Function<B, double[]> toArray;
+		final BiPredicate<B, DoublePredicate> accept;
+		final ToDoubleFunction<B> sum;
+		final ToDoubleFunction<B> weightedSum;
+		final Function<B, OptionalDouble> min;
+		final Function<B, OptionalDouble> max;
+
+		TreeType(final String name, final IntFunction<B> factory, final ObjIntConsumer<B> add,
+			final BiPredicate<B, Integer> contains, final Function<B, double[]> toArray,
+			final BiPredicate<B, DoublePredicate> accept, final ToDoubleFunction<B> sum,
+			final ToDoubleFunction<B> weightedSum, final Function<B, OptionalDouble> min,
+			final Function<B, OptionalDouble> max)
+		{
+			this.name = name;
+			this.factory = factory;
+			this.add = add;
+			this.contains = contains;
+			this.toArray = toArray;
+			this.accept = accept;
+			this.sum = sum;
+			this.weightedSum = weightedSum;
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public String toString()
+		{
+			return name;
+		}
+	}
+
+	/**
+	 * Provides the binary tree types
+	 *
+	 * @return the binary tree types
+	 */
+	@DataProvider
+	public static Object[][] treeTypes()
+	{
+		return new Object[][] { { new TreeType<IntBinaryTree>("IntBinaryTree", IntBinaryTree::new,
+			IntBinaryTree::add, IntBinaryTree::contains,
+			tree -> Arrays.stream(tree.toArray()).asDoubleStream().toArray(),
+			(tree, visitor) -> tree.accept(visitor::test), IntBinaryTree::sum,
+			tree -> tree.reduce(0, (result, value) -> result * 2 + value),
+			tree -> tree.min().isPresent()
+				? OptionalDouble.of(tree.min().getAsInt())
+				: OptionalDouble.empty(),
+			tree -> tree.max().isPresent()
+				? OptionalDouble.of(tree.max().getAsInt())
+				: OptionalDouble.empty()) },
+			{ new TreeType<LongBinaryTree>("LongBinaryTree", LongBinaryTree::new,
+				LongBinaryTree::add, LongBinaryTree::contains,
+				tree -> Arrays.stream(tree.toArray()).asDoubleStream().toArray(),
+				(tree, visitor) -> tree.accept(visitor::test), LongBinaryTree::sum,
+				tree -> tree.reduce(0, (result, value) -> result * 2 + value),
+				tree -> tree.min().isPresent()
+					? OptionalDouble.of(tree.min().getAsLong())
+					: OptionalDouble.empty(),
+				tree -> tree.max().isPresent()
+					? OptionalDouble.of(tree.max().getAsLong())
+					: OptionalDouble.empty()) },
+			{ new TreeType<DoubleBinaryTree>("DoubleBinaryTree", DoubleBinaryTree::new,
+				DoubleBinaryTree::add, DoubleBinaryTree::contains, DoubleBinaryTree::toArray,
+				(tree, visitor) -> tree.accept(visitor::test), DoubleBinaryTree::sum,
+				tree -> tree.reduce(0, (result, value) -> result * 2 + value),
+				DoubleBinaryTree::min, DoubleBinaryTree::max) } };
+	}
+
+	/**
+	 * Test method for adding and searching values
+	 */
+	@Test(dataProvider = "treeTypes")
+	public <B extends PrimitiveBinaryTree> void testAddAndContains(final TreeType<B> type)
+	{
+		B binaryTree = type.factory.apply(1);
+		assertTrue(binaryTree.isEmpty());
+		assertFalse(type.contains.test(binaryTree, 5));
+		for (int value : new int[] { 5, 3, 8, 1, 4, 5 })
+		{
+			type.add.accept(binaryTree, value);
+		}
+		assertEquals(binaryTree.size(), 5);
+		assertTrue(type.contains.test(binaryTree, 4));
+		assertTrue(type.contains.test(binaryTree, 8));
+		assertFalse(type.contains.test(binaryTree, 6));
+		assertEquals(type.toArray.apply(binaryTree), new double[] { 1, 3, 4, 5, 8 });
+		assertEquals(type.min.apply(binaryTree).getAsDouble(), 1, 0.0);
+		assertEquals(type.max.apply(binaryTree).getAsDouble(), 8, 0.0);
+		assertEquals(type.sum.applyAsDouble(binaryTree), 21, 0.0);
+		assertEquals(type.weightedSum.applyAsDouble(binaryTree), 74, 0.0);
+		assertFalse(type.min.apply(type.factory.apply(16)).isPresent());
+		assertFalse(type.max.apply(type.factory.apply(16)).isPresent());
+	}
+
+	/**
+	 * Test method for the visits in ascending order
+	 */
+	@Test(dataProvider = "treeTypes")
+	public <B extends PrimitiveBinaryTree> void testAccept(final TreeType<B> type)
+	{
+		B binaryTree = type.factory.apply(16);
+		for (int i = 0; i < 10; i++)
+		{
+			type.add.accept(binaryTree, (i * 7) % 10);
+		}
+		int[] count = { 0 };
+		assertFalse(type.accept.test(binaryTree, value -> ++count[0] < 4));
+		assertEquals(count[0], 4);
+	}
+
+	/**
+	 * Test method for the binary trees against a {@link TreeSet} with random values and a
+	 * degenerated tree of sorted values
+	 */
+	@Test(dataProvider = "treeTypes")
+	public <B extends PrimitiveBinaryTree> void testRandomAndSortedValues(final TreeType<B> type)
+	{
+		Random random = new Random(42);
+		B binaryTree = type.factory.apply(16);
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < 10000; i++)
+		{
+			int value = random.nextInt(5000);
+			type.add.accept(binaryTree, value);
+			expected.add(value);
+		}
+		assertEquals(binaryTree.size(), expected.size());
+		assertEquals(type.toArray.apply(binaryTree),
+			expected.stream().mapToDouble(Integer::doubleValue).toArray());
+		B sorted = type.factory.apply(16);
+		for (int i = 0; i < 20000; i++)
+		{
+			type.add.accept(sorted, i);
+		}
+		assertEquals(type.toArray.apply(sorted).length, 20000);
+		assertTrue(type.contains.test(sorted, 19999));
+	}
+}
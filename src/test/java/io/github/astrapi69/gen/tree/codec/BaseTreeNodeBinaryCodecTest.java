@@ -0,0 +1,188 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link BaseTreeNodeBinaryCodec}
+ */
+public class BaseTreeNodeBinaryCodecTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	BaseTreeNodeBinaryCodec<String, Long> codec;
+
+	/**
+	 * Set up the tree structure and the codec for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		testTree = new BaseTreeNodeTestTree();
+		testTree.getSecondChild().setDisplayValue("second");
+		codec = new BaseTreeNodeBinaryCodec<>(ValueCodecs.STRING, ValueCodecs.LONG);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBinaryCodec#toBytes(BaseTreeNode)} and
+	 * {@link BaseTreeNodeBinaryCodec#fromBytes(byte[])}
+	 */
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		byte[] bytes = codec.toBytes(root);
+		BaseTreeNode<String, Long> read = codec.fromBytes(bytes);
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(read),
+			BaseTreeNodeTransformer.toKeyMap(root));
+		assertEquals(read.traverse(), root.traverse());
+		BaseTreeNode<String, Long> secondChild = read.findById(2L);
+		assertEquals(secondChild.getDisplayValue(), "second");
+		assertEquals(secondChild.getParent(), root);
+		assertTrue(read.findById(11L).isLeaf());
+		assertNull(read.findById(8L).getValue());
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBinaryCodec} without display values and leaf flags
+	 */
+	@Test
+	public void testWithoutOptionalFields() throws IOException
+	{
+		BaseTreeNodeBinaryCodec<String, Long> compactCodec = new BaseTreeNodeBinaryCodec<>(
+			ValueCodecs.STRING, ValueCodecs.LONG, false, false);
+		byte[] compactBytes = compactCodec.toBytes(testTree.getRoot());
+		assertTrue(compactBytes.length < codec.toBytes(testTree.getRoot()).length);
+		BaseTreeNode<String, Long> read = compactCodec.fromBytes(compactBytes);
+		assertNull(read.findById(2L).getDisplayValue());
+		assertEquals(read.findById(11L).isLeaf(), false);
+		assertEquals(read.findById(11L).getValue(), testTree.getFifthGrandChildValue());
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBinaryCodec} with a degenerated deep tree
+	 */
+	@Test
+	public void testDeepTree() throws IOException
+	{
+		BaseTreeNodeBinaryCodec<Integer, Long> integerCodec = new BaseTreeNodeBinaryCodec<>(
+			ValueCodecs.INTEGER, ValueCodecs.LONG);
+		BaseTreeNode<Integer, Long> root = BaseTreeNode.<Integer, Long> builder().id(0L).value(0)
+			.build();
+		BaseTreeNode<Integer, Long> current = root;
+		for (int i = 1; i < 100_000; i++)
+		{
+			BaseTreeNode<Integer, Long> child = BaseTreeNode.<Integer, Long> builder()
+				.id((long)i).value(i).parent(current).build();
+			current.getChildren().add(child);
+			current = child;
+		}
+		BaseTreeNode<Integer, Long> read = integerCodec.fromBytes(integerCodec.toBytes(root));
+		int depth = 0;
+		while (read.hasChildren())
+		{
+			read = read.getChildren().iterator().next();
+			depth++;
+			assertEquals(read.getValue(), Integer.valueOf(depth));
+		}
+		assertEquals(depth, 99_999);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBinaryCodec#write(BaseTreeNode, Path)} and
+	 * {@link BaseTreeNodeBinaryCodec#read(Path)}
+	 */
+	@Test
+	public void testWriteAndReadFile() throws IOException
+	{
+		Path path = Files.createTempFile("tree", ".bin");
+		try
+		{
+			codec.write(testTree.getRoot(), path);
+			assertEquals(codec.read(path).traverse(), testTree.getRoot().traverse());
+		}
+		finally
+		{
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBinaryCodec#fromBytes(byte[])} with invalid input
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testReadInvalidInput() throws IOException
+	{
+		codec.fromBytes(new byte[] { 1, 2, 3, 4, 5 });
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBinaryCodec#fromBytes(byte[])} with a corrupt child count
+	 * that is too large for the input
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testReadTooLargeChildCount() throws IOException
+	{
+		codec.fromBytes(withChildCount(new byte[] { -1, -1, -1, -1, 7 }));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBinaryCodec#fromBytes(byte[])} with a negative child
+	 * count
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testReadNegativeChildCount() throws IOException
+	{
+		codec.fromBytes(withChildCount(new byte[] { -1, -1, -1, -1, 15 }));
+	}
+
+	/**
+	 * Encodes a single root node and replaces its child count with the given varint
+	 */
+	private byte[] withChildCount(final byte[] childCount) throws IOException
+	{
+		byte[] bytes = codec.toBytes(BaseTreeNode.<String, Long> builder().id(1L).value("root")
+			.leaf(true).build());
+		byte[] corrupt = Arrays.copyOf(bytes, bytes.length - 1 + childCount.length);
+		System.arraycopy(childCount, 0, corrupt, bytes.length - 1, childCount.length);
+		return corrupt;
+	}
+}
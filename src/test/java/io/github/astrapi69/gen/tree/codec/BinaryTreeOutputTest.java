@@ -0,0 +1,104 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link BinaryTreeOutput} and {@link BinaryTreeInput}
+ */
+public class BinaryTreeOutputTest
+{
+
+	/**
+	 * Test method for the round trip of all value types with a small buffer
+	 */
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		BinaryTreeOutput output = new BinaryTreeOutput(Channels.newChannel(outputStream), 16);
+		long[] longs = { 0L, 1L, 127L, 128L, 16_384L, -1L, Long.MIN_VALUE, Long.MAX_VALUE };
+		for (long value : longs)
+		{
+			output.writeVarLong(value);
+			output.writeZigZagLong(value);
+		}
+		output.writeVarInt(-1);
+		output.writeInt(42);
+		output.writeDouble(Math.PI);
+		output.writeBoolean(true);
+		String text = "Ein schöner Tag mit einem langen Text über die Grenze des Puffers";
+		output.writeString(text);
+		output.flush();
+		assertEquals(output.getWrittenBytes(), outputStream.size());
+		// one byte for small values
+		assertEquals(varLongSize(127L), 1);
+		assertEquals(varLongSize(128L), 2);
+
+		BinaryTreeInput input = new BinaryTreeInput(
+			Channels.newChannel(new ByteArrayInputStream(outputStream.toByteArray())), 16);
+		for (long value : longs)
+		{
+			assertEquals(input.readVarLong(), value);
+			assertEquals(input.readZigZagLong(), value);
+		}
+		assertEquals(input.readVarInt(), -1);
+		assertEquals(input.readInt(), 42);
+		assertEquals(input.readDouble(), Math.PI);
+		assertTrue(input.readBoolean());
+		assertEquals(input.readString(), text);
+		assertTrue(input.isAtEnd());
+	}
+
+	/**
+	 * Test method for {@link BinaryTreeInput} at the end of the channel
+	 */
+	@Test(expectedExceptions = EOFException.class)
+	public void testReadAfterEnd() throws IOException
+	{
+		BinaryTreeInput input = new BinaryTreeInput(
+			Channels.newChannel(new ByteArrayInputStream(new byte[] { 1, 2 })));
+		input.readInt();
+	}
+
+	private static int varLongSize(final long value) throws IOException
+	{
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		BinaryTreeOutput output = new BinaryTreeOutput(Channels.newChannel(outputStream));
+		output.writeVarLong(value);
+		output.flush();
+		return outputStream.size();
+	}
+}
@@ -0,0 +1,194 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link DictionaryTreeCodec} and
+ * {@link DictionaryTreeSnapshot}
+ */
+public class DictionaryTreeCodecTest
+{
+
+	Path path;
+
+	/**
+	 * Set up the snapshot file for the unit tests
+	 */
+	@BeforeMethod
+	public void setup() throws IOException
+	{
+		path = Files.createTempFile("tree", ".snapshot");
+	}
+
+	/**
+	 * Delete the snapshot file
+	 */
+	@AfterMethod
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Creates a tree with the given number of nodes and a few repeated values and display values
+	 */
+	private BaseTreeNode<String, Long> newRepetitiveTree(int nodeCount)
+	{
+		String[] fileTypes = { "text/plain", "image/png", "application/pdf", "text/html" };
+		String[] states = { "ACTIVE", "ARCHIVED", "DELETED" };
+		List<BaseTreeNode<String, Long>> nodes = new ArrayList<>();
+		BaseTreeNode<String, Long> root = BaseTreeNode.<String, Long> builder().id(0L)
+			.value("root").build();
+		nodes.add(root);
+		for (int i = 1; i < nodeCount; i++)
+		{
+			BaseTreeNode<String, Long> node = BaseTreeNode.<String, Long> builder()
+				.id((long)i).value(fileTypes[i % fileTypes.length])
+				.displayValue(states[i % states.length]).build();
+			nodes.get((i - 1) / 8).addChild(node);
+			nodes.add(node);
+		}
+		return root;
+	}
+
+	/**
+	 * Test method for the round trip with and without compression
+	 */
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		BaseTreeNodeTestTree testTree = BaseTreeNodeTestTree.newTreeWithDisplayValue();
+		for (boolean compressed : new boolean[] { false, true })
+		{
+			DictionaryTreeCodec<String, Long> codec = new DictionaryTreeCodec<>(ValueCodecs.STRING,
+				Long::longValue, Long::valueOf, compressed, 5);
+			codec.write(testTree.getRoot(), path);
+			BaseTreeNode<String, Long> root = codec.read(path);
+			assertEquals(BaseTreeNodeTransformer.toKeyMap(root),
+				BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+			assertEquals(root.findById(9L).getDisplayValue(), "third");
+			assertTrue(root.findById(11L).isLeaf());
+		}
+	}
+
+	/**
+	 * Test method for {@link DictionaryTreeSnapshot#readNode(int)} and
+	 * {@link DictionaryTreeSnapshot#readBlock(int)}
+	 */
+	@Test
+	public void testRandomAccess() throws IOException
+	{
+		BaseTreeNode<String, Long> tree = newRepetitiveTree(1000);
+		DictionaryTreeCodec<String, Long> codec = new DictionaryTreeCodec<>(ValueCodecs.STRING,
+			Long::longValue, Long::valueOf, true, 100);
+		codec.write(tree, path);
+		List<BaseTreeNode<String, Long>> preOrder = new ArrayList<>();
+		List<BaseTreeNode<String, Long>> stack = new ArrayList<>(List.of(tree));
+		while (!stack.isEmpty())
+		{
+			BaseTreeNode<String, Long> current = stack.remove(stack.size() - 1);
+			preOrder.add(current);
+			List<BaseTreeNode<String, Long>> children = new ArrayList<>(current.getChildren());
+			for (int i = children.size() - 1; 0 <= i; i--)
+			{
+				stack.add(children.get(i));
+			}
+		}
+		try (DictionaryTreeSnapshot<String, Long> snapshot = codec.open(path))
+		{
+			assertEquals(snapshot.getNodeCount(), 1000);
+			assertEquals(snapshot.getBlockCount(), 10);
+			assertEquals(snapshot.getDistinctValueCount(), 5);
+			assertEquals(snapshot.getDistinctDisplayValueCount(), 3);
+			TreeIdNode<String, Long> rootRecord = snapshot.readNode(0);
+			assertEquals(rootRecord.getId(), Long.valueOf(0L));
+			assertNull(rootRecord.getParentId());
+			for (int index = 999; 0 < index; index -= 37)
+			{
+				BaseTreeNode<String, Long> expected = preOrder.get(index);
+				TreeIdNode<String, Long> record = snapshot.readNode(index);
+				assertEquals(record.getId(), expected.getId());
+				assertEquals(record.getParentId(), expected.getParent().getId());
+				assertEquals(record.getValue(), expected.getValue());
+				assertEquals(record.getDisplayValue(), expected.getDisplayValue());
+			}
+			assertEquals(snapshot.readBlock(9).size(), 100);
+		}
+	}
+
+	/**
+	 * Test method for the size of a compressed snapshot of a tree with repeated values
+	 */
+	@Test
+	public void testCompressedSize() throws IOException
+	{
+		BaseTreeNode<String, Long> tree = newRepetitiveTree(20000);
+		long binarySize = new BaseTreeNodeBinaryCodec<>(ValueCodecs.STRING, ValueCodecs.LONG)
+			.toBytes(tree).length;
+		DictionaryTreeCodec.withLongIds(ValueCodecs.STRING, true).write(tree, path);
+		long compressedSize = Files.size(path);
+		assertTrue(compressedSize * 10 < binarySize,
+			"compressed " + compressedSize + " bytes, binary " + binarySize + " bytes");
+		assertEquals(DictionaryTreeCodec.withLongIds(ValueCodecs.STRING, true).read(path)
+			.traverse().size(), 20000);
+	}
+
+	/**
+	 * Test method for {@link DictionaryTreeCodec#open(Path)} with a corrupt node count in the
+	 * header
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testOpenCorruptNodeCount() throws IOException
+	{
+		DictionaryTreeCodec<String, Long> codec = new DictionaryTreeCodec<>(ValueCodecs.STRING,
+			Long::longValue, Long::valueOf, false, 5);
+		codec.write(new BaseTreeNodeTestTree().getRoot(), path);
+		byte[] bytes = Files.readAllBytes(path);
+		// the node count follows the magic number, the version, the flags and the block size
+		ByteBuffer.wrap(bytes).putInt(4 * Integer.BYTES, Integer.MAX_VALUE);
+		Files.write(path, bytes);
+		codec.open(path).close();
+	}
+}
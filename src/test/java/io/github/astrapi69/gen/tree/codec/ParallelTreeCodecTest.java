@@ -0,0 +1,166 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.codec;
+
+import static io.github.astrapi69.gen.tree.BaseTreeNodeTestTree.preOrderIds;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link ParallelTreeCodec}
+ */
+public class ParallelTreeCodecTest
+{
+
+	ExecutorService executor;
+
+	BaseTreeNodeBinaryCodec<String, Long> binaryCodec;
+
+	Path path;
+
+	/**
+	 * Set up the executor and the file for the unit tests
+	 */
+	@BeforeMethod
+	public void setup() throws IOException
+	{
+		executor = Executors.newFixedThreadPool(4);
+		binaryCodec = new BaseTreeNodeBinaryCodec<>(ValueCodecs.STRING, ValueCodecs.LONG);
+		path = Files.createTempFile("tree", ".chunked");
+	}
+
+	/**
+	 * Shut down the executor and delete the file
+	 */
+	@AfterMethod
+	public void tearDown() throws IOException
+	{
+		executor.shutdownNow();
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Test method for the round trip of the test tree with very small chunks
+	 */
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		BaseTreeNodeTestTree testTree = new BaseTreeNodeTestTree();
+		ParallelTreeCodec<String, Long> codec = new ParallelTreeCodec<>(binaryCodec, executor, 2);
+		codec.write(testTree.getRoot(), path);
+		BaseTreeNode<String, Long> root = codec.read(path);
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(root),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		assertEquals(preOrderIds(root), preOrderIds(testTree.getRoot()));
+		assertTrue(root.findById(11L).isLeaf());
+		BaseTreeNode<String, Long> grandGrandChild = root.findById(4L);
+		assertSame(grandGrandChild.getParent(), root.findById(3L));
+		// one chunk with the whole tree below the root
+		codec = new ParallelTreeCodec<>(binaryCodec, executor);
+		assertEquals(preOrderIds(codec.fromBytes(codec.toBytes(testTree.getRoot()))),
+			preOrderIds(testTree.getRoot()));
+	}
+
+	/**
+	 * Test method for the round trip of a large wide tree and of a deep degenerated tree
+	 */
+	@Test
+	public void testLargeTrees() throws IOException
+	{
+		List<BaseTreeNode<String, Long>> nodes = new ArrayList<>();
+		BaseTreeNode<String, Long> wideRoot = BaseTreeNode.<String, Long> builder().id(0L)
+			.value("root").build();
+		nodes.add(wideRoot);
+		for (int i = 1; i < 50000; i++)
+		{
+			BaseTreeNode<String, Long> node = BaseTreeNode.<String, Long> builder().id((long)i)
+				.value("node " + i).build();
+			nodes.get((i - 1) / 5).addChild(node);
+			nodes.add(node);
+		}
+		BaseTreeNode<String, Long> deepRoot = BaseTreeNode.<String, Long> builder().id(0L)
+			.value("root").build();
+		BaseTreeNode<String, Long> current = deepRoot;
+		for (int i = 1; i < 50000; i++)
+		{
+			BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id((long)i)
+				.value("node " + i).build();
+			current.getChildren().add(child);
+			child.setParent(current);
+			current = child;
+		}
+		ParallelTreeCodec<String, Long> codec = new ParallelTreeCodec<>(binaryCodec, executor,
+			1000);
+		for (BaseTreeNode<String, Long> root : List.of(wideRoot, deepRoot))
+		{
+			byte[] bytes = codec.toBytes(root);
+			BaseTreeNode<String, Long> decoded = codec.fromBytes(bytes);
+			assertEquals(preOrderIds(decoded), preOrderIds(root));
+			assertEquals(binaryCodec.toBytes(decoded), binaryCodec.toBytes(root));
+		}
+	}
+
+	/**
+	 * Test method for {@link ParallelTreeCodec#fromBytes(byte[])} with invalid input
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testInvalidInput() throws IOException
+	{
+		new ParallelTreeCodec<>(binaryCodec, executor).fromBytes(binaryCodec.toBytes(
+			new BaseTreeNodeTestTree().getRoot()));
+	}
+
+	/**
+	 * Test method for {@link ParallelTreeCodec#fromBytes(byte[])} with a number of skeleton
+	 * entries that is larger than the skeleton
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testInvalidSkeletonEntryCount() throws IOException
+	{
+		byte[] skeleton = { 0, -1, -1, -1, -1, 7 };
+		ByteBuffer bytes = ByteBuffer.allocate(13 + skeleton.length);
+		bytes.putInt(ParallelTreeCodec.MAGIC).put((byte)ParallelTreeCodec.VERSION).putInt(0)
+			.putInt(skeleton.length).put(skeleton);
+		new ParallelTreeCodec<>(binaryCodec, executor).fromBytes(bytes.array());
+	}
+}
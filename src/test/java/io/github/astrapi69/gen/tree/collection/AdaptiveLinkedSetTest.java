@@ -0,0 +1,212 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.collection;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+
+/**
+ * The unit test class for the class {@link AdaptiveLinkedSet}
+ */
+public class AdaptiveLinkedSetTest
+{
+
+	/**
+	 * Test method for {@link AdaptiveLinkedSet#add(Object)} and
+	 * {@link AdaptiveLinkedSet#remove(Object)}
+	 */
+	@Test
+	public void testAddAndRemove()
+	{
+		AdaptiveLinkedSet<String> set = new AdaptiveLinkedSet<>();
+		assertTrue(set.isEmpty());
+		assertTrue(set.isInline());
+		assertTrue(set.add("a"));
+		assertTrue(set.add(null));
+		assertTrue(set.add("b"));
+		assertFalse(set.add("a"));
+		assertEquals(set.size(), 3);
+		assertTrue(set.contains(null));
+		assertEquals(new ArrayList<>(set), Arrays.asList("a", null, "b"));
+		assertTrue(set.remove(null));
+		assertFalse(set.remove("c"));
+		assertEquals(new ArrayList<>(set), List.of("a", "b"));
+		set.clear();
+		assertTrue(set.isEmpty());
+	}
+
+	/**
+	 * Test method for the upgrade of {@link AdaptiveLinkedSet} to a hashed set
+	 */
+	@Test
+	public void testUpgrade()
+	{
+		AdaptiveLinkedSet<Integer> set = new AdaptiveLinkedSet<>();
+		for (int i = 0; i < AdaptiveLinkedSet.INLINE_CAPACITY; i++)
+		{
+			set.add(i);
+		}
+		assertTrue(set.isInline());
+		set.add(AdaptiveLinkedSet.INLINE_CAPACITY);
+		assertFalse(set.isInline());
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i <= AdaptiveLinkedSet.INLINE_CAPACITY; i++)
+		{
+			expected.add(i);
+		}
+		assertEquals(new ArrayList<>(set), expected);
+		assertFalse(new AdaptiveLinkedSet<>(100).isInline());
+		assertTrue(new AdaptiveLinkedSet<>(3).isInline());
+	}
+
+	/**
+	 * Test method for {@link AdaptiveLinkedSet} in the identity mode
+	 */
+	@Test
+	public void testIdentity()
+	{
+		AdaptiveLinkedSet<List<String>> set = new AdaptiveLinkedSet<>(0, true);
+		assertTrue(set.isIdentity());
+		assertFalse(new AdaptiveLinkedSet<>().isIdentity());
+		List<String> element = new ArrayList<>();
+		assertTrue(set.add(element));
+		assertTrue(set.add(new ArrayList<>()));
+		assertFalse(set.add(element));
+		// the changed element is still found, because its hash code is not used
+		element.add("changed");
+		assertTrue(set.contains(element));
+		assertFalse(set.contains(new ArrayList<>()));
+		for (int i = 0; i < AdaptiveLinkedSet.INLINE_CAPACITY; i++)
+		{
+			set.add(new ArrayList<>());
+		}
+		assertFalse(set.isInline());
+		assertEquals(set.size(), AdaptiveLinkedSet.INLINE_CAPACITY + 2);
+		element.add("changed again");
+		assertTrue(set.remove(element));
+		assertFalse(set.contains(element));
+		assertEquals(set.size(), AdaptiveLinkedSet.INLINE_CAPACITY + 1);
+	}
+
+	/**
+	 * Test method for {@link AdaptiveLinkedSet} with a changed child at the inline capacity and
+	 * one above, the membership is the same as of a {@link LinkedHashSet} in both modes
+	 */
+	@Test
+	public void testChangedChildAtInlineCapacity()
+	{
+		for (int size : new int[] { AdaptiveLinkedSet.INLINE_CAPACITY,
+				AdaptiveLinkedSet.INLINE_CAPACITY + 1 })
+		{
+			BaseTreeNode<String, Long> parent = BaseTreeNode.<String, Long> builder().id(0L)
+				.value("parent").build();
+			Set<BaseTreeNode<String, Long>> expected = new LinkedHashSet<>();
+			for (long id = 1; id <= size; id++)
+			{
+				BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(id)
+					.value("child " + id).build();
+				parent.addChild(child);
+				expected.add(child);
+			}
+			AdaptiveLinkedSet<?> children = (AdaptiveLinkedSet<?>)parent.getChildren();
+			assertEquals(children.isInline(), size == AdaptiveLinkedSet.INLINE_CAPACITY);
+			BaseTreeNode<String, Long> changed = parent.findById(4L);
+			changed.setValue("changed");
+			assertFalse(expected.contains(changed));
+			assertFalse(children.contains(changed));
+			assertFalse(children.remove(changed));
+			assertEquals(children.size(), size);
+			// the same value restores the membership
+			changed.setValue("child 4");
+			assertTrue(children.contains(changed));
+			assertTrue(expected.contains(changed));
+		}
+	}
+
+	/**
+	 * Test method for {@link AdaptiveLinkedSet#iterator()}
+	 */
+	@Test
+	public void testIteratorRemove()
+	{
+		AdaptiveLinkedSet<String> set = new AdaptiveLinkedSet<>();
+		set.add("a");
+		set.add("b");
+		set.add("c");
+		Iterator<String> iterator = set.iterator();
+		while (iterator.hasNext())
+		{
+			if (iterator.next().equals("b"))
+			{
+				iterator.remove();
+			}
+		}
+		assertEquals(new ArrayList<>(set), List.of("a", "c"));
+	}
+
+	/**
+	 * Test method for {@link AdaptiveLinkedSet} against a {@link LinkedHashSet} with random
+	 * operations
+	 */
+	@Test
+	public void testRandomOperations()
+	{
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++)
+		{
+			AdaptiveLinkedSet<Integer> set = new AdaptiveLinkedSet<>();
+			Set<Integer> expected = new LinkedHashSet<>();
+			for (int i = 0; i < 50; i++)
+			{
+				int element = random.nextInt(12);
+				if (random.nextInt(3) == 0)
+				{
+					assertEquals(set.remove(element), expected.remove(element));
+				}
+				else
+				{
+					assertEquals(set.add(element), expected.add(element));
+				}
+				assertEquals(set.size(), expected.size());
+			}
+			assertEquals(new ArrayList<>(set), new ArrayList<>(expected));
+			assertEquals(set, expected);
+			assertEquals(set.hashCode(), expected.hashCode());
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.collection;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link IdentityLinkedSet}
+ */
+public class IdentityLinkedSetTest
+{
+
+	/**
+	 * Test method for {@link IdentityLinkedSet#add(Object)} and
+	 * {@link IdentityLinkedSet#remove(Object)}
+	 */
+	@Test
+	public void testAddAndRemove()
+	{
+		IdentityLinkedSet<String> set = new IdentityLinkedSet<>();
+		String first = new String("a");
+		String second = new String("a");
+		assertTrue(set.isEmpty());
+		assertTrue(set.add(first));
+		assertTrue(set.add(null));
+		assertTrue(set.add(second));
+		assertFalse(set.add(first));
+		assertEquals(set.size(), 3);
+		assertTrue(set.contains(null));
+		assertFalse(set.contains(new String("a")));
+		assertEquals(new ArrayList<>(set), Arrays.asList(first, null, second));
+		assertTrue(set.remove(first));
+		assertFalse(set.remove(new String("a")));
+		assertEquals(set.size(), 2);
+		assertTrue(set.iterator().next() == null);
+		set.clear();
+		assertTrue(set.isEmpty());
+	}
+
+	/**
+	 * Test method for {@link IdentityLinkedSet#iterator()}
+	 */
+	@Test
+	public void testIteratorRemove()
+	{
+		IdentityLinkedSet<Integer> set = new IdentityLinkedSet<>(2);
+		for (int i = 0; i < 100; i++)
+		{
+			set.add(i);
+		}
+		Iterator<Integer> iterator = set.iterator();
+		while (iterator.hasNext())
+		{
+			if (iterator.next() % 3 != 0)
+			{
+				iterator.remove();
+			}
+		}
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i += 3)
+		{
+			expected.add(i);
+		}
+		assertEquals(new ArrayList<>(set), expected);
+	}
+
+	/**
+	 * Test method for {@link IdentityLinkedSet} against a {@link LinkedHashSet} with random
+	 * operations on objects that are only equal to themselves
+	 */
+	@Test
+	public void testRandomOperations()
+	{
+		Object[] pool = new Object[300];
+		for (int i = 0; i < pool.length; i++)
+		{
+			pool[i] = new Object();
+		}
+		Random random = new Random(42);
+		IdentityLinkedSet<Object> set = new IdentityLinkedSet<>();
+		Set<Object> expected = new LinkedHashSet<>();
+		for (int i = 0; i < 50000; i++)
+		{
+			Object element = pool[random.nextInt(pool.length)];
+			if (random.nextInt(3) == 0)
+			{
+				assertEquals(set.remove(element), expected.remove(element));
+			}
+			else
+			{
+				assertEquals(set.add(element), expected.add(element));
+			}
+			assertEquals(set.size(), expected.size());
+		}
+		assertEquals(new ArrayList<>(set), new ArrayList<>(expected));
+		assertEquals(set, expected);
+	}
+
+	/**
+	 * Test method for the serialization of {@link IdentityLinkedSet}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws ClassNotFoundException
+	 *             if the class of an element can not be found
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSerialization() throws IOException, ClassNotFoundException
+	{
+		IdentityLinkedSet<List<String>> set = new IdentityLinkedSet<>();
+		List<String> shared = new ArrayList<>(List.of("a"));
+		set.add(shared);
+		set.add(new ArrayList<>(List.of("a")));
+		set.add(new ArrayList<>(List.of("b")));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(set);
+		}
+		IdentityLinkedSet<List<String>> read;
+		try (ObjectInputStream in = new ObjectInputStream(
+			new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			read = (IdentityLinkedSet<List<String>>)in.readObject();
+		}
+		assertEquals(read.size(), 3);
+		assertEquals(new ArrayList<>(read), new ArrayList<>(set));
+		List<String> first = read.iterator().next();
+		assertTrue(read.contains(first));
+		assertTrue(read.remove(first));
+		assertEquals(read.size(), 2);
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.collection;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link LongIdMap}
+ */
+public class LongIdMapTest
+{
+
+	/**
+	 * Test method for {@link LongIdMap#put(long, Object)} and {@link LongIdMap#get(long)}
+	 */
+	@Test
+	public void testPutAndGet()
+	{
+		LongIdMap<String> longIdMap = new LongIdMap<>();
+		assertTrue(longIdMap.isEmpty());
+		assertNull(longIdMap.put(0L, "zero"));
+		assertNull(longIdMap.put(1L, "one"));
+		assertNull(longIdMap.put(-1L, "minus one"));
+		assertEquals(longIdMap.put(1L, "ONE"), "one");
+		assertEquals(longIdMap.size(), 3);
+		assertEquals(longIdMap.get(0L), "zero");
+		assertEquals(longIdMap.get(1L), "ONE");
+		assertEquals(longIdMap.get(-1L), "minus one");
+		assertNull(longIdMap.get(2L));
+		assertTrue(longIdMap.containsKey(0L));
+		assertFalse(longIdMap.containsKey(2L));
+		assertEquals(longIdMap.putIfAbsent(0L, "null"), "zero");
+	}
+
+	/**
+	 * Test method for {@link LongIdMap#remove(long)}
+	 */
+	@Test
+	public void testRemove()
+	{
+		LongIdMap<String> longIdMap = new LongIdMap<>(2);
+		for (long key = 0; key < 100; key++)
+		{
+			longIdMap.put(key, "value" + key);
+		}
+		assertEquals(longIdMap.size(), 100);
+		for (long key = 0; key < 100; key += 2)
+		{
+			assertEquals(longIdMap.remove(key), "value" + key);
+		}
+		assertNull(longIdMap.remove(0L));
+		assertEquals(longIdMap.size(), 50);
+		for (long key = 0; key < 100; key++)
+		{
+			assertEquals(longIdMap.containsKey(key), key % 2 == 1);
+		}
+		longIdMap.clear();
+		assertTrue(longIdMap.isEmpty());
+	}
+
+	/**
+	 * Test method for {@link LongIdMap} against a {@link HashMap} with random operations
+	 */
+	@Test
+	public void testRandomOperations()
+	{
+		LongIdMap<Long> longIdMap = new LongIdMap<>();
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 50000; i++)
+		{
+			long key = random.nextInt(2000) - 1000;
+			if (random.nextBoolean())
+			{
+				assertEquals(longIdMap.put(key, key * 2), expected.put(key, key * 2));
+			}
+			else
+			{
+				assertEquals(longIdMap.remove(key), expected.remove(key));
+			}
+		}
+		assertEquals(longIdMap.size(), expected.size());
+		expected.forEach((key, value) -> assertEquals(longIdMap.get(key), value));
+		long[] keys = longIdMap.keys();
+		Arrays.sort(keys);
+		assertEquals(keys,
+			expected.keySet().stream().mapToLong(Long::longValue).sorted().toArray());
+	}
+
+	/**
+	 * Test method for {@link LongIdMap#equals(Object)} and {@link LongIdMap#hashCode()}
+	 */
+	@Test
+	public void testEqualsAndHashCode()
+	{
+		LongIdMap<String> first = new LongIdMap<>();
+		LongIdMap<String> second = new LongIdMap<>(1000);
+		first.put(0L, "a");
+		first.put(7L, "b");
+		second.put(7L, "b");
+		second.put(0L, "a");
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		second.put(8L, "c");
+		assertFalse(first.equals(second));
+	}
+}
@@ -0,0 +1,305 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.compact;
+
+import static io.github.astrapi69.gen.tree.BaseTreeNodeTestTree.preOrderIds;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+import io.github.astrapi69.gen.tree.layout.TreeLayoutOrder;
+
+/**
+ * The unit test class for the class {@link CompactTree} and {@link CompactTreeNode}
+ */
+public class CompactTreeTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	CompactTree<String, Long> compactTree;
+
+	/**
+	 * Set up the compact tree for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		testTree = BaseTreeNodeTestTree.newTreeWithDisplayValue();
+		compactTree = CompactTree.of(testTree.getRoot());
+	}
+
+	/**
+	 * Test method for {@link CompactTree#of(BaseTreeNode)} and
+	 * {@link CompactTree#toBaseTreeNode()}
+	 */
+	@Test
+	public void testOfAndToBaseTreeNode()
+	{
+		assertEquals(compactTree.size(), 12);
+		int root = compactTree.getRoot();
+		assertEquals(compactTree.getId(root), Long.valueOf(0L));
+		assertEquals(compactTree.getChildCount(root), 3);
+		BaseTreeNode<String, Long> restored = compactTree.toBaseTreeNode();
+		assertEquals(preOrderIds(restored), preOrderIds(testTree.getRoot()));
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(restored),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		BaseTreeNode<String, Long> thirdChild = restored.findById(9L);
+		assertEquals(thirdChild.getDisplayValue(), "third");
+		assertEquals(thirdChild.getValue(), testTree.getThirdChild().getValue());
+		assertTrue(restored.findById(11L).isLeaf());
+		assertNull(restored.findById(8L).getValue());
+	}
+
+	/**
+	 * Test method for {@link CompactTree#append(int, Object, Object)} and
+	 * {@link CompactTree#delete(int)}
+	 */
+	@Test
+	public void testAppendAndDelete()
+	{
+		CompactTree<String, Long> tree = new CompactTree<>(2);
+		assertTrue(tree.isEmpty());
+		int root = tree.addRoot(0L, "root");
+		int first = tree.append(root, 1L, "first");
+		int second = tree.append(root, 2L, "second");
+		int third = tree.append(root, 3L, "third");
+		int grandChild = tree.append(second, 4L, "grand child");
+		assertEquals(tree.size(), 5);
+		assertEquals(tree.getFirstChild(root), first);
+		assertEquals(tree.getLastChild(root), third);
+		assertEquals(tree.getNextSibling(first), second);
+		assertEquals(tree.getPreviousSibling(third), second);
+		assertEquals(tree.getPreviousSibling(first), CompactTree.NO_NODE);
+		tree.setLeaf(third, true);
+
+		assertEquals(tree.delete(second), 2);
+		assertEquals(tree.size(), 3);
+		assertFalse(tree.contains(second));
+		assertFalse(tree.contains(grandChild));
+		assertEquals(tree.getNextSibling(first), third);
+		// the freed slots are reused
+		int reused = tree.append(first, 6L, "reused");
+		assertTrue(reused == second || reused == grandChild);
+		assertEquals(tree.getParent(reused), first);
+		assertEquals(tree.getValue(reused), "reused");
+		assertNull(tree.getDisplayValue(reused));
+		assertFalse(tree.isLeaf(reused));
+	}
+
+	/**
+	 * Test method for {@link CompactTree#relayout(TreeLayoutOrder)}
+	 */
+	@Test
+	public void testRelayout()
+	{
+		compactTree.delete(compactTree.getFirstChild(compactTree.getRoot()));
+		compactTree.append(compactTree.getRoot(), 12L, "appended");
+		CompactTree<String, Long> relayouted = compactTree.relayout(TreeLayoutOrder.BREADTH_FIRST);
+		assertEquals(relayouted.size(), compactTree.size());
+		assertEquals(relayouted.getRoot(), 0);
+		// the indexes follow the level order
+		assertEquals(relayouted.getId(1), Long.valueOf(2L));
+		assertEquals(relayouted.getId(2), Long.valueOf(9L));
+		assertEquals(relayouted.getId(3), Long.valueOf(12L));
+		assertEquals(relayouted.getFirstChild(1), 4);
+		assertEquals(relayouted.getDisplayValue(2), "third");
+		BaseTreeNode<String, Long> restored = compactTree.toBaseTreeNode();
+		assertEquals(preOrderIds(relayouted.toBaseTreeNode()), preOrderIds(restored));
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(relayouted.toBaseTreeNode()),
+			BaseTreeNodeTransformer.toKeyMap(restored));
+		assertTrue(new CompactTree<String, Long>().relayout(TreeLayoutOrder.DEPTH_FIRST)
+			.isEmpty());
+	}
+
+	/**
+	 * Test method for {@link CompactTree#move(int, int)}
+	 */
+	@Test
+	public void testMove()
+	{
+		CompactTreeNode<String, Long> root = compactTree.getRootNode();
+		CompactTreeNode<String, Long> secondChild = root.getChildAt(1).get();
+		CompactTreeNode<String, Long> thirdChild = root.getChildAt(2).get();
+		CompactTreeNode<String, Long> firstGrandChild = secondChild.getChildAt(0).get();
+		// a node can not be moved into its own subtree
+		assertFalse(secondChild.move(firstGrandChild));
+		assertFalse(secondChild.move(secondChild));
+		assertTrue(firstGrandChild.move(thirdChild));
+		assertEquals(firstGrandChild.getParent(), thirdChild);
+		assertEquals(thirdChild.getChildIndex(firstGrandChild), 2);
+		assertEquals(secondChild.getChildCount(), 2);
+		assertEquals(firstGrandChild.getLevel(), 2);
+		assertEquals(compactTree.size(), 12);
+		testTree.getFirstGrandChild().move(testTree.getThirdChild());
+		assertEquals(preOrderIds(compactTree.toBaseTreeNode()), preOrderIds(testTree.getRoot()));
+	}
+
+	/**
+	 * Test method for the read and write methods of {@link CompactTreeNode}
+	 */
+	@Test
+	public void testCompactTreeNode()
+	{
+		CompactTreeNode<String, Long> root = compactTree.getRootNode();
+		assertTrue(root.isRoot());
+		assertNull(root.getParent());
+		assertEquals(root.getChildren().stream().map(CompactTreeNode::getId)
+			.collect(Collectors.toList()), List.of(1L, 2L, 9L));
+		CompactTreeNode<String, Long> firstChild = root.getChildAt(0).get();
+		assertEquals(firstChild, compactTree.getNode(firstChild.getIndex()));
+		assertEquals(firstChild.getNextSibling().getId(), Long.valueOf(2L));
+		assertFalse(firstChild.hasPreviousSibling());
+		assertFalse(root.getChildAt(3).isPresent());
+		firstChild.setValue("changed");
+		firstChild.setDisplayValue("display");
+		assertEquals(compactTree.getValue(firstChild.getIndex()), "changed");
+		assertEquals(compactTree.getDisplayValue(firstChild.getIndex()), "display");
+		CompactTreeNode<String, Long> thirdChild = root.getChildAt(2).get();
+		thirdChild.removeChildren();
+		assertFalse(thirdChild.hasChildren());
+		assertEquals(compactTree.size(), 10);
+		root.removeChild(thirdChild);
+		assertEquals(compactTree.size(), 9);
+		assertEquals(root.getChildCount(), 2);
+	}
+
+	/**
+	 * Test method for a {@link CompactTreeNode} of a deleted node whose slot is reused
+	 */
+	@Test
+	public void testStaleCompactTreeNode()
+	{
+		CompactTreeNode<String, Long> root = compactTree.getRootNode();
+		CompactTreeNode<String, Long> firstChild = root.getChildAt(0).get();
+		int index = firstChild.getIndex();
+		root.removeChild(firstChild);
+		int reused = compactTree.append(compactTree.getRoot(), 20L, "reused");
+		assertEquals(reused, index);
+		CompactTreeNode<String, Long> reusedNode = compactTree.getNode(reused);
+		assertTrue(reusedNode.isValid());
+		assertFalse(firstChild.isValid());
+		assertNotEquals(firstChild, reusedNode);
+		assertEquals(root.getChildIndex(firstChild), -1);
+		assertEquals(root.getChildIndex(reusedNode), 2);
+		// removing the stale handle does not delete the new node of the slot
+		root.removeChild(firstChild);
+		assertEquals(compactTree.getValue(reused), "reused");
+		try
+		{
+			firstChild.getValue();
+			fail("A stale handle must not reach the new node of its slot");
+		}
+		catch (IllegalStateException expected)
+		{
+			assertEquals(compactTree.size(), 12);
+		}
+	}
+
+	/**
+	 * Test method for {@link CompactTree#append(int, Object, Object)} with a leaf as parent
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testAppendToLeaf()
+	{
+		int fifthGrandChild = compactTree.getLastChild(compactTree.getLastChild(compactTree
+			.getRoot()));
+		compactTree.append(fifthGrandChild, 42L, "leaf");
+	}
+
+	/**
+	 * Test method for {@link CompactTreeNode#addChild(CompactTreeNode)}
+	 */
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testAddChildOfCompactTreeNode()
+	{
+		CompactTreeNode<String, Long> root = compactTree.getRootNode();
+		root.addChild(root.getChildAt(0).get());
+	}
+
+	/**
+	 * Test method for {@link CompactTree} with a deep chain of nodes
+	 */
+	@Test
+	public void testDeepTree()
+	{
+		CompactTree<String, Long> tree = new CompactTree<>();
+		int current = tree.addRoot(0L, "0");
+		for (long id = 1; id < 100000; id++)
+		{
+			current = tree.append(current, id, String.valueOf(id));
+		}
+		assertEquals(tree.size(), 100000);
+		BaseTreeNode<String, Long> root = tree.toBaseTreeNode();
+		CompactTree<String, Long> copy = CompactTree.of(root);
+		assertEquals(copy.size(), 100000);
+		assertEquals(tree.getNode(current).getLevel(), 99999);
+		assertEquals(tree.delete(tree.getRoot()), 100000);
+		assertTrue(tree.isEmpty());
+		assertEquals(tree.getRoot(), CompactTree.NO_NODE);
+	}
+
+	/**
+	 * Test method for {@link CompactTree#delete(int)} with the root
+	 */
+	@Test
+	public void testDeleteRoot()
+	{
+		CompactTreeNode<String, Long> rootNode = compactTree.getRootNode();
+		assertEquals(compactTree.delete(compactTree.getRoot()), 12);
+		assertTrue(compactTree.isEmpty());
+		assertEquals(compactTree.getRoot(), CompactTree.NO_NODE);
+		assertNull(compactTree.getRootNode());
+		assertFalse(rootNode.isValid());
+		// a new root can be added to the emptied tree
+		int root = compactTree.addRoot(30L, "new root");
+		assertEquals(compactTree.size(), 1);
+		assertEquals(compactTree.getValue(root), "new root");
+		assertFalse(rootNode.isValid());
+	}
+
+	/**
+	 * Test method for {@link CompactTree#delete(int)} with a deleted node
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testDeleteDeletedNode()
+	{
+		int firstChild = compactTree.getFirstChild(compactTree.getRoot());
+		compactTree.delete(firstChild);
+		compactTree.delete(firstChild);
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.intern.TreeValueInterner;
+
+/**
+ * The unit test class for the class {@link BaseTreeNodeBulkLoader}
+ */
+public class BaseTreeNodeBulkLoaderTest
+{
+
+	/**
+	 * Test method for {@link BaseTreeNodeBulkLoader#addAll(java.util.stream.Stream)} with shuffled
+	 * records
+	 */
+	@Test
+	public void testAddAllShuffled()
+	{
+		BaseTreeNodeTestTree testTree = new BaseTreeNodeTestTree();
+		Map<Long, TreeIdNode<String, Long>> expected = BaseTreeNodeTransformer
+			.toKeyMap(testTree.getRoot());
+		List<TreeIdNode<String, Long>> records = new ArrayList<>(expected.values());
+		Collections.shuffle(records, new Random(7));
+
+		BaseTreeNodeBulkLoader<String, Long> loader = new BaseTreeNodeBulkLoader<>();
+		loader.addAll(records.stream());
+		assertEquals(loader.getPendingCount(), 0);
+		assertTrue(loader.getUnresolved().isEmpty());
+		assertEquals(loader.getRoots().size(), 1);
+		BaseTreeNode<String, Long> root = loader.getRoot();
+		assertEquals(root.getId(), Long.valueOf(0L));
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(root), expected);
+		assertEquals(loader.getNodes().size(), expected.size());
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBulkLoader} with a {@link TreeValueInterner}
+	 */
+	@Test
+	public void testInterner()
+	{
+		TreeValueInterner<String> interner = new TreeValueInterner<>();
+		BaseTreeNodeBulkLoader<String, Long> loader = new BaseTreeNodeBulkLoader<>(interner);
+		loader.add(0L, null, new String("root"));
+		for (long id = 1; id < 100; id++)
+		{
+			loader.add(id, 0L, new String("category"));
+		}
+		BaseTreeNode<String, Long> first = loader.getNodes().get(1L);
+		BaseTreeNode<String, Long> last = loader.getNodes().get(99L);
+		assertSame(first.getValue(), last.getValue());
+		assertEquals(interner.getValueInterner().size(), 2);
+		assertEquals(interner.getValueInterner().getDedupCount(), 98L);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBulkLoader#add(Object, Object, Object)} with children
+	 * that arrive before their parent
+	 */
+	@Test
+	public void testAddChildrenBeforeParent()
+	{
+		BaseTreeNodeBulkLoader<String, Long> loader = new BaseTreeNodeBulkLoader<>();
+		loader.add(3L, 2L, "grand child").add(2L, 1L, "child");
+		assertEquals(loader.getPendingCount(), 1);
+		assertNull(loader.getRoot());
+		loader.add(1L, null, "root");
+		assertEquals(loader.getPendingCount(), 0);
+		BaseTreeNode<String, Long> root = loader.getRoot();
+		assertEquals(root.getValue(), "root");
+		BaseTreeNode<String, Long> grandChild = loader.getNodes().get(3L);
+		assertSame(grandChild.getRoot(), root);
+		assertEquals(grandChild.getParent().getValue(), "child");
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeBulkLoader#getUnresolved()}
+	 */
+	@Test
+	public void testGetUnresolved()
+	{
+		BaseTreeNodeBulkLoader<String, Long> loader = new BaseTreeNodeBulkLoader<>();
+		loader.add(1L, null, "root");
+		// parent never arrives
+		loader.add(2L, 42L, "orphan");
+		loader.add(3L, 2L, "child of orphan");
+		// duplicate id
+		loader.add(1L, null, "duplicate");
+		// cycle between 4 and 5
+		loader.add(4L, 5L, "first in cycle");
+		loader.add(5L, 4L, "second in cycle");
+
+		List<TreeIdNode<String, Long>> unresolved = loader.getUnresolved();
+		assertEquals(unresolved.size(), 3);
+		assertEquals(unresolved.get(0).getId(), Long.valueOf(2L));
+		assertEquals(unresolved.get(0).getParentId(), Long.valueOf(42L));
+		assertTrue(unresolved.get(0).getChildrenIds().contains(3L));
+		assertEquals(unresolved.get(1).getValue(), "duplicate");
+		assertEquals(unresolved.get(2).getId(), Long.valueOf(5L));
+		assertEquals(loader.getPendingCount(), 1);
+		assertEquals(loader.getNodes().get(1L).getValue(), "root");
+		// the node of the rejected cycle record keeps its subtree
+		assertEquals(loader.getRoots().size(), 2);
+		assertSame(loader.getNodes().get(4L).getParent(), loader.getNodes().get(5L));
+	}
+}
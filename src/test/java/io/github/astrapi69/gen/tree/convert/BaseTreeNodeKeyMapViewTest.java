@@ -0,0 +1,169 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.convert;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.collection.set.SetFactory;
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+
+/**
+ * The unit test class for the class {@link BaseTreeNodeKeyMapView}
+ */
+public class BaseTreeNodeKeyMapViewTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	BaseTreeNodeKeyMapView<String, Long> keyMapView;
+
+	/**
+	 * Set up the tree structure and the view for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		testTree = new BaseTreeNodeTestTree();
+		keyMapView = new BaseTreeNodeKeyMapView<>(testTree.getRoot());
+	}
+
+	/**
+	 * Asserts that the view is equal to a new transformed key map
+	 */
+	private void assertInSync()
+	{
+		assertEquals(keyMapView.getKeyMap(),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeKeyMapView#onChildAdded(BaseTreeNode, BaseTreeNode)}
+	 */
+	@Test
+	public void testAddChild()
+	{
+		assertInSync();
+		assertTrue(keyMapView.drainChangedKeys().isEmpty());
+		BaseTreeNode<String, Long> newChild = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("I'm new").build();
+		BaseTreeNode<String, Long> newGrandChild = BaseTreeNode.<String, Long> builder().id(101L)
+			.value("I'm new too").build();
+		newChild.addChild(newGrandChild);
+		testTree.getFirstChild().addChild(newChild);
+		assertInSync();
+		Set<Long> changedKeys = keyMapView.drainChangedKeys();
+		assertEquals(changedKeys, SetFactory.newLinkedHashSet(100L, 101L, 1L));
+		assertTrue(keyMapView.drainChangedKeys().isEmpty());
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeKeyMapView#onChildRemoved(BaseTreeNode, BaseTreeNode)}
+	 */
+	@Test
+	public void testRemoveChild()
+	{
+		testTree.getSecondChild().removeChild(testTree.getFirstGrandChild());
+		assertInSync();
+		assertEquals(keyMapView.drainChangedKeys(),
+			SetFactory.newLinkedHashSet(3L, 5L, 6L, 4L, 2L));
+		testTree.getThirdChild().clearChildren();
+		assertInSync();
+		assertEquals(keyMapView.drainChangedKeys(), SetFactory.newLinkedHashSet(10L, 9L, 11L));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeKeyMapView#onMoved(BaseTreeNode, BaseTreeNode, BaseTreeNode)}
+	 */
+	@Test
+	public void testMove()
+	{
+		assertTrue(testTree.getFirstGrandChild().move(testTree.getFirstChild()));
+		assertInSync();
+		// only the node, its old parent and its new parent are changed
+		assertEquals(keyMapView.drainChangedKeys(), SetFactory.newLinkedHashSet(2L, 3L, 1L));
+		// a move into a leaf is rejected
+		assertFalse(testTree.getFirstChild().move(testTree.getFifthGrandChild()));
+		assertTrue(keyMapView.drainChangedKeys().isEmpty());
+		// a move out of the tree removes the subtree
+		assertTrue(testTree.getFirstGrandChild().move(null));
+		assertInSync();
+		assertEquals(keyMapView.drainChangedKeys(), SetFactory.newLinkedHashSet(1L, 3L, 5L, 6L, 4L));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeKeyMapView#onMoved(BaseTreeNode, BaseTreeNode, BaseTreeNode)}
+	 * with the observed root that is attached to another tree
+	 */
+	@Test
+	public void testMoveObservedRootIntoAnotherTree()
+	{
+		BaseTreeNode<String, Long> otherRoot = BaseTreeNode.<String, Long> builder().id(100L)
+			.value("other root").build();
+		assertTrue(testTree.getRoot().move(otherRoot));
+		// the view removes all entries and closes itself
+		assertTrue(keyMapView.getKeyMap().isEmpty());
+		assertEquals(keyMapView.drainChangedKeys().size(), 12);
+		testTree.getSecondChild().setValue("I'm changed");
+		assertTrue(keyMapView.drainChangedKeys().isEmpty());
+		assertTrue(keyMapView.getKeyMap().isEmpty());
+	}
+
+	/**
+	 * Test method for the value, display value, leaf and id changes
+	 */
+	@Test
+	public void testChangeFields()
+	{
+		testTree.getSecondChild().setValue("I'm changed");
+		testTree.getThirdChild().setDisplayValue("third");
+		testTree.getFirstChild().setLeaf(true);
+		assertInSync();
+		assertEquals(keyMapView.drainChangedKeys(), SetFactory.newLinkedHashSet(2L, 9L, 1L));
+		testTree.getSecondChild().setId(42L);
+		assertInSync();
+		assertEquals(keyMapView.drainChangedKeys(),
+			SetFactory.newLinkedHashSet(2L, 42L, 0L, 3L, 7L, 8L));
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeKeyMapView#close()}
+	 */
+	@Test
+	public void testClose()
+	{
+		keyMapView.close();
+		testTree.getSecondChild().setValue("I'm changed");
+		assertTrue(keyMapView.drainChangedKeys().isEmpty());
+		assertEquals(keyMapView.getKeyMap().get(2L).getValue(), "I'm the second child");
+	}
+}
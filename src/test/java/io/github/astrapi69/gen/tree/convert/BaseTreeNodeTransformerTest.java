@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.meanbean.test.BeanTester;
 import org.testng.annotations.BeforeMethod;
@@ -38,9 +39,12 @@ import org.testng.annotations.Test;
 
 import io.github.astrapi69.collection.set.SetFactory;
 import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.LongTreeIdNode;
 import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.collection.LongIdMap;
 import io.github.astrapi69.gen.tree.element.GenericTreeElement;
 import io.github.astrapi69.gen.tree.element.MysticCryptEntryModelBean;
+import io.github.astrapi69.gen.tree.handler.TreeNodeVisitorHandlerExtensions;
 import io.github.astrapi69.id.generate.LongIdGenerator;
 
 /**
@@ -153,6 +157,178 @@ public class BaseTreeNodeTransformerTest
 		assertEquals(actual.size(), 12);
 	}
 
+	/**
+	 * Test method for {@link BaseTreeNodeTransformer#toKeyMapParallel(BaseTreeNode, boolean)}
+	 */
+	@Test
+	public void testToKeyMapParallel()
+	{
+		Map<Long, TreeIdNode<String, Long>> actual;
+		Map<Long, TreeIdNode<String, Long>> expected;
+
+		expected = BaseTreeNodeTransformer.toKeyMap(root);
+		actual = BaseTreeNodeTransformer.toKeyMapParallel(root, true);
+		assertEquals(actual, expected);
+		assertEquals(new ArrayList<>(actual.keySet()), toIdsInDocumentOrder(root));
+
+		actual = BaseTreeNodeTransformer.toKeyMapParallel(root, false);
+		assertEquals(actual, expected);
+	}
+
+	/**
+	 * Test method for
+	 * {@link BaseTreeNodeTransformer#toKeyMapParallel(BaseTreeNode, boolean, ForkJoinPool)} with a
+	 * large tree
+	 */
+	@Test
+	public void testToKeyMapParallelWithLargeTree()
+	{
+		Map<Long, TreeIdNode<String, Long>> actual;
+		Map<Long, TreeIdNode<String, Long>> expected;
+		BaseTreeNode<String, Long> largeRoot = newLargeTree(20000);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			expected = BaseTreeNodeTransformer.toKeyMap(largeRoot);
+			actual = BaseTreeNodeTransformer.toKeyMapParallel(largeRoot, true, pool);
+			assertEquals(actual.size(), 20000);
+			assertEquals(actual, expected);
+			assertEquals(new ArrayList<>(actual.keySet()), toIdsInDocumentOrder(largeRoot));
+
+			actual = BaseTreeNodeTransformer.toKeyMapParallel(largeRoot, false, pool);
+			assertEquals(actual, expected);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link BaseTreeNodeTransformer#toKeyMapParallel(BaseTreeNode, boolean, ForkJoinPool)} with a
+	 * shallow and wide tree
+	 */
+	@Test
+	public void testToKeyMapParallelWithWideTree()
+	{
+		BaseTreeNode<String, Long> wideRoot = BaseTreeNode.<String, Long> builder().id(0L)
+			.value("root").build();
+		for (long id = 1; id < 30000; id++)
+		{
+			wideRoot.addChild(
+				BaseTreeNode.<String, Long> builder().id(id).value("leaf " + id).build());
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			Map<Long, TreeIdNode<String, Long>> actual = BaseTreeNodeTransformer
+				.toKeyMapParallel(wideRoot, true, pool);
+			assertEquals(actual, BaseTreeNodeTransformer.toKeyMap(wideRoot));
+			assertEquals(new ArrayList<>(actual.keySet()), toIdsInDocumentOrder(wideRoot));
+			assertEquals(BaseTreeNodeTransformer.toKeyMapParallel(wideRoot, false, pool).size(),
+				30000);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link BaseTreeNodeTransformer#toKeyBaseTreeNodeMapParallel(BaseTreeNode, boolean)}
+	 */
+	@Test
+	public void testToKeyBaseTreeNodeMapParallel()
+	{
+		Map<Long, BaseTreeNode<String, Long>> actual;
+		Map<Long, BaseTreeNode<String, Long>> expected;
+		BaseTreeNode<String, Long> largeRoot = newLargeTree(5000);
+
+		expected = BaseTreeNodeTransformer.toKeyBaseTreeNodeMap(largeRoot);
+		actual = BaseTreeNodeTransformer.toKeyBaseTreeNodeMapParallel(largeRoot, true);
+		assertEquals(actual, expected);
+		assertEquals(new ArrayList<>(actual.keySet()), toIdsInDocumentOrder(largeRoot));
+
+		actual = BaseTreeNodeTransformer.toKeyBaseTreeNodeMapParallel(largeRoot, false);
+		assertEquals(actual, expected);
+		assertEquals(actual.get(0L), largeRoot);
+	}
+
+	/**
+	 * Test method for
+	 * {@link BaseTreeNodeTransformer#toKeyBaseTreeNodeMapParallel(BaseTreeNode, boolean, ForkJoinPool)}
+	 * with a duplicate id
+	 */
+	@Test
+	public void testToKeyBaseTreeNodeMapParallelWithDuplicateId()
+	{
+		BaseTreeNode<String, Long> wideRoot = BaseTreeNode.<String, Long> builder().id(0L)
+			.value("root").build();
+		for (long id = 1; id < 5000; id++)
+		{
+			wideRoot.addChild(
+				BaseTreeNode.<String, Long> builder().id(id).value("leaf " + id).build());
+		}
+		wideRoot.addChild(BaseTreeNode.<String, Long> builder().id(1L).value("duplicate").build());
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			for (boolean keepDocumentOrder : new boolean[] { true, false })
+			{
+				Map<Long, BaseTreeNode<String, Long>> actual = BaseTreeNodeTransformer
+					.toKeyBaseTreeNodeMapParallel(wideRoot, keepDocumentOrder, pool);
+				assertEquals(actual.size(), 5000);
+				assertEquals(actual.get(1L).getValue(), "leaf 1");
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Collects the ids of the given tree in pre-order
+	 *
+	 * @param treeNode
+	 *            the root of the tree
+	 * @return the ids in pre-order
+	 */
+	private static List<Long> toIdsInDocumentOrder(BaseTreeNode<String, Long> treeNode)
+	{
+		List<Long> ids = new ArrayList<>();
+		TreeNodeVisitorHandlerExtensions.accept(treeNode,
+			currentTreeNode -> ids.add(currentTreeNode.getId()), true);
+		return ids;
+	}
+
+	/**
+	 * Creates a tree with the given number of nodes where every node has up to four children
+	 *
+	 * @param size
+	 *            the number of nodes
+	 * @return the root of the new tree
+	 */
+	private static BaseTreeNode<String, Long> newLargeTree(int size)
+	{
+		LongIdGenerator idGenerator = LongIdGenerator.of(0L);
+		List<BaseTreeNode<String, Long>> nodes = new ArrayList<>();
+		for (int i = 0; i < size; i++)
+		{
+			Long id = idGenerator.getNextId();
+			BaseTreeNode<String, Long> node = BaseTreeNode.<String, Long> builder().id(id)
+				.value("node " + id).build();
+			if (!nodes.isEmpty())
+			{
+				nodes.get((i - 1) / 4).addChild(node);
+			}
+			nodes.add(node);
+		}
+		return nodes.get(0);
+	}
+
 	/**
 	 * Test method for {@link BaseTreeNodeTransformer#toKeyMap(BaseTreeNode)}
 	 */
@@ -240,6 +416,104 @@ public class BaseTreeNodeTransformerTest
 		assertEquals(convert, longBaseTreeNodeMap);
 	}
 
+	/**
+	 * Test method for {@link BaseTreeNodeTransformer#toLongKeyMap(BaseTreeNode)} and
+	 * {@link BaseTreeNodeTransformer#transform(LongIdMap)}
+	 */
+	@Test
+	public void testToLongKeyMapAndTransform()
+	{
+		LongIdMap<LongTreeIdNode<String>> longKeyMap;
+		LongTreeIdNode<String> actual;
+		LongTreeIdNode<String> expected;
+
+		longKeyMap = BaseTreeNodeTransformer.toLongKeyMap(root);
+		assertEquals(longKeyMap.size(), 12);
+		actual = longKeyMap.get(0L);
+		expected = LongTreeIdNode.<String> builder().id(0L).childrenIds(new long[] { 1L, 2L, 9L })
+			.value("I'm root").build();
+		assertEquals(actual, expected);
+		actual = longKeyMap.get(6L);
+		assertEquals(actual.getParentId(), 5L);
+
+		LongIdMap<BaseTreeNode<String, Long>> transformed = BaseTreeNodeTransformer
+			.transform(longKeyMap);
+		assertEquals(transformed.size(), 12);
+		Map<Long, BaseTreeNode<String, Long>> expectedMap = BaseTreeNodeTransformer
+			.toKeyBaseTreeNodeMap(root);
+		expectedMap.forEach((id, node) -> assertEquals(transformed.get(id), node));
+		assertEquals(transformed.get(2L).getParent(), root);
+		assertEquals(new ArrayList<>(transformed.get(2L).getChildren()),
+			new ArrayList<>(secondChild.getChildren()));
+
+		assertEquals(BaseTreeNodeTransformer.getRoot(longKeyMap), root);
+		assertEquals(BaseTreeNodeTransformer.getRoot(new LongIdMap<LongTreeIdNode<String>>()),
+			null);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeTransformer#toLongKeyMap(BaseTreeNode)} with nodes of
+	 * the same id
+	 */
+	@Test
+	public void testToLongKeyMapWithDuplicateIds()
+	{
+		BaseTreeNode<String, Long> parent = BaseTreeNode.<String, Long> builder().id(0L).build();
+		BaseTreeNode<String, Long> first = BaseTreeNode.<String, Long> builder().id(1L).build();
+		BaseTreeNode<String, Long> second = BaseTreeNode.<String, Long> builder().id(2L).build();
+		parent.addChild(first);
+		parent.addChild(second);
+		first.addChild(BaseTreeNode.<String, Long> builder().id(3L).value("first").build());
+		second.addChild(BaseTreeNode.<String, Long> builder().id(3L).value("second").build());
+		second.addChild(BaseTreeNode.<String, Long> builder().id(4L).value("fourth").build());
+		second.addChild(BaseTreeNode.<String, Long> builder().id(4L).value("other").build());
+
+		LongIdMap<LongTreeIdNode<String>> longKeyMap = BaseTreeNodeTransformer
+			.toLongKeyMap(parent);
+		// the first node in pre-order is kept
+		assertEquals(longKeyMap.get(3L).getValue(), "first");
+		assertEquals(longKeyMap.get(3L).getParentId(), 1L);
+		// the duplicate child ids are kept only once
+		assertEquals(longKeyMap.get(2L).getChildrenIds(), new long[] { 3L, 4L });
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeTransformer#toLongTreeIdNode(BaseTreeNode)} with a child
+	 * without id
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testToLongTreeIdNodeWithoutChildId()
+	{
+		BaseTreeNode<String, Long> parent = BaseTreeNode.<String, Long> builder().id(0L).build();
+		parent.addChild(BaseTreeNode.<String, Long> builder().value("no id").build());
+		BaseTreeNodeTransformer.toLongTreeIdNode(parent);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeTransformer#toLongTreeIdNode(BaseTreeNode)} with the
+	 * reserved id {@link LongTreeIdNode#NO_ID}
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testToLongTreeIdNodeWithNoId()
+	{
+		BaseTreeNode<String, Long> parent = BaseTreeNode.<String, Long> builder().id(0L).build();
+		parent.addChild(
+			BaseTreeNode.<String, Long> builder().id(LongTreeIdNode.NO_ID).value("no id").build());
+		BaseTreeNodeTransformer.toLongTreeIdNode(parent);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNodeTransformer#transform(LongIdMap)} with a child id that
+	 * belongs to no node
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testTransformLongIdMapWithDanglingChildId()
+	{
+		LongIdMap<LongTreeIdNode<String>> longKeyMap = BaseTreeNodeTransformer.toLongKeyMap(root);
+		longKeyMap.get(root.getId()).addChildId(100L);
+		BaseTreeNodeTransformer.transform(longKeyMap);
+	}
+
 	/**
 	 * Test method for {@link BaseTreeNodeTransformer}
 	 */
@@ -0,0 +1,153 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.delta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.codec.BaseTreeNodeBinaryCodec;
+import io.github.astrapi69.gen.tree.codec.ValueCodecs;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the classes {@link TreeDeltaCodec} and {@link TreeDirtyTracker}
+ */
+public class TreeDeltaCodecTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	TreeDeltaCodec<String, Long> deltaCodec;
+
+	Path directory;
+
+	/**
+	 * Set up the snapshot directory for the unit tests
+	 */
+	@BeforeMethod
+	public void setup() throws IOException
+	{
+		testTree = new BaseTreeNodeTestTree();
+		deltaCodec = new TreeDeltaCodec<>(
+			new BaseTreeNodeBinaryCodec<>(ValueCodecs.STRING, ValueCodecs.LONG));
+		directory = Files.createTempDirectory("tree-delta");
+	}
+
+	/**
+	 * Delete the snapshot directory
+	 */
+	@AfterMethod
+	public void tearDown() throws IOException
+	{
+		try (Stream<Path> files = Files.walk(directory))
+		{
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	/**
+	 * Test method for {@link TreeDirtyTracker#drain()}
+	 */
+	@Test
+	public void testDrain()
+	{
+		TreeDirtyTracker<String, Long> tracker = new TreeDirtyTracker<>(testTree.getRoot());
+		assertFalse(tracker.isDirty());
+		testTree.getSecondGrandChild().setValue("changed value");
+		assertTrue(tracker.isDirty());
+		TreeDelta<String, Long> delta = tracker.drain();
+		assertEquals(delta.getUpserts().keySet(), Set.of(7L));
+		assertTrue(delta.getRemovedIds().isEmpty());
+		assertFalse(tracker.isDirty());
+		assertTrue(tracker.drain().isEmpty());
+		// a removed subtree is referenced only by its root
+		testTree.getSecondChild().removeChild(testTree.getFirstGrandChild());
+		delta = tracker.drain();
+		assertEquals(delta.getRemovedIds(), Set.of(3L));
+		assertEquals(delta.getUpserts().keySet(), Set.of(2L));
+		tracker.close();
+		testTree.getSecondGrandChild().setValue("untracked value");
+		assertFalse(tracker.isDirty());
+	}
+
+	/**
+	 * Test method for {@link TreeDeltaCodec#restore(Path, List)}
+	 */
+	@Test
+	public void testRestore() throws IOException
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		TreeDirtyTracker<String, Long> tracker = new TreeDirtyTracker<>(root);
+		Path base = directory.resolve("base.bin");
+		deltaCodec.writeBase(root, base);
+
+		BaseTreeNode<String, Long> newChild = BaseTreeNode.<String, Long> builder().id(20L)
+			.value("new child").build();
+		root.addChild(newChild);
+		newChild.addChild(
+			BaseTreeNode.<String, Long> builder().id(21L).value("new grand child").build());
+		testTree.getFirstGrandChild().move(testTree.getThirdChild());
+		testTree.getSecondGrandChild().setValue("changed value");
+		Path firstDelta = directory.resolve("delta-1.bin");
+		deltaCodec.writeDelta(tracker.drain(), firstDelta);
+
+		testTree.getThirdGrandChild().setDisplayValue("third grand child");
+		testTree.getFourthGrandChild().setLeaf(true);
+		testTree.getFirstChild().setId(30L);
+		testTree.getThirdChild().removeChild(testTree.getFirstGrandChild());
+		testTree.getFifthGrandChild().move(newChild);
+		Path secondDelta = directory.resolve("delta-2.bin");
+		deltaCodec.writeDelta(tracker.drain(), secondDelta);
+
+		BaseTreeNode<String, Long> restored = deltaCodec.restore(base,
+			List.of(firstDelta, secondDelta));
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(restored),
+			BaseTreeNodeTransformer.toKeyMap(root));
+		assertEquals(restored.findById(20L).getChildren().stream().map(BaseTreeNode::getId)
+			.toList(), List.of(21L, 11L));
+		assertNull(restored.findById(3L));
+		// the restore of the base alone gives the initial tree
+		assertEquals(deltaCodec.restore(base, List.of()).findById(3L).getChildren().size(), 2);
+		// the delta contains only the changed nodes
+		assertTrue(Files.size(firstDelta) < Files.size(base));
+		assertEquals(deltaCodec.readDelta(secondDelta).getRemovedIds(), Set.of(3L, 1L));
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link ObjectLayout}
+ */
+public class ObjectLayoutTest
+{
+
+	/**
+	 * Test method for {@link ObjectLayout#sizeOf(Object)} with compressed object pointers
+	 */
+	@Test
+	public void testSizeOf()
+	{
+		ObjectLayout layout = ObjectLayout.COMPRESSED_OOPS;
+		assertEquals(layout.sizeOf(new Object()), 16L);
+		assertEquals(layout.sizeOf(Long.valueOf(42L)), 24L);
+		assertEquals(layout.sizeOf("abc"), 24L);
+		assertEquals(layout.sizeOf(new long[2]), 32L);
+		assertEquals(layout.sizeOf(new Object[3]), 32L);
+		assertEquals(layout.sizeOf(new byte[0]), 16L);
+		assertEquals(ObjectLayout.UNCOMPRESSED_OOPS.sizeOf(new Object[3]), 40L);
+	}
+
+	/**
+	 * Test method for {@link ObjectLayout#align(long)}, {@link ObjectLayout#arrayBytes(Class, int)}
+	 * and {@link ObjectLayout#objectBytes(int, int)}
+	 */
+	@Test
+	public void testEstimations()
+	{
+		ObjectLayout layout = ObjectLayout.COMPRESSED_OOPS;
+		assertEquals(layout.align(0L), 0L);
+		assertEquals(layout.align(1L), 8L);
+		assertEquals(layout.align(16L), 16L);
+		assertEquals(layout.arrayBytes(int.class, 3), 32L);
+		assertEquals(layout.arrayBytes(char.class, 4), 24L);
+		assertEquals(layout.objectBytes(3, 4), 32L);
+		assertEquals(layout.fieldBytes(double.class), 8);
+		assertEquals(layout.fieldBytes(String.class), 4);
+		assertNotNull(ObjectLayout.detect());
+		assertNotNull(ObjectSizer.detect());
+	}
+
+	/**
+	 * Test method for {@link ObjectLayout#ObjectLayout(int, int, int, int)} with an alignment that
+	 * is not a power of two
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidAlignment()
+	{
+		new ObjectLayout(12, 16, 4, 6);
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.footprint;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.SimpleTreeNode;
+import io.github.astrapi69.gen.tree.TreeNode;
+import io.github.astrapi69.gen.tree.api.ITreeNode;
+
+/**
+ * The unit test class for the class {@link TreeFootprintAnalyzer} and {@link TreeFootprint}
+ */
+public class TreeFootprintAnalyzerTest
+{
+
+	ObjectLayout layout;
+
+	TreeFootprintAnalyzer analyzer;
+
+	/**
+	 * Set up the analyzer with a fixed layout for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		layout = ObjectLayout.COMPRESSED_OOPS;
+		analyzer = new TreeFootprintAnalyzer(layout);
+	}
+
+	/**
+	 * Test method for {@link TreeFootprintAnalyzer#analyze(ITreeNode)} with a
+	 * {@link BaseTreeNode} tree
+	 */
+	@Test
+	public void testAnalyzeBaseTreeNode()
+	{
+		BaseTreeNodeTestTree testTree = new BaseTreeNodeTestTree();
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		TreeFootprint footprint = analyzer.analyze(root);
+		assertEquals(footprint.getNodeCount(), 12L);
+		// the analysis creates no children collection, so a second analysis finds the same
+		// children collections
+		assertEquals(
+			analyzer.analyze(root).getObjectCount(TreeFootprintComponent.CHILD_CONTAINERS),
+			footprint.getObjectCount(TreeFootprintComponent.CHILD_CONTAINERS));
+		assertFalse(footprint.isMeasured());
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.NODES), 12L);
+		assertEquals(footprint.getRetainedBytes(TreeFootprintComponent.NODES),
+			12 * layout.instanceBytes(BaseTreeNode.class));
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.IDS), 12L);
+		assertEquals(footprint.getShallowBytes(TreeFootprintComponent.IDS),
+			12 * layout.instanceBytes(Long.class));
+		Set<Object> values = Collections.newSetFromMap(new IdentityHashMap<>());
+		root.traverse().stream().filter(node -> node.getValue() != null)
+			.forEach(node -> values.add(node.getValue()));
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.VALUES), values.size());
+		assertTrue(footprint.getShallowBytes(TreeFootprintComponent.VALUES) < footprint
+			.getRetainedBytes(TreeFootprintComponent.VALUES));
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.DISPLAY_VALUES), 0L);
+		assertTrue(0 < footprint.getRetainedBytes(TreeFootprintComponent.CHILD_CONTAINERS));
+		long total = 0;
+		for (TreeFootprintComponent component : TreeFootprintComponent.values())
+		{
+			total += footprint.getRetainedBytes(component);
+		}
+		assertEquals(footprint.getTotalBytes(), total);
+		assertEquals(footprint.getBytesPerNode(), total / 12.0, 0.0001);
+		assertTrue(footprint.toReport().contains("VALUES"));
+	}
+
+	/**
+	 * Test method for {@link TreeFootprintAnalyzer#analyze(ITreeNode)} with shared values, a
+	 * shared object is retained only once
+	 */
+	@Test
+	public void testSharedValues()
+	{
+		String shared = "shared";
+		TreeNode<String> root = new TreeNode<>(shared);
+		root.setDisplayValue(shared);
+		for (int i = 0; i < 10; i++)
+		{
+			TreeNode<String> child = new TreeNode<>(shared);
+			child.setLeaf(true);
+			root.addChild(child);
+		}
+		TreeFootprint footprint = analyzer.analyze(root);
+		long stringBytes = layout.sizeOf(shared) + layout.arrayBytes(byte.class, 6);
+		assertEquals(footprint.getNodeCount(), 11L);
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.VALUES), 1L);
+		assertEquals(footprint.getRetainedBytes(TreeFootprintComponent.VALUES), stringBytes);
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.DISPLAY_VALUES), 1L);
+		assertEquals(footprint.getShallowBytes(TreeFootprintComponent.DISPLAY_VALUES),
+			layout.sizeOf(shared));
+		assertEquals(footprint.getRetainedBytes(TreeFootprintComponent.DISPLAY_VALUES), 0L);
+		// every tree node has a children list, only the list of the root has elements
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.CHILD_CONTAINERS), 11L);
+		assertEquals(footprint.getRetainedBytes(TreeFootprintComponent.CHILD_CONTAINERS),
+			11 * layout.sizeOf(root.getChildren()) + layout.arrayBytes(Object.class, 10));
+		assertEquals(footprint.getDominantComponent(), TreeFootprintComponent.NODES);
+	}
+
+	/**
+	 * Test method for {@link TreeFootprintAnalyzer#analyze(SimpleTreeNode)}
+	 */
+	@Test
+	public void testAnalyzeSimpleTreeNode()
+	{
+		SimpleTreeNode<String, Long> root = SimpleTreeNode.<String, Long> builder().id(1L)
+			.value("root").build();
+		SimpleTreeNode<String, Long> child = SimpleTreeNode.<String, Long> builder().id(2L)
+			.value("child").parent(root).build();
+		SimpleTreeNode<String, Long> sibling = SimpleTreeNode.<String, Long> builder().id(3L)
+			.value("sibling").parent(root).build();
+		root.setLeftMostChild(child);
+		child.setRightSibling(sibling);
+		TreeFootprint footprint = analyzer.analyze(root);
+		assertEquals(footprint.getNodeCount(), 3L);
+		assertEquals(footprint.getRetainedBytes(TreeFootprintComponent.NODES),
+			3 * layout.instanceBytes(SimpleTreeNode.class));
+		assertEquals(footprint.getObjectCount(TreeFootprintComponent.VALUES), 3L);
+		assertEquals(footprint.getRetainedBytes(TreeFootprintComponent.CHILD_CONTAINERS), 0L);
+		assertEquals(footprint.getRetainedBytes(TreeFootprintComponent.DISPLAY_VALUES), 0L);
+	}
+}
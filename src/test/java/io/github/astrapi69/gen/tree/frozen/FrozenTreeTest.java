@@ -0,0 +1,224 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.frozen;
+
+import static io.github.astrapi69.gen.tree.BaseTreeNodeTestTree.preOrderIds;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.TreeNode;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link FrozenTree} and {@link FrozenTreeNode}
+ */
+public class FrozenTreeTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	FrozenTree<String, Long> frozenTree;
+
+	/**
+	 * Set up the frozen tree for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		testTree = BaseTreeNodeTestTree.newTreeWithDisplayValue();
+		frozenTree = testTree.getRoot().freeze();
+	}
+
+	/**
+	 * Test method for {@link FrozenTree#of(BaseTreeNode)} and the structure of the frozen tree
+	 */
+	@Test
+	public void testStructure()
+	{
+		assertEquals(frozenTree.size(), 12);
+		assertEquals(frozenTree.getNodes().stream().map(FrozenTreeNode::getId)
+			.collect(Collectors.toList()), preOrderIds(testTree.getRoot()));
+		FrozenTreeNode<String, Long> root = frozenTree.getRootNode();
+		assertTrue(root.isRoot());
+		assertNull(root.getParent());
+		assertEquals(root.getChildren().stream().map(FrozenTreeNode::getId)
+			.collect(Collectors.toList()), List.of(1L, 2L, 9L));
+		FrozenTreeNode<String, Long> secondChild = frozenTree.findById(2L);
+		assertSame(secondChild.getParent(), root);
+		assertEquals(secondChild.getLevel(), 1);
+		assertEquals(secondChild.getChildCount(), 3);
+		assertEquals(secondChild.getPreviousSibling().getId(), Long.valueOf(1L));
+		assertEquals(secondChild.getNextSibling().getId(), Long.valueOf(9L));
+		assertFalse(frozenTree.findById(9L).hasNextSibling());
+		assertEquals(frozenTree.findById(9L).getDisplayValue(), "third");
+		assertEquals(root.getChildIndex(frozenTree.findById(9L)), 2);
+		assertEquals(root.getChildAt(1).get(), secondChild);
+		assertFalse(root.getChildAt(3).isPresent());
+		assertEquals(secondChild.traverse().size(),
+			testTree.getSecondChild().traverse().size());
+		assertTrue(secondChild.contains(frozenTree.findById(8L)));
+		assertFalse(secondChild.contains(frozenTree.findById(11L)));
+		assertSame(secondChild.findById(8L), frozenTree.findById(8L));
+		assertNull(secondChild.findById(11L));
+		assertNull(frozenTree.findById(42L));
+		assertEquals(frozenTree.findById(11L).getLevel(), 2);
+		assertTrue(frozenTree.findById(11L).isLeaf());
+		// later changes of the source tree are not visible
+		testTree.getSecondChild().setValue("changed");
+		assertEquals(secondChild.getValue(), "I'm the second child");
+	}
+
+	/**
+	 * Test method for {@link FrozenTree#toBaseTreeNode()}
+	 */
+	@Test
+	public void testToBaseTreeNode()
+	{
+		BaseTreeNode<String, Long> thawed = frozenTree.toBaseTreeNode();
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(thawed),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		assertEquals(preOrderIds(thawed), preOrderIds(testTree.getRoot()));
+		BaseTreeNode<String, Long> subtree = frozenTree.toBaseTreeNode(frozenTree.indexOf(9L));
+		assertTrue(subtree.isRoot());
+		assertEquals(subtree.getChildCount(), 2);
+	}
+
+	/**
+	 * Test method for the methods of {@link FrozenTreeNode} that would change the tree
+	 */
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testImmutable()
+	{
+		frozenTree.getRootNode().setValue("changed");
+	}
+
+	/**
+	 * Test method for {@link TreeNode#freeze()}
+	 */
+	@Test
+	public void testFreezeTreeNode()
+	{
+		TreeNode<String> root = new TreeNode<>("root");
+		TreeNode<String> child = new TreeNode<>("child");
+		root.addChild(child);
+		child.addChild(new TreeNode<>("grand child"));
+		root.addChild(new TreeNode<>("second child"));
+		FrozenTree<String, Integer> frozen = root.freeze();
+		assertEquals(frozen.size(), 4);
+		assertEquals(frozen.findById(2).getValue(), "grand child");
+		assertEquals(frozen.getRootNode().getChildren().size(), 2);
+		assertEquals(frozen.findById(3).getPreviousSibling().getValue(), "child");
+	}
+
+	/**
+	 * Test method for a deep {@link FrozenTree} that is read from many threads
+	 *
+	 * @throws InterruptedException
+	 *             if a thread was interrupted
+	 * @throws ExecutionException
+	 *             if a read task failed
+	 */
+	@Test
+	public void testDeepTreeConcurrentReads() throws InterruptedException, ExecutionException
+	{
+		BaseTreeNode<String, Long> root = BaseTreeNode.<String, Long> builder().id(0L)
+			.value("0").build();
+		BaseTreeNode<String, Long> current = root;
+		for (long id = 1; id < 100000; id++)
+		{
+			BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(id)
+				.value(String.valueOf(id)).build();
+			current.getChildren().add(child);
+			child.setParent(current);
+			current = child;
+		}
+		final FrozenTree<String, Long> deep = root.freeze();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Long>> results = new ArrayList<>();
+			for (int task = 0; task < 8; task++)
+			{
+				results.add(executor.submit(() -> {
+					long sum = 0;
+					for (FrozenTreeNode<String, Long> node : deep.getRootNode().traverse())
+					{
+						sum += node.getLevel();
+					}
+					return sum;
+				}));
+			}
+			for (Future<Long> result : results)
+			{
+				assertEquals(result.get().longValue(), 99999L * 100000L / 2);
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		assertEquals(deep.findById(99999L).getLevel(), 99999);
+		assertSame(deep.findById(99999L).getRoot(), deep.getRootNode());
+	}
+
+	/**
+	 * Test method for {@link FrozenTree#of(BaseTreeNode)} with a single node and with a subtree
+	 */
+	@Test
+	public void testFreezeSingleNodeAndSubtree()
+	{
+		FrozenTree<String, Long> single = BaseTreeNode.<String, Long> builder().id(0L)
+			.value("single").build().freeze();
+		assertEquals(single.size(), 1);
+		assertTrue(single.getRootNode().isRoot());
+		assertTrue(single.getRootNode().getChildren().isEmpty());
+		assertEquals(single.getSubtreeEnd(0), 1);
+		assertNull(single.findById(1L));
+		assertEquals(single.indexOf(null), FrozenTree.NO_NODE);
+		// a frozen subtree has no parent
+		FrozenTree<String, Long> subtree = testTree.getSecondChild().freeze();
+		assertEquals(subtree.size(), 7);
+		assertEquals(subtree.getParent(0), FrozenTree.NO_NODE);
+		assertNull(subtree.findById(0L));
+		assertEquals(preOrderIds(subtree.toBaseTreeNode()),
+			preOrderIds(testTree.getSecondChild()));
+	}
+}
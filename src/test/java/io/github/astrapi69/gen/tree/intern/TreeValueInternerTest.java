@@ -0,0 +1,59 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.intern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link TreeValueInterner}
+ */
+public class TreeValueInternerTest
+{
+
+	/**
+	 * Test method for {@link TreeValueInterner#internValue(Object)},
+	 * {@link TreeValueInterner#internDisplayValue(String)} and
+	 * {@link TreeValueInterner#getDedupRatio()}
+	 */
+	@Test
+	public void testIntern()
+	{
+		TreeValueInterner<Integer> interner = new TreeValueInterner<>();
+		assertEquals(interner.getDedupRatio(), 0d);
+		Integer value = Integer.valueOf(100000);
+		assertSame(interner.internValue(value), value);
+		assertSame(interner.internValue(Integer.valueOf(100000)), value);
+		String displayValue = new String("display");
+		assertSame(interner.internDisplayValue(displayValue), displayValue);
+		assertSame(interner.internDisplayValue(new String("display")), displayValue);
+		assertSame(interner.internDisplayValue(new String("display")), displayValue);
+		assertEquals(interner.getValueInterner().getDedupCount(), 1L);
+		assertEquals(interner.getDisplayValueInterner().getDedupCount(), 2L);
+		assertEquals(interner.getDedupRatio(), 0.6d);
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.intern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link ValueInterner}
+ */
+public class ValueInternerTest
+{
+
+	/**
+	 * Test method for {@link ValueInterner#intern(Object)} and the statistics
+	 */
+	@Test
+	public void testIntern()
+	{
+		ValueInterner<String> interner = new ValueInterner<>();
+		String first = new String("value");
+		String second = new String("value");
+		assertNotSame(first, second);
+		assertSame(interner.intern(first), first);
+		assertSame(interner.intern(second), first);
+		assertSame(interner.intern(new String("other")), interner.intern(new String("other")));
+		assertNull(interner.intern(null));
+		assertEquals(interner.size(), 2);
+		assertEquals(interner.getRequestCount(), 4L);
+		assertEquals(interner.getDedupCount(), 2L);
+		assertEquals(interner.getDedupRatio(), 0.5d);
+		interner.resetStatistics();
+		assertEquals(interner.getDedupRatio(), 0d);
+		assertEquals(interner.size(), 2);
+		interner.clear();
+		assertEquals(interner.size(), 0);
+		assertSame(interner.intern(second), second);
+	}
+}
@@ -0,0 +1,344 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.journal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.codec.BaseTreeNodeBinaryCodec;
+import io.github.astrapi69.gen.tree.codec.ValueCodecs;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+import io.github.astrapi69.gen.tree.handler.ITreeNodeHandlerExtensions;
+
+/**
+ * The unit test class for the class {@link TreeJournal}
+ */
+public class TreeJournalTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	BaseTreeNodeBinaryCodec<String, Long> codec;
+
+	Path directory;
+
+	/**
+	 * Set up the journal directory for the unit tests
+	 */
+	@BeforeMethod
+	public void setup() throws IOException
+	{
+		testTree = new BaseTreeNodeTestTree();
+		codec = new BaseTreeNodeBinaryCodec<>(ValueCodecs.STRING, ValueCodecs.LONG);
+		directory = Files.createTempDirectory("tree-journal");
+	}
+
+	/**
+	 * Delete the journal directory
+	 */
+	@AfterMethod
+	public void tearDown() throws IOException
+	{
+		try (Stream<Path> files = Files.walk(directory))
+		{
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	/**
+	 * Applies some changes of all kinds to the test tree
+	 */
+	private void applyChanges()
+	{
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		root.addChild(BaseTreeNode.<String, Long> builder().id(20L).value("new child").build());
+		testTree.getFirstChild().addChild(
+			BaseTreeNode.<String, Long> builder().id(21L).value("new grand child").build());
+		testTree.getFirstGrandChild().move(testTree.getThirdChild());
+		testTree.getSecondGrandChild().setValue("changed value");
+		testTree.getThirdGrandChild().setDisplayValue("third grand child");
+		testTree.getFourthGrandChild().setLeaf(true);
+		testTree.getFirstChild().setId(30L);
+		testTree.getSecondChild().removeChild(testTree.getThirdGrandChild());
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#create} and {@link TreeJournal#recover}
+	 */
+	@Test
+	public void testCreateAndRecover() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 100);
+		applyChanges();
+		journal.close();
+
+		TreeJournal<String, Long> recovered = TreeJournal.recover(directory, codec,
+			FsyncPolicy.ON_COMMIT, 100);
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(recovered.getRoot()),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		assertEquals(recovered.getRoot().findById(30L).getChildren().size(), 1);
+		assertTrue(recovered.getRoot().findById(10L).isLeaf());
+		// the recovered journal keeps on journaling
+		recovered.getRoot().findById(11L).setValue("after recovery");
+		recovered.close();
+		assertEquals(TreeJournal.recover(directory, codec, FsyncPolicy.NONE, 1).getRoot()
+			.findById(11L).getValue(), "after recovery");
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#recover} with a torn record at the end of the log file
+	 */
+	@Test
+	public void testRecoverTornRecord() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.EVERY_RECORD, 1);
+		testTree.getSecondGrandChild().setValue("committed value");
+		journal.close();
+		Path logFile = directory.resolve(TreeJournal.logFileName(0L));
+		long committedSize = Files.size(logFile);
+		// simulate a crash in the middle of the next record
+		try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE,
+			StandardOpenOption.APPEND))
+		{
+			channel.write(ByteBuffer.wrap(new byte[] { 20, 1, 2, 3 }));
+		}
+		TreeJournal<String, Long> recovered = TreeJournal.recover(directory, codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		assertEquals(recovered.getRoot().findById(7L).getValue(), "committed value");
+		assertEquals(Files.size(logFile), committedSize);
+		recovered.close();
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#commit()} with group commits
+	 */
+	@Test
+	public void testGroupCommit() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 3);
+		Path logFile = directory.resolve(TreeJournal.logFileName(0L));
+		testTree.getFirstChild().setValue("a");
+		testTree.getFirstChild().setValue("b");
+		assertEquals(journal.getPendingRecords(), 2);
+		assertEquals(Files.size(logFile), 0L);
+		testTree.getFirstChild().setValue("c");
+		assertEquals(journal.getPendingRecords(), 0);
+		assertTrue(0L < Files.size(logFile));
+		journal.close();
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#compact()}
+	 */
+	@Test
+	public void testCompact() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		applyChanges();
+		journal.compact();
+		assertEquals(journal.getGeneration(), 1L);
+		assertFalse(Files.exists(directory.resolve(TreeJournal.logFileName(0L))));
+		assertEquals(Files.size(directory.resolve(TreeJournal.logFileName(1L))), 0L);
+		testTree.getFifthGrandChild().setValue("after compaction");
+		journal.close();
+
+		TreeJournal<String, Long> recovered = TreeJournal.recover(directory, codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		assertEquals(recovered.getGeneration(), 1L);
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(recovered.getRoot()),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		recovered.close();
+	}
+
+	/**
+	 * Gets the ids of the children of the given node in their iteration order
+	 */
+	private static List<Long> childIds(final BaseTreeNode<String, Long> parent)
+	{
+		return parent.getChildren().stream().map(BaseTreeNode::getId)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#onChildAdded} with a child that is not the last child of
+	 * a parent whose children are not held in a list
+	 */
+	@Test
+	public void testRecoverInsertionPosition() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		BaseTreeNode<String, Long> parent = testTree.getSecondChild();
+		BaseTreeNode<String, Long> child = BaseTreeNode.<String, Long> builder().id(20L)
+			.value("inserted child").build();
+		// simulate an insertion at the first position
+		List<BaseTreeNode<String, Long>> ordered = new ArrayList<>(parent.getChildren());
+		ordered.add(0, child);
+		child.setParent(parent);
+		parent.getChildren().clear();
+		parent.getChildren().addAll(ordered);
+		journal.onChildAdded(parent, child);
+		journal.close();
+
+		TreeJournal<String, Long> recovered = TreeJournal.recover(directory, codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		assertEquals(childIds(recovered.getRoot().findById(parent.getId())), childIds(parent));
+		recovered.close();
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#onMoved} with a detached node that re-enters the tree
+	 */
+	@Test
+	public void testRecoverDetachedNodeReentering() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		BaseTreeNode<String, Long> detached = testTree.getSecondChild();
+		detached.move(null);
+		detached.getChildren().iterator().next().setValue("changed while detached");
+		detached.move(testTree.getThirdChild());
+		// a node that is attached without notification is reported with a null old parent
+		BaseTreeNode<String, Long> reported = BaseTreeNode.<String, Long> builder().id(20L)
+			.value("reported child").build();
+		ITreeNodeHandlerExtensions.addChild(testTree.getFirstChild(), reported);
+		journal.onMoved(reported, null, testTree.getFirstChild());
+		journal.close();
+
+		TreeJournal<String, Long> recovered = TreeJournal.recover(directory, codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(recovered.getRoot()),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		assertEquals(recovered.getRoot().findById(detached.getId()).getParent().getId(),
+			testTree.getThirdChild().getId());
+		assertEquals(recovered.getRoot().findById(20L).getParent().getId(),
+			testTree.getFirstChild().getId());
+		recovered.close();
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#onMoved} with the journaled root that is attached to
+	 * another tree
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testAttachJournaledRoot() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		// the failure is recorded and does not throw out of the listener
+		journal.onMoved(testTree.getRoot(), null, testTree.getFirstChild());
+		journal.close();
+	}
+
+	/**
+	 * Test method for a change that can not be journaled, the change is kept and the next commit
+	 * fails
+	 */
+	@Test
+	public void testFailedChange() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		testTree.getFirstChild().setId(null);
+		testTree.getSecondChild().setValue("after the failure");
+		assertEquals(testTree.getSecondChild().getValue(), "after the failure");
+		try
+		{
+			journal.commit();
+			fail("The commit after a failed change must fail");
+		}
+		catch (IOException exception)
+		{
+			assertTrue(exception.getCause() instanceof IllegalStateException);
+		}
+		try
+		{
+			journal.close();
+			fail("The close after a failed change must fail");
+		}
+		catch (IOException exception)
+		{
+			assertTrue(exception.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#compactAsync(java.util.concurrent.Executor)} with changes
+	 * before the snapshot is encoded
+	 */
+	@Test
+	public void testCompactAsync() throws IOException
+	{
+		TreeJournal<String, Long> journal = TreeJournal.create(directory, testTree.getRoot(), codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		List<Runnable> tasks = new ArrayList<>();
+		CompletableFuture<Void> compaction = journal.compactAsync(tasks::add);
+		// the change after the switch is only in the log file of the next generation
+		testTree.getFirstChild().setValue("before encoding");
+		tasks.forEach(Runnable::run);
+		compaction.join();
+		journal.close();
+
+		TreeJournal<String, Long> recovered = TreeJournal.recover(directory, codec,
+			FsyncPolicy.ON_COMMIT, 10);
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(recovered.getRoot()),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		recovered.close();
+	}
+
+	/**
+	 * Test method for {@link TreeJournal#create} with a node that is not a root
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testCreateWithChild() throws IOException
+	{
+		TreeJournal.create(directory, testTree.getFirstChild(), codec, FsyncPolicy.NONE, 1);
+	}
+}
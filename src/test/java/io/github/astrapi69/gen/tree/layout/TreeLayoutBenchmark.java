@@ -0,0 +1,291 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.layout;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.compact.CompactTree;
+
+/**
+ * The benchmark class for the relayout of trees in a {@link TreeLayoutOrder}. The trees are built
+ * in random insertion order, so the nodes are scattered over the heap, and the full depth first
+ * and breadth first traversals are measured before and after the relayout. The benchmarks belong
+ * to the test group <code>benchmark</code>, that is excluded from the test task and runs with the
+ * task <code>benchmark</code>. The number of the nodes can be set with the system property
+ * <code>benchmark.nodes</code> and the number of the measured rounds with the system property
+ * <code>benchmark.rounds</code>
+ */
+public class TreeLayoutBenchmark
+{
+
+	/** The number of the nodes of the benchmark trees */
+	private static final int NODE_COUNT = Integer.getInteger("benchmark.nodes", 10_000_000);
+
+	/** The number of the measured rounds, the fastest round is reported */
+	private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+
+	/**
+	 * Creates the parent of every node of a random recursive tree, the parent of a node is a
+	 * random node that was created before
+	 *
+	 * @param random
+	 *            the random generator
+	 * @return the parent of every node, the root has the parent -1
+	 */
+	private static int[] newRandomParents(final Random random)
+	{
+		final int[] parents = new int[NODE_COUNT];
+		parents[0] = -1;
+		for (int node = 1; node < NODE_COUNT; node++)
+		{
+			parents[node] = random.nextInt(node);
+		}
+		return parents;
+	}
+
+	/**
+	 * Creates a {@link BaseTreeNode} tree with the given parents whose nodes are allocated in a
+	 * random order
+	 *
+	 * @param parents
+	 *            the parent of every node
+	 * @param random
+	 *            the random generator
+	 * @return the root of the tree
+	 */
+	@SuppressWarnings("unchecked")
+	private static BaseTreeNode<Integer, Long> newScatteredTree(final int[] parents,
+		final Random random)
+	{
+		final int[] allocationOrder = new int[NODE_COUNT];
+		for (int i = 0; i < NODE_COUNT; i++)
+		{
+			final int j = random.nextInt(i + 1);
+			allocationOrder[i] = allocationOrder[j];
+			allocationOrder[j] = i;
+		}
+		final BaseTreeNode<Integer, Long>[] nodes = new BaseTreeNode[NODE_COUNT];
+		for (final int node : allocationOrder)
+		{
+			nodes[node] = BaseTreeNode.<Integer, Long> builder().id((long)node).value(node)
+				.build();
+		}
+		for (final int node : allocationOrder)
+		{
+			if (parents[node] != -1)
+			{
+				nodes[parents[node]].addChild(nodes[node]);
+			}
+		}
+		return nodes[0];
+	}
+
+	/**
+	 * Traverses the given tree iteratively in depth first order and sums up the ids
+	 *
+	 * @param root
+	 *            the root
+	 * @return the sum of the ids
+	 */
+	private static long depthFirstSum(final BaseTreeNode<Integer, Long> root)
+	{
+		long sum = 0;
+		final Deque<BaseTreeNode<Integer, Long>> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final BaseTreeNode<Integer, Long> node = stack.pop();
+			sum += node.getId();
+			if (node.hasChildren())
+			{
+				for (final BaseTreeNode<Integer, Long> child : node.getChildren())
+				{
+					stack.push(child);
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Traverses the given tree iteratively in breadth first order and sums up the ids
+	 *
+	 * @param root
+	 *            the root
+	 * @return the sum of the ids
+	 */
+	private static long breadthFirstSum(final BaseTreeNode<Integer, Long> root)
+	{
+		long sum = 0;
+		final Deque<BaseTreeNode<Integer, Long>> queue = new ArrayDeque<>();
+		queue.add(root);
+		while (!queue.isEmpty())
+		{
+			final BaseTreeNode<Integer, Long> node = queue.poll();
+			sum += node.getId();
+			if (node.hasChildren())
+			{
+				queue.addAll(node.getChildren());
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Traverses the given {@link CompactTree} in depth first order over the child and sibling
+	 * indexes and sums up the ids
+	 *
+	 * @param tree
+	 *            the tree
+	 * @return the sum of the ids
+	 */
+	private static long depthFirstSum(final CompactTree<Integer, Long> tree)
+	{
+		long sum = 0;
+		int[] stack = new int[64];
+		int stackSize = 0;
+		stack[stackSize++] = tree.getRoot();
+		while (stackSize != 0)
+		{
+			final int node = stack[--stackSize];
+			sum += tree.getId(node);
+			for (int child = tree.getFirstChild(node); child != CompactTree.NO_NODE; child = tree
+				.getNextSibling(child))
+			{
+				if (stackSize == stack.length)
+				{
+					stack = Arrays.copyOf(stack, stackSize << 1);
+				}
+				stack[stackSize++] = child;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Measures the fastest of the rounds of the given traversal
+	 *
+	 * @param <T>
+	 *            the generic type of the tree
+	 * @param tree
+	 *            the tree
+	 * @param traversal
+	 *            the traversal that returns the sum of the ids
+	 * @return the nanoseconds of the fastest round
+	 */
+	private static <T> long measure(final T tree, final ToLongFunction<T> traversal)
+	{
+		final long expectedSum = (long)NODE_COUNT * (NODE_COUNT - 1) / 2;
+		long fastest = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			final long start = System.nanoTime();
+			final long sum = traversal.applyAsLong(tree);
+			fastest = Math.min(fastest, System.nanoTime() - start);
+			assertEquals(sum, expectedSum);
+		}
+		return fastest;
+	}
+
+	/**
+	 * Prints one result line
+	 *
+	 * @param name
+	 *            the name of the measured tree
+	 * @param traversal
+	 *            the name of the traversal
+	 * @param nanos
+	 *            the nanoseconds of the traversal
+	 * @param baselineNanos
+	 *            the nanoseconds of the traversal of the scattered tree
+	 */
+	private static void print(final String name, final String traversal, final long nanos,
+		final long baselineNanos)
+	{
+		System.out.printf("%-24s %-14s %10.1f ms %8.2fx%n", name, traversal, nanos / 1e6,
+			baselineNanos / (double)nanos);
+	}
+
+	/**
+	 * Benchmark for {@link BaseTreeNode#relayout(TreeLayoutOrder)}
+	 */
+	@Test(groups = "benchmark")
+	public void benchmarkBaseTreeNodeRelayout()
+	{
+		final Random random = new Random(42);
+		final BaseTreeNode<Integer, Long> scattered = newScatteredTree(newRandomParents(random),
+			random);
+		final long depthFirstBaseline = measure(scattered, TreeLayoutBenchmark::depthFirstSum);
+		final long breadthFirstBaseline = measure(scattered,
+			TreeLayoutBenchmark::breadthFirstSum);
+		System.out.printf("BaseTreeNode with %d nodes%n", NODE_COUNT);
+		print("scattered", "depth first", depthFirstBaseline, depthFirstBaseline);
+		print("scattered", "breadth first", breadthFirstBaseline, breadthFirstBaseline);
+		for (final TreeLayoutOrder order : TreeLayoutOrder.values())
+		{
+			final BaseTreeNode<Integer, Long> relayouted = scattered.relayout(order);
+			System.gc();
+			print(order.name(), "depth first",
+				measure(relayouted, TreeLayoutBenchmark::depthFirstSum), depthFirstBaseline);
+			print(order.name(), "breadth first",
+				measure(relayouted, TreeLayoutBenchmark::breadthFirstSum), breadthFirstBaseline);
+		}
+	}
+
+	/**
+	 * Benchmark for {@link CompactTree#relayout(TreeLayoutOrder)}
+	 */
+	@Test(groups = "benchmark")
+	public void benchmarkCompactTreeRelayout()
+	{
+		final int[] parents = newRandomParents(new Random(42));
+		final CompactTree<Integer, Long> scattered = new CompactTree<>(NODE_COUNT);
+		final int[] indexes = new int[NODE_COUNT];
+		indexes[0] = scattered.addRoot(0L, 0);
+		for (int node = 1; node < NODE_COUNT; node++)
+		{
+			indexes[node] = scattered.append(indexes[parents[node]], (long)node, node);
+		}
+		final long baseline = measure(scattered, TreeLayoutBenchmark::depthFirstSum);
+		System.out.printf("CompactTree with %d nodes%n", NODE_COUNT);
+		print("insertion order", "depth first", baseline, baseline);
+		for (final TreeLayoutOrder order : TreeLayoutOrder.values())
+		{
+			final CompactTree<Integer, Long> relayouted = scattered.relayout(order);
+			System.gc();
+			print(order.name(), "depth first",
+				measure(relayouted, TreeLayoutBenchmark::depthFirstSum), baseline);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.layout;
+
+import static io.github.astrapi69.gen.tree.BaseTreeNodeTestTree.preOrderIds;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.TreeNode;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link TreeLayout} and the relayout methods of the tree
+ * classes
+ */
+public class TreeLayoutTest
+{
+
+	/**
+	 * The first child links of the tree 0(1(3(6), 4), 2(5))
+	 */
+	private static final int[] FIRST_CHILDREN = { 1, 3, 5, 6, -1, -1, -1 };
+
+	/**
+	 * The next sibling links of the tree 0(1(3(6), 4), 2(5))
+	 */
+	private static final int[] NEXT_SIBLINGS = { -1, 2, -1, 4, -1, -1, -1 };
+
+	/**
+	 * Test method for {@link TreeLayout#order(int, int[], int[], int, TreeLayoutOrder)}
+	 */
+	@Test
+	public void testOrder()
+	{
+		assertEquals(TreeLayout.order(0, FIRST_CHILDREN, NEXT_SIBLINGS, 7,
+			TreeLayoutOrder.DEPTH_FIRST), new int[] { 0, 1, 3, 6, 4, 2, 5 });
+		assertEquals(TreeLayout.order(0, FIRST_CHILDREN, NEXT_SIBLINGS, 7,
+			TreeLayoutOrder.BREADTH_FIRST), new int[] { 0, 1, 2, 3, 4, 5, 6 });
+		// the top half 0, 1, 2 precedes the bottom parts 3(6), 4 and 5
+		assertEquals(TreeLayout.order(0, FIRST_CHILDREN, NEXT_SIBLINGS, 7,
+			TreeLayoutOrder.VAN_EMDE_BOAS), new int[] { 0, 1, 2, 3, 6, 4, 5 });
+		// the subtree of a node without its siblings
+		assertEquals(TreeLayout.order(1, FIRST_CHILDREN, NEXT_SIBLINGS, 4,
+			TreeLayoutOrder.DEPTH_FIRST), new int[] { 1, 3, 6, 4 });
+	}
+
+	/**
+	 * Test method for {@link TreeLayout#of(Object, java.util.function.Function, TreeLayoutOrder)}
+	 * with a deep tree
+	 */
+	@Test
+	public void testDeepTree()
+	{
+		TreeNode<Integer> root = new TreeNode<>(0);
+		TreeNode<Integer> current = root;
+		for (int value = 1; value < 100000; value++)
+		{
+			TreeNode<Integer> child = new TreeNode<>(value);
+			current.getChildren().add(child);
+			child.setParent(current);
+			current = child;
+		}
+		for (TreeLayoutOrder order : TreeLayoutOrder.values())
+		{
+			TreeLayout<TreeNode<Integer>> layout = TreeLayout.of(root, TreeNode::getChildren,
+				order);
+			assertEquals(layout.size(), 100000);
+			for (int position = 1; position < layout.size(); position++)
+			{
+				assertEquals(layout.getParentPosition(position), position - 1);
+				assertEquals(layout.getNode(position).getValue(), Integer.valueOf(position));
+			}
+			assertEquals(layout.getChildCount(99999), 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#relayout(TreeLayoutOrder)}
+	 */
+	@Test
+	public void testRelayoutBaseTreeNode()
+	{
+		BaseTreeNode<String, Long> root = BaseTreeNodeTestTree.newTreeWithDisplayValue().getRoot();
+		for (TreeLayoutOrder order : TreeLayoutOrder.values())
+		{
+			BaseTreeNode<String, Long> relayouted = root.relayout(order);
+			assertNotSame(relayouted, root);
+			assertNull(relayouted.getParent());
+			assertEquals(preOrderIds(relayouted), preOrderIds(root));
+			assertEquals(BaseTreeNodeTransformer.toKeyMap(relayouted),
+				BaseTreeNodeTransformer.toKeyMap(root));
+			assertEquals(relayouted.findById(9L).getDisplayValue(), "third");
+			assertTrue(relayouted.findById(11L).isLeaf());
+			assertEquals(relayouted.findById(8L).getParent(), relayouted.findById(2L));
+		}
+	}
+
+	/**
+	 * Test method for {@link TreeNode#relayout(TreeLayoutOrder)}
+	 */
+	@Test
+	public void testRelayoutTreeNode()
+	{
+		TreeNode<String> root = new TreeNode<>("root");
+		TreeNode<String> child = new TreeNode<>("child");
+		root.addChild(child);
+		child.addChild(new TreeNode<>("grand child"));
+		root.addChild(new TreeNode<>("second child"));
+		TreeNode<String> relayouted = root.relayout(TreeLayoutOrder.BREADTH_FIRST);
+		assertEquals(relayouted.traverse().size(), 4);
+		assertEquals(relayouted.getChildren().stream().map(TreeNode::getValue)
+			.collect(Collectors.toList()), List.of("child", "second child"));
+		TreeNode<String> childCopy = relayouted.getChildren().iterator().next();
+		assertEquals(childCopy.getParent(), relayouted);
+		assertEquals(childCopy.getChildren().iterator().next().getValue(), "grand child");
+		assertEquals(root.getChildren().size(), 2);
+	}
+
+	/**
+	 * Test method for {@link BaseTreeNode#relayout(TreeLayoutOrder)} and
+	 * {@link TreeNode#relayout(TreeLayoutOrder)} with subclasses
+	 */
+	@Test
+	public void testRelayoutSubclass()
+	{
+		BaseTreeNode<String, Long> root = new SubclassBaseTreeNode();
+		root.setId(0L);
+		BaseTreeNode<String, Long> child = new SubclassBaseTreeNode();
+		child.setId(1L);
+		root.addChild(child);
+		BaseTreeNode<String, Long> relayouted = root.relayout(TreeLayoutOrder.BREADTH_FIRST);
+		assertTrue(relayouted instanceof SubclassBaseTreeNode);
+		assertTrue(relayouted.findById(1L) instanceof SubclassBaseTreeNode);
+
+		TreeNode<String> treeNode = new SubclassTreeNode();
+		treeNode.addChild(new SubclassTreeNode());
+		TreeNode<String> relayoutedTreeNode = treeNode.relayout(TreeLayoutOrder.DEPTH_FIRST);
+		assertTrue(relayoutedTreeNode instanceof SubclassTreeNode);
+		assertTrue(relayoutedTreeNode.getChildren().iterator().next() instanceof SubclassTreeNode);
+	}
+
+	/**
+	 * A subclass of {@link BaseTreeNode} that creates its own type for a copy
+	 */
+	private static class SubclassBaseTreeNode extends BaseTreeNode<String, Long>
+	{
+
+		/** The serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected BaseTreeNode<String, Long> newCopyInstance()
+		{
+			return new SubclassBaseTreeNode();
+		}
+	}
+
+	/**
+	 * A subclass of {@link TreeNode} that creates its own type for a copy
+	 */
+	private static class SubclassTreeNode extends TreeNode<String>
+	{
+
+		/** The serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected TreeNode<String> newCopyInstance()
+		{
+			return new SubclassTreeNode();
+		}
+	}
+}
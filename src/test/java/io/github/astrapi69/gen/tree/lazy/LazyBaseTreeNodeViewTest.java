@@ -0,0 +1,305 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.lazy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link LazyBaseTreeNodeView} and {@link LazyBaseTreeNode}
+ */
+public class LazyBaseTreeNodeViewTest
+{
+
+	Map<Long, TreeIdNode<String, Long>> treeIdNodeMap;
+
+	/**
+	 * Set up the key map for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		treeIdNodeMap = BaseTreeNodeTransformer.toKeyMap(new BaseTreeNodeTestTree().getRoot());
+	}
+
+	/**
+	 * Test method for the lazy resolving of the parent and the children
+	 */
+	@Test
+	public void testResolve()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap,
+			CacheEvictionPolicy.UNBOUNDED, 0);
+		assertEquals(view.getCachedNodeCount(), 0);
+		LazyBaseTreeNode<String, Long> secondChild = view.getNode(2L);
+		assertEquals(view.getCachedNodeCount(), 1);
+		assertEquals(secondChild.getValue(), "I'm the second child");
+		assertEquals(secondChild.getChildCount(), 3);
+		assertEquals(secondChild.getChildren().stream().map(LazyBaseTreeNode::getId)
+			.collect(Collectors.toList()), Arrays.asList(3L, 7L, 8L));
+		LazyBaseTreeNode<String, Long> root = secondChild.getParent();
+		assertTrue(root.isRoot());
+		assertSame(view.getRoot(), root);
+		assertSame(view.getNode(2L), secondChild);
+		assertEquals(view.getNode(6L).getLevel(), 4);
+		assertNull(view.getNode(42L));
+		// the default traversal over the materialized nodes
+		assertEquals(root.traverse().size(), treeIdNodeMap.size());
+		assertEquals(view.getCachedNodeCount(), treeIdNodeMap.size());
+	}
+
+	/**
+	 * Test method for {@link LazyBaseTreeNodeView#traverse(Object, java.util.function.Consumer)}
+	 */
+	@Test
+	public void testTraverse()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		assertEquals(view.getSubtreeIds(0L),
+			Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L));
+		List<String> values = new ArrayList<>();
+		view.traverse(3L, treeIdNode -> values.add(treeIdNode.getValue()));
+		assertEquals(values, Arrays.asList("I'm the first grand child",
+			"I'm the first grand grand child", "I'm the second grand grand child",
+			"I'm the first grand grand grand child"));
+		// no node was materialized
+		assertEquals(view.getCachedNodeCount(), 0);
+	}
+
+	/**
+	 * Test method for the eviction policies
+	 */
+	@Test
+	public void testEvictionPolicy()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap,
+			CacheEvictionPolicy.LRU, 2);
+		LazyBaseTreeNode<String, Long> root = view.getNode(0L);
+		view.getNode(1L);
+		view.getNode(0L);
+		view.getNode(2L);
+		assertEquals(view.getCachedNodeCount(), 2);
+		// the least recently used node 1 is evicted, but the root is still cached
+		assertSame(view.getNode(0L), root);
+		// an evicted node is materialized again and is still equal
+		assertEquals(view.getNode(1L), root.getChildren().iterator().next());
+
+		view = new LazyBaseTreeNodeView<>(treeIdNodeMap, CacheEvictionPolicy.NONE, 0);
+		assertEquals(view.getNode(0L), view.getNode(0L));
+		assertEquals(view.getCachedNodeCount(), 0);
+
+		view = new LazyBaseTreeNodeView<>(treeIdNodeMap, CacheEvictionPolicy.WEAK, 0);
+		root = view.getNode(0L);
+		assertSame(view.getNode(0L), root);
+		assertEquals(view.getCachedNodeCount(), 1);
+	}
+
+	/**
+	 * Test method for the changes that are written through to the map
+	 */
+	@Test
+	public void testWriteThrough()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		LazyBaseTreeNode<String, Long> firstChild = view.getNode(1L);
+		firstChild.setValue("I'm changed");
+		assertEquals(treeIdNodeMap.get(1L).getValue(), "I'm changed");
+		// move the first grand child with its subtree to the first child
+		LazyBaseTreeNode<String, Long> firstGrandChild = view.getNode(3L);
+		assertTrue(firstGrandChild.move(firstChild));
+		assertEquals(treeIdNodeMap.get(3L).getParentId(), Long.valueOf(1L));
+		assertTrue(treeIdNodeMap.get(1L).getChildrenIds().contains(3L));
+		assertFalse(treeIdNodeMap.get(2L).getChildrenIds().contains(3L));
+		assertEquals(view.getSubtreeIds(1L), Arrays.asList(1L, 3L, 4L, 5L, 6L));
+		// change the id
+		firstGrandChild.setId(33L);
+		assertFalse(treeIdNodeMap.containsKey(3L));
+		assertEquals(treeIdNodeMap.get(4L).getParentId(), Long.valueOf(33L));
+		assertTrue(treeIdNodeMap.get(1L).getChildrenIds().contains(33L));
+		assertSame(view.getNode(33L), firstGrandChild);
+		// remove a child keeps its subtree in the map
+		firstChild.removeChild(firstGrandChild);
+		assertTrue(firstGrandChild.isRoot());
+		assertEquals(view.getSubtreeIds(33L), Arrays.asList(33L, 4L, 5L, 6L));
+		assertFalse(firstChild.hasChildren());
+	}
+
+	/**
+	 * Test method for {@link LazyBaseTreeNode#addChild(LazyBaseTreeNode, int)}
+	 */
+	@Test
+	public void testAddChildAtIndex()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		LazyBaseTreeNode<String, Long> secondChild = view.getNode(2L);
+		// a node of another parent is inserted at the index
+		secondChild.addChild(view.getNode(1L), 1);
+		assertEquals(new ArrayList<>(treeIdNodeMap.get(2L).getChildrenIds()),
+			Arrays.asList(3L, 1L, 7L, 8L));
+		assertEquals(treeIdNodeMap.get(1L).getParentId(), Long.valueOf(2L));
+		assertFalse(treeIdNodeMap.get(0L).getChildrenIds().contains(1L));
+		// a child of the node is moved to the index
+		secondChild.addChild(view.getNode(8L), 0);
+		assertEquals(new ArrayList<>(treeIdNodeMap.get(2L).getChildrenIds()),
+			Arrays.asList(8L, 3L, 1L, 7L));
+	}
+
+	/**
+	 * Test method for {@link LazyBaseTreeNode#addChild(LazyBaseTreeNode, int)} with an index that
+	 * is out of range
+	 */
+	@Test(expectedExceptions = IndexOutOfBoundsException.class)
+	public void testAddChildAtIndexOutOfRange()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		view.getNode(2L).addChild(view.getNode(1L), 4);
+	}
+
+	/**
+	 * Test method for the id graph with missing links
+	 */
+	@Test
+	public void testInconsistentIdGraph()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		// the parent does not list the child
+		treeIdNodeMap.get(2L).getChildrenIds().remove(7L);
+		view.getNode(7L).setId(77L);
+		assertEquals(treeIdNodeMap.get(77L).getParentId(), Long.valueOf(2L));
+		assertEquals(new ArrayList<>(treeIdNodeMap.get(2L).getChildrenIds()),
+			Arrays.asList(3L, 8L));
+		// null children ids are no children
+		treeIdNodeMap.get(8L).setChildrenIds(null);
+		assertEquals(view.getSubtreeIds(2L), Arrays.asList(2L, 3L, 4L, 5L, 6L, 8L));
+	}
+
+	/**
+	 * Test method for {@link LazyBaseTreeNodeView#getRoot()} and
+	 * {@link LazyBaseTreeNodeView#traverse} with dangling ids and cycles
+	 */
+	@Test
+	public void testDanglingIdsAndCycles()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		// the search stops at a parent id that is not in the map
+		treeIdNodeMap.get(0L).setParentId(99L);
+		assertEquals(view.getRoot().getId(), Long.valueOf(0L));
+		// a child id that refers back to an ancestor is visited once
+		treeIdNodeMap.get(4L).getChildrenIds().add(2L);
+		assertEquals(view.getSubtreeIds(2L), Arrays.asList(2L, 3L, 4L, 5L, 6L, 7L, 8L));
+		treeIdNodeMap.get(0L).setParentId(3L);
+		try
+		{
+			view.getRoot();
+			fail("A cycle of the parent ids must be detected");
+		}
+		catch (IllegalStateException exception)
+		{
+			assertTrue(exception.getMessage().contains("cycle"));
+		}
+	}
+
+	/**
+	 * Test method for {@link LazyBaseTreeNode#setId(Object)} with an id that is already used
+	 */
+	@Test
+	public void testSetUsedId()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		LazyBaseTreeNode<String, Long> secondChild = view.getNode(2L);
+		try
+		{
+			secondChild.setId(3L);
+			fail("An id that is already used must be rejected");
+		}
+		catch (IllegalArgumentException exception)
+		{
+			assertEquals(secondChild.getId(), Long.valueOf(2L));
+			assertEquals(treeIdNodeMap.get(3L).getValue(), "I'm the first grand child");
+			assertEquals(treeIdNodeMap.get(2L).getValue(), "I'm the second child");
+		}
+	}
+
+	/**
+	 * Test method for {@link LazyBaseTreeNode#hashCode()} after the id is changed
+	 */
+	@Test
+	public void testHashCodeAfterSetId()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap,
+			CacheEvictionPolicy.NONE, 0);
+		LazyBaseTreeNode<String, Long> secondChild = view.getNode(2L);
+		Set<LazyBaseTreeNode<String, Long>> nodes = new HashSet<>();
+		nodes.add(secondChild);
+		secondChild.setId(20L);
+		assertTrue(nodes.contains(secondChild));
+		// a new node of the same entry is equal and has the same hash code
+		LazyBaseTreeNode<String, Long> materialized = view.getNode(20L);
+		assertEquals(materialized, secondChild);
+		assertEquals(materialized.hashCode(), secondChild.hashCode());
+		assertTrue(nodes.contains(materialized));
+		secondChild.setId(2L);
+		assertTrue(nodes.contains(secondChild));
+	}
+
+	/**
+	 * Test method for {@link LazyBaseTreeNode#clearChildren()} that keeps the subtrees of the
+	 * children
+	 */
+	@Test
+	public void testClearChildren()
+	{
+		LazyBaseTreeNodeView<String, Long> view = new LazyBaseTreeNodeView<>(treeIdNodeMap);
+		LazyBaseTreeNode<String, Long> secondChild = view.getNode(2L);
+		secondChild.clearChildren();
+		assertFalse(secondChild.hasChildren());
+		assertEquals(treeIdNodeMap.size(), 12);
+		LazyBaseTreeNode<String, Long> grandChild = view.getNode(3L);
+		assertTrue(grandChild.isRoot());
+		assertEquals(grandChild.getChildCount(), 2);
+		view.getNode(0L).removeChildren();
+		assertEquals(treeIdNodeMap.size(), 12);
+		assertTrue(view.getNode(1L).isRoot());
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.offheap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.codec.BaseTreeNodeBinaryCodec;
+import io.github.astrapi69.gen.tree.codec.ValueCodec;
+import io.github.astrapi69.gen.tree.codec.ValueCodecs;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link OffHeapTreeStore} and {@link OffHeapTreeNode}
+ */
+public class OffHeapTreeStoreTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	OffHeapTreeStore<String, Long> store;
+
+	/**
+	 * Set up the off heap store for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		testTree = BaseTreeNodeTestTree.newTreeWithDisplayValue();
+		store = OffHeapTreeStore.of(testTree.getRoot(), ValueCodecs.STRING, ValueCodecs.LONG);
+	}
+
+	/**
+	 * Close the off heap store
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		store.close();
+	}
+
+	/**
+	 * Test method for {@link OffHeapTreeStore#of(BaseTreeNode, ValueCodec, ValueCodec)} and
+	 * {@link OffHeapTreeStore#toBaseTreeNode()}
+	 */
+	@Test
+	public void testOfAndToBaseTreeNode() throws Exception
+	{
+		assertEquals(store.size(), 12);
+		BaseTreeNode<String, Long> restored = store.toBaseTreeNode();
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(restored),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		BaseTreeNodeBinaryCodec<String, Long> codec = new BaseTreeNodeBinaryCodec<>(
+			ValueCodecs.STRING, ValueCodecs.LONG);
+		assertEquals(codec.toBytes(restored), codec.toBytes(testTree.getRoot()));
+		assertEquals(restored.findById(9L).getDisplayValue(), "third");
+		assertNull(restored.findById(8L).getValue());
+		assertTrue(restored.findById(11L).isLeaf());
+	}
+
+	/**
+	 * Test method for the structural methods of {@link OffHeapTreeStore}
+	 */
+	@Test
+	public void testAppendMoveAndDelete()
+	{
+		OffHeapTreeNode<String, Long> root = store.getRootNode();
+		OffHeapTreeNode<String, Long> secondChild = root.getChildAt(1).get();
+		OffHeapTreeNode<String, Long> thirdChild = root.getChildAt(2).get();
+		int newChild = store.append(root.getIndex(), 20L, "new child");
+		assertEquals(store.getLastChild(root.getIndex()), newChild);
+		assertEquals(store.getPreviousSibling(newChild), thirdChild.getIndex());
+		assertFalse(secondChild.move(secondChild.getChildAt(0).get()));
+		assertTrue(secondChild.move(thirdChild));
+		assertEquals(secondChild.getLevel(), 2);
+		assertEquals(root.getChildren().stream().map(OffHeapTreeNode::getId)
+			.collect(Collectors.toList()), List.of(1L, 9L, 20L));
+		assertEquals(store.delete(secondChild.getIndex()), 7);
+		assertEquals(store.size(), 6);
+		assertFalse(store.contains(secondChild.getIndex()));
+		// the freed records are reused
+		int reused = store.append(newChild, 21L, "reused");
+		assertTrue(reused < 12);
+		assertEquals(store.getId(reused), Long.valueOf(21L));
+		assertEquals(store.getValue(reused), "reused");
+		assertNull(store.getDisplayValue(reused));
+		assertFalse(store.isLeaf(reused));
+	}
+
+	/**
+	 * Test method for the field methods of {@link OffHeapTreeStore} and
+	 * {@link OffHeapTreeStore#compactData()}
+	 */
+	@Test
+	public void testSetFieldsAndCompactData()
+	{
+		OffHeapTreeNode<String, Long> firstChild = store.getRootNode().getChildAt(0).get();
+		assertEquals(store.getGarbageBytes(), 0L);
+		firstChild.setValue("changed");
+		firstChild.setDisplayValue("display");
+		firstChild.setId(42L);
+		firstChild.setLeaf(true);
+		assertTrue(0 < store.getGarbageBytes());
+		long offHeapBytes = store.getOffHeapBytes();
+		store.compactData();
+		assertEquals(store.getGarbageBytes(), 0L);
+		assertEquals(store.getOffHeapBytes(), offHeapBytes);
+		assertEquals(firstChild.getId(), Long.valueOf(42L));
+		assertEquals(firstChild.getValue(), "changed");
+		assertEquals(firstChild.getDisplayValue(), "display");
+		assertTrue(firstChild.isLeaf());
+		firstChild.setValue(null);
+		assertNull(firstChild.getValue());
+		assertEquals(firstChild.getId(), Long.valueOf(42L));
+		assertEquals(store.getNode(store.getRoot()).getChildAt(2).get().getDisplayValue(),
+			"third");
+	}
+
+	/**
+	 * Test method for the automatic compaction of the data of {@link OffHeapTreeStore}
+	 */
+	@Test
+	public void testAutomaticCompaction()
+	{
+		OffHeapTreeNode<String, Long> firstChild = store.getRootNode().getChildAt(0).get();
+		String displayValue = "x".repeat(10_000);
+		for (int count = 0; count < 500; count++)
+		{
+			firstChild.setValue("value " + count);
+			firstChild.setDisplayValue(displayValue + count);
+		}
+		assertTrue(store.getGarbageBytes() < OffHeapTreeStore.DATA_SEGMENT_SIZE);
+		assertTrue(store.getOffHeapBytes() < 3L * OffHeapTreeStore.DATA_SEGMENT_SIZE);
+		assertEquals(firstChild.getId(), Long.valueOf(1L));
+		assertEquals(firstChild.getValue(), "value 499");
+		assertEquals(firstChild.getDisplayValue(), displayValue + 499);
+		assertEquals(store.getDisplayValue(store.getRootNode().getChildAt(2).get().getIndex()),
+			"third");
+	}
+
+	/**
+	 * Test method for {@link OffHeapTreeStore} with more nodes than one node segment holds
+	 */
+	@Test
+	public void testManyNodes()
+	{
+		OffHeapTreeStore<String, Long> large = new OffHeapTreeStore<>(ValueCodecs.STRING,
+			ValueCodecs.LONG);
+		try
+		{
+			int current = large.addRoot(0L, "0");
+			int count = OffHeapTreeStore.NODES_PER_SEGMENT * 3;
+			for (long id = 1; id < count; id++)
+			{
+				current = large.append(current, id, String.valueOf(id));
+			}
+			assertEquals(large.size(), count);
+			assertEquals(large.getValue(current), String.valueOf(count - 1));
+			assertEquals(large.getNode(current).getLevel(), count - 1);
+			BaseTreeNode<String, Long> root = large.toBaseTreeNode();
+			assertEquals(root.getId(), Long.valueOf(0L));
+			assertEquals(large.delete(large.getRoot()), count);
+			assertTrue(large.isEmpty());
+		}
+		finally
+		{
+			large.close();
+		}
+	}
+
+	/**
+	 * Test method for {@link OffHeapTreeStore#close()}
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testClose()
+	{
+		int root = store.getRoot();
+		store.close();
+		assertTrue(store.isClosed());
+		store.getValue(root);
+	}
+
+	/**
+	 * Test method for an {@link OffHeapTreeNode} of a deleted node
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testStaleOffHeapTreeNode()
+	{
+		OffHeapTreeNode<String, Long> secondChild = store.getRootNode().getChildAt(1).get();
+		store.delete(secondChild.getIndex());
+		secondChild.getValue();
+	}
+
+	/**
+	 * Test method for {@link OffHeapTreeStore#delete(int)} with the root
+	 */
+	@Test
+	public void testDeleteRoot()
+	{
+		assertEquals(store.delete(store.getRoot()), 12);
+		assertTrue(store.isEmpty());
+		assertEquals(store.getRoot(), OffHeapTreeStore.NO_NODE);
+		assertNull(store.getRootNode());
+		int root = store.addRoot(30L, "new root");
+		assertEquals(store.size(), 1);
+		assertEquals(store.getId(root), Long.valueOf(30L));
+		assertEquals(store.getValue(root), "new root");
+	}
+
+	/**
+	 * Test method for {@link OffHeapTreeStore} with a data record that is larger than a data
+	 * segment
+	 */
+	@Test
+	public void testOversizedRecord()
+	{
+		String value = "x".repeat(OffHeapTreeStore.DATA_SEGMENT_SIZE + 1000);
+		int oversized = store.append(store.getRoot(), 20L, value);
+		int next = store.append(store.getRoot(), 21L, "next");
+		assertEquals(store.getValue(oversized), value);
+		assertEquals(store.getId(oversized), Long.valueOf(20L));
+		assertEquals(store.getValue(next), "next");
+		store.setDisplayValue(oversized, "display");
+		assertEquals(store.getDisplayValue(oversized), "display");
+		assertEquals(store.getValue(oversized), value);
+		assertEquals(store.toBaseTreeNode().findById(20L).getValue(), value);
+	}
+}
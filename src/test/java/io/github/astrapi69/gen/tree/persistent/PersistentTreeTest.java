@@ -0,0 +1,203 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.persistent;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.stream.Collectors;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link PersistentTree} and {@link PersistentTreeNode}
+ */
+public class PersistentTreeTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	PersistentTree<String, Long> persistentTree;
+
+	/**
+	 * Set up the persistent tree for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		testTree = new BaseTreeNodeTestTree();
+		persistentTree = PersistentTree.of(testTree.getRoot());
+	}
+
+	/**
+	 * Test method for {@link PersistentTree#of(BaseTreeNode)} and
+	 * {@link PersistentTree#toBaseTreeNode()}
+	 */
+	@Test
+	public void testOfAndToBaseTreeNode()
+	{
+		assertEquals(persistentTree.size(), 12);
+		assertEquals(persistentTree.getVersion(), 0L);
+		assertEquals(persistentTree.getRoot().getChildren().stream()
+			.map(PersistentTreeNode::getId).collect(Collectors.toList()),
+			testTree.getRoot().getChildren().stream().map(BaseTreeNode::getId)
+				.collect(Collectors.toList()));
+		assertEquals(persistentTree.findPath(8L), new int[] { 1, 2 });
+		assertEquals(persistentTree.findPath(0L), new int[0]);
+		assertNull(persistentTree.findPath(42L));
+		assertNull(persistentTree.findById(42L));
+		assertEquals(persistentTree.findById(11L).getValue(), testTree.getRoot().findById(11L)
+			.getValue());
+		BaseTreeNode<String, Long> converted = persistentTree.toBaseTreeNode();
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(converted),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+	}
+
+	/**
+	 * Test method for {@link PersistentTree#setValue(Object, Object)} with the structural sharing
+	 * between the versions
+	 */
+	@Test
+	public void testSetValue()
+	{
+		PersistentTree<String, Long> changed = persistentTree.setValue(8L, "changed");
+		assertEquals(changed.getVersion(), 1L);
+		assertEquals(changed.findById(8L).getValue(), "changed");
+		// the old version is not changed
+		assertEquals(persistentTree.findById(8L).getValue(),
+			testTree.getRoot().findById(8L).getValue());
+		// only the path from the root down to the changed node is copied
+		assertNotSame(changed.getRoot(), persistentTree.getRoot());
+		assertNotSame(changed.findById(2L), persistentTree.findById(2L));
+		assertSame(changed.findById(1L), persistentTree.findById(1L));
+		assertSame(changed.findById(3L), persistentTree.findById(3L));
+		assertSame(changed.findById(7L), persistentTree.findById(7L));
+		assertSame(changed.findById(9L), persistentTree.findById(9L));
+		PersistentTree<String, Long> displayed = changed.setDisplayValue(0L, "root");
+		assertEquals(displayed.getVersion(), 2L);
+		assertEquals(displayed.getRoot().getDisplayValue(), "root");
+		assertSame(displayed.getRoot().getChild(1), changed.getRoot().getChild(1));
+	}
+
+	/**
+	 * Test method for {@link PersistentTree#addChild(Object, Object, Object)},
+	 * {@link PersistentTree#remove(Object)} and {@link PersistentTree#move(Object, Object)}
+	 */
+	@Test
+	public void testStructuralChanges()
+	{
+		PersistentTree<String, Long> added = persistentTree.addChild(9L, 12L, "new");
+		assertEquals(added.size(), 13);
+		assertEquals(added.findPath(12L), new int[] { 2, 2 });
+		assertEquals(persistentTree.size(), 12);
+		PersistentTree<String, Long> removed = added.remove(2L);
+		assertEquals(removed.size(), 13 - persistentTree.findById(2L).size());
+		assertNull(removed.findById(8L));
+		assertSame(removed.findById(9L), added.findById(9L));
+		PersistentTree<String, Long> moved = persistentTree.move(9L, 1L);
+		assertEquals(moved.getVersion(), 1L);
+		assertEquals(moved.size(), 12);
+		assertEquals(moved.findPath(11L), new int[] { 0, 0, 1 });
+		assertSame(moved.findById(9L), persistentTree.findById(9L));
+		assertEquals(persistentTree.getRoot().getChildCount(), 3);
+	}
+
+	/**
+	 * Test method for {@link PersistentTree#move(Object, Object)} to a new parent behind the moved
+	 * node
+	 */
+	@Test
+	public void testMoveBeforeNewParent()
+	{
+		PersistentTree<String, Long> moved = persistentTree.move(1L, 9L);
+		assertEquals(moved.getVersion(), 1L);
+		assertEquals(moved.size(), 12);
+		assertEquals(moved.findPath(9L), new int[] { 1 });
+		assertEquals(moved.findPath(1L), new int[] { 1, 2 });
+		assertSame(moved.findById(1L), persistentTree.findById(1L));
+	}
+
+	/**
+	 * Test method for {@link PersistentTree#remove(Object)} with the root
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testRemoveRoot()
+	{
+		persistentTree.remove(0L);
+	}
+
+	/**
+	 * Test method for {@link PersistentTree#move(Object, Object)} into the own subtree
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testMoveIntoOwnSubtree()
+	{
+		persistentTree.move(2L, 3L);
+	}
+
+	/**
+	 * Test method for {@link PersistentTree#setValue(Object, Object)} with an unknown id
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testSetValueUnknownId()
+	{
+		persistentTree.setValue(42L, "unknown");
+	}
+
+	/**
+	 * Test method for a deep {@link PersistentTree} with many versions
+	 */
+	@Test
+	public void testDeepTree()
+	{
+		PersistentTreeNode<String, Long> node = new PersistentTreeNode<>(99999L, "99999");
+		for (long id = 99998; 0 <= id; id--)
+		{
+			node = new PersistentTreeNode<String, Long>(id, String.valueOf(id))
+				.withAddedChild(node);
+		}
+		PersistentTree<String, Long> first = new PersistentTree<>(node);
+		assertEquals(first.size(), 100000);
+		int[] path = first.findPath(99999L);
+		assertEquals(path.length, 99999);
+		PersistentTree<String, Long> current = first;
+		for (int i = 0; i < 10; i++)
+		{
+			current = current.update(path, leaf -> leaf.withValue(leaf.getValue() + "!"));
+		}
+		assertEquals(current.getVersion(), 10L);
+		assertEquals(current.get(path).getValue(), "99999!!!!!!!!!!");
+		assertEquals(first.get(path).getValue(), "99999");
+		BaseTreeNode<String, Long> converted = current.toBaseTreeNode();
+		assertEquals(PersistentTree.of(converted).size(), 100000);
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.snapshot;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.codec.ValueCodecs;
+
+/**
+ * The unit test class for the class {@link MappedTreeSnapshot} and {@link MappedTreeNode}
+ */
+public class MappedTreeSnapshotTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	Path path;
+
+	MappedTreeSnapshot<String, Long> snapshot;
+
+	/**
+	 * Set up the snapshot file for the unit tests
+	 */
+	@BeforeMethod
+	public void setup() throws IOException
+	{
+		testTree = BaseTreeNodeTestTree.newTreeWithDisplayValue();
+		path = Files.createTempFile("tree", ".snapshot");
+		new TreeSnapshotWriter<>(ValueCodecs.STRING, ValueCodecs.LONG).write(testTree.getRoot(),
+			path);
+		snapshot = MappedTreeSnapshot.open(path, ValueCodecs.STRING, ValueCodecs.LONG);
+	}
+
+	/**
+	 * Delete the snapshot file
+	 */
+	@AfterMethod
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Test method for the navigation over the snapshot
+	 */
+	@Test
+	public void testNavigate()
+	{
+		assertEquals(snapshot.getNodeCount(), 12);
+		MappedTreeNode<String, Long> root = snapshot.getRoot();
+		assertTrue(root.isRoot());
+		assertNull(root.getParent());
+		assertEquals(root.getValue(), "I'm root");
+		assertEquals(root.getChildCount(), 3);
+		List<Long> childIds = root.getChildren().stream().map(MappedTreeNode::getId)
+			.collect(Collectors.toList());
+		assertEquals(childIds, List.of(1L, 2L, 9L));
+		MappedTreeNode<String, Long> secondChild = root.getChildAt(1).get();
+		assertEquals(secondChild.getValue(), "I'm the second child");
+		assertEquals(secondChild.getParent(), root);
+		assertEquals(root.getChildIndex(secondChild), 1);
+		MappedTreeNode<String, Long> thirdChild = secondChild.getNextSibling();
+		assertEquals(thirdChild.getDisplayValue(), "third");
+		assertFalse(thirdChild.hasNextSibling());
+		assertEquals(thirdChild.getPreviousSibling(), secondChild);
+		MappedTreeNode<String, Long> fifthGrandChild = root.findById(11L);
+		assertTrue(fifthGrandChild.isLeaf());
+		assertEquals(fifthGrandChild.getLevel(), 2);
+		assertNull(root.findById(8L).getValue());
+	}
+
+	/**
+	 * Test method for the pre-order of the node indexes
+	 */
+	@Test
+	public void testPreOrder()
+	{
+		List<String> expected = new ArrayList<>();
+		List<BaseTreeNode<String, Long>> stack = new ArrayList<>();
+		stack.add(testTree.getRoot());
+		while (!stack.isEmpty())
+		{
+			BaseTreeNode<String, Long> current = stack.remove(stack.size() - 1);
+			expected.add(current.getValue());
+			List<BaseTreeNode<String, Long>> children = new ArrayList<>(current.getChildren());
+			for (int i = children.size() - 1; 0 <= i; i--)
+			{
+				stack.add(children.get(i));
+			}
+		}
+		List<String> actual = new ArrayList<>();
+		for (int index = 0; index < snapshot.getNodeCount(); index++)
+		{
+			actual.add(snapshot.getNode(index).getValue());
+		}
+		assertEquals(actual, expected);
+		assertEquals(snapshot.getRoot().traverse().size(), snapshot.getNodeCount());
+	}
+
+	/**
+	 * Test method for the read only view
+	 */
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testReadOnly()
+	{
+		snapshot.getRoot().addChild(snapshot.getNode(3));
+	}
+
+	/**
+	 * Test method for {@link MappedTreeSnapshot#open} with an invalid file
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testOpenInvalidFile() throws IOException
+	{
+		Files.write(path, new byte[100]);
+		MappedTreeSnapshot.open(path, ValueCodecs.STRING, ValueCodecs.LONG);
+	}
+
+	/**
+	 * Test method for {@link MappedTreeNode#getChildAt(int)} with a negative position
+	 */
+	@Test(expectedExceptions = IndexOutOfBoundsException.class)
+	public void testGetChildAtNegativePosition()
+	{
+		snapshot.getRoot().getChildAt(-1);
+	}
+
+	/**
+	 * Test method for {@link TreeSnapshotWriter#write(BaseTreeNode, Path)} that replaces the file
+	 * of an open snapshot
+	 */
+	@Test
+	public void testReplaceOpenSnapshot() throws IOException
+	{
+		BaseTreeNode<String, Long> otherRoot = BaseTreeNode.<String, Long> builder().id(42L)
+			.value("other").build();
+		new TreeSnapshotWriter<>(ValueCodecs.STRING, ValueCodecs.LONG).write(otherRoot, path);
+		// the open snapshot keeps its view of the replaced file
+		assertEquals(snapshot.getNodeCount(), 12);
+		assertEquals(snapshot.getRoot().findById(11L).getValue(), "I'm the fifth grand child");
+		MappedTreeSnapshot<String, Long> replaced = MappedTreeSnapshot.open(path,
+			ValueCodecs.STRING, ValueCodecs.LONG);
+		assertEquals(replaced.getNodeCount(), 1);
+		assertEquals(replaced.getRoot().getValue(), "other");
+		assertFalse(Files.exists(
+			path.resolveSibling(path.getFileName() + TreeSnapshotWriter.TEMP_FILE_SUFFIX)));
+	}
+
+	/**
+	 * Test method for {@link MappedTreeSnapshot#getNode(int)} with an index behind the last node
+	 */
+	@Test(expectedExceptions = IndexOutOfBoundsException.class)
+	public void testGetNodeOutOfRange()
+	{
+		snapshot.getNode(snapshot.getNodeCount());
+	}
+
+	/**
+	 * Test method for a snapshot with a data record of several megabytes
+	 */
+	@Test
+	public void testLargeRecord() throws IOException
+	{
+		String value = "x".repeat(3 << 20);
+		BaseTreeNode<String, Long> root = testTree.getRoot();
+		root.addChild(BaseTreeNode.<String, Long> builder().id(20L).value(value).build());
+		root.addChild(BaseTreeNode.<String, Long> builder().id(21L).value("next").build());
+		new TreeSnapshotWriter<>(ValueCodecs.STRING, ValueCodecs.LONG).write(root, path);
+		MappedTreeSnapshot<String, Long> large = MappedTreeSnapshot.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG);
+		assertEquals(large.getNodeCount(), 14);
+		assertEquals(large.getRoot().findById(20L).getValue(), value);
+		assertEquals(large.getRoot().findById(21L).getValue(), "next");
+		assertEquals(large.getRoot().findById(9L).getDisplayValue(), "third");
+	}
+}
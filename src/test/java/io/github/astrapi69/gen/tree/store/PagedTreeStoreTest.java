@@ -0,0 +1,252 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.store;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.TreeIdNode;
+import io.github.astrapi69.gen.tree.codec.ValueCodecs;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+import io.github.astrapi69.gen.tree.lazy.LazyBaseTreeNode;
+
+/**
+ * The unit test class for the class {@link PagedTreeStore}
+ */
+public class PagedTreeStoreTest
+{
+
+	Path path;
+
+	/**
+	 * Set up the store file for the unit tests
+	 */
+	@BeforeMethod
+	public void setup() throws IOException
+	{
+		path = Files.createTempFile("tree", ".store");
+		Files.delete(path);
+	}
+
+	/**
+	 * Delete the store file
+	 */
+	@AfterMethod
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Test method for the navigation and the persistence of the test tree
+	 */
+	@Test
+	public void testNavigateAndReopen() throws IOException
+	{
+		Map<Long, TreeIdNode<String, Long>> keyMap = BaseTreeNodeTransformer
+			.toKeyMap(new BaseTreeNodeTestTree().getRoot());
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG))
+		{
+			for (TreeIdNode<String, Long> treeIdNode : keyMap.values())
+			{
+				store.put(treeIdNode);
+			}
+			assertEquals(store.size(), 12);
+			assertEquals(store.getRoot().getId(), Long.valueOf(0L));
+			List<Long> childIds = store.getChildren(2L).stream().map(TreeIdNode::getId)
+				.collect(Collectors.toList());
+			assertEquals(childIds, List.of(3L, 7L, 8L));
+			assertEquals(store.getParent(4L).getId(), Long.valueOf(3L));
+			assertNull(store.getParent(0L));
+			assertNull(store.findById(42L));
+		}
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG))
+		{
+			assertEquals(store.asMap(), keyMap);
+			// the returned records are copies
+			store.findById(1L).setValue("changed");
+			assertEquals(store.findById(1L).getValue(), "I'm the first child");
+			LazyBaseTreeNode<String, Long> root = store.getView().getRoot();
+			assertEquals(root.findById(11L).getValue(), "I'm the fifth grand child");
+		}
+	}
+
+	/**
+	 * Test method for the page cache with more pages than cached pages
+	 */
+	@Test
+	public void testPageCacheEviction() throws IOException
+	{
+		int nodeCount = 5000;
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG, 512, 4))
+		{
+			TreeIdNode<String, Long> root = TreeIdNode.<String, Long> builder().id(0L)
+				.value("root").build();
+			for (long id = 1; id < nodeCount; id++)
+			{
+				long parentId = (id - 1) / 10;
+				TreeIdNode<String, Long> parent = parentId == 0 ? root : store.findById(parentId);
+				TreeIdNode<String, Long> child = TreeIdNode.<String, Long> builder().id(id)
+					.value("value" + id).build();
+				parent.addChild(child);
+				store.put(parent);
+				store.put(child);
+				if (parentId == 0)
+				{
+					root = parent;
+				}
+			}
+			PageCacheMetrics metrics = store.getMetrics();
+			assertTrue(4 < metrics.getPageCount());
+			assertEquals(metrics.getCachedPages(), 4);
+			assertTrue(0 < metrics.getEvictions());
+			assertTrue(0 < metrics.getWriteBacks());
+			store.resetMetrics();
+			for (long id = 1; id < nodeCount; id++)
+			{
+				assertEquals(store.findById(id).getValue(), "value" + id);
+			}
+			assertEquals(store.getChildren(1L).size(), 10);
+			assertEquals(store.getMetrics().getHits() + store.getMetrics().getMisses(),
+				nodeCount + 10L);
+		}
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG, 512, 4))
+		{
+			assertEquals(store.size(), nodeCount);
+			assertEquals(store.findById(4999L).getParentId(), Long.valueOf(499L));
+			assertEquals(store.getChildren(0L).size(), 10);
+			assertEquals(store.remove(4999L).getValue(), "value4999");
+			assertEquals(store.size(), nodeCount - 1);
+		}
+	}
+
+	/**
+	 * Test method for {@link PagedTreeStore#put(TreeIdNode)} with a record that grows out of its
+	 * page
+	 */
+	@Test
+	public void testPutGrowingRecord() throws IOException
+	{
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG, 128, 2))
+		{
+			store.put(TreeIdNode.<String, Long> builder().id(1L).value("a").build());
+			store.put(TreeIdNode.<String, Long> builder().id(2L).value("b").build());
+			store.put(TreeIdNode.<String, Long> builder().id(1L).value("a".repeat(100)).build());
+			assertEquals(store.findById(1L).getValue(), "a".repeat(100));
+			assertEquals(store.findById(2L).getValue(), "b");
+		}
+	}
+
+	/**
+	 * Test method for {@link PagedTreeStore#put(TreeIdNode)} with a record that is larger than a
+	 * page and is written to overflow pages
+	 */
+	@Test
+	public void testPutWideRecord() throws IOException
+	{
+		int childCount = 3000;
+		TreeIdNode<String, Long> root = TreeIdNode.<String, Long> builder().id(0L).value("root")
+			.build();
+		for (long id = 1; id <= childCount; id++)
+		{
+			root.getChildrenIds().add(id);
+		}
+		int pageCount;
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG, 512, 4))
+		{
+			store.put(root);
+			for (long id = 1; id <= childCount; id++)
+			{
+				store.put(TreeIdNode.<String, Long> builder().id(id).parentId(0L)
+					.value("value" + id).build());
+			}
+			assertEquals(store.findById(0L).getChildrenIds(), root.getChildrenIds());
+			assertEquals(store.getChildren(0L).size(), childCount);
+			assertEquals(store.getRoot().getId(), Long.valueOf(0L));
+			pageCount = store.getMetrics().getPageCount();
+		}
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG, 512, 4))
+		{
+			assertEquals(store.size(), childCount + 1);
+			assertEquals(store.findById(0L).getChildrenIds(), root.getChildrenIds());
+			assertEquals(store.findById(childCount + 0L).getValue(), "value" + childCount);
+			// the overflow pages of the replaced record are reused
+			store.put(root);
+			assertEquals(store.getMetrics().getPageCount(), pageCount);
+			assertEquals(store.remove(0L).getChildrenIds().size(), childCount);
+			store.put(root);
+			assertEquals(store.getMetrics().getPageCount(), pageCount);
+		}
+	}
+
+	/**
+	 * Test method for {@link PagedTreeStore#put(TreeIdNode)} with an id that is too large for the
+	 * stub of a record in a page
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testPutTooLargeId() throws IOException
+	{
+		try (PagedTreeStore<String, String> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.STRING, 128, 2))
+		{
+			store.put(TreeIdNode.<String, String> builder().id("a".repeat(200)).build());
+		}
+	}
+
+	/**
+	 * Test method for {@link PagedTreeStore#getRoot()} with parent ids that contain a cycle
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testGetRootWithCycle() throws IOException
+	{
+		try (PagedTreeStore<String, Long> store = PagedTreeStore.open(path, ValueCodecs.STRING,
+			ValueCodecs.LONG))
+		{
+			store.put(TreeIdNode.<String, Long> builder().id(1L).parentId(2L).build());
+			store.put(TreeIdNode.<String, Long> builder().id(2L).parentId(1L).build());
+			store.getRoot();
+		}
+	}
+}
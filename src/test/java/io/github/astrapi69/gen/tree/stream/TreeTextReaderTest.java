@@ -0,0 +1,175 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.gen.tree.stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.function.Function;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.gen.tree.BaseTreeNode;
+import io.github.astrapi69.gen.tree.BaseTreeNodeTestTree;
+import io.github.astrapi69.gen.tree.TreeNode;
+import io.github.astrapi69.gen.tree.convert.BaseTreeNodeTransformer;
+
+/**
+ * The unit test class for the class {@link TreeTextReader} and {@link TreeTextWriter}
+ */
+public class TreeTextReaderTest
+{
+
+	BaseTreeNodeTestTree testTree;
+
+	/**
+	 * Set up the tree structure for the unit tests
+	 */
+	@BeforeMethod
+	public void setup()
+	{
+		testTree = new BaseTreeNodeTestTree();
+		testTree.getThirdChild().setDisplayValue("third \"child\"\n");
+	}
+
+	/**
+	 * Writes the given tree as text
+	 */
+	private String write(BaseTreeNode<String, Long> root) throws IOException
+	{
+		StringWriter stringWriter = new StringWriter();
+		try (TreeTextWriter<String, Long> writer = new TreeTextWriter<>(stringWriter,
+			Function.identity(), String::valueOf))
+		{
+			TreeEventEmitter.emit(root, writer);
+		}
+		return stringWriter.toString();
+	}
+
+	/**
+	 * Test method for the round trip of a {@link BaseTreeNode} tree
+	 */
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		String text = write(testTree.getRoot());
+		assertTrue(text.startsWith("{\"id\":\"0\",\"value\":\"I'm root\",\"children\":[{"));
+		BaseTreeNodeEventBuilder<String, Long> builder = new BaseTreeNodeEventBuilder<>();
+		new TreeTextReader<>(new StringReader(text), Function.identity(), Long::valueOf)
+			.read(builder);
+		BaseTreeNode<String, Long> root = builder.getRoot();
+		assertEquals(BaseTreeNodeTransformer.toKeyMap(root),
+			BaseTreeNodeTransformer.toKeyMap(testTree.getRoot()));
+		assertEquals(root.findById(9L).getDisplayValue(), "third \"child\"\n");
+		assertTrue(root.findById(11L).isLeaf());
+		assertNull(root.findById(8L).getValue());
+		assertEquals(write(root), text);
+	}
+
+	/**
+	 * Test method for reading a {@link TreeNode} tree from a deep and formatted text
+	 */
+	@Test
+	public void testReadDeepTreeNode() throws IOException
+	{
+		int depth = 100000;
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < depth; i++)
+		{
+			text.append("{ \"value\" : \"").append(i).append("\", \"children\" : [\n");
+		}
+		text.append("{\"leaf\":true, \"value\":null}");
+		for (int i = 0; i < depth; i++)
+		{
+			text.append("]}");
+		}
+		TreeNodeEventBuilder<String, Long> builder = new TreeNodeEventBuilder<>();
+		new TreeTextReader<String, Long>(new StringReader(text.toString()), Function.identity(),
+			Long::valueOf).read(builder);
+		TreeNode<String> current = builder.getRoot();
+		for (int i = 0; i < depth; i++)
+		{
+			assertEquals(current.getValue(), String.valueOf(i));
+			assertEquals(current.getChildren().size(), 1);
+			current = current.getChildren().iterator().next();
+		}
+		assertTrue(current.isLeaf());
+		assertNull(current.getValue());
+	}
+
+	/**
+	 * Test method for {@link TreeTextReader#read(TreeEventHandler)} with any member order and
+	 * unknown members
+	 */
+	@Test
+	public void testReadMemberOrder() throws IOException
+	{
+		String text = "{\"value\":\"root\",\"extra\":{\"a\":[1,{\"b\":\"]\"}]},\"id\":7,"
+			+ "\"children\":[{\"leaf\":true,\"id\":8,\"value\":\"\\u0041\"},{\"id\":9}]}";
+		BaseTreeNodeEventBuilder<String, Long> builder = new BaseTreeNodeEventBuilder<>();
+		new TreeTextReader<>(new StringReader(text), Function.identity(), Long::valueOf)
+			.read(builder);
+		BaseTreeNode<String, Long> root = builder.getRoot();
+		assertEquals(root.getId(), Long.valueOf(7L));
+		assertEquals(root.getValue(), "root");
+		assertEquals(root.getChildren().size(), 2);
+		assertEquals(root.findById(8L).getValue(), "A");
+		assertTrue(root.findById(8L).isLeaf());
+	}
+
+	/**
+	 * Test method for {@link TreeTextReader#read(TreeEventHandler)} with a member after the
+	 * children
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testReadMemberAfterChildren() throws IOException
+	{
+		new TreeTextReader<String, Long>(new StringReader("{\"children\":[],\"value\":\"x\"}"),
+			Function.identity(), Long::valueOf).read(new BaseTreeNodeEventBuilder<>());
+	}
+
+	/**
+	 * Test method for {@link TreeEventEmitter#emit(TreeNode, TreeEventHandler)}
+	 */
+	@Test
+	public void testEmitTreeNode() throws IOException
+	{
+		TreeNode<String> root = TreeNode.<String> builder().value("root").build();
+		TreeNode<String> child = TreeNode.<String> builder().value("child").leaf(true).build();
+		root.addChild(child);
+		StringWriter stringWriter = new StringWriter();
+		TreeTextWriter<String, Long> writer = new TreeTextWriter<>(stringWriter,
+			Function.identity(), String::valueOf);
+		TreeEventEmitter.emit(root, writer);
+		writer.flush();
+		assertEquals(stringWriter.toString(),
+			"{\"value\":\"root\",\"children\":[{\"leaf\":true,\"value\":\"child\"}]}");
+	}
+}